@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -186,7 +187,8 @@ class AuditLogFilterBuilder {
             final JsonValue result = json(object());
             for (String key : value.keys()) {
                 JsonValue child = getByGlob(value.get(key), remainingPath);
-                if (child.size() > 0) {
+                // keep the matched strings, like query filter conditions, and the non-empty configurations
+                if (child.isString() || child.size() > 0) {
                     result.put(key, child);
                 }
             }
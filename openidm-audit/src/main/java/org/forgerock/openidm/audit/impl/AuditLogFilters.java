@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -31,6 +32,8 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.RequestType;
+import org.forgerock.openidm.condition.Condition;
+import org.forgerock.openidm.condition.Conditions;
 import org.forgerock.openidm.sync.ReconAction;
 import org.forgerock.openidm.sync.TriggerContext;
 import org.forgerock.script.Script;
@@ -264,6 +267,28 @@ public class AuditLogFilters {
         }
     }
 
+    /**
+     * A filter that only includes the events matching a query filter condition, evaluated against the event.
+     */
+    private static class ConditionFilter implements AuditLogFilter {
+        private final Condition condition;
+
+        private ConditionFilter(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean isFiltered(Context context, CreateRequest request) {
+            try {
+                // Like the scripts, the condition selects the events to include
+                return !condition.evaluate(request.getContent(), context);
+            } catch (JsonValueException e) {
+                logger.warn("Audit filter condition threw exception {} - not filtering", e.toString());
+                return false;
+            }
+        }
+    }
+
     /**
      * An abstract composite filter that wraps a list of other filters.
      */
@@ -480,6 +505,18 @@ public class AuditLogFilters {
         return newEventTypeFilter(eventType, newScriptedFilter(scriptEntry));
     }
 
+    /**
+     * Creates an audit log filter from a query filter condition for a particular event type. Unlike a script, the
+     * condition is compiled once, and evaluated against each event without calling the script engine.
+     *
+     * @param eventType the event type
+     * @param condition the query filter selecting the events to include
+     * @return an audit log filter via query filter condition
+     */
+    static AuditLogFilter newConditionFilter(String eventType, String condition) {
+        return newEventTypeFilter(eventType, new ConditionFilter(Conditions.newCondition(condition)));
+    }
+
     /**
      * Creates an field-value filter.
      *
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 package org.forgerock.openidm.audit.impl;
 
@@ -242,7 +242,20 @@ public class AuditServiceImpl implements AuditService {
                         }
                     })
             /* filter events with specific field values for any event type */
-            .add("eventTopics/*/filter/fields", fieldJsonValueObjectConverter);
+            .add("eventTopics/*/filter/fields", fieldJsonValueObjectConverter)
+            /* filter events matching a query filter for any event type */
+            .add("eventTopics/*/filter/condition",
+                    new JsonValueObjectConverter<AuditLogFilter>() {
+                        @Override
+                        public AuditLogFilter apply(JsonValue conditionConfig) {
+                            List<AuditLogFilter> filters = new ArrayList<>();
+                            for (String eventType : conditionConfig.keys()) {
+                                filters.add(newConditionFilter(eventType,
+                                        conditionConfig.get(eventType).required().asString()));
+                            }
+                            return newOrCompositeFilter(filters);
+                        }
+                    });
 
     private enum DefaultAuditTopics {
         access,
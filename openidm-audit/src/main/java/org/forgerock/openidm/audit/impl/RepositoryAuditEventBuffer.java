@@ -0,0 +1,317 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.audit.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.audit.AuditingContext;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.EventBufferingConfiguration;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues the events published to the {@link RepositoryAuditEventHandler} and writes them to the repository in
+ * batches from a background thread, through the {@code bulk} action of the repository, rather than with one create
+ * request each on the thread publishing the event.
+ * <p>
+ * The writer waits up to the write interval for a batch to fill up to the maximum batch size. If the repository does
+ * not support the bulk action, or a batch fails as a whole, the events are created one by one on the writer thread.
+ * Failures to write an event are logged; they are not reported to the publisher of the event, which has
+ * already returned.
+ * <p>
+ * The time spent writing each batch is published as the {@code openidm/internal/audit/repo/flush} event. A batch
+ * holds the events of several requests, so it is written with an internal context rather than the context of any one
+ * of them.
+ */
+final class RepositoryAuditEventBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryAuditEventBuffer.class);
+
+    static final String ACTION_BULK = "bulk";
+
+    /** Time spent writing a batch of events to the repository */
+    private static final Name EVENT_FLUSH = Name.get("openidm/internal/audit/repo/flush");
+
+    /**
+     * What happens to an event published while the queue is full.
+     */
+    enum OverflowPolicy {
+        /** Wait for room in the queue */
+        BLOCK,
+        /** Discard the event */
+        DROP,
+        /** Write the event on the publishing thread */
+        SYNC
+    }
+
+    /**
+     * An event waiting to be written.
+     */
+    private static final class PendingEvent {
+        final Context context;
+        final String topic;
+        final JsonValue content;
+
+        PendingEvent(Context context, String topic, JsonValue content) {
+            this.context = context;
+            this.topic = topic;
+            this.content = content;
+        }
+    }
+
+    private final ResourcePath resourcePath;
+    private final ConnectionFactory connectionFactory;
+    private final BlockingQueue<PendingEvent> queue;
+    private final long writeIntervalMillis;
+    private final int maxBatchedEvents;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private volatile boolean bulkSupported = true;
+    private volatile boolean running = false;
+    private Thread writer;
+
+    /**
+     * @param resourcePath the repository path the topics are written under
+     * @param connectionFactory the connection factory to the repository
+     * @param configuration the buffering configuration
+     */
+    RepositoryAuditEventBuffer(ResourcePath resourcePath, ConnectionFactory connectionFactory,
+            EventBufferingConfiguration configuration) {
+        this.resourcePath = resourcePath;
+        this.connectionFactory = connectionFactory;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, configuration.getMaxSize()));
+        this.writeIntervalMillis = Duration.duration(configuration.getWriteInterval()).to(TimeUnit.MILLISECONDS);
+        this.maxBatchedEvents = Math.max(1, configuration.getMaxBatchedEvents());
+        this.overflowPolicy = OverflowPolicy.valueOf(configuration.getOverflowPolicy().toUpperCase());
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    synchronized void startup() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEvents();
+            }
+        }, "repo-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread once the queued events are written.
+     */
+    synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            if (writer.isAlive()) {
+                logger.warn("Audit writer did not complete, {} events not written", queue.size());
+                writer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Queues an event to write.
+     *
+     * @param context the context of the event
+     * @param topic the topic of the event
+     * @param content the event
+     * @return false if the event was not queued and has to be written by the caller, true if it was queued or
+     *          dropped
+     */
+    boolean offer(Context context, String topic, JsonValue content) {
+        if (!running) {
+            return false;
+        }
+        PendingEvent event = new PendingEvent(context, topic, content);
+        if (queue.offer(event)) {
+            return true;
+        }
+        switch (overflowPolicy) {
+        case DROP:
+            if (droppedEvents.incrementAndGet() % 1000 == 1) {
+                logger.warn("Audit event queue is full, {} events dropped so far", droppedEvents.get());
+            }
+            return true;
+        case SYNC:
+            return false;
+        default:
+            try {
+                queue.put(event);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Writes the queued events in batches until the buffer is shut down and the queue is empty.
+     */
+    private void writeEvents() {
+        final List<PendingEvent> batch = new ArrayList<>(maxBatchedEvents);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingEvent first = queue.poll(writeIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Wait for the batch to fill up, up to the write interval
+                long deadline = System.currentTimeMillis() + writeIntervalMillis;
+                while (batch.size() < maxBatchedEvents) {
+                    queue.drainTo(batch, maxBatchedEvents - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= maxBatchedEvents || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to write batch of {} audit events", batch.size(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Audit writer interrupted, {} events not written", batch.size() + queue.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes a batch of events to the repository.
+     *
+     * @param batch the events to write
+     */
+    private void flush(List<PendingEvent> batch) {
+        final long start = System.currentTimeMillis();
+        final EventEntry measure = Publisher.start(EVENT_FLUSH, batch.size(), null);
+        try {
+            if (bulkSupported) {
+                try {
+                    writeBulk(batch);
+                    return;
+                } catch (NotSupportedException | BadRequestException | NotFoundException e) {
+                    logger.info("Repository does not support bulk audit writes, writing events one by one: {}",
+                            e.getMessage());
+                    bulkSupported = false;
+                } catch (ResourceException e) {
+                    logger.warn("Failed to write batch of {} audit events, writing them one by one",
+                            batch.size(), e);
+                }
+            }
+            for (PendingEvent event : batch) {
+                try {
+                    create(event.context, event.topic, event.content);
+                } catch (ResourceException e) {
+                    logger.warn("Failed to write {} audit event {}", event.topic, event.content, e);
+                }
+            }
+        } finally {
+            measure.end();
+            logger.debug("Wrote {} audit events in {}ms, {} events queued",
+                    batch.size(), System.currentTimeMillis() - start, queue.size());
+        }
+    }
+
+    private void writeBulk(List<PendingEvent> batch) throws ResourceException {
+        final List<Object> operations = new ArrayList<>(batch.size());
+        for (PendingEvent event : batch) {
+            operations.add(object(
+                    field("operation", "create"),
+                    field("resourcePath", event.topic),
+                    field("newResourceId", event.content.get(ResourceResponse.FIELD_CONTENT_ID).asString()),
+                    field("content", event.content.getObject())));
+        }
+        ActionResponse response = connectionFactory.getConnection().action(
+                new AuditingContext(ContextUtil.createInternalContext()),
+                newActionRequest(resourcePath, ACTION_BULK).setContent(json(object(field("operations", operations)))));
+        JsonValue results = response.getJsonContent();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isDefined("error")) {
+                logger.warn("Failed to write {} audit event {}: {}",
+                        batch.get(i).topic, batch.get(i).content, results.get(i).get("error"));
+            }
+        }
+    }
+
+    /**
+     * Writes one event to the repository.
+     *
+     * @param context the context of the event
+     * @param topic the topic of the event
+     * @param content the event
+     * @return the created event
+     * @throws ResourceException if the event could not be written
+     */
+    private ResourceResponse create(Context context, String topic, JsonValue content) throws ResourceException {
+        return connectionFactory.getConnection().create(new AuditingContext(context),
+                newCreateRequest(
+                        resourcePath.concat(topic),
+                        content.get(ResourceResponse.FIELD_CONTENT_ID).asString(),
+                        content));
+    }
+}
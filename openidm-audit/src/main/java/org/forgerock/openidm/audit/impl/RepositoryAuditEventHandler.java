@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -19,6 +20,7 @@ package org.forgerock.openidm.audit.impl;
 import static org.forgerock.json.resource.Requests.copyOfQueryRequest;
 import static org.forgerock.json.resource.Requests.newCreateRequest;
 import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import javax.inject.Inject;
@@ -41,6 +43,9 @@ import org.forgerock.util.promise.Promise;
 /**
  * Audit event handler for Repository.  This is implemented to use the router where the resourcePath is
  * hardcoded to be "repo/audit".
+ * <p>
+ * When buffering is enabled the events are queued and written in batches by a {@link RepositoryAuditEventBuffer},
+ * so an event may not be visible to reads and queries until its batch is written.
  */
 public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
     /**
@@ -53,6 +58,11 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
      */
     private final ConnectionFactory connectionFactory;
 
+    /**
+     * The buffer writing the events in batches, or null if the events are written as they are published.
+     */
+    private final RepositoryAuditEventBuffer buffer;
+
     @Inject
     public RepositoryAuditEventHandler(
             final RepositoryAuditEventHandlerConfiguration configuration,
@@ -61,16 +71,23 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
         super(configuration.getName(), eventTopicsMetaData, configuration.getTopics(), configuration.isEnabled());
         this.resourcePath = ResourcePath.valueOf(configuration.getResourcePath());
         this.connectionFactory = connectionFactory;
+        this.buffer = configuration.getBuffering() != null && configuration.getBuffering().isEnabled()
+                ? new RepositoryAuditEventBuffer(resourcePath, connectionFactory, configuration.getBuffering())
+                : null;
     }
 
     @Override
     public void startup() throws ResourceException {
-        // do nothing
+        if (buffer != null) {
+            buffer.startup();
+        }
     }
 
     @Override
     public void shutdown() throws ResourceException {
-        // do nothing
+        if (buffer != null) {
+            buffer.shutdown();
+        }
     }
 
     @Override
@@ -78,17 +95,26 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
             final String auditEventTopic,
             final JsonValue auditEventContent) {
         try {
-            final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
-            return newResultPromise(connectionFactory.getConnection().create(new AuditingContext(context),
-                    newCreateRequest(
-                            resourcePath.concat(auditEventTopic),
-                            auditEventId,
-                            auditEventContent)));
+            if (buffer != null && buffer.offer(context, auditEventTopic, auditEventContent)) {
+                final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
+                return newResultPromise(newResourceResponse(auditEventId, null, auditEventContent));
+            }
+            return newResultPromise(writeEvent(context, auditEventTopic, auditEventContent));
         } catch (ResourceException e) {
             return e.asPromise();
         }
     }
 
+    private ResourceResponse writeEvent(final Context context, final String auditEventTopic,
+            final JsonValue auditEventContent) throws ResourceException {
+        final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
+        return connectionFactory.getConnection().create(new AuditingContext(context),
+                newCreateRequest(
+                        resourcePath.concat(auditEventTopic),
+                        auditEventId,
+                        auditEventContent));
+    }
+
     @Override
     public Promise<ResourceResponse, ResourceException> readEvent(final Context context, final String auditEventTopic,
             final String auditEventId) {
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -28,6 +29,8 @@ import org.forgerock.audit.events.handlers.EventHandlerConfiguration;
 public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfiguration {
     private static final String REPO_AUDIT_PATH = "repo/audit";
 
+    private EventBufferingConfiguration buffering = new EventBufferingConfiguration();
+
     /**
      * Returns the fixed path to repository audits.
      * @return #REPO_AUDIT_PATH
@@ -37,8 +40,118 @@ public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfig
         return REPO_AUDIT_PATH;
     }
 
+    /**
+     * Returns the configuration of the event buffering.
+     * @return the event buffering configuration
+     */
+    public EventBufferingConfiguration getBuffering() {
+        return buffering;
+    }
+
+    /**
+     * Sets the configuration of the event buffering.
+     * @param buffering the event buffering configuration
+     */
+    public void setBuffering(EventBufferingConfiguration buffering) {
+        this.buffering = buffering;
+    }
+
     @Override
     public boolean isUsableForQueries() {
         return true;
     }
+
+    /**
+     * Configuration of the event buffering: when enabled, the events are queued and written to the repository in
+     * batches by a background thread rather than on the thread publishing them.
+     */
+    @JsonIgnoreProperties(ignoreUnknown=true)
+    public static class EventBufferingConfiguration {
+        private boolean enabled = false;
+        private int maxSize = 5000;
+        private String writeInterval = "100 ms";
+        private int maxBatchedEvents = 100;
+        private String overflowPolicy = RepositoryAuditEventBuffer.OverflowPolicy.BLOCK.name();
+
+        /**
+         * Returns whether the events are buffered and written in batches.
+         * @return true if the events are buffered
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether the events are buffered and written in batches.
+         * @param enabled true to buffer the events
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the maximum number of events waiting to be written.
+         * @return the capacity of the event queue
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Sets the maximum number of events waiting to be written.
+         * @param maxSize the capacity of the event queue
+         */
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns how long the writer waits for a batch to fill up, such as "100 ms".
+         * @return the write interval
+         */
+        public String getWriteInterval() {
+            return writeInterval;
+        }
+
+        /**
+         * Sets how long the writer waits for a batch to fill up.
+         * @param writeInterval the write interval, such as "100 ms"
+         */
+        public void setWriteInterval(String writeInterval) {
+            this.writeInterval = writeInterval;
+        }
+
+        /**
+         * Returns the maximum number of events written with one repository request.
+         * @return the maximum batch size
+         */
+        public int getMaxBatchedEvents() {
+            return maxBatchedEvents;
+        }
+
+        /**
+         * Sets the maximum number of events written with one repository request.
+         * @param maxBatchedEvents the maximum batch size
+         */
+        public void setMaxBatchedEvents(int maxBatchedEvents) {
+            this.maxBatchedEvents = maxBatchedEvents;
+        }
+
+        /**
+         * Returns what happens to an event published while the queue is full: "block", "drop" or "sync".
+         * @return the overflow policy
+         */
+        public String getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        /**
+         * Sets what happens to an event published while the queue is full.
+         * @param overflowPolicy "block" to wait for room in the queue, "drop" to discard the event or "sync"
+         *                       to write it on the publishing thread
+         */
+        public void setOverflowPolicy(String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
 }
\ No newline at end of file
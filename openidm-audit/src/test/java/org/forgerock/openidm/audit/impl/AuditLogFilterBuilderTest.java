@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -27,6 +28,7 @@ import static org.forgerock.openidm.audit.impl.AuditLogFilters.NEVER_FILTER;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.TYPE_ACTIVITY;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newActionFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newAndCompositeFilter;
+import static org.forgerock.openidm.audit.impl.AuditLogFilters.newConditionFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newOrCompositeFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newReconActionFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newScriptedFilter;
@@ -413,6 +415,60 @@ public class AuditLogFilterBuilderTest {
         assertFalse(filter.isFiltered(context, skittle)); // don't filter weird stuff
     }
 
+    @Test
+    public void testConditionFilter() {
+        // Given
+        /*
+        "eventTypes" : {
+            "activity" : {
+                "filter" : {
+                    "condition" : "/operation eq \"create\" or /operation pr and !(/operation eq \"update\")"
+                },
+            },
+        }
+        */
+        JsonValue config = json(
+                object(
+                        field("eventTypes", object(
+                                field("activity", object(
+                                        field("filter", object(
+                                                field("condition",
+                                                        "/operation eq \"create\" or "
+                                                        + "/operation pr and !(/operation eq \"update\")")
+                                        ))
+                                ))
+                        ))
+                ));
+        AuditLogFilter filter = new AuditLogFilterBuilder()
+                .add("eventTypes/*/filter/condition",
+                        new AuditLogFilters.JsonValueObjectConverter<AuditLogFilter>() {
+                            @Override
+                            public AuditLogFilter apply(JsonValue conditionConfig) {
+                                List<AuditLogFilter> filters = new ArrayList<AuditLogFilter>();
+                                for (String eventType : conditionConfig.keys()) {
+                                    filters.add(newConditionFilter(eventType,
+                                            conditionConfig.get(eventType).asString()));
+                                }
+                                return newOrCompositeFilter(filters);
+                            }
+                        })
+                .build(config);
+
+        Context context = mock(Context.class);
+
+        // When
+        CreateRequest create = Requests.newCreateRequest("activity", null, json(object(field("operation", "create"))));
+        CreateRequest update = Requests.newCreateRequest("activity", null, json(object(field("operation", "update"))));
+        CreateRequest skittle = Requests.newCreateRequest("activity", null, json(object(field("operation", "skittle"))));
+        CreateRequest access = Requests.newCreateRequest("access", null, json(object(field("operation", "update"))));
+
+        // Then
+        assertFalse(filter.isFiltered(context, create));  // don't filter creates
+        assertTrue(filter.isFiltered(context, update));   // filter out updates
+        assertFalse(filter.isFiltered(context, skittle)); // don't filter weird stuff
+        assertFalse(filter.isFiltered(context, access));  // don't filter other event types
+    }
+
     private AuditLogFilterBuilder getFieldValueFilterBuilder() {
         return new AuditLogFilterBuilder()
                 .add("/",
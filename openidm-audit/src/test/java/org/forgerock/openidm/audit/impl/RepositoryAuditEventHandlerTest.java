@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.audit.events.EventTopicsMetaDataBuilder;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+public class RepositoryAuditEventHandlerTest {
+
+    private static final String ACCESS = "access";
+
+    private RepositoryAuditEventHandler newHandler(ConnectionFactory connectionFactory, int maxBatchedEvents) {
+        final RepositoryAuditEventHandlerConfiguration config = new RepositoryAuditEventHandlerConfiguration();
+        config.setName("repo");
+        config.setTopics(Collections.singleton(ACCESS));
+        config.getBuffering().setEnabled(true);
+        config.getBuffering().setMaxBatchedEvents(maxBatchedEvents);
+        config.getBuffering().setWriteInterval("10 ms");
+        return new RepositoryAuditEventHandler(config, EventTopicsMetaDataBuilder.coreTopicSchemas().build(),
+                connectionFactory);
+    }
+
+    private static JsonValue event(int i) {
+        return json(object(field(FIELD_CONTENT_ID, "event" + i), field("index", i)));
+    }
+
+    @Test
+    public void testBufferedEventsAreWrittenInBulk() throws Exception {
+        // given
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        final Connection connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.action(any(Context.class), any(ActionRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ActionRequest request = (ActionRequest) invocation.getArguments()[1];
+                assertThat(request.getResourcePath()).isEqualTo("repo/audit");
+                assertThat(request.getAction()).isEqualTo("bulk");
+                JsonValue operations = request.getContent().get("operations");
+                batchSizes.add(operations.size());
+                List<Object> results = new ArrayList<>();
+                for (JsonValue operation : operations) {
+                    assertThat(operation.get("resourcePath").asString()).isEqualTo(ACCESS);
+                    results.add(object(field(FIELD_CONTENT_ID, operation.get("newResourceId").asString())));
+                }
+                return newActionResponse(json(results));
+            }
+        });
+        final RepositoryAuditEventHandler handler = newHandler(connectionFactory, 10);
+        handler.startup();
+
+        // when
+        for (int i = 0; i < 25; i++) {
+            assertThat(handler.publishEvent(new RootContext(), ACCESS, event(i)).getOrThrow().getId())
+                    .isEqualTo("event" + i);
+        }
+        handler.shutdown();
+
+        // then
+        int written = 0;
+        for (int size : batchSizes) {
+            assertThat(size).isLessThanOrEqualTo(10);
+            written += size;
+        }
+        assertThat(written).isEqualTo(25);
+        verify(connection, never()).create(any(Context.class), any(CreateRequest.class));
+    }
+
+    @Test
+    public void testBufferedEventsAreCreatedWithoutBulkSupport() throws Exception {
+        // given
+        final MemoryBackend memoryBackend = new MemoryBackend();
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate("repo/audit/" + ACCESS), memoryBackend);
+        final ConnectionFactory connectionFactory = Resources.newInternalConnectionFactory(router);
+        final RepositoryAuditEventHandler handler = newHandler(connectionFactory, 10);
+        handler.startup();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            handler.publishEvent(new RootContext(), ACCESS, event(i)).getOrThrow();
+        }
+        handler.shutdown();
+
+        // then
+        for (int i = 0; i < 5; i++) {
+            assertThat(connectionFactory.getConnection()
+                    .read(new RootContext(), newReadRequest("repo/audit/" + ACCESS, "event" + i))
+                    .getContent().get("index").asInteger()).isEqualTo(i);
+        }
+    }
+}
@@ -79,6 +79,7 @@ import org.forgerock.json.resource.http.HttpContext;
 import org.forgerock.openidm.auth.api.GetAuthTokenActionRequest;
 import org.forgerock.openidm.auth.api.GetAuthTokenActionResponse;
 import org.forgerock.openidm.auth.api.LogoutActionResponse;
+import org.forgerock.openidm.auth.api.PrincipalCacheStatisticsActionResponse;
 import org.forgerock.openidm.auth.api.ReauthenticateActionResponse;
 import org.forgerock.openidm.auth.modules.IDMAuthModule;
 import org.forgerock.openidm.auth.modules.IDMAuthModuleWrapper;
@@ -86,6 +87,7 @@ import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.filter.MutableFilterDecorator;
 import org.forgerock.openidm.idp.impl.api.IdentityProviderServiceResourceWithNoSecret;
 import org.forgerock.openidm.keystore.SharedKeyService;
 import org.forgerock.openidm.idp.client.OAuthHttpClient;
@@ -95,6 +97,7 @@ import org.forgerock.openidm.idp.impl.IdentityProviderService;
 import org.forgerock.openidm.idp.impl.IdentityProviderServiceException;
 import org.forgerock.openidm.idp.impl.ProviderConfigMapper;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.openidm.util.HeaderUtil;
 import org.forgerock.openidm.util.JettyPropertyUtil;
 import org.forgerock.script.ScriptRegistry;
@@ -147,6 +150,11 @@ import org.slf4j.LoggerFactory;
  *                 }
  *             }
  *         ]
+ *     },
+ *     "principalCache" : {
+ *         "enabled" : false,
+ *         "maxEntries" : 1000,
+ *         "ttl" : "60 seconds"
  *     }
  * }
  *     </code>
@@ -219,6 +227,12 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
     /** The authenticators to delegate to.*/
     private List<Authenticator> authenticators = new ArrayList<>();
 
+    /** The cache of the authenticated principals, rebuilt when the configuration changes */
+    private volatile PrincipalCache principalCache = PrincipalCache.DISABLED;
+
+    /** The router filter invalidating the cached principals - delegates to the current cache */
+    private final MutableFilterDecorator principalCacheFilter = new MutableFilterDecorator();
+
     // ----- Declarative Service Implementation
 
     @Reference
@@ -256,6 +270,30 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         identityProviderService = null;
     }
 
+    /**
+     * Adds the filter invalidating the cached principals to the router filter chain.
+     *
+     * @param filterRegistration the router filter registration service
+     */
+    @Reference(
+            name = "RouterFilterRegistration",
+            service = RouterFilterRegistration.class,
+            unbind = "unbindRouterFilterRegistration",
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    void bindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.addFilter(principalCacheFilter);
+    }
+
+    /**
+     * Removes the filter invalidating the cached principals from the router filter chain.
+     *
+     * @param filterRegistration the router filter registration service
+     */
+    void unbindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.removeFilter(principalCacheFilter);
+    }
+
     /** An on-demand Provider for the ConnectionFactory */
     private final Provider<ConnectionFactory> connectionFactoryProvider =
             new Provider<ConnectionFactory>() {
@@ -274,9 +312,18 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
                 }
             };
 
+    /** An on-demand Provider for the PrincipalCache */
+    private final Provider<PrincipalCache> principalCacheProvider =
+            new Provider<PrincipalCache>() {
+                @Override
+                public PrincipalCache get() {
+                    return principalCache;
+                }
+            };
+
     /** a factory Function to build an Authenticator from an auth module config */
     private final AuthenticatorFactory toAuthenticatorFromProperties =
-            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider);
+            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider, principalCacheProvider);
 
     /** A {@link Predicate} that returns whether the auth module is enabled */
     private static final Predicate<JsonValue> enabledAuthModules =
@@ -489,6 +536,11 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
             return;
         }
         amendedConfig = config.copy();
+
+        // start with an empty cache, as the modules the principals were cached by may have changed
+        principalCache = PrincipalCache.fromConfig(config.get(PrincipalCache.PRINCIPAL_CACHE_KEY));
+        principalCacheFilter.setDelegate(principalCache.newInvalidationFilter());
+
         // the auth module list config lives under at /serverAuthConfig/authModule
         final JsonValue authModuleConfig = amendedConfig.get(SERVER_AUTH_CONTEXT_KEY).get(AUTH_MODULES_KEY);
         amendAuthConfig(authModuleConfig);
@@ -535,6 +587,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         logger.debug("OpenIDM Config for Authentication {} is deactivated.", config.get(Constants.SERVICE_PID));
         config = null;
         authenticators.clear();
+        principalCache = PrincipalCache.DISABLED;
+        principalCacheFilter.setDelegate(principalCache.newInvalidationFilter());
 
         // remove CAF filter from CHF filter wrapper
         if (authFilterWrapper != null) {
@@ -635,7 +689,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         }
 
         // wrap all auth modules in our wrapper to apply the IDM business logic
-        return configureModule(new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry))
+        return configureModule(new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry,
+                principalCache))
                 .withSettings(moduleProperties.asMap());
     }
 
@@ -651,7 +706,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
 
     // ----- Implementation of SingletonResourceProvider interface
 
-    enum Action {reauthenticate, getAuthToken, logout}
+    enum Action {reauthenticate, getAuthToken, logout, getPrincipalCacheStatistics}
 
     /**
      * Action support, including reauthenticate action {@inheritDoc}
@@ -696,6 +751,13 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
                             }),
                     name = "reauthenticate",
                     response = @Schema(fromType = ReauthenticateActionResponse.class)
+            ),
+            @org.forgerock.api.annotations.Action(
+                    operationDescription = @Operation(
+                            description = "Returns the size and the hit, miss, eviction and invalidation counts"
+                                    + " of the cache of the authenticated principals."),
+                    name = "getPrincipalCacheStatistics",
+                    response = @Schema(fromType = PrincipalCacheStatisticsActionResponse.class)
             )
     })
     @Override
@@ -756,6 +818,15 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
                     context.asContext(AttributesContext.class).getAttributes()
                             .put(LOGOUT_SESSION_REQUEST_ATTRIBUTE_NAME, true);
                     return newActionResponse(json(object(field("success", true)))).asPromise();
+                case getPrincipalCacheStatistics:
+                    final PrincipalCache cache = principalCache;
+                    return newActionResponse(json(object(
+                            field("enabled", cache.isEnabled()),
+                            field("size", cache.getSize()),
+                            field("hits", cache.getHits()),
+                            field("misses", cache.getMisses()),
+                            field("evictions", cache.getEvictions()),
+                            field("invalidations", cache.getInvalidations())))).asPromise();
                 default:
                     return new BadRequestException("Action " + request.getAction() +
                             " on authentication service not supported").asPromise();
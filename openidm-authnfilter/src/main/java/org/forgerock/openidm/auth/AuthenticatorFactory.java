@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth;
@@ -43,11 +44,24 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
 
     private final Provider<ConnectionFactory> connectionFactoryProvider;
     private final Provider<CryptoService> cryptoServiceProvider;
+    private final Provider<PrincipalCache> principalCacheProvider;
 
     public AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
             final Provider<CryptoService> cryptoServiceProvider) {
+        this(connectionFactoryProvider, cryptoServiceProvider, new Provider<PrincipalCache>() {
+            @Override
+            public PrincipalCache get() {
+                return PrincipalCache.DISABLED;
+            }
+        });
+    }
+
+    public AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
+            final Provider<CryptoService> cryptoServiceProvider,
+            final Provider<PrincipalCache> principalCacheProvider) {
         this.connectionFactoryProvider = connectionFactoryProvider;
         this.cryptoServiceProvider = cryptoServiceProvider;
+        this.principalCacheProvider = principalCacheProvider;
     }
 
     /**
@@ -61,6 +75,7 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
     public Authenticator apply(JsonValue jsonValue) {
         if (!jsonValue.get(QUERY_ID).isNull()) {
             return new ResourceQueryAuthenticator(cryptoServiceProvider, connectionFactoryProvider,
+                    principalCacheProvider,
                     jsonValue.get(QUERY_ON_RESOURCE).required().asString(),
                     jsonValue.get(QUERY_ID).required().asString(),
                     jsonValue.get(PROPERTY_MAPPING).get(AUTHENTICATION_ID).required().asString(),
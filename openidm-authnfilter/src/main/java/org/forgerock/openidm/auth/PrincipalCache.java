@@ -0,0 +1,480 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.auth;
+
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.encode.Base64;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of the authenticated principals, so that a client authenticating on every request does not cost a
+ * query of its user object, the reads of its relationships and a password hash comparison each time.
+ * <p>
+ * Principals are cached by the authenticator or auth module which resolved them, the resource they were queried on,
+ * their authentication id and a fingerprint of the credential they presented, which is an HMAC of the credential
+ * under a key generated for each cache; the credential itself is never kept. Entries expire after the configured
+ * time to live, and the least recently used entries are evicted when the cache is full. Failed authentications are
+ * not cached.
+ * <p>
+ * The filter returned by {@link #newInvalidationFilter()} removes the entries of a principal whenever its object,
+ * or one of its relationships, is created, updated, patched, deleted or the target of an action through the router
+ * of this node, so a changed password, status or role is seen on the next request to this node. Changes made on
+ * another node of a cluster, directly in the repository, or from the other side of a relationship, such as the
+ * members of a role, are only seen once the entry expires: until then, the previous credential and roles of the
+ * principal remain accepted. The cache is therefore disabled unless enabled in the configuration.
+ */
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    /** The configuration key of the cache in the authentication configuration */
+    public static final String PRINCIPAL_CACHE_KEY = "principalCache";
+
+    private static final String ENABLED = "enabled";
+    private static final String MAX_ENTRIES = "maxEntries";
+    private static final String TTL = "ttl";
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+    static final String DEFAULT_TTL = "60 seconds";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String REPO = "repo";
+    private static final char SEPARATOR = '\u0000';
+
+    /** A disabled cache, which never returns a principal */
+    public static final PrincipalCache DISABLED = new PrincipalCache(false, 0, 0);
+
+    /** Numbers the scopes, so that each authenticator and auth module instance has its own entries */
+    private static final AtomicLong scopes = new AtomicLong();
+
+    /**
+     * A cached principal.
+     */
+    public static final class CachedPrincipal {
+        private final ResourceResponse resource;
+        private final List<String> roles;
+        private final String indexKey;
+        private final long expires;
+
+        private CachedPrincipal(ResourceResponse resource, List<String> roles, String indexKey, long expires) {
+            this.resource = resource;
+            this.roles = roles;
+            this.indexKey = indexKey;
+            this.expires = expires;
+        }
+
+        /**
+         * @return a copy of the resource of the principal
+         */
+        public ResourceResponse getResource() {
+            return copyOf(resource);
+        }
+
+        /**
+         * @return a copy of the roles of the principal, or null if they were not cached
+         */
+        public List<String> getRoles() {
+            return roles != null ? new ArrayList<>(roles) : null;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final SecretKeySpec fingerprintKey;
+
+    /** The entries by cache key, in least recently used order */
+    private final LinkedHashMap<String, CachedPrincipal> entries;
+
+    /** The cache keys of the entries by queried resource and resource id */
+    private final Map<String, Set<String>> keysByResource = new HashMap<>();
+
+    /** The resources that principals are queried on, without the repo prefix */
+    private final Set<ResourcePath> cachedResources =
+            Collections.newSetFromMap(new ConcurrentHashMap<ResourcePath, Boolean>());
+
+    /** Incremented on every invalidation, so that a principal read before an invalidation is not cached after it */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructs a cache.
+     *
+     * @param enabled whether principals are cached
+     * @param maxEntries the maximum number of cached principals
+     * @param ttlMillis the time a principal is cached for, in milliseconds
+     */
+    PrincipalCache(boolean enabled, int maxEntries, long ttlMillis) {
+        this.enabled = enabled && maxEntries > 0 && ttlMillis > 0;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        if (this.enabled) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        } else {
+            this.fingerprintKey = null;
+        }
+        this.entries = new LinkedHashMap<String, CachedPrincipal>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                if (size() > PrincipalCache.this.maxEntries) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache from the principal cache configuration, such as
+     * {@code { "enabled" : true, "maxEntries" : 1000, "ttl" : "60 seconds" }}.
+     *
+     * @param config the principal cache configuration, may be null
+     * @return the cache; disabled unless the configuration enables it
+     */
+    public static PrincipalCache fromConfig(JsonValue config) {
+        if (config == null || config.isNull() || !config.get(ENABLED).defaultTo(false).asBoolean()) {
+            return DISABLED;
+        }
+        final long ttlMillis = Duration.duration(config.get(TTL).defaultTo(DEFAULT_TTL).asString())
+                .to(TimeUnit.MILLISECONDS);
+        return new PrincipalCache(true, config.get(MAX_ENTRIES).defaultTo(DEFAULT_MAX_ENTRIES).asInteger(),
+                ttlMillis);
+    }
+
+    /**
+     * @return whether principals are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current generation of the cache, to be passed to {@link #put} once the principal is resolved.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns a new scope of cache entries, to be passed to {@link #key} by an authenticator or auth module so that
+     * the principals it resolved are not returned to another one.
+     *
+     * @param name the name of the authenticator or auth module
+     * @return the scope, unique to the caller
+     */
+    public static String newScope(String name) {
+        return name + "#" + scopes.incrementAndGet();
+    }
+
+    /**
+     * Returns the cache key of a principal.
+     *
+     * @param scope the scope of the authenticator or auth module which resolved the principal
+     * @param queryOnResource the resource the principal is queried on
+     * @param authenticationId the authentication id of the principal
+     * @param credential the credential the principal authenticated with, or null if the principal was authenticated
+     *        by other means
+     * @return the cache key, or null if the principal cannot be cached
+     */
+    public String key(String scope, String queryOnResource, String authenticationId, String credential) {
+        if (!enabled || scope == null || queryOnResource == null || authenticationId == null) {
+            return null;
+        }
+        cachedResources.add(withoutRepo(ResourcePath.valueOf(queryOnResource)));
+        final StringBuilder key = new StringBuilder(scope).append(SEPARATOR)
+                .append(queryOnResource).append(SEPARATOR).append(authenticationId);
+        if (credential != null) {
+            try {
+                final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(fingerprintKey);
+                key.append(SEPARATOR).append(Base64.encode(mac.doFinal(credential.getBytes(StandardCharsets.UTF_8))));
+            } catch (GeneralSecurityException e) {
+                logger.debug("Unable to fingerprint the credential of {}, not caching it", authenticationId, e);
+                return null;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns a cached principal.
+     *
+     * @param key the cache key of the principal, may be null
+     * @return the cached principal, or null if it is not cached or has expired
+     */
+    public CachedPrincipal get(String key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            final CachedPrincipal entry = entries.get(key);
+            if (entry != null && entry.expires > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                unindex(key, entry);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches a principal, unless it was invalidated since the principal was read.
+     *
+     * @param key the cache key of the principal, may be null
+     * @param queryOnResource the resource the principal was queried on
+     * @param resource the resource of the principal
+     * @param roles the roles of the principal, or null if they are not cached
+     * @param generation the generation of the cache before the principal was read
+     */
+    public void put(String key, String queryOnResource, ResourceResponse resource, List<String> roles,
+            long generation) {
+        if (key == null || resource == null || resource.getId() == null) {
+            return;
+        }
+        final ResourcePath resourcePath = withoutRepo(ResourcePath.valueOf(queryOnResource));
+        final String indexKey = resourcePath.child(resource.getId()).toString();
+        final CachedPrincipal entry = new CachedPrincipal(copyOf(resource),
+                roles != null ? new ArrayList<>(roles) : null, indexKey, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            if (generation != this.generation.get()) {
+                return;
+            }
+            final CachedPrincipal previous = entries.put(key, entry);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            Set<String> keys = keysByResource.get(indexKey);
+            if (keys == null) {
+                keys = new HashSet<>();
+                keysByResource.put(indexKey, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Removes the cached principals of the object at, or below, the given path.
+     *
+     * @param path the path of the object, or of one of its relationships
+     */
+    public void invalidate(ResourcePath path) {
+        if (!enabled) {
+            return;
+        }
+        final ResourcePath objectPath = withoutRepo(path);
+        for (ResourcePath resourcePath : cachedResources) {
+            if (objectPath.size() > resourcePath.size() && objectPath.startsWith(resourcePath)) {
+                synchronized (entries) {
+                    generation.incrementAndGet();
+                    final Set<String> keys =
+                            keysByResource.remove(objectPath.head(resourcePath.size() + 1).toString());
+                    if (keys != null) {
+                        entries.keySet().removeAll(keys);
+                        invalidations.addAndGet(keys.size());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached principals.
+     */
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+            keysByResource.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached principals
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of principals found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of principals not found in the cache
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of principals evicted because the cache was full
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of principals removed because their object changed
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Returns a router filter which invalidates the cached principals of the objects written through the router.
+     *
+     * @return the invalidation filter
+     */
+    public Filter newInvalidationFilter() {
+        return new Filter() {
+            @Override
+            public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+                    RequestHandler next) {
+                return invalidateAfter(request, next.handleAction(context, request));
+            }
+
+            @Override
+            public Promise<ResourceResponse, ResourceException> filterCreate(Context context, CreateRequest request,
+                    RequestHandler next) {
+                return invalidateAfter(request, next.handleCreate(context, request));
+            }
+
+            @Override
+            public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest request,
+                    RequestHandler next) {
+                return invalidateAfter(request, next.handleDelete(context, request));
+            }
+
+            @Override
+            public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest request,
+                    RequestHandler next) {
+                return invalidateAfter(request, next.handlePatch(context, request));
+            }
+
+            @Override
+            public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+                    QueryResourceHandler handler, RequestHandler next) {
+                return next.handleQuery(context, request, handler);
+            }
+
+            @Override
+            public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+                    RequestHandler next) {
+                return next.handleRead(context, request);
+            }
+
+            @Override
+            public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, UpdateRequest request,
+                    RequestHandler next) {
+                return invalidateAfter(request, next.handleUpdate(context, request));
+            }
+        };
+    }
+
+    private <R> Promise<R, ResourceException> invalidateAfter(final Request request,
+            Promise<R, ResourceException> promise) {
+        if (!enabled) {
+            return promise;
+        }
+        return promise.thenAlways(new Runnable() {
+            @Override
+            public void run() {
+                invalidate(request.getResourcePathObject());
+            }
+        });
+    }
+
+    /** Removes an entry from the resource index; must be called holding the entries lock */
+    private void unindex(String key, CachedPrincipal entry) {
+        final Set<String> keys = keysByResource.get(entry.indexKey);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByResource.remove(entry.indexKey);
+            }
+        }
+    }
+
+    private static ResourcePath withoutRepo(ResourcePath path) {
+        return !path.isEmpty() && REPO.equals(path.get(0)) ? path.tail(1) : path;
+    }
+
+    private static ResourceResponse copyOf(ResourceResponse resource) {
+        return newResourceResponse(resource.getId(), resource.getRevision(), resource.getContent().copy());
+    }
+}
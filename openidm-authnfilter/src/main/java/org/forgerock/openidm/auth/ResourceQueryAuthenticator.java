@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2015 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth;
@@ -40,6 +41,9 @@ import javax.inject.Provider;
 /**
  * Authenticator class which performs authentication against managed/internal user tables using a queryId to fetch
  * the complete local user data and validates the password locally.
+ * <p>
+ * Successful authentications are kept in the {@link PrincipalCache}, so that a repeated authentication with the same
+ * credential neither queries the user nor compares the password again until the entry expires or the user changes.
  */
 class ResourceQueryAuthenticator implements Authenticator {
 
@@ -47,6 +51,8 @@ class ResourceQueryAuthenticator implements Authenticator {
 
     private final Provider<CryptoService> cryptoServiceProvider;
     private final Provider<ConnectionFactory> connectionFactoryProvider;
+    private final Provider<PrincipalCache> principalCacheProvider;
+    private final String principalCacheScope;
     private final String queryOnResource;
     private final String queryId;
     private final String userRolesProperty;
@@ -57,6 +63,7 @@ class ResourceQueryAuthenticator implements Authenticator {
      * Constructs an instance of the ResourceQueryAuthenticator.
      * @param cryptoService The CryptoService.
      * @param connectionFactory The ConnectionFactory.
+     * @param principalCache The PrincipalCache.
      * @param queryOnResource The query resource.
      * @param queryId The query id.
      * @param authenticationIdProperty The user id property.
@@ -64,10 +71,12 @@ class ResourceQueryAuthenticator implements Authenticator {
      * @param userRolesProperty The property for reading authorization roles
      */
     public ResourceQueryAuthenticator(Provider<CryptoService> cryptoService, Provider<ConnectionFactory> connectionFactory,
-            String queryOnResource, String queryId,  String authenticationIdProperty, String userCredentialProperty, String userRolesProperty) {
+            Provider<PrincipalCache> principalCache, String queryOnResource, String queryId,
+            String authenticationIdProperty, String userCredentialProperty, String userRolesProperty) {
 
         Reject.ifNull(cryptoService, "CryptoService is null");
         Reject.ifNull(connectionFactory, "ConnectionFactory is null");
+        Reject.ifNull(principalCache, "PrincipalCache is null");
         Reject.ifNull(queryOnResource, "User query resource was null");
         Reject.ifNull(queryId, "Credential query was null");
         Reject.ifNull(authenticationIdProperty, "authenticationId property is not defined");
@@ -75,6 +84,8 @@ class ResourceQueryAuthenticator implements Authenticator {
 
         this.cryptoServiceProvider = cryptoService;
         this.connectionFactoryProvider = connectionFactory;
+        this.principalCacheProvider = principalCache;
+        this.principalCacheScope = PrincipalCache.newScope(queryId);
         this.queryOnResource = queryOnResource;
         this.queryId = queryId;
         this.authenticationIdProperty = authenticationIdProperty;
@@ -100,11 +111,23 @@ class ResourceQueryAuthenticator implements Authenticator {
             throw new InternalServerErrorException("No CryptoService available");
         }
 
+        final PrincipalCache principalCache = principalCacheProvider.get();
+        final String cacheKey = password != null
+                ? principalCache.key(principalCacheScope, queryOnResource, username, password)
+                : null;
+        final PrincipalCache.CachedPrincipal cached = principalCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Authentication succeeded for {} from the principal cache", username);
+            return AuthenticatorResult.authenticationSuccess(cached.getResource());
+        }
+        final long generation = principalCache.getGeneration();
+
         final ResourceResponse resource = getResource(username, context);
         if (resource != null) {
             if (cryptoService.isHashed(resource.getContent().get(userCredentialProperty))) {
                 try {
                     if (cryptoService.matches(password, resource.getContent().get(userCredentialProperty))) {
+                        principalCache.put(cacheKey, queryOnResource, resource, null, generation);
                         return AuthenticatorResult.authenticationSuccess(resource);
                     }
                 } catch (JsonCryptoException jce) {
@@ -117,6 +140,7 @@ class ResourceQueryAuthenticator implements Authenticator {
                     return AuthenticatorResult.FAILED;
                 } else if (userInfo.checkCredential(password)) {
                     logger.debug("Authentication succeeded for {}", username);
+                    principalCache.put(cacheKey, queryOnResource, resource, null, generation);
                     return AuthenticatorResult.authenticationSuccess(resource);
                 }
             }
@@ -0,0 +1,155 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.auth.api;
+
+import javax.validation.constraints.NotNull;
+
+import org.forgerock.api.annotations.Description;
+
+/**
+ * Response to {@link org.forgerock.openidm.auth.AuthenticationService} getPrincipalCacheStatistics-action.
+ */
+public class PrincipalCacheStatisticsActionResponse {
+
+    private boolean enabled;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Gets whether principals are cached.
+     *
+     * @return {@code true} if principals are cached and {@code false} otherwise
+     */
+    @NotNull
+    @Description("true if authenticated principals are cached and false otherwise")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether principals are cached.
+     *
+     * @param enabled {@code true} if principals are cached and {@code false} otherwise
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the number of cached principals.
+     *
+     * @return the number of cached principals
+     */
+    @NotNull
+    @Description("Number of cached principals")
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of cached principals.
+     *
+     * @param size the number of cached principals
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of principals found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    @NotNull
+    @Description("Number of principals found in the cache")
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Sets the number of principals found in the cache.
+     *
+     * @param hits the number of cache hits
+     */
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Gets the number of principals not found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    @NotNull
+    @Description("Number of principals not found in the cache")
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Sets the number of principals not found in the cache.
+     *
+     * @param misses the number of cache misses
+     */
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * Gets the number of principals evicted because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    @NotNull
+    @Description("Number of principals evicted because the cache was full")
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Sets the number of principals evicted because the cache was full.
+     *
+     * @param evictions the number of evictions
+     */
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    /**
+     * Gets the number of principals removed because their object changed.
+     *
+     * @return the number of invalidations
+     */
+    @NotNull
+    @Description("Number of principals removed from the cache because their object changed")
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Sets the number of principals removed because their object changed.
+     *
+     * @param invalidations the number of invalidations
+     */
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth.modules;
@@ -32,6 +33,8 @@ import javax.security.auth.message.AuthStatus;
 import javax.security.auth.message.MessagePolicy;
 import java.io.UnsupportedEncodingException;
 import java.security.Principal;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,6 +46,7 @@ import org.forgerock.caf.authentication.api.AsyncServerAuthModule;
 import org.forgerock.caf.authentication.api.AuthenticationException;
 import org.forgerock.caf.authentication.api.MessageInfoContext;
 import org.forgerock.caf.authentication.framework.AuditTrail;
+import org.forgerock.http.protocol.Header;
 import org.forgerock.http.protocol.Request;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
@@ -52,6 +56,7 @@ import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
+import org.forgerock.openidm.auth.PrincipalCache;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.openidm.util.HeaderUtil;
@@ -73,6 +78,12 @@ import org.slf4j.LoggerFactory;
  * <br/>
  * This allows IDM to use any common auth module and still benefit from automatic role calculation
  * and augment security context scripts (providing the authentication.json contains the required configuration).
+ * <br/>
+ * The resource and roles of a principal found by querying the resource are kept in the {@link PrincipalCache}, so
+ * that they are not queried and calculated again on every request of the principal. They are cached for this module
+ * and the credentials the request presented: its authorization, cookie and OpenIDM credential headers and its client
+ * certificates. When the underlying module provides the resource itself, as the delegated modules of managed and
+ * internal users do, only the roles are cached, for this module, the principal and the revision of the resource.
  *
  * @since 3.0.0
  */
@@ -98,10 +109,15 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     /** Key in Messages Map for the cached resource detail */
     public static final String AUTHENTICATED_RESOURCE = "org.forgerock.openidm.authentication.resource";
 
+    /** The request headers which carry the credentials of the principal, for the principal cache. */
+    private static final String[] CREDENTIAL_HEADERS =
+            { "Authorization", "Cookie", "X-OpenIDM-Username", "X-OpenIDM-Password" };
+
     private final ConnectionFactory connectionFactory;
     private final CryptoService cryptoService;
     private final ScriptRegistry scriptRegistry;
     private final AugmentationScriptExecutor augmentationScriptExecutor;
+    private final PrincipalCache principalCache;
 
     /** an security context augmentation script, if configured */
     private ScriptEntry augmentScript = null;
@@ -113,6 +129,7 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     private JsonValue properties = json(object());
     private String logClientIPHeader = null;
     private String queryOnResource;
+    private String principalCacheScope;
     private Function<QueryRequest, ResourceResponse, NeverThrowsException> queryExecutor;
     private UserDetailQueryBuilder queryBuilder;
     private RoleCalculator roleCalculator;
@@ -127,8 +144,23 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
      */
     public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, PrincipalCache.DISABLED);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper which caches the resolved principals.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param connectionFactory
+     * @param cryptoService
+     * @param scriptRegistry
+     * @param principalCache The cache of the resolved principals.
+     */
+    public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            PrincipalCache principalCache) {
         this(authModule, connectionFactory, cryptoService, scriptRegistry,
-                new RoleCalculatorFactory(), new AugmentationScriptExecutor());
+                new RoleCalculatorFactory(), new AugmentationScriptExecutor(), principalCache);
     }
 
     /**
@@ -143,12 +175,31 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
             RoleCalculatorFactory roleCalculatorFactory,
             AugmentationScriptExecutor augmentationScriptExecutor) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, roleCalculatorFactory,
+                augmentationScriptExecutor, PrincipalCache.DISABLED);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper with the provided parameters, for test use.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param roleCalculatorFactory An instance of the RoleCalculatorFactory.
+     * @param augmentationScriptExecutor An instance of the AugmentationScriptExecutor.
+     * @param principalCache The cache of the resolved principals.
+     */
+    IDMAuthModuleWrapper(
+            AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            RoleCalculatorFactory roleCalculatorFactory,
+            AugmentationScriptExecutor augmentationScriptExecutor,
+            PrincipalCache principalCache) {
         this.authModule = authModule;
         this.connectionFactory = connectionFactory;
         this.cryptoService = cryptoService;
         this.scriptRegistry = scriptRegistry;
         this.roleCalculatorFactory = roleCalculatorFactory;
         this.augmentationScriptExecutor = augmentationScriptExecutor;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -198,6 +249,7 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         logClientIPHeader = properties.get("clientIPHeader").asString();
 
         queryOnResource = properties.get(QUERY_ON_RESOURCE).asString();
+        principalCacheScope = PrincipalCache.newScope(getModuleId());
 
         String queryId = properties.get(QUERY_ID).asString();
         String authenticationId = properties.get(PROPERTY_MAPPING).get(AUTHENTICATION_ID).asString();
@@ -330,11 +382,43 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                         // ... with user details
 
                         try {
-                            // query the resource - could return null
-                            final ResourceResponse resource = getAuthenticatedResource(principalName, messageInfo);
+                            // the resource and roles are cached for the credentials of the request; when the
+                            // authenticator provided the resource, only its roles are cached, for its revision
+                            final boolean authenticated =
+                                    messageInfo.getRequestContextMap().containsKey(AUTHENTICATED_RESOURCE);
+                            final ResourceResponse authenticatedResource = authenticated
+                                    ? getAuthenticatedResource(principalName, messageInfo)
+                                    : null;
+                            final String credential;
+                            if (!authenticated) {
+                                credential = getCredential(messageInfo);
+                            } else if (authenticatedResource != null && authenticatedResource.getRevision() != null) {
+                                credential = FIELD_CONTENT_REVISION + ':' + authenticatedResource.getRevision();
+                            } else {
+                                credential = null;
+                            }
+                            final String cacheKey = credential != null
+                                    ? principalCache.key(principalCacheScope, queryOnResource, principalName,
+                                            credential)
+                                    : null;
+                            final PrincipalCache.CachedPrincipal cached = principalCache.get(cacheKey);
+                            final ResourceResponse resource;
+                            final List<String> roles;
+                            if (cached != null) {
+                                resource = authenticated ? authenticatedResource : cached.getResource();
+                                roles = cached.getRoles();
+                            } else {
+                                final long generation = principalCache.getGeneration();
+                                // query the resource - could return null
+                                resource = authenticated
+                                        ? authenticatedResource
+                                        : getAuthenticatedResource(principalName, messageInfo);
+                                roles = roleCalculator.calculateRoles(principalName, resource);
+                                principalCache.put(cacheKey, queryOnResource, resource, roles, generation);
+                            }
 
                             // Calculate (and set) roles if not already set
-                            securityContextMapper.setRoles(roleCalculator.calculateRoles(principalName, resource));
+                            securityContextMapper.setRoles(roles);
 
                             // set "resource" (component) if not already set
                             securityContextMapper.setResource(queryOnResource);
@@ -401,6 +485,36 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         return queryExecutor.apply(request);
     }
 
+    /**
+     * Returns the credentials presented by the request, for the principal cache.
+     *
+     * @param messageInfo the message information
+     * @return the credentials, or null if they cannot be read
+     */
+    private String getCredential(MessageInfoContext messageInfo) {
+        final StringBuilder credential = new StringBuilder();
+        for (String name : CREDENTIAL_HEADERS) {
+            final Header header = messageInfo.getRequest().getHeaders().get(name);
+            credential.append(name).append(':')
+                    .append(header != null ? header.getValues() : Collections.emptyList()).append('\n');
+        }
+        if (messageInfo.containsContext(ClientContext.class)) {
+            final Collection<? extends Certificate> certificates =
+                    messageInfo.asContext(ClientContext.class).getCertificates();
+            if (certificates != null) {
+                try {
+                    for (Certificate certificate : certificates) {
+                        credential.append(Base64.encode(certificate.getEncoded())).append('\n');
+                    }
+                } catch (CertificateEncodingException e) {
+                    logger.debug("Unable to read the client certificate, the principal is not cached", e);
+                    return null;
+                }
+            }
+        }
+        return credential.toString();
+    }
+
     private void setClientIPAddress(MessageInfoContext messageInfo) {
         Request request = messageInfo.getRequest();
         String ipAddress;
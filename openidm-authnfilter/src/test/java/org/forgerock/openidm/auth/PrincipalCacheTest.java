@@ -0,0 +1,183 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.auth;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.Test;
+
+public class PrincipalCacheTest {
+
+    private static final String SCOPE = PrincipalCache.newScope("test");
+
+    private static ResourceResponse user(String id) {
+        return newResourceResponse(id, "0", json(object(field("_id", id), field("userName", "user-" + id))));
+    }
+
+    private static PrincipalCache newCache(int maxEntries) {
+        return new PrincipalCache(true, maxEntries, 60000);
+    }
+
+    @Test
+    public void testPrincipalIsCachedByCredential() {
+        final PrincipalCache cache = newCache(10);
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        assertThat(key).doesNotContain("Passw0rd");
+        assertThat(cache.get(key)).isNull();
+
+        cache.put(key, "managed/user", user("1"), asList("openidm-authorized"), cache.getGeneration());
+
+        assertThat(cache.get(key).getResource().getContent().get("userName").asString()).isEqualTo("user-1");
+        assertThat(cache.get(key).getRoles()).containsExactly("openidm-authorized");
+        assertThat(cache.get(cache.key(SCOPE, "managed/user", "bjensen", "wrong"))).isNull();
+        assertThat(cache.get(cache.key(SCOPE, "managed/user", "bjensen", null))).isNull();
+        assertThat(cache.get(cache.key(SCOPE, "repo/internal/user", "bjensen", "Passw0rd"))).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCachedPrincipalIsACopy() {
+        final PrincipalCache cache = newCache(10);
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        final ResourceResponse resource = user("1");
+        cache.put(key, "managed/user", resource, null, cache.getGeneration());
+
+        resource.getContent().put("userName", "changed");
+        cache.get(key).getResource().getContent().put("userName", "changed");
+
+        assertThat(cache.get(key).getResource().getContent().get("userName").asString()).isEqualTo("user-1");
+        assertThat(cache.get(key).getRoles()).isNull();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPrincipalIsEvicted() {
+        final PrincipalCache cache = newCache(2);
+        final String first = cache.key(SCOPE, "managed/user", "first", "secret");
+        final String second = cache.key(SCOPE, "managed/user", "second", "secret");
+        final String third = cache.key(SCOPE, "managed/user", "third", "secret");
+        cache.put(first, "managed/user", user("1"), null, cache.getGeneration());
+        cache.put(second, "managed/user", user("2"), null, cache.getGeneration());
+        assertThat(cache.get(first)).isNotNull();
+
+        cache.put(third, "managed/user", user("3"), null, cache.getGeneration());
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get(second)).isNull();
+        assertThat(cache.get(first)).isNotNull();
+        assertThat(cache.get(third)).isNotNull();
+    }
+
+    @Test
+    public void testExpiredPrincipalIsNotReturned() throws Exception {
+        final PrincipalCache cache = new PrincipalCache(true, 10, 1);
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        cache.put(key, "managed/user", user("1"), null, cache.getGeneration());
+        Thread.sleep(5);
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChangedObjectInvalidatesItsPrincipals() {
+        final PrincipalCache cache = newCache(10);
+        final String password = cache.key(SCOPE, "repo/internal/user", "admin", "secret");
+        final String principal = cache.key(SCOPE, "repo/internal/user", "admin", null);
+        final String other = cache.key(SCOPE, "repo/internal/user", "other", "secret");
+        cache.put(password, "repo/internal/user", user("admin"), null, cache.getGeneration());
+        cache.put(principal, "repo/internal/user", user("admin"), null, cache.getGeneration());
+        cache.put(other, "repo/internal/user", user("other"), null, cache.getGeneration());
+
+        // written without the repo prefix, through a relationship
+        cache.invalidate(ResourcePath.valueOf("internal/user/admin/roles/0"));
+
+        assertThat(cache.get(password)).isNull();
+        assertThat(cache.get(principal)).isNull();
+        assertThat(cache.get(other)).isNotNull();
+        assertThat(cache.getInvalidations()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPrincipalReadBeforeInvalidationIsNotCached() {
+        final PrincipalCache cache = newCache(10);
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        final long generation = cache.getGeneration();
+
+        cache.invalidate(ResourcePath.valueOf("managed/user/1"));
+        cache.put(key, "managed/user", user("1"), null, generation);
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void testInvalidationFilter() throws Exception {
+        final PrincipalCache cache = newCache(10);
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate("managed/user"), new MemoryBackend());
+        final Filter filter = cache.newInvalidationFilter();
+        final RootContext context = new RootContext();
+
+        filter.filterCreate(context, newCreateRequest("managed/user", "1", json(object())), router).getOrThrow();
+        cache.put(key, "managed/user", user("1"), null, cache.getGeneration());
+        filter.filterCreate(context, newCreateRequest("managed/user", "2", json(object())), router).getOrThrow();
+        assertThat(cache.get(key)).isNotNull();
+
+        filter.filterUpdate(context, newUpdateRequest("managed/user/1", json(object(field("a", 1)))), router)
+                .getOrThrow();
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void testPrincipalIsCachedByScope() {
+        final PrincipalCache cache = newCache(10);
+        final String other = PrincipalCache.newScope("test");
+        assertThat(other).isNotEqualTo(SCOPE);
+
+        final String key = cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd");
+        cache.put(key, "managed/user", user("1"), asList("openidm-authorized"), cache.getGeneration());
+
+        assertThat(cache.get(key)).isNotNull();
+        assertThat(cache.get(cache.key(other, "managed/user", "bjensen", "Passw0rd"))).isNull();
+        assertThat(cache.key(null, "managed/user", "bjensen", "Passw0rd")).isNull();
+    }
+
+    @Test
+    public void testDisabledCache() {
+        final PrincipalCache cache = PrincipalCache.fromConfig(json(object(field("enabled", false))));
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.key(SCOPE, "managed/user", "bjensen", "Passw0rd")).isNull();
+        assertThat(PrincipalCache.fromConfig(json(null)).isEnabled()).isFalse();
+        assertThat(PrincipalCache.fromConfig(json(object(field("ttl", "5 seconds")))).isEnabled()).isFalse();
+        assertThat(PrincipalCache.fromConfig(json(object(field("enabled", true), field("ttl", "5 seconds"))))
+                .isEnabled()).isTrue();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+
+import javax.inject.Provider;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.promise.Promises;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceQueryAuthenticatorTest {
+
+    private final Context context = new RootContext();
+    private PrincipalCache principalCache;
+    private CryptoService cryptoService;
+    private Connection connection;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        principalCache = new PrincipalCache(true, 10, 60000);
+        cryptoService = mock(CryptoService.class);
+        given(cryptoService.isHashed(any(JsonValue.class))).willReturn(true);
+        given(cryptoService.matches(anyString(), any(JsonValue.class))).willReturn(false);
+        given(cryptoService.matches(eq("Passw0rd"), any(JsonValue.class))).willReturn(true);
+        connection = mock(Connection.class);
+        given(connection.query(any(Context.class), any(QueryRequest.class), anyCollection()))
+                .willAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        ((Collection) invocation.getArguments()[2]).add(newResourceResponse("1", "0",
+                                json(object(field("userName", "bjensen"), field("password", "hashed")))));
+                        return null;
+                    }
+                });
+    }
+
+    private ResourceQueryAuthenticator newAuthenticator() {
+        final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        try {
+            given(connectionFactory.getConnection()).willReturn(connection);
+        } catch (ResourceException e) {
+            throw new IllegalStateException(e);
+        }
+        return new ResourceQueryAuthenticator(
+                new Provider<CryptoService>() {
+                    @Override
+                    public CryptoService get() {
+                        return cryptoService;
+                    }
+                },
+                new Provider<ConnectionFactory>() {
+                    @Override
+                    public ConnectionFactory get() {
+                        return connectionFactory;
+                    }
+                },
+                new Provider<PrincipalCache>() {
+                    @Override
+                    public PrincipalCache get() {
+                        return principalCache;
+                    }
+                },
+                "managed/user", "credential-query", "userName", "password", null);
+    }
+
+    @Test
+    public void testRepeatedAuthenticationIsServedFromTheCache() throws Exception {
+        final ResourceQueryAuthenticator authenticator = newAuthenticator();
+
+        assertThat(authenticator.authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isTrue();
+        final Authenticator.AuthenticatorResult cached = authenticator.authenticate("bjensen", "Passw0rd", context);
+
+        assertThat(cached.isAuthenticated()).isTrue();
+        assertThat(cached.getResource().getId()).isEqualTo("1");
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        assertThat(principalCache.getHits()).isEqualTo(1);
+        assertThat(principalCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWrongPasswordIsNeitherCachedNorServedFromTheCache() throws Exception {
+        final ResourceQueryAuthenticator authenticator = newAuthenticator();
+
+        assertThat(authenticator.authenticate("bjensen", "wrong", context).isAuthenticated()).isFalse();
+        assertThat(principalCache.getSize()).isEqualTo(0);
+        assertThat(authenticator.authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isTrue();
+        assertThat(authenticator.authenticate("bjensen", "wrong", context).isAuthenticated()).isFalse();
+
+        verify(connection, times(3)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        assertThat(principalCache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAuthenticatorsDoNotShareCachedPrincipals() throws Exception {
+        assertThat(newAuthenticator().authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isTrue();
+        assertThat(newAuthenticator().authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isTrue();
+
+        verify(connection, times(2)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        assertThat(principalCache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void testUpdatedUserIsQueriedAgain() throws Exception {
+        final ResourceQueryAuthenticator authenticator = newAuthenticator();
+        final RequestHandler next = mock(RequestHandler.class);
+        given(next.handleUpdate(any(Context.class), any(UpdateRequest.class))).willReturn(
+                Promises.<ResourceResponse, ResourceException>newResultPromise(
+                        newResourceResponse("1", "1", json(object()))));
+        assertThat(authenticator.authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isTrue();
+
+        principalCache.newInvalidationFilter().filterUpdate(context,
+                newUpdateRequest("managed/user/1", json(object(field("password", "changed")))), next).getOrThrow();
+        given(cryptoService.matches(eq("Passw0rd"), any(JsonValue.class))).willReturn(false);
+
+        assertThat(authenticator.authenticate("bjensen", "Passw0rd", context).isAuthenticated()).isFalse();
+        verify(connection, times(2)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        assertThat(principalCache.getInvalidations()).isEqualTo(1);
+    }
+}
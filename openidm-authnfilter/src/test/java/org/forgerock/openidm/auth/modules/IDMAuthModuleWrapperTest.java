@@ -12,16 +12,26 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth.modules;
 
+import static java.util.Arrays.asList;
 import static org.forgerock.caf.authentication.framework.AuthenticationFramework.ATTRIBUTE_AUTH_CONTEXT;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_REVISION;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
 
 import java.security.Principal;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,13 +48,21 @@ import org.forgerock.caf.authentication.api.MessageInfoContext;
 import org.forgerock.http.protocol.Request;
 import org.forgerock.http.protocol.Response;
 import org.forgerock.http.protocol.Status;
+import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.auth.PrincipalCache;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.ClientContext;
+import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
 import org.forgerock.util.promise.Promises;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -367,6 +385,165 @@ public class IDMAuthModuleWrapperTest {
         verify(messageInfo, never()).getRequestContextMap();
     }
 
+    @Test
+    public void shouldCacheResolvedPrincipal() throws Exception {
+
+        //Given
+        PrincipalCache principalCache = PrincipalCache.fromConfig(json(object(field("enabled", true))));
+        Connection connection = mockUserConnection();
+        RoleCalculator roleCalculator = mockRoleCalculator();
+        IDMAuthModuleWrapper wrapper = newCachingWrapper(principalCache);
+
+        //When
+        AuthStatus first = validateRequest(wrapper, "Basic dXNlcjpwYXNz");
+        AuthStatus second = validateRequest(wrapper, "Basic dXNlcjpwYXNz");
+
+        //Then
+        assertEquals(first, AuthStatus.SUCCESS);
+        assertEquals(second, AuthStatus.SUCCESS);
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        verify(roleCalculator, times(1)).calculateRoles(eq("USERNAME"), any(ResourceResponse.class));
+        assertEquals(principalCache.getHits(), 1);
+        assertEquals(principalCache.getMisses(), 1);
+    }
+
+    @Test
+    public void shouldNotShareCachedPrincipalAcrossCredentialsOrModules() throws Exception {
+
+        //Given
+        PrincipalCache principalCache = PrincipalCache.fromConfig(json(object(field("enabled", true))));
+        Connection connection = mockUserConnection();
+        mockRoleCalculator();
+        IDMAuthModuleWrapper wrapper = newCachingWrapper(principalCache);
+        IDMAuthModuleWrapper otherWrapper = newCachingWrapper(principalCache);
+
+        //When
+        validateRequest(wrapper, "Basic dXNlcjpwYXNz");
+        validateRequest(wrapper, "Basic dXNlcjpvdGhlcg==");
+        validateRequest(otherWrapper, "Basic dXNlcjpwYXNz");
+
+        //Then
+        verify(connection, times(3)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        assertEquals(principalCache.getHits(), 0);
+        assertEquals(principalCache.getSize(), 3);
+    }
+
+    @Test
+    public void shouldResolvePrincipalAgainOnceInvalidated() throws Exception {
+
+        //Given
+        PrincipalCache principalCache = PrincipalCache.fromConfig(json(object(field("enabled", true))));
+        Connection connection = mockUserConnection();
+        RoleCalculator roleCalculator = mockRoleCalculator();
+        IDMAuthModuleWrapper wrapper = newCachingWrapper(principalCache);
+        validateRequest(wrapper, "Basic dXNlcjpwYXNz");
+
+        //When
+        principalCache.invalidate(ResourcePath.valueOf("foo/user/1"));
+        validateRequest(wrapper, "Basic dXNlcjpwYXNz");
+
+        //Then
+        verify(connection, times(2)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        verify(roleCalculator, times(2)).calculateRoles(eq("USERNAME"), any(ResourceResponse.class));
+        assertEquals(principalCache.getHits(), 0);
+    }
+
+    @Test
+    public void shouldCacheRolesOfAuthenticatedResourceByRevision() throws Exception {
+
+        //Given
+        PrincipalCache principalCache = PrincipalCache.fromConfig(json(object(field("enabled", true))));
+        Connection connection = mockUserConnection();
+        RoleCalculator roleCalculator = mockRoleCalculator();
+        IDMAuthModuleWrapper wrapper = newCachingWrapper(principalCache);
+
+        //When
+        validateRequest(wrapper, "Basic dXNlcjpwYXNz", authenticatedResource("0"));
+        validateRequest(wrapper, "Basic dXNlcjpvdGhlcg==", authenticatedResource("0"));
+        validateRequest(wrapper, "Basic dXNlcjpwYXNz", authenticatedResource("1"));
+
+        //Then
+        verify(connection, never()).query(any(Context.class), any(QueryRequest.class), anyCollection());
+        verify(roleCalculator, times(2)).calculateRoles(eq("USERNAME"), any(ResourceResponse.class));
+        assertEquals(principalCache.getHits(), 1);
+    }
+
+    private static Map<String, Object> authenticatedResource(String revision) {
+        return object(
+                field(FIELD_CONTENT_ID, "1"),
+                field(FIELD_CONTENT_REVISION, revision),
+                field(FIELD_CONTENT, object(field("userName", "USERNAME"))));
+    }
+
+    private Connection mockUserConnection() throws Exception {
+        Connection connection = mock(Connection.class);
+        given(connectionFactory.getConnection()).willReturn(connection);
+        given(connection.query(any(Context.class), any(QueryRequest.class), anyCollection()))
+                .willAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        ((Collection) invocation.getArguments()[2])
+                                .add(newResourceResponse("1", "0", json(object(field("userName", "USERNAME")))));
+                        return null;
+                    }
+                });
+        return connection;
+    }
+
+    private RoleCalculator mockRoleCalculator() {
+        RoleCalculator roleCalculator = mock(RoleCalculator.class);
+        given(roleCalculator.calculateRoles(anyString(), any(ResourceResponse.class)))
+                .willReturn(asList("openidm-authorized"));
+        when(roleCalculatorFactory.create(anyList(), anyString(), anyString(), anyMap(),
+                Matchers.<MappingRoleCalculator.GroupComparison>anyObject()))
+                .thenReturn(roleCalculator);
+        return roleCalculator;
+    }
+
+    private IDMAuthModuleWrapper newCachingWrapper(PrincipalCache principalCache) {
+        Map<String, Object> cachingOptions = new HashMap<>(options);
+        cachingOptions.put("queryId", "credential-query");
+        cachingOptions.put("propertyMapping", json(object(field("authenticationId", "userName"))).asMap());
+        IDMAuthModuleWrapper wrapper = new IDMAuthModuleWrapper(authModule,
+                connectionFactory, mock(CryptoService.class), mock(ScriptRegistry.class),
+                roleCalculatorFactory, scriptExecutor, principalCache);
+        MessagePolicy messagePolicy = mock(MessagePolicy.class);
+        wrapper.initialize(messagePolicy, messagePolicy, mock(CallbackHandler.class), cachingOptions);
+        return wrapper;
+    }
+
+    private AuthStatus validateRequest(IDMAuthModuleWrapper wrapper, String authorization) throws Exception {
+        return validateRequest(wrapper, authorization, null);
+    }
+
+    private AuthStatus validateRequest(IDMAuthModuleWrapper wrapper, String authorization,
+            Map<String, Object> authenticatedResource) throws Exception {
+        MessageInfoContext messageInfo = mockMessageInfoContext();
+        Subject clientSubject = new Subject();
+        Subject serviceSubject = new Subject();
+        Map<String, Object> messageInfoMap = new HashMap<>();
+        Map<String, Object> contextMap = new HashMap<>();
+
+        Request request = new Request();
+        request.setUri(URI.create("REQUEST_URL"));
+        request.getHeaders().put("Authorization", authorization);
+        given(messageInfo.getRequest()).willReturn(request);
+        given(messageInfo.getResponse()).willReturn(new Response(Status.OK));
+        given(messageInfo.getRequestContextMap()).willReturn(messageInfoMap);
+        messageInfoMap.put(ATTRIBUTE_AUTH_CONTEXT, contextMap);
+        if (authenticatedResource != null) {
+            messageInfoMap.put(IDMAuthModuleWrapper.AUTHENTICATED_RESOURCE, authenticatedResource);
+        }
+        Principal principal = mock(Principal.class);
+        given(principal.getName()).willReturn("USERNAME");
+        clientSubject.getPrincipals().add(principal);
+
+        given(authModule.validateRequest(messageInfo, clientSubject, serviceSubject))
+                .willReturn(Promises.<AuthStatus, AuthenticationException>newResultPromise(AuthStatus.SUCCESS));
+
+        return wrapper.validateRequest(messageInfo, clientSubject, serviceSubject).getOrThrowUninterruptibly();
+    }
+
     private MessageInfoContext mockMessageInfoContext() {
         MessageInfoContext messageInfo = mock(MessageInfoContext.class);
         given(messageInfo.asContext(ClientContext.class))
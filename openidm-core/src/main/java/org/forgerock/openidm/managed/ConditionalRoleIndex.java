@@ -0,0 +1,291 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.openidm.condition.Condition;
+import org.forgerock.openidm.condition.Conditions;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * An in-memory index of the conditional roles, keyed by the user attributes their conditions reference, so that
+ * an updated user is only evaluated against the roles whose conditions may have changed.
+ * <p>
+ * The index is an immutable snapshot, replaced as a whole when a role is added or removed, so that it is read
+ * without locking by the concurrent user updates.
+ */
+final class ConditionalRoleIndex {
+
+    /**
+     * A conditional role of the index.
+     */
+    static final class IndexedRole {
+        private final String id;
+        private final String condition;
+        private final Condition compiledCondition;
+        private final Set<String> attributes;
+
+        private IndexedRole(String id, String condition) {
+            this.id = id;
+            this.condition = condition;
+            this.compiledCondition = Conditions.newCondition(condition);
+            this.attributes = referencedAttributes(QueryFilters.parse(condition));
+        }
+
+        String getId() {
+            return id;
+        }
+
+        String getCondition() {
+            return condition;
+        }
+
+        /**
+         * Evaluates the condition of the role against a user.
+         *
+         * @param user the user
+         * @return true if the user satisfies the condition of the role
+         */
+        boolean isSatisfiedBy(JsonValue user) {
+            return compiledCondition.evaluate(user, null);
+        }
+    }
+
+    /** The name under which the roles whose conditions are not confined to attributes are indexed */
+    private static final String ANY_ATTRIBUTE = "";
+
+    private static final class Snapshot {
+        private final Map<String, IndexedRole> roles;
+        private final Map<String, Set<String>> rolesByAttribute;
+
+        private Snapshot(Map<String, IndexedRole> roles) {
+            this.roles = Collections.unmodifiableMap(roles);
+            final Map<String, Set<String>> index = new HashMap<>();
+            for (IndexedRole role : roles.values()) {
+                for (String attribute : role.attributes) {
+                    Set<String> roleIds = index.get(attribute);
+                    if (roleIds == null) {
+                        roleIds = new HashSet<>();
+                        index.put(attribute, roleIds);
+                    }
+                    roleIds.add(role.id);
+                }
+            }
+            this.rolesByAttribute = index;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(new LinkedHashMap<String, IndexedRole>());
+
+    /**
+     * Adds a conditional role to the index, or replaces its condition.
+     *
+     * @param roleId the identifier of the role
+     * @param condition the query filter condition of the role
+     */
+    synchronized void put(String roleId, String condition) {
+        final Map<String, IndexedRole> roles = new LinkedHashMap<>(snapshot.roles);
+        roles.put(roleId, new IndexedRole(roleId, condition));
+        snapshot = new Snapshot(roles);
+    }
+
+    /**
+     * Removes a role from the index.
+     *
+     * @param roleId the identifier of the role
+     */
+    synchronized void remove(String roleId) {
+        if (snapshot.roles.containsKey(roleId)) {
+            final Map<String, IndexedRole> roles = new LinkedHashMap<>(snapshot.roles);
+            roles.remove(roleId);
+            snapshot = new Snapshot(roles);
+        }
+    }
+
+    /**
+     * Replaces the content of the index.
+     *
+     * @param conditions the query filter conditions, by role identifier
+     */
+    synchronized void reset(Map<String, String> conditions) {
+        final Map<String, IndexedRole> roles = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : conditions.entrySet()) {
+            roles.put(entry.getKey(), new IndexedRole(entry.getKey(), entry.getValue()));
+        }
+        snapshot = new Snapshot(roles);
+    }
+
+    /**
+     * Returns a conditional role.
+     *
+     * @param roleId the identifier of the role
+     * @return the role, or null if the role is not a conditional role
+     */
+    IndexedRole get(String roleId) {
+        return snapshot.roles.get(roleId);
+    }
+
+    /**
+     * Returns all of the conditional roles.
+     *
+     * @return the conditional roles
+     */
+    Iterable<IndexedRole> getRoles() {
+        return snapshot.roles.values();
+    }
+
+    /**
+     * Returns the conditional roles whose conditions may evaluate differently for the updated user than for the
+     * previous version of the user. The conditions of the other roles only reference unchanged attributes.
+     *
+     * @param oldUser the previous version of the user
+     * @param newUser the updated user
+     * @return the roles to evaluate
+     */
+    Iterable<IndexedRole> getRolesAffectedBy(JsonValue oldUser, JsonValue newUser) {
+        final Snapshot current = snapshot;
+        final Set<String> attributes = new HashSet<>(oldUser.keys());
+        attributes.addAll(newUser.keys());
+
+        final Map<String, IndexedRole> affected = new LinkedHashMap<>();
+        addRoles(current, ANY_ATTRIBUTE, affected);
+        for (String attribute : attributes) {
+            if (!Objects.equals(oldUser.get(attribute).getObject(), newUser.get(attribute).getObject())) {
+                addRoles(current, attribute, affected);
+            }
+        }
+        return affected.values();
+    }
+
+    private static void addRoles(Snapshot snapshot, String attribute, Map<String, IndexedRole> roles) {
+        final Set<String> roleIds = snapshot.rolesByAttribute.get(attribute);
+        if (roleIds != null) {
+            for (String roleId : roleIds) {
+                roles.put(roleId, snapshot.roles.get(roleId));
+            }
+        }
+    }
+
+    /**
+     * Returns the top-level attributes referenced by a query filter, or the {@link #ANY_ATTRIBUTE} name if the
+     * filter references the whole object, or no attribute at all.
+     *
+     * @param queryFilter the query filter
+     * @return the names of the referenced attributes
+     */
+    static Set<String> referencedAttributes(QueryFilter<JsonPointer> queryFilter) {
+        final Set<String> attributes = new HashSet<>();
+        queryFilter.accept(ATTRIBUTE_COLLECTOR, attributes);
+        if (attributes.isEmpty()) {
+            // a literal condition depends on no attribute, but must still be evaluated for each user
+            attributes.add(ANY_ATTRIBUTE);
+        }
+        return attributes;
+    }
+
+    private static final QueryFilterVisitor<Void, Set<String>, JsonPointer> ATTRIBUTE_COLLECTOR =
+            new QueryFilterVisitor<Void, Set<String>, JsonPointer>() {
+                @Override
+                public Void visitAndFilter(Set<String> attributes, List<QueryFilter<JsonPointer>> subFilters) {
+                    for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                        subFilter.accept(this, attributes);
+                    }
+                    return null;
+                }
+
+                @Override
+                public Void visitOrFilter(Set<String> attributes, List<QueryFilter<JsonPointer>> subFilters) {
+                    return visitAndFilter(attributes, subFilters);
+                }
+
+                @Override
+                public Void visitNotFilter(Set<String> attributes, QueryFilter<JsonPointer> subFilter) {
+                    return subFilter.accept(this, attributes);
+                }
+
+                @Override
+                public Void visitBooleanLiteralFilter(Set<String> attributes, boolean value) {
+                    return null;
+                }
+
+                @Override
+                public Void visitContainsFilter(Set<String> attributes, JsonPointer field, Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitEqualsFilter(Set<String> attributes, JsonPointer field, Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitExtendedMatchFilter(Set<String> attributes, JsonPointer field, String operator,
+                        Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitGreaterThanFilter(Set<String> attributes, JsonPointer field,
+                        Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitGreaterThanOrEqualToFilter(Set<String> attributes, JsonPointer field,
+                        Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitLessThanFilter(Set<String> attributes, JsonPointer field, Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitLessThanOrEqualToFilter(Set<String> attributes, JsonPointer field,
+                        Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitPresentFilter(Set<String> attributes, JsonPointer field) {
+                    return addAttribute(attributes, field);
+                }
+
+                @Override
+                public Void visitStartsWithFilter(Set<String> attributes, JsonPointer field, Object valueAssertion) {
+                    return addAttribute(attributes, field);
+                }
+
+                private Void addAttribute(Set<String> attributes, JsonPointer field) {
+                    attributes.add(field.isEmpty() ? ANY_ATTRIBUTE : field.get(0));
+                    return null;
+                }
+            };
+}
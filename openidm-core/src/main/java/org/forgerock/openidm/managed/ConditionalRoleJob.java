@@ -0,0 +1,306 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_ID;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_PROPERTIES;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.util.DateUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A background job granting, and revoking, the conditional grants of a role after a change of its condition.
+ * <p>
+ * The users matching the new condition are queried by pages, and the grants of each page are processed in
+ * parallel, the way conditionalRoles.js used to do it within the update of the role. The role is then revoked from
+ * its conditional members which did not match, whether or not they matched the previous condition.
+ */
+class ConditionalRoleJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConditionalRoleJob.class);
+
+    private static final DateUtil dateUtil = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
+
+    static final ResourcePath MANAGED_USER = ResourcePath.valueOf("managed/user");
+    static final ResourcePath MANAGED_ROLE = ResourcePath.valueOf("managed/role");
+    static final String MEMBERS = "members";
+    static final String GRANT_TYPE = "_grantType";
+    static final String GRANT_TYPE_CONDITIONAL = "conditional";
+
+    /** The state of a job */
+    enum State {
+        PENDING, ACTIVE, CANCELED, FAILED, COMPLETED;
+
+        boolean isComplete() {
+            return this == CANCELED || this == FAILED || this == COMPLETED;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String roleId;
+    private final String oldCondition;
+    private final String newCondition;
+    private final Context context;
+    private final ConnectionFactory connectionFactory;
+    private final ExecutorService executor;
+    private final int pageSize;
+
+    private volatile State state = State.PENDING;
+    private volatile boolean canceled;
+    private volatile long startTime;
+    private volatile long endTime;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong revoked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Construct a job.
+     *
+     * @param roleId the identifier of the role
+     * @param oldCondition the previous condition of the role, or null
+     * @param newCondition the current condition of the role, or null
+     * @param context the context of the change of the role
+     * @param connectionFactory the connection factory
+     * @param executor the executor processing the grants of a page of users
+     * @param pageSize the number of users queried at once
+     */
+    ConditionalRoleJob(String roleId, String oldCondition, String newCondition, Context context,
+            ConnectionFactory connectionFactory, ExecutorService executor, int pageSize) {
+        this.roleId = roleId;
+        this.oldCondition = oldCondition;
+        this.newCondition = newCondition;
+        this.context = context;
+        this.connectionFactory = connectionFactory;
+        this.executor = executor;
+        this.pageSize = pageSize;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * Requests the job to stop after the page of users being processed.
+     */
+    void cancel() {
+        canceled = true;
+    }
+
+    /**
+     * Returns the progress of the job.
+     *
+     * @return the summary of the job
+     */
+    Map<String, Object> getSummary() {
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put(FIELD_CONTENT_ID, id);
+        summary.put("role", roleId);
+        summary.put("state", state.name());
+        summary.put("processed", processed.get());
+        summary.put("granted", granted.get());
+        summary.put("revoked", revoked.get());
+        summary.put("failed", failed.get());
+        summary.put("started", startTime == 0 ? "" : dateUtil.getFormattedTime(startTime));
+        summary.put("ended", endTime == 0 ? "" : dateUtil.getFormattedTime(endTime));
+        return summary;
+    }
+
+    @Override
+    public void run() {
+        startTime = System.currentTimeMillis();
+        state = State.ACTIVE;
+        try {
+            final Connection connection = connectionFactory.getConnection();
+            final Map<String, ResourceResponse> members = getMembers(connection);
+            if (newCondition == null) {
+                // the role is no longer conditional, only the direct grants remain
+                revokeAll(connection, members);
+            } else {
+                final Set<String> matched = grantMatchingUsers(connection, QueryFilters.parse(newCondition), members);
+                if (!canceled) {
+                    final Map<String, ResourceResponse> unmatched = new HashMap<>(members);
+                    unmatched.keySet().removeAll(matched);
+                    revokeAll(connection, unmatched);
+                }
+            }
+            state = canceled ? State.CANCELED : State.COMPLETED;
+        } catch (Exception e) {
+            logger.warn("Failed to update the conditional grants of role {}", roleId, e);
+            state = State.FAILED;
+        } finally {
+            endTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns the members of the role, by user reference.
+     */
+    private Map<String, ResourceResponse> getMembers(Connection connection) throws ResourceException {
+        final Map<String, ResourceResponse> members = new HashMap<>();
+        final List<ResourceResponse> relationships = new ArrayList<>();
+        connection.query(context,
+                Requests.newQueryRequest(getMembersPath()).setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue()),
+                relationships);
+        for (ResourceResponse relationship : relationships) {
+            members.put(relationship.getContent().get(REFERENCE_ID).asString(), relationship);
+        }
+        return members;
+    }
+
+    private ResourcePath getMembersPath() {
+        return MANAGED_ROLE.child(roleId).child(MEMBERS);
+    }
+
+    private static boolean isConditional(ResourceResponse relationship) {
+        return GRANT_TYPE_CONDITIONAL.equals(
+                relationship.getContent().get(REFERENCE_PROPERTIES).get(GRANT_TYPE).asString());
+    }
+
+    private static String getRelationshipId(ResourceResponse relationship) {
+        // the relationship providers return the identifier of a relationship in its properties
+        final JsonValue relationshipId = relationship.getContent().get(RelationshipProvider.FIELD_ID);
+        return relationshipId != null && relationshipId.isString() ? relationshipId.asString() : relationship.getId();
+    }
+
+    /**
+     * Grants the role to the users matching a query filter, one page at a time.
+     *
+     * @return the references of the matching users
+     */
+    private Set<String> grantMatchingUsers(final Connection connection, QueryFilter<JsonPointer> filter,
+            final Map<String, ResourceResponse> members) throws Exception {
+        final Set<String> matched = new HashSet<>();
+        String cookie = null;
+        do {
+            final List<ResourceResponse> users = new ArrayList<>();
+            final QueryRequest request = Requests.newQueryRequest(MANAGED_USER)
+                    .setQueryFilter(filter)
+                    .setPageSize(pageSize)
+                    .setPagedResultsCookie(cookie)
+                    .addSortKey(FIELD_CONTENT_ID)
+                    .addField(FIELD_CONTENT_ID);
+            final QueryResponse response = connection.query(context, request, users);
+            final List<Callable<Void>> tasks = new ArrayList<>(users.size());
+            for (ResourceResponse user : users) {
+                final String userRef = MANAGED_USER.child(user.getId()).toString();
+                matched.add(userRef);
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        grant(connection, userRef, members.get(userRef));
+                        return null;
+                    }
+                });
+            }
+            invokeAll(tasks);
+            // some resource providers return a cookie after the last page
+            cookie = users.size() < pageSize ? null : response.getPagedResultsCookie();
+        } while (cookie != null && !canceled);
+        return matched;
+    }
+
+    /**
+     * Revokes the conditional grants of the given members.
+     */
+    private void revokeAll(final Connection connection, Map<String, ResourceResponse> members) throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>(pageSize);
+        for (final Map.Entry<String, ResourceResponse> member : members.entrySet()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    revoke(connection, member.getKey(), member.getValue());
+                    return null;
+                }
+            });
+            if (tasks.size() == pageSize) {
+                invokeAll(tasks);
+                tasks.clear();
+                if (canceled) {
+                    return;
+                }
+            }
+        }
+        invokeAll(tasks);
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) throws InterruptedException {
+        for (Future<Void> result : executor.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+                logger.warn("Failed to update a conditional grant of role {}", roleId, e.getCause());
+            }
+        }
+    }
+
+    private void grant(Connection connection, String userRef, ResourceResponse member) throws ResourceException {
+        processed.incrementAndGet();
+        if (member == null) {
+            connection.create(context, Requests.newCreateRequest(getMembersPath(), json(object(
+                    field(REFERENCE_ID, userRef),
+                    field(REFERENCE_PROPERTIES, object(field(GRANT_TYPE, GRANT_TYPE_CONDITIONAL)))))));
+            granted.incrementAndGet();
+        }
+    }
+
+    private void revoke(Connection connection, String userRef, ResourceResponse member) throws ResourceException {
+        processed.incrementAndGet();
+        if (member != null && isConditional(member)) {
+            connection.delete(context, Requests.newDeleteRequest(getMembersPath(), getRelationshipId(member)));
+            revoked.incrementAndGet();
+        }
+    }
+}
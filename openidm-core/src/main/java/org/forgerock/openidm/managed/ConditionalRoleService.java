@@ -0,0 +1,477 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.openidm.managed.ConditionalRoleJob.GRANT_TYPE;
+import static org.forgerock.openidm.managed.ConditionalRoleJob.GRANT_TYPE_CONDITIONAL;
+import static org.forgerock.openidm.managed.ConditionalRoleJob.MANAGED_ROLE;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_ID;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_PROPERTIES;
+import static org.forgerock.openidm.util.ResourceUtil.notSupported;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.core.IdentityServer;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.managed.ConditionalRoleIndex.IndexedRole;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.query.QueryFilter;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.component.propertytypes.ServiceVendor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the conditional roles of the managed users, in place of the evaluation of every role condition for
+ * every user by conditionalRoles.js.
+ * <p>
+ * The conditions of the roles are held in a {@link ConditionalRoleIndex}, loaded on first use and maintained by
+ * the {@code roleChanged} action, so that an updated user is only evaluated against the roles whose conditions
+ * reference a changed attribute. The index is loaded again once it is older than its maximum age, so that the
+ * roles changed on another node of a cluster are seen. A change of the condition of a role is processed by a background
+ * {@link ConditionalRoleJob}, whose progress is read from {@code conditionalroles/<jobId>}.
+ */
+@Component(
+        name = ConditionalRoleService.PID,
+        immediate = true,
+        property = {
+                Constants.SERVICE_PID + "=" + ConditionalRoleService.PID,
+                ServerConstants.ROUTER_PREFIX + "=/conditionalroles*"
+        })
+@ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
+@ServiceDescription("OpenIDM Conditional Role Service")
+public class ConditionalRoleService implements RequestHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConditionalRoleService.class);
+
+    static final String PID = "org.forgerock.openidm.conditionalroles";
+
+    /** The boot property holding the number of threads processing the grants of a role change */
+    private static final String THREADS_PROPERTY = "openidm.conditionalroles.threads";
+
+    /** The boot property holding the number of users processed at once by a role change */
+    private static final String PAGE_SIZE_PROPERTY = "openidm.conditionalroles.pagesize";
+
+    /** The boot property holding the maximum age, in seconds, of the conditions of the index */
+    private static final String MAX_AGE_PROPERTY = "openidm.conditionalroles.maxage";
+
+    /** The maximum number of completed jobs kept in the job list */
+    private static final int MAX_COMPLETED_JOBS = 100;
+
+    private static final String CONDITION = "condition";
+
+    /** The actions of the service */
+    enum Action {
+        evaluateUser, roleChanged, cancel
+    }
+
+    @Reference(policy = ReferencePolicy.STATIC)
+    protected IDMConnectionFactory connectionFactory;
+
+    protected void bindConnectionFactory(IDMConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    private final ConditionalRoleIndex index = new ConditionalRoleIndex();
+
+    /** The time the index was loaded from the conditional roles of the repository, or 0 if not loaded */
+    private volatile long indexLoadTime;
+
+    /** The jobs by identifier, oldest first */
+    private final Map<String, ConditionalRoleJob> jobs =
+            Collections.synchronizedMap(new LinkedHashMap<String, ConditionalRoleJob>());
+
+    /** Runs the jobs one at a time, so that the changes of a role are processed in order */
+    private ExecutorService jobExecutor;
+
+    /** Processes the grants of a page of users */
+    private ExecutorService grantExecutor;
+
+    private int pageSize;
+
+    private long maxAge;
+
+    @Activate
+    void activate(ComponentContext compContext) {
+        logger.debug("Activating Service with configuration {}", compContext.getProperties());
+        start(Integer.parseInt(IdentityServer.getInstance().getProperty(THREADS_PROPERTY, "4")),
+                Integer.parseInt(IdentityServer.getInstance().getProperty(PAGE_SIZE_PROPERTY, "500")),
+                Long.parseLong(IdentityServer.getInstance().getProperty(MAX_AGE_PROPERTY, "60")) * 1000L);
+        logger.info("Conditional role service started.");
+    }
+
+    @Deactivate
+    void deactivate(ComponentContext compContext) {
+        logger.debug("Deactivating Service {}", compContext);
+        stop();
+        logger.info("Conditional role service stopped.");
+    }
+
+    /**
+     * Starts the executors of the jobs.
+     *
+     * @param threads the number of threads processing the grants of a page of users
+     * @param pageSize the number of users queried at once
+     * @param maxAge the maximum age of the index in milliseconds, or 0 to keep it until the roles change
+     */
+    void start(int threads, int pageSize, long maxAge) {
+        this.pageSize = pageSize;
+        this.maxAge = maxAge;
+        jobExecutor = Executors.newSingleThreadExecutor();
+        grantExecutor = Executors.newFixedThreadPool(Math.max(1, threads));
+    }
+
+    /**
+     * Stops the executors of the jobs, canceling the running job.
+     */
+    void stop() {
+        synchronized (jobs) {
+            for (ConditionalRoleJob job : jobs.values()) {
+                job.cancel();
+            }
+        }
+        jobExecutor.shutdown();
+        grantExecutor.shutdown();
+    }
+
+    private boolean isIndexLoaded(long now) {
+        final long loadTime = indexLoadTime;
+        return loadTime != 0 && (maxAge <= 0 || now - loadTime <= maxAge);
+    }
+
+    /**
+     * Loads the conditional roles of the repository into the index, on first use and once the index is older than
+     * its maximum age.
+     */
+    private void loadIndex(Context context) throws ResourceException {
+        final long now = System.currentTimeMillis();
+        if (isIndexLoaded(now)) {
+            return;
+        }
+        synchronized (index) {
+            if (!isIndexLoaded(now)) {
+                final List<ResourceResponse> roles = new ArrayList<>();
+                connectionFactory.getConnection().query(context,
+                        Requests.newQueryRequest(MANAGED_ROLE)
+                                .setQueryFilter(QueryFilter.present(new JsonPointer(CONDITION)))
+                                .addField(FIELD_CONTENT_ID, CONDITION),
+                        roles);
+                final Map<String, String> conditions = new LinkedHashMap<>();
+                for (ResourceResponse role : roles) {
+                    final String condition = role.getContent().get(CONDITION).asString();
+                    if (condition != null) {
+                        conditions.put(role.getId(), condition);
+                    }
+                }
+                index.reset(conditions);
+                indexLoadTime = now;
+            }
+        }
+    }
+
+    /**
+     * Evaluates the conditional roles of a created, or updated, user.
+     * <p>
+     * The direct grants of the user are kept, the conditional roles the user now satisfies are granted, and the
+     * conditional grants whose conditions the user no longer satisfies are removed. Only the roles whose
+     * conditions reference an attribute changed by an update are evaluated, unless the grants themselves changed.
+     * A conditional grant of a role missing from the index is only removed once the role is read and found not to
+     * exist, or not to be satisfied by the user, since the role may have been created on another node of a cluster
+     * after the index was loaded.
+     *
+     * @param context the context of the evaluation
+     * @param user the created, or updated, user
+     * @param oldUser the user before the update, or null
+     * @param rolesProperty the name of the user property holding the role grants
+     * @param directGrants the direct role grants of the user
+     * @param conditionalGrants the conditional role grants of the user
+     * @return the role grants of the user
+     * @throws ResourceException if a role missing from the index cannot be read
+     */
+    List<Object> evaluateUser(Context context, JsonValue user, JsonValue oldUser, String rolesProperty,
+            JsonValue directGrants, JsonValue conditionalGrants) throws ResourceException {
+        final boolean evaluateAll = oldUser.isNull()
+                || !Objects.equals(oldUser.get(rolesProperty).getObject(), user.get(rolesProperty).getObject());
+        final Set<String> evaluated = new HashSet<>();
+        final List<Object> grants = new ArrayList<>(directGrants.asList());
+
+        for (IndexedRole role : evaluateAll ? index.getRoles() : index.getRolesAffectedBy(oldUser, user)) {
+            evaluated.add(role.getId());
+            final String roleRef = MANAGED_ROLE.child(role.getId()).toString();
+            // only grant the role if it is not already directly or conditionally granted
+            if (!isGranted(directGrants, roleRef) && !isGranted(conditionalGrants, roleRef)
+                    && role.isSatisfiedBy(user)) {
+                grants.add(object(
+                        field(REFERENCE_ID, roleRef),
+                        field(REFERENCE_PROPERTIES, object(field(GRANT_TYPE, GRANT_TYPE_CONDITIONAL)))));
+            }
+        }
+        for (JsonValue grant : conditionalGrants) {
+            final String roleId = getRoleId(grant.get(REFERENCE_ID).asString());
+            final IndexedRole indexedRole = index.get(roleId);
+            final IndexedRole role = indexedRole != null ? indexedRole : readConditionalRole(context, roleId);
+            if (role == null) {
+                logger.warn("An existing user grant could not be matched to an existing conditional role. "
+                        + "The grant in question: {}", grant);
+            } else if ((indexedRole != null && !evaluated.contains(role.getId())) || role.isSatisfiedBy(user)) {
+                // retain the existing conditional grants which are still valid
+                grants.add(grant.getObject());
+            }
+        }
+        return grants;
+    }
+
+    /**
+     * Reads a conditional role missing from the index, and adds it to the index.
+     *
+     * @param context the context of the evaluation
+     * @param roleId the identifier of the role, or null
+     * @return the role, or null if it does not exist or is not conditional
+     * @throws ResourceException if the role cannot be read
+     */
+    private IndexedRole readConditionalRole(Context context, String roleId) throws ResourceException {
+        if (roleId == null) {
+            return null;
+        }
+        final ResourceResponse response;
+        try {
+            response = connectionFactory.getConnection().read(context,
+                    Requests.newReadRequest(MANAGED_ROLE.child(roleId)).addField(FIELD_CONTENT_ID, CONDITION));
+        } catch (NotFoundException e) {
+            return null;
+        }
+        final String condition = response.getContent().get(CONDITION).asString();
+        if (condition == null) {
+            return null;
+        }
+        index.put(roleId, condition);
+        return index.get(roleId);
+    }
+
+    private static boolean isGranted(JsonValue grants, String roleRef) {
+        for (JsonValue grant : grants) {
+            if (roleRef.equals(grant.get(REFERENCE_ID).asString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getRoleId(String roleRef) {
+        final String prefix = MANAGED_ROLE.toString() + "/";
+        return roleRef != null && roleRef.startsWith(prefix) ? roleRef.substring(prefix.length()) : null;
+    }
+
+    /**
+     * Updates the index after the creation, update, or deletion of a role, and starts a job updating the
+     * conditional grants of the role if its condition changed.
+     *
+     * @param context the context of the change
+     * @param oldRole the role before the change, or null if the role was created
+     * @param newRole the role after the change, or null if the role was deleted
+     * @param waitForCompletion true to return when the job is complete
+     * @return the job, or null if the conditional grants of the role are unchanged
+     */
+    ConditionalRoleJob roleChanged(Context context, JsonValue oldRole, JsonValue newRole, boolean waitForCompletion)
+            throws ResourceException {
+        final String roleId = (newRole.isNull() ? oldRole : newRole).get(FIELD_CONTENT_ID).required().asString();
+        final String oldCondition = oldRole.get(CONDITION).asString();
+        final String newCondition = newRole.get(CONDITION).asString();
+
+        if (newCondition == null) {
+            index.remove(roleId);
+        } else {
+            index.put(roleId, newCondition);
+        }
+        if (newRole.isNull() || Objects.equals(oldCondition, newCondition)) {
+            // the grants of a deleted role are removed with it
+            return null;
+        }
+
+        final ConditionalRoleJob job = new ConditionalRoleJob(roleId, oldCondition, newCondition, context,
+                connectionFactory, grantExecutor, pageSize);
+        addJob(job);
+        if (waitForCompletion) {
+            job.run();
+        } else {
+            jobExecutor.execute(job);
+        }
+        return job;
+    }
+
+    /**
+     * Adds a job to the job list, removing the oldest completed jobs.
+     */
+    private void addJob(ConditionalRoleJob job) {
+        synchronized (jobs) {
+            int completed = 0;
+            final List<String> jobIds = new ArrayList<>(jobs.keySet());
+            for (int i = jobIds.size() - 1; i >= 0; i--) {
+                if (jobs.get(jobIds.get(i)).getState().isComplete() && ++completed >= MAX_COMPLETED_JOBS) {
+                    jobs.remove(jobIds.get(i));
+                }
+            }
+            jobs.put(job.getId(), job);
+        }
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> handleAction(Context context, ActionRequest request) {
+        try {
+            final Action action = request.getActionAsEnum(Action.class);
+            final JsonValue content = request.getContent();
+            if (request.getResourcePathObject().isEmpty()) {
+                switch (action) {
+                case evaluateUser:
+                    loadIndex(context);
+                    return newActionResponse(json(object(field("grants", evaluateUser(context,
+                            content.get("user").required(),
+                            content.get("oldUser"),
+                            content.get("rolesProperty").defaultTo("roles").asString(),
+                            content.get("directGrants").defaultTo(new ArrayList<>()).expect(List.class),
+                            content.get("conditionalGrants").defaultTo(new ArrayList<>()).expect(List.class))))))
+                            .asPromise();
+                case roleChanged:
+                    loadIndex(context);
+                    final ConditionalRoleJob job = roleChanged(context, content.get("oldRole"),
+                            content.get("newRole"),
+                            Boolean.parseBoolean(request.getAdditionalParameter("waitForCompletion")));
+                    return newActionResponse(job == null ? json(object()) : json(job.getSummary())).asPromise();
+                default:
+                    throw new BadRequestException("Action " + request.getAction() + " is not supported");
+                }
+            } else if (action == Action.cancel) {
+                final ConditionalRoleJob job = getJob(request.getResourcePathObject().leaf());
+                job.cancel();
+                return newActionResponse(json(job.getSummary())).asPromise();
+            } else {
+                throw new BadRequestException("Action " + request.getAction() + " on a job is not supported");
+            }
+        } catch (ResourceException e) {
+            return e.asPromise();
+        } catch (IllegalArgumentException e) {
+            // an unknown action, or an invalid condition
+            return new BadRequestException(e.getMessage(), e).asPromise();
+        } catch (Exception e) {
+            return new InternalServerErrorException(e.getMessage(), e).asPromise();
+        }
+    }
+
+    private ConditionalRoleJob getJob(String jobId) throws NotFoundException {
+        final ConditionalRoleJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Conditional role job with id " + jobId + " not found.");
+        }
+        return job;
+    }
+
+    /**
+     * Reads the list of jobs, or the progress of one job.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
+        try {
+            if (request.getResourcePathObject().isEmpty()) {
+                final List<Object> summaries = new ArrayList<>();
+                synchronized (jobs) {
+                    for (ConditionalRoleJob job : jobs.values()) {
+                        summaries.add(job.getSummary());
+                    }
+                }
+                return newResourceResponse("", null, json(object(field("jobs", summaries)))).asPromise();
+            }
+            final ConditionalRoleJob job = getJob(request.getResourcePathObject().leaf());
+            return newResourceResponse(job.getId(), null, json(job.getSummary())).asPromise();
+        } catch (ResourceException e) {
+            return e.asPromise();
+        } catch (JsonValueException e) {
+            return new BadRequestException(e.getMessage(), e).asPromise();
+        }
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> handleQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
+        return notSupported(request).asPromise();
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_ID;
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_PROPERTIES;
+import static org.forgerock.openidm.util.ResourceUtil.notSupported;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.core.IdentityServer;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.managed.EffectiveRoleView.RoleEntry;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.openidm.util.DateUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.component.propertytypes.ServiceVendor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates the effective roles and effective assignments of the managed users from an {@link EffectiveRoleView}
+ * of the roles and assignments, in place of the reads of every role and assignment of a user by the
+ * effectiveRoles.js and effectiveAssignments.js scripts.
+ * <p>
+ * The service listens to the changes of the managed objects to invalidate the roles and assignments of the view
+ * whose content, or relationships, changed.
+ */
+@Component(
+        name = EffectiveRoleService.PID,
+        immediate = true,
+        service = { ManagedObjectListener.class, RequestHandler.class },
+        property = {
+                Constants.SERVICE_PID + "=" + EffectiveRoleService.PID,
+                ServerConstants.ROUTER_PREFIX + "=/effectiveroles*"
+        })
+@ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
+@ServiceDescription("OpenIDM Effective Role Service")
+public class EffectiveRoleService implements RequestHandler, ManagedObjectListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EffectiveRoleService.class);
+
+    static final String PID = "org.forgerock.openidm.effectiveroles";
+
+    /** The boot property holding the maximum age, in seconds, of the roles and assignments of the view */
+    private static final String MAX_AGE_PROPERTY = "openidm.effectiveroles.maxage";
+
+    private static final ResourcePath MANAGED_ROLE = ResourcePath.valueOf("managed/role");
+    private static final ResourcePath MANAGED_ASSIGNMENT = ResourcePath.valueOf("managed/assignment");
+    private static final String TEMPORAL_CONSTRAINTS = "temporalConstraints";
+    private static final String ASSIGNMENTS = "assignments";
+    private static final String ROLES = "roles";
+
+    /** The actions of the service */
+    enum Action {
+        effectiveRoles, effectiveAssignments, clear
+    }
+
+    @Reference(policy = ReferencePolicy.STATIC)
+    protected IDMConnectionFactory connectionFactory;
+
+    protected void bindConnectionFactory(IDMConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    private volatile EffectiveRoleView view;
+
+    @Activate
+    void activate(ComponentContext compContext) {
+        logger.debug("Activating Service with configuration {}", compContext.getProperties());
+        start(Long.parseLong(IdentityServer.getInstance().getProperty(MAX_AGE_PROPERTY, "60")) * 1000L);
+        logger.info("Effective role service started.");
+    }
+
+    /**
+     * Creates the view of the roles and assignments.
+     *
+     * @param maxAge the maximum age of the roles and assignments of the view in milliseconds, or 0 to keep them
+     *               until they change
+     */
+    void start(long maxAge) {
+        view = new EffectiveRoleView(new EffectiveRoleView.Loader() {
+            @Override
+            public JsonValue readRole(String roleRef) throws ResourceException {
+                return read(Requests.newReadRequest(roleRef).addField(TEMPORAL_CONSTRAINTS, ASSIGNMENTS));
+            }
+
+            @Override
+            public JsonValue readAssignment(String assignmentRef) throws ResourceException {
+                return read(Requests.newReadRequest(assignmentRef));
+            }
+        }, maxAge);
+    }
+
+    /**
+     * Reads a role or an assignment of the view, with an internal context as the view is shared by all users.
+     */
+    private JsonValue read(ReadRequest request) throws ResourceException {
+        try {
+            return connectionFactory.getConnection().read(ContextUtil.createInternalContext(), request).getContent();
+        } catch (NotFoundException e) {
+            logger.debug("{} not found", request.getResourcePath());
+            return null;
+        }
+    }
+
+    @Override
+    public void managedObjectChanged(Context context, ResourcePath resourcePath, JsonValue oldValue,
+            JsonValue newValue) {
+        final EffectiveRoleView current = view;
+        if (current == null) {
+            return;
+        }
+        final ResourcePath container = resourcePath.parent();
+        if (MANAGED_ROLE.equals(container)) {
+            current.invalidateRole(resourcePath.toString());
+        } else if (MANAGED_ASSIGNMENT.equals(container)) {
+            // the roles added to the assignment are not yet known to reference it
+            final Set<String> roleRefs = new HashSet<>();
+            addReferences(oldValue.get(ROLES), roleRefs);
+            addReferences(newValue.get(ROLES), roleRefs);
+            current.invalidateAssignment(resourcePath.toString(), roleRefs);
+        }
+    }
+
+    private static void addReferences(JsonValue relationships, Set<String> refs) {
+        for (JsonValue relationship : relationships) {
+            final String ref = relationship.get(REFERENCE_ID).asString();
+            if (ref != null) {
+                refs.add(ref);
+            }
+        }
+    }
+
+    /**
+     * Calculates the effective roles of a user: the granted roles whose grant and role temporal constraints, if any,
+     * include the current time.
+     *
+     * @param grants the role grants of the user
+     * @return the references of the effective roles
+     * @throws ResourceException if a role could not be read
+     */
+    List<Object> calculateEffectiveRoles(JsonValue grants) throws ResourceException {
+        final List<Object> effectiveRoles = new ArrayList<>();
+        for (JsonValue grant : grants) {
+            final String roleRef = grant.get(REFERENCE_ID).asString();
+            if (roleRef == null || !isInEffect(grant.get(REFERENCE_PROPERTIES).get(TEMPORAL_CONSTRAINTS))) {
+                continue;
+            }
+            final RoleEntry role = view.getRole(roleRef);
+            if (role == null) {
+                logger.debug("No role details could be read from: {}", roleRef);
+            } else if (isInEffect(role.getTemporalConstraints())) {
+                effectiveRoles.add(object(field(REFERENCE_ID, roleRef)));
+            }
+        }
+        return effectiveRoles;
+    }
+
+    /**
+     * Calculates the effective assignments of a user: the assignments of the effective roles of the user.
+     *
+     * @param effectiveRoles the references of the effective roles of the user
+     * @return the effective assignments
+     * @throws ResourceException if a role, or an assignment, could not be read
+     */
+    List<Object> calculateEffectiveAssignments(JsonValue effectiveRoles) throws ResourceException {
+        final Map<String, Object> assignments = new LinkedHashMap<>();
+        for (JsonValue effectiveRole : effectiveRoles) {
+            final String roleRef = effectiveRole.get(REFERENCE_ID).asString();
+            // Only try to retrieve role details for role ids in URL format
+            if (roleRef == null || !roleRef.contains(MANAGED_ROLE.toString())) {
+                logger.debug("Role does not point to a resource, will not try to retrieve assignment details for {}",
+                        effectiveRole);
+                continue;
+            }
+            final RoleEntry role = view.getRole(roleRef);
+            if (role == null) {
+                logger.debug("No role details could be read from: {}", roleRef);
+                continue;
+            }
+            for (String assignmentRef : role.getAssignmentRefs()) {
+                if (!assignments.containsKey(assignmentRef)) {
+                    final JsonValue assignment = view.getAssignment(assignmentRef);
+                    if (assignment != null) {
+                        // a copy, as the assignments of the view are shared
+                        assignments.put(assignmentRef, assignment.copy().getObject());
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(assignments.values());
+    }
+
+    /**
+     * Returns whether the current time is within one of the temporal constraints, if any.
+     */
+    private static boolean isInEffect(JsonValue temporalConstraints) {
+        if (temporalConstraints.isNull() || temporalConstraints.size() == 0) {
+            return true;
+        }
+        final DateUtil dateUtil = DateUtil.getDateUtil();
+        for (JsonValue constraint : temporalConstraints) {
+            if (dateUtil.isNowWithinInterval(constraint.get("duration").asString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> handleAction(Context context, ActionRequest request) {
+        try {
+            final JsonValue content = request.getContent();
+            switch (request.getActionAsEnum(Action.class)) {
+            case effectiveRoles:
+                return newActionResponse(json(object(field("effectiveRoles",
+                        calculateEffectiveRoles(
+                                content.get("grants").defaultTo(new ArrayList<>()).expect(List.class))))))
+                        .asPromise();
+            case effectiveAssignments:
+                return newActionResponse(json(object(field("effectiveAssignments",
+                        calculateEffectiveAssignments(
+                                content.get("effectiveRoles").defaultTo(new ArrayList<>()).expect(List.class))))))
+                        .asPromise();
+            case clear:
+                view.clear();
+                return newActionResponse(json(view.getSummary())).asPromise();
+            default:
+                throw new BadRequestException("Action " + request.getAction() + " is not supported");
+            }
+        } catch (ResourceException e) {
+            return e.asPromise();
+        } catch (IllegalArgumentException e) {
+            // an unknown action, an invalid content, or an invalid temporal constraint
+            return new BadRequestException(e.getMessage(), e).asPromise();
+        } catch (Exception e) {
+            return new InternalServerErrorException(e.getMessage(), e).asPromise();
+        }
+    }
+
+    /**
+     * Reads the number of roles and assignments of the view.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
+        return newResourceResponse("", null, json(view.getSummary())).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> handleQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler) {
+        return notSupported(request).asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
+        return notSupported(request).asPromise();
+    }
+}
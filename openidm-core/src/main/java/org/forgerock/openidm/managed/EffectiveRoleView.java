@@ -0,0 +1,282 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.openidm.util.RelationshipUtil.REFERENCE_ID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceException;
+
+/**
+ * A materialized view of the roles and assignments from which the effective roles and effective assignments of the
+ * users are calculated: the temporal constraints and the assignment references of each role, and the content of
+ * each assignment.
+ * <p>
+ * The entries are loaded on first use and invalidated one by one as the roles, the assignments and their
+ * relationships change, so that calculating the effective assignments of a user no longer reads every role and
+ * every assignment of the user. An invalidation racing with the load of an entry prevents the loaded entry from
+ * being kept, and entries older than the maximum age are reloaded, which bounds the staleness caused by changes
+ * this view is not notified of, such as the changes made by another node of a cluster.
+ */
+final class EffectiveRoleView {
+
+    /**
+     * Reads the roles and assignments of the view.
+     */
+    interface Loader {
+
+        /**
+         * Reads a role with its temporal constraints and assignments.
+         *
+         * @param roleRef the reference of the role, such as {@code managed/role/admin}
+         * @return the role, or null if the role does not exist
+         * @throws ResourceException if the role could not be read
+         */
+        JsonValue readRole(String roleRef) throws ResourceException;
+
+        /**
+         * Reads an assignment.
+         *
+         * @param assignmentRef the reference of the assignment, such as {@code managed/assignment/ldap}
+         * @return the assignment, or null if the assignment does not exist
+         * @throws ResourceException if the assignment could not be read
+         */
+        JsonValue readAssignment(String assignmentRef) throws ResourceException;
+    }
+
+    /**
+     * The part of a role from which the effective roles and assignments are calculated.
+     */
+    static final class RoleEntry {
+        private final JsonValue temporalConstraints;
+        private final List<String> assignmentRefs;
+        private final long loadTime;
+
+        private RoleEntry(JsonValue role, long loadTime) {
+            this.temporalConstraints = role.get("temporalConstraints").copy();
+            final List<String> refs = new ArrayList<>();
+            for (JsonValue assignment : role.get("assignments")) {
+                final String ref = assignment.get(REFERENCE_ID).asString();
+                if (ref != null) {
+                    refs.add(ref);
+                }
+            }
+            this.assignmentRefs = Collections.unmodifiableList(refs);
+            this.loadTime = loadTime;
+        }
+
+        /**
+         * Returns the temporal constraints of the role.
+         *
+         * @return the temporal constraints, or a null value if the role has none
+         */
+        JsonValue getTemporalConstraints() {
+            return temporalConstraints;
+        }
+
+        /**
+         * Returns the references of the assignments of the role.
+         *
+         * @return the assignment references
+         */
+        List<String> getAssignmentRefs() {
+            return assignmentRefs;
+        }
+    }
+
+    private static final class AssignmentEntry {
+        private final JsonValue assignment;
+        private final long loadTime;
+
+        private AssignmentEntry(JsonValue assignment, long loadTime) {
+            this.assignment = assignment;
+            this.loadTime = loadTime;
+        }
+    }
+
+    private final Loader loader;
+    private final long maxAge;
+
+    /** The entries and the reverse index are guarded by the view */
+    private final Map<String, RoleEntry> roles = new HashMap<>();
+    private final Map<String, AssignmentEntry> assignments = new HashMap<>();
+    private final Map<String, Set<String>> rolesByAssignment = new HashMap<>();
+
+    /** Incremented by each invalidation, so that an entry loaded concurrently is not kept */
+    private long generation;
+
+    /**
+     * Constructs a view.
+     *
+     * @param loader the reader of the roles and assignments
+     * @param maxAge the maximum age of an entry in milliseconds, or 0 to keep the entries until invalidated
+     */
+    EffectiveRoleView(Loader loader, long maxAge) {
+        this.loader = loader;
+        this.maxAge = maxAge;
+    }
+
+    private boolean isExpired(long loadTime, long now) {
+        return maxAge > 0 && now - loadTime > maxAge;
+    }
+
+    /**
+     * Returns a role of the view, loading it if needed.
+     *
+     * @param roleRef the reference of the role
+     * @return the role, or null if the role does not exist
+     * @throws ResourceException if the role could not be read
+     */
+    RoleEntry getRole(String roleRef) throws ResourceException {
+        final long now = System.currentTimeMillis();
+        final long loadGeneration;
+        synchronized (this) {
+            final RoleEntry entry = roles.get(roleRef);
+            if (entry != null && !isExpired(entry.loadTime, now)) {
+                return entry;
+            }
+            loadGeneration = generation;
+        }
+        final JsonValue role = loader.readRole(roleRef);
+        if (role == null) {
+            // not kept, in case the role is created
+            return null;
+        }
+        final RoleEntry entry = new RoleEntry(role, now);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                removeRole(roleRef);
+                roles.put(roleRef, entry);
+                for (String assignmentRef : entry.assignmentRefs) {
+                    Set<String> roleRefs = rolesByAssignment.get(assignmentRef);
+                    if (roleRefs == null) {
+                        roleRefs = new HashSet<>();
+                        rolesByAssignment.put(assignmentRef, roleRefs);
+                    }
+                    roleRefs.add(roleRef);
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns an assignment of the view, loading it if needed. The returned assignment is shared and must not be
+     * modified.
+     *
+     * @param assignmentRef the reference of the assignment
+     * @return the assignment, or null if the assignment does not exist
+     * @throws ResourceException if the assignment could not be read
+     */
+    JsonValue getAssignment(String assignmentRef) throws ResourceException {
+        final long now = System.currentTimeMillis();
+        final long loadGeneration;
+        synchronized (this) {
+            final AssignmentEntry entry = assignments.get(assignmentRef);
+            if (entry != null && !isExpired(entry.loadTime, now)) {
+                return entry.assignment;
+            }
+            loadGeneration = generation;
+        }
+        final JsonValue assignment = loader.readAssignment(assignmentRef);
+        if (assignment == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                assignments.put(assignmentRef, new AssignmentEntry(assignment, now));
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Invalidates a role, after the role, or its assignments, changed.
+     *
+     * @param roleRef the reference of the role
+     */
+    synchronized void invalidateRole(String roleRef) {
+        generation++;
+        removeRole(roleRef);
+    }
+
+    /**
+     * Invalidates an assignment, after the assignment, or its roles, changed, along with the roles referencing the
+     * assignment.
+     *
+     * @param assignmentRef the reference of the assignment
+     * @param roleRefs the references of other roles whose assignments may have changed
+     */
+    synchronized void invalidateAssignment(String assignmentRef, Set<String> roleRefs) {
+        generation++;
+        assignments.remove(assignmentRef);
+        final Set<String> referencing = rolesByAssignment.get(assignmentRef);
+        if (referencing != null) {
+            for (String roleRef : new ArrayList<>(referencing)) {
+                removeRole(roleRef);
+            }
+        }
+        for (String roleRef : roleRefs) {
+            removeRole(roleRef);
+        }
+    }
+
+    /**
+     * Invalidates the whole view.
+     */
+    synchronized void clear() {
+        generation++;
+        roles.clear();
+        assignments.clear();
+        rolesByAssignment.clear();
+    }
+
+    /**
+     * Returns the number of roles and assignments held by the view.
+     *
+     * @return the number of roles and assignments
+     */
+    synchronized Map<String, Object> getSummary() {
+        final Map<String, Object> summary = new HashMap<>();
+        summary.put("roles", roles.size());
+        summary.put("assignments", assignments.size());
+        return summary;
+    }
+
+    private void removeRole(String roleRef) {
+        final RoleEntry entry = roles.remove(roleRef);
+        if (entry != null) {
+            for (String assignmentRef : entry.assignmentRefs) {
+                final Set<String> roleRefs = rolesByAssignment.get(assignmentRef);
+                if (roleRefs != null) {
+                    roleRefs.remove(roleRef);
+                    if (roleRefs.isEmpty()) {
+                        rolesByAssignment.remove(assignmentRef);
+                    }
+                }
+            }
+        }
+    }
+}
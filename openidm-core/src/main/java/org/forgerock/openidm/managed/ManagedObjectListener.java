@@ -0,0 +1,39 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.services.context.Context;
+
+/**
+ * A listener notified of the changes of the managed objects, including the changes of their relationships made
+ * through the relationship endpoints.
+ */
+public interface ManagedObjectListener {
+
+    /**
+     * Notifies the listener that a managed object was created, updated or deleted. The change is persisted, and the
+     * post scripts of the managed object are not yet executed.
+     *
+     * @param context the context of the change
+     * @param resourcePath the path of the managed object, such as {@code managed/role/admin}
+     * @param oldValue the value before the change, or a null value if the object was created
+     * @param newValue the value after the change, or a null value if the object was deleted
+     */
+    void managedObjectChanged(Context context, ResourcePath resourcePath, JsonValue oldValue, JsonValue newValue);
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 package org.forgerock.openidm.managed;
 
@@ -127,6 +127,25 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
         syncRoute.set(null);
     }
 
+    /**
+     * The listener notified of the changes of the managed objects, such as the effective role service maintaining
+     * the effective roles and assignments of the users.
+     */
+    private final AtomicReference<ManagedObjectListener> changeListener = new AtomicReference<>();
+
+    @Reference(service = ManagedObjectListener.class,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unbindChangeListener",
+            cardinality = ReferenceCardinality.OPTIONAL)
+    void bindChangeListener(final ManagedObjectListener listener) {
+        changeListener.set(listener);
+    }
+
+    @SuppressWarnings("unused")
+    void unbindChangeListener(final ManagedObjectListener listener) {
+        changeListener.compareAndSet(listener, null);
+    }
+
     /* The Connection Factory */
     @Reference(policy = ReferencePolicy.STATIC)
     protected IDMConnectionFactory connectionFactory;
@@ -241,7 +260,8 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
     protected void activate(ComponentContext context) throws Exception {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
         for (JsonValue managedObjectConfig : configuration.get("objects").expect(List.class)) {
-            final ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, connectionFactory, managedObjectConfig);
+            final ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, changeListener,
+                    connectionFactory, managedObjectConfig);
             if (managedRoutes.containsKey(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
@@ -263,7 +283,8 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
 
         Set<String> routesToKeep = new HashSet<String>();
         for (JsonValue value : configuration.get("objects").expect(List.class)) {
-            ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, connectionFactory, value);
+            ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, changeListener,
+                    connectionFactory, value);
             if (routesToKeep.contains(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
@@ -161,6 +161,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private static final Logger logger = LoggerFactory.getLogger(ManagedObjectSet.class);
 
+    /** Maximum number of expanded referenced resources kept for the results of a query */
+    private static final int MAX_QUERY_EXPANSIONS = 1000;
+
     /** The managed objects service that instantiated this managed object set. */
     private final CryptoService cryptoService;
 
@@ -188,12 +191,21 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     /** reference to the sync service route; used to decided whether or not to perform a sync action */
     private final AtomicReference<RouteService> syncRoute;
 
+    /** reference to the listener notified of the changes of the managed objects, if any */
+    private final AtomicReference<ManagedObjectListener> changeListener;
+
     /** Map of relationship property names and their accompanying sets */
     private final Map<JsonPointer, RelationshipProvider> relationshipProviders = new HashMap<>();
 
     /** Flag for indicating if policy enforcement is enabled */
     private final boolean enforcePolicies;
 
+    /** Number of query results included in the activity log entry of a query */
+    private final int queryActivitySampleSize;
+
+    /** Number of query results whose relationship fields are read together, one repository query per field */
+    private final int queryRelationshipBatchSize;
+
     private final JsonValue config;
 
     /**
@@ -211,7 +223,27 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     public ManagedObjectSet(final ScriptRegistry scriptRegistry, final CryptoService cryptoService,
             final AtomicReference<RouteService> syncRoute, IDMConnectionFactory connectionFactory, JsonValue config)
             throws JsonValueException, ScriptException {
-        this(scriptRegistry, cryptoService, syncRoute, connectionFactory, config,
+        this(scriptRegistry, cryptoService, syncRoute, new AtomicReference<ManagedObjectListener>(),
+                connectionFactory, config, new RouterActivityLogger(connectionFactory));
+    }
+
+    /**
+     * Constructs a new managed object set.
+     *
+     * @param scriptRegistry the script registry
+     * @param cryptoService the cryptographic service
+     * @param syncRoute a reference to the RouteService on "sync"
+     * @param changeListener a reference to the listener notified of the changes of the managed objects
+     * @param connectionFactory the router connection factory
+     * @param config configuration object to use to initialize managed object set.
+     * @throws JsonValueException when the configuration is malformed
+     * @throws ScriptException when the script configuration is malformed or the script is
+     * invalid.
+     */
+    ManagedObjectSet(final ScriptRegistry scriptRegistry, final CryptoService cryptoService,
+            final AtomicReference<RouteService> syncRoute, final AtomicReference<ManagedObjectListener> changeListener,
+            IDMConnectionFactory connectionFactory, JsonValue config) throws JsonValueException, ScriptException {
+        this(scriptRegistry, cryptoService, syncRoute, changeListener, connectionFactory, config,
                 new RouterActivityLogger(connectionFactory));
     }
 
@@ -240,8 +272,31 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             final AtomicReference<RouteService> syncRoute, final IDMConnectionFactory connectionFactory,
             final JsonValue config, final ActivityLogger activityLogger)
             throws JsonValueException, ScriptException {
+        this(scriptRegistry, cryptoService, syncRoute, new AtomicReference<ManagedObjectListener>(),
+                connectionFactory, config, activityLogger);
+    }
+
+    /**
+     * Constructs a new managed object set.
+     *
+     * @param scriptRegistry the script registry
+     * @param cryptoService the cryptographic service
+     * @param syncRoute a reference to the RouteService on "sync"
+     * @param changeListener a reference to the listener notified of the changes of the managed objects
+     * @param connectionFactory the router connection factory
+     * @param config configuration object to use to initialize managed object set.
+     * @param activityLogger The {@link ActivityLogger} to use for audit logging
+     * @throws JsonValueException when the configuration is malformed
+     * @throws ScriptException when the script configuration is malformed or the script is
+     * invalid.
+     */
+    ManagedObjectSet(final ScriptRegistry scriptRegistry, final CryptoService cryptoService,
+            final AtomicReference<RouteService> syncRoute, final AtomicReference<ManagedObjectListener> changeListener,
+            final IDMConnectionFactory connectionFactory, final JsonValue config, final ActivityLogger activityLogger)
+            throws JsonValueException, ScriptException {
         this.cryptoService = cryptoService;
         this.syncRoute = syncRoute;
+        this.changeListener = changeListener;
         this.connectionFactory = connectionFactory;
         this.activityLogger = activityLogger;
         name = config.get("name").required().asString();
@@ -274,6 +329,10 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
 
         enforcePolicies = Boolean.parseBoolean(IdentityServer.getInstance()
                 .getProperty("openidm.policy.enforcement.enabled", "true"));
+        queryActivitySampleSize = Integer.parseInt(IdentityServer.getInstance()
+                .getProperty("openidm.managed.query.activity.samplesize", "0"));
+        queryRelationshipBatchSize = Math.max(1, Integer.parseInt(IdentityServer.getInstance()
+                .getProperty("openidm.managed.query.relationships.batchsize", "100")));
         logger.debug("Instantiated managed object set: {}", name);
     }
 
@@ -591,6 +650,8 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         responseContent.asMap().putAll(persistRelationships(true, managedContext, resourceId, oldValue, responseContent, relationshipFields)
                 .asMap());
 
+        notifyChange(context, resourceId, decryptedOld, responseContent);
+
         // Execute the postUpdate script if configured
         executePostUpdate(context, request, resourceId, decryptedOld, responseContent);
 
@@ -828,6 +889,8 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             content.asMap().putAll(persistRelationships(false, managedContext, resourceId, json(null), content,
                     relationshipProviders.keySet()).asMap());
 
+            notifyChange(managedContext, resourceId, new JsonValue(null), content);
+
             // Execute the postCreate script if configured
             execScriptHook(managedContext, ScriptHook.postCreate, content,
                     prepareScriptBindings(managedContext, request, resourceId, new JsonValue(null), content));
@@ -893,36 +956,52 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         try {
             final JsonValue joined = json(object());
 
-            /*
-             * Create set only containing the head of request fields
-             * Allows for a relationship to be fetched when only an expansion is requested.
-             * ie. a field of foo/name will retrieve the foo relationship
-             */
-            final Set<JsonPointer> fieldHeads = new HashSet<>();
-            for (JsonPointer field : requestFields) {
-                // A blank _fields param can yield a single '/' (empty) pointer
-                if (!field.isEmpty()) {
-                    fieldHeads.add(new JsonPointer(field.get(0)));
+            for (JsonPointer field : getRelationshipFieldsToFetch(requestFields)) {
+                try {
+                    joined.put(field, relationshipProviders.get(field).getRelationshipValueForResource(context,
+                            resourceId).getOrThrow().getObject());
+                } catch (NotFoundException e) {
+                    logger.debug("No {} relationships found for {}", field, resourceId);
+                    joined.put(field, null);
                 }
             }
 
-            for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
-                final JsonPointer field = entry.getKey();
-                final RelationshipProvider provider = entry.getValue();
-
-                if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
-                        || provider.getSchemaField().isReturnedByDefault()
-                        || fieldHeads.contains(field)) { // only check head of request fields (see above)
-                    try {
-                        joined.put(field, provider.getRelationshipValueForResource(context,
-                                resourceId).getOrThrow().getObject());
-                    } catch (NotFoundException e) {
-                        logger.debug("No {} relationships found for {}", field, resourceId);
-                        joined.put(field, null);
-                    }
-                } else {
-                    // relationship was not requested or set to return by default
-                    logger.debug("Relationship field {} skipped", field);
+            return joined;
+        } finally {
+            measure.end();
+        }
+    }
+
+    /**
+     * Fetch the current relationship(s) of several resources for relationship fields set to be returned by default
+     * or specified in the {@link QueryRequest#getFields()}, reading each relationship field of all the resources
+     * with a single repository query.
+     *
+     * @param context The current context
+     * @param resourceIds The ids of the resources to fetch relationships of
+     * @param requestFields The fields requested in the initial request
+     * @return A map of each resource id to a {@link JsonValue} map containing all its relationship fields and their
+     *         values
+     * @throws ResourceException if the relationships could not be read
+     */
+    private Map<String, JsonValue> fetchRelationshipFields(final Context context, final List<String> resourceIds,
+            final List<JsonPointer> requestFields) throws ResourceException {
+        EventEntry measure = Publisher.start(Name.get("openidm/internal/managed/set/fetchRelationshipFieldsBatch"),
+                resourceIds, context);
+
+        try {
+            final Map<String, JsonValue> joined = new HashMap<>();
+            for (String resourceId : resourceIds) {
+                joined.put(resourceId, json(object()));
+            }
+
+            for (JsonPointer field : getRelationshipFieldsToFetch(requestFields)) {
+                final Map<String, JsonValue> values =
+                        relationshipProviders.get(field).getRelationshipValuesForResources(context, resourceIds);
+                for (Map.Entry<String, JsonValue> value : values.entrySet()) {
+                    joined.get(value.getKey()).put(field, value.getValue() != null
+                            ? value.getValue().getObject()
+                            : null);
                 }
             }
 
@@ -932,6 +1011,44 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Returns the relationship fields to fetch: the fields set to be returned by default and the fields specified in
+     * the request.
+     *
+     * @param requestFields The fields requested in the initial request
+     * @return the relationship fields to fetch
+     */
+    private List<JsonPointer> getRelationshipFieldsToFetch(final List<JsonPointer> requestFields) {
+        /*
+         * Create set only containing the head of request fields
+         * Allows for a relationship to be fetched when only an expansion is requested.
+         * ie. a field of foo/name will retrieve the foo relationship
+         */
+        final Set<JsonPointer> fieldHeads = new HashSet<>();
+        for (JsonPointer field : requestFields) {
+            // A blank _fields param can yield a single '/' (empty) pointer
+            if (!field.isEmpty()) {
+                fieldHeads.add(new JsonPointer(field.get(0)));
+            }
+        }
+
+        final List<JsonPointer> fields = new ArrayList<>();
+        for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
+            final JsonPointer field = entry.getKey();
+            final RelationshipProvider provider = entry.getValue();
+
+            if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
+                    || provider.getSchemaField().isReturnedByDefault()
+                    || fieldHeads.contains(field)) { // only check head of request fields (see above)
+                fields.add(field);
+            } else {
+                // relationship was not requested or set to return by default
+                logger.debug("Relationship field {} skipped", field);
+            }
+        }
+        return fields;
+    }
+
     /**
      * This will traverse the jsonValue and validate that all relationship references are valid and available for
      * assignment.
@@ -1058,6 +1175,8 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             activityLogger.log(managedContext, request, "delete", managedId(resource.getId()).toString(),
                     resource.getContent(), null, Status.SUCCESS);
 
+            notifyChange(managedContext, resourceId, resource.getContent(), new JsonValue(null));
+
             // Execute the postDelete script if configured
             execScriptHook(managedContext, ScriptHook.postDelete, null, prepareScriptBindings(managedContext, request, resourceId,
                     resource.getContent(), new JsonValue(null)));
@@ -1254,8 +1373,6 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // The onRetrieve script should only be run queries that return full managed objects
         final boolean onRetrieve = executeOnRetrieve != null && Boolean.parseBoolean(executeOnRetrieve);
 
-        final List<Map<String,Object>> results = new ArrayList<Map<String,Object>>();
-        final ResourceException[] ex = new ResourceException[]{null};
         try {
             // Create new QueryRequest to send to the repository
             // Does not include any fields specified in the current request
@@ -1271,50 +1388,21 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             for (String key : request.getAdditionalParameters().keySet()) {
                 repoRequest.setAdditionalParameter(key, request.getAdditionalParameter(key));
             }
-        	
-        	QueryResponse queryResponse = connectionFactory.getConnection().query(managedContext, repoRequest,
-            		new QueryResourceHandler() {
-                @Override
-                public boolean handleResource(ResourceResponse resource) {
-                    ResourceResponse resourceResponse = null;
-                    // Check if the onRetrieve script should be run
-                    if (onRetrieve) {
-                        try {
-                            onRetrieve(managedContext, request, resource.getId(), resource);
-                        } catch (ResourceException e) {
-                        	ex[0] = e;
-                            return false;
-                        }
-                    }
-                    if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
-                        // Don't populate relationships if this is a query-all-ids query.
-                        resourceResponse = resource;    
-                    } else {
-                        // Populate the relationship fields
-                        try {
-                            JsonValue relationships = fetchRelationshipFields(managedContext, resource.getId(), request.getFields());
-                            resource.getContent().asMap().putAll(relationships.asMap());
-                            resourceResponse = prepareResponse(managedContext, resource, request.getFields());
-                        } catch (ResourceException e) {
-                            ex[0] = e;
-                            return false;
-                        } catch (Exception e) {
-                            ex[0] = new InternalServerErrorException(e.getMessage(), e);
-                            return false;
-                        }
-                    }
-                    results.add(resourceResponse.getContent().asMap());
-                    return handler.handleResource(prepareResponse(managedContext, resourceResponse, request.getFields()));
-                }
-            });
-        	
-        	if(ex[0] != null) {
-            	return ex[0].asPromise();
-        	}
-        	
+
+            final QueryResultsHandler resultsHandler =
+                    new QueryResultsHandler(managedContext, request, onRetrieve, handler);
+            QueryResponse queryResponse = connectionFactory.getConnection().query(managedContext, repoRequest,
+                    resultsHandler);
+            resultsHandler.flush();
+
+            if (resultsHandler.exception != null) {
+                return resultsHandler.exception.asPromise();
+            }
+
             activityLogger.log(managedContext, request, 
             		"query: " + request.getQueryId() + ", parameters: " + request.getAdditionalParameters(), 
-            		request.getQueryId(), null, new JsonValue(results), Status.SUCCESS);
+            		request.getQueryId(), null,
+                    queryActivitySummary(resultsHandler.resultCount, resultsHandler.sample), Status.SUCCESS);
             
         	return queryResponse.asPromise();
 
@@ -1325,6 +1413,136 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Handles the results of a managed object query read from the repository. The relationship fields of the results
+     * are read a batch of {@link #queryRelationshipBatchSize} results at a time, with one repository query per field
+     * for the whole batch, and the expansions of referenced objects are shared by all the results of the query.
+     */
+    private final class QueryResultsHandler implements QueryResourceHandler {
+
+        private final Context context;
+        private final QueryRequest request;
+        private final boolean onRetrieve;
+        private final QueryResourceHandler handler;
+
+        /** The results waiting for their relationship fields */
+        private final List<ResourceResponse> batch = new ArrayList<>();
+
+        /** The expanded referenced objects, by reference and fields */
+        private final Map<String, Promise<ResourceResponse, ResourceException>> expansions =
+                new LinkedHashMap<String, Promise<ResourceResponse, ResourceException>>() {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<String, Promise<ResourceResponse, ResourceException>> eldest) {
+                        return size() > MAX_QUERY_EXPANSIONS;
+                    }
+                };
+
+        /** Only a count and a bounded sample of the results are kept for the activity log */
+        private int resultCount = 0;
+        private final List<Object> sample = new ArrayList<>();
+
+        /** The error which stopped the query, if any */
+        private ResourceException exception = null;
+
+        /** Whether the handler has asked for no more results */
+        private boolean stopped = false;
+
+        QueryResultsHandler(Context context, QueryRequest request, boolean onRetrieve, QueryResourceHandler handler) {
+            this.context = context;
+            this.request = request;
+            this.onRetrieve = onRetrieve;
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean handleResource(ResourceResponse resource) {
+            // Check if the onRetrieve script should be run
+            if (onRetrieve) {
+                try {
+                    onRetrieve(context, request, resource.getId(), resource);
+                } catch (ResourceException e) {
+                    exception = e;
+                    return false;
+                }
+            }
+            if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
+                // Don't populate relationships if this is a query-all-ids query.
+                return handleResult(resource);
+            }
+            batch.add(resource);
+            return batch.size() < queryRelationshipBatchSize || flush();
+        }
+
+        /**
+         * Populates the relationship fields of the pending results and passes them to the handler.
+         *
+         * @return true if more results are to be handled
+         */
+        boolean flush() {
+            if (batch.isEmpty() || exception != null || stopped) {
+                return exception == null && !stopped;
+            }
+            try {
+                // Populate the relationship fields
+                if (batch.size() == 1) {
+                    ResourceResponse resource = batch.get(0);
+                    resource.getContent().asMap().putAll(
+                            fetchRelationshipFields(context, resource.getId(), request.getFields()).asMap());
+                } else {
+                    final List<String> resourceIds = new ArrayList<>(batch.size());
+                    for (ResourceResponse resource : batch) {
+                        resourceIds.add(resource.getId());
+                    }
+                    final Map<String, JsonValue> relationships =
+                            fetchRelationshipFields(context, resourceIds, request.getFields());
+                    for (ResourceResponse resource : batch) {
+                        resource.getContent().asMap().putAll(relationships.get(resource.getId()).asMap());
+                    }
+                }
+                for (ResourceResponse resource : batch) {
+                    if (!handleResult(prepareResponse(context, resource, request.getFields(), expansions))) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (ResourceException e) {
+                exception = e;
+                return false;
+            } catch (Exception e) {
+                exception = new InternalServerErrorException(e.getMessage(), e);
+                return false;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private boolean handleResult(ResourceResponse resourceResponse) {
+            resultCount++;
+            if (sample.size() < queryActivitySampleSize) {
+                sample.add(resourceResponse.getContent().getObject());
+            }
+            stopped = !handler.handleResource(
+                    prepareResponse(context, resourceResponse, request.getFields(), expansions));
+            return !stopped;
+        }
+    }
+
+    /**
+     * Summarizes the results of a query for the activity log, rather than logging every result.
+     *
+     * @param resultCount the number of results returned
+     * @param sample the first results returned, up to the configured sample size
+     * @return the summary logged as the value after the query
+     */
+    private JsonValue queryActivitySummary(int resultCount, List<Object> sample) {
+        JsonValue summary = json(object(field("resultCount", resultCount)));
+        if (!sample.isEmpty()) {
+            summary.put("sample", sample);
+        }
+        return summary;
+    }
+
     @Override
     public Promise<ActionResponse, ResourceException> actionInstance(Context context, String resourceId,
     		ActionRequest request) {
@@ -1520,6 +1738,22 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private ResourceResponse prepareResponse(Context context, ResourceResponse resource,
             final List<JsonPointer> requestFields) {
+        return prepareResponse(context, resource, requestFields, null);
+    }
+
+    /**
+     * Prepares the response contents as {@link #prepareResponse(Context, ResourceResponse, List)} does, sharing the
+     * expansions of referenced resources with the other responses of the same request.
+     *
+     * @param context the current ServerContext
+     * @param resource the Resource to prepare
+     * @param requestFields a list of fields to return specified in the request
+     * @param expansions the expanded resources of the request, by reference and fields, or null to not share them
+     * @return the prepared Resource object
+     */
+    private ResourceResponse prepareResponse(Context context, ResourceResponse resource,
+            final List<JsonPointer> requestFields,
+            final Map<String, Promise<ResourceResponse, ResourceException>> expansions) {
         Map<JsonPointer, SchemaField> fieldsToRemove = new HashMap<>(schema.getHiddenByDefaultFields());
         Map<JsonPointer, List<JsonPointer>> resourceExpansionMap = new HashMap<>();
         List<JsonPointer> fields = new ArrayList<>();
@@ -1593,11 +1827,11 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                     if (schemaField.isArray()) {
                         // The field is an array of relationship objects
                         for (JsonValue value : fieldValue) {
-                            promises.add(expandResource(context, value, fieldsList));
+                            promises.add(expandResource(context, value, fieldsList, expansions));
                         }
                     } else {
                         // The field is a relationship object  
-                        promises.add(expandResource(context, fieldValue, fieldsList));
+                        promises.add(expandResource(context, fieldValue, fieldsList, expansions));
                     }
                 } else {
                     logger.debug("Cannot expand a null relationship object");
@@ -1640,23 +1874,38 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      * @param context the {@link Context} of the request
      * @param value the value of the relationship object
      * @param fieldsList the list of fields to read and merge with the relationship object.
+     * @param expansions the resources already read for the request, by reference and fields, or null
      * @throws ResourceException if an error is encountered.
      */
     private Promise<ResourceResponse, ResourceException> expandResource(Context context, final JsonValue value, 
-            List<JsonPointer> fieldsList) throws ResourceException {
+            List<JsonPointer> fieldsList,
+            Map<String, Promise<ResourceResponse, ResourceException>> expansions) throws ResourceException {
         if (!value.isNull() && value.get(SchemaField.FIELD_REFERENCE) != null) {
-            final Connection connection = ContextUtil.isExternal(context) 
-                    ? connectionFactory.getExternalConnection()
-                    : connectionFactory.getConnection();
-            // Create and issue a read request on the referenced resource with the specified list of fields
-            ReadRequest request = Requests.newReadRequest(value.get(SchemaField.FIELD_REFERENCE).asString());
-            request.addField(fieldsList.toArray(new JsonPointer[fieldsList.size()]));
-            return connection.readAsync(context, request).thenOnResultOrException(
+            final String reference = value.get(SchemaField.FIELD_REFERENCE).asString();
+            final String expansionKey = reference + fieldsList;
+            Promise<ResourceResponse, ResourceException> expanded =
+                    expansions != null ? expansions.get(expansionKey) : null;
+            if (expanded == null) {
+                final Connection connection = ContextUtil.isExternal(context)
+                        ? connectionFactory.getExternalConnection()
+                        : connectionFactory.getConnection();
+                // Create and issue a read request on the referenced resource with the specified list of fields
+                ReadRequest request = Requests.newReadRequest(reference);
+                request.addField(fieldsList.toArray(new JsonPointer[fieldsList.size()]));
+                expanded = connection.readAsync(context, request);
+                if (expansions != null) {
+                    expansions.put(expansionKey, expanded);
+                }
+            }
+            final boolean shared = expansions != null;
+            return expanded.thenOnResultOrException(
                     new ResultHandler<ResourceResponse>() {
                         @Override
                         public void handleResult(ResourceResponse resource) {
-                            // Merge the result with the supplied relationship object
-                            value.asMap().putAll(resource.getContent().asMap());
+                            // Merge the result with the supplied relationship object, copying a shared result
+                            value.asMap().putAll(shared
+                                    ? resource.getContent().copy().asMap()
+                                    : resource.getContent().asMap());
                         }
                     }, new ExceptionHandler<ResourceException>() {
                         @Override
@@ -1697,6 +1946,27 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         return stripped;
     }
 
+    /**
+     * Notifies the managed object listener, if any, of a persisted change of a managed object. The listener is
+     * notified before the post scripts are executed, and a failure of the listener does not fail the change.
+     *
+     * @param context the current context
+     * @param resourceId the identifier of the changed managed object
+     * @param oldValue the value before the change, or a null value if the object was created
+     * @param newValue the value after the change, or a null value if the object was deleted
+     */
+    private void notifyChange(final Context context, final String resourceId, final JsonValue oldValue,
+            final JsonValue newValue) {
+        final ManagedObjectListener listener = changeListener.get();
+        if (listener != null) {
+            try {
+                listener.managedObjectChanged(context, managedId(resourceId), oldValue, newValue);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to notify the change of {}", managedId(resourceId), e);
+            }
+        }
+    }
+
     public void performSyncAction(final Context context, final Request request, final String resourceId,
             final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue)
         throws ResourceException {
@@ -28,10 +28,13 @@ import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.http.routing.UriRouterContext;
@@ -47,6 +50,7 @@ import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
@@ -58,6 +62,9 @@ import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.patch.JsonValuePatch;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
@@ -109,6 +116,12 @@ public abstract class RelationshipProvider {
     /** A query field representing the field name of this relationship field  */
     protected static final String QUERY_FIELD_FIELD_NAME = "resourceFieldName";
 
+    /** An optimized query ID for the relationships of several managed object instances */
+    protected static final String RELATIONSHIPS_QUERY_ID = "find-relationships-for-resources";
+
+    /** A query field representing the comma separated full paths of several managed object instances */
+    protected static final String QUERY_FIELD_RESOURCE_PATHS = "fullResourceIds";
+
     /** The name of the firstId field in the repo */
     protected static final String REPO_FIELD_FIRST_ID = "firstId";
 
@@ -332,9 +345,99 @@ public abstract class RelationshipProvider {
      * @return A promise containing the full representation of the relationship on the supplied resourceId
      *         or a ResourceException if an error occurred
      */
-    public abstract Promise<JsonValue, ResourceException> getRelationshipValueForResource(Context context, 
+    public abstract Promise<JsonValue, ResourceException> getRelationshipValueForResource(Context context,
             String resourceId);
 
+    /**
+     * Get the full relationship representation for this provider for each of the supplied resources, reading the
+     * relationships of all of them with the {@value #RELATIONSHIPS_QUERY_ID} query rather than one query per resource.
+     *
+     * @param context Context of this request
+     * @param resourceIds Ids of the resources to fetch relationships on
+     *
+     * @return A map of each resourceId to the full representation of its relationship, as returned by
+     *         {@link #getRelationshipValueForResource(Context, String)}, or null if a singleton relationship is not set
+     * @throws ResourceException if an error occurred
+     */
+    public Map<String, JsonValue> getRelationshipValuesForResources(final Context context,
+            final Collection<String> resourceIds) throws ResourceException {
+        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/getRelationshipValuesForResources"),
+                resourceIds, context);
+
+        try {
+            final Map<String, String> resourceIdsByPath = new HashMap<>();
+            final List<String> resourceFullPaths = new ArrayList<>();
+            final List<ResourceResponse> relationships = new ArrayList<>();
+            for (String resourceId : resourceIds) {
+                final String resourceFullPath = resourceContainer.child(resourceId).toString();
+                resourceIdsByPath.put(resourceFullPath, resourceId);
+                if (resourceFullPath.contains(",")) {
+                    // the list parameter of the query is comma separated
+                    getConnection().query(context, Requests.newQueryRequest(REPO_RESOURCE_PATH)
+                            .setQueryId(RELATIONSHIP_QUERY_ID)
+                            .setAdditionalParameter(QUERY_FIELD_RESOURCE_PATH, resourceFullPath)
+                            .setAdditionalParameter(QUERY_FIELD_FIELD_NAME, schemaField.getName()),
+                            relationships);
+                } else {
+                    resourceFullPaths.add(resourceFullPath);
+                }
+            }
+            if (!resourceFullPaths.isEmpty()) {
+                getConnection().query(context, Requests.newQueryRequest(REPO_RESOURCE_PATH)
+                        .setQueryId(RELATIONSHIPS_QUERY_ID)
+                        .setAdditionalParameter(QUERY_FIELD_RESOURCE_PATHS, StringUtils.join(resourceFullPaths, ","))
+                        .setAdditionalParameter(QUERY_FIELD_FIELD_NAME, schemaField.getName()),
+                        relationships);
+            }
+
+            // Stitch the relationships back to the resource(s) they belong to
+            final Map<String, List<ResourceResponse>> relationshipsByResource = new LinkedHashMap<>();
+            for (String resourceId : resourceIds) {
+                relationshipsByResource.put(resourceId, new ArrayList<ResourceResponse>());
+            }
+            final Set<String> stitched = new HashSet<>();
+            for (ResourceResponse relationship : relationships) {
+                if (!stitched.add(relationship.getId())) {
+                    // returned for both of its sides
+                    continue;
+                }
+                final JsonValue content = relationship.getContent();
+                final String first = resourceIdsByPath.get(content.get(REPO_FIELD_FIRST_ID).asString());
+                if (first != null
+                        && schemaField.getName().equals(content.get(REPO_FIELD_FIRST_PROPERTY_NAME).asString())) {
+                    relationshipsByResource.get(first).add(relationship);
+                }
+                final String second = resourceIdsByPath.get(content.get(REPO_FIELD_SECOND_ID).asString());
+                if (second != null && schemaField.isReverseRelationship()
+                        && schemaField.getName().equals(content.get(REPO_FIELD_SECOND_PROPERTY_NAME).asString())) {
+                    relationshipsByResource.get(second).add(relationship);
+                }
+            }
+
+            final Map<String, JsonValue> values = new LinkedHashMap<>();
+            for (Map.Entry<String, List<ResourceResponse>> entry : relationshipsByResource.entrySet()) {
+                final QueryRequest request = Requests.newQueryRequest("")
+                        .setAdditionalParameter(PARAM_MANAGED_OBJECT_ID, entry.getKey());
+                values.put(entry.getKey(), getRelationshipValue(context, request, entry.getValue()));
+            }
+            return values;
+        } finally {
+            measure.end();
+        }
+    }
+
+    /**
+     * Converts the repository relationships of a resource to the full relationship representation for this provider.
+     *
+     * @param context Context of this request
+     * @param request Request whose {@link #PARAM_MANAGED_OBJECT_ID} parameter identifies the resource
+     * @param relationships The relationships of the resource, as read from the repository
+     *
+     * @return The full representation of the relationship, or null if a singleton relationship is not set
+     */
+    protected abstract JsonValue getRelationshipValue(Context context, Request request,
+            List<ResourceResponse> relationships);
+
     /**
      * Set the supplied {@link JsonValue} as the current state of this relationship. This will support updating any 
      * existing relationship (_id is present) and remove any relationship not present in the value from the repository.
@@ -33,6 +33,7 @@ import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
@@ -131,32 +132,59 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
 
             if (relationships.isEmpty()) {
                 return new NotFoundException().asPromise();
-            } else if (relationships.size() == 1) {
-                return newResultPromise(formatResponse(context, queryRequest).apply(relationships.get(0)));
             } else {
-                // This is a singleton relationship with more than 1 reference - this is an error.
-                // Collect all the erroneous references and add them to the error message.
-                List<String> errorReferences = new ArrayList<>();
-                for (ResourceResponse relationship : relationships) {
-                    JsonValue content = relationship.getContent();
-                    if (schemaField.isReverseRelationship() &&
-                            content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
-                        errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
-                    } else {
-                        errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
-                    }
-                }
-                ResourceResponse relationship = relationships.get(0);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR, true);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
-                        "Multiple references found for singleton relationship " + errorReferences);
-                return newResultPromise(formatResponse(context, queryRequest).apply(relationship));
+                return newResultPromise(formatRelationship(context, queryRequest, resourceFullPath, relationships));
             }
         } catch (ResourceException e) {
             return e.asPromise();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue getRelationshipValue(Context context, Request request, List<ResourceResponse> relationships) {
+        if (relationships.isEmpty()) {
+            return null;
+        }
+        final String resourceFullPath = getResourceFullPath(context, request).toString();
+        return formatRelationship(context, request, resourceFullPath, relationships).getContent();
+    }
+
+    /**
+     * Formats the relationship of a managed object. A singleton relationship with more than one reference is
+     * an error: the first relationship is returned, flagged with an error listing all the references.
+     *
+     * @param context The current context
+     * @param request The request identifying the managed object
+     * @param resourceFullPath The full path of the managed object
+     * @param relationships The non-empty list of relationships of the managed object, as read from the repository
+     * @return the formatted relationship
+     */
+    private ResourceResponse formatRelationship(final Context context, final Request request,
+            final String resourceFullPath, final List<ResourceResponse> relationships) {
+        if (relationships.size() == 1) {
+            return formatResponseNoException(context, request).apply(relationships.get(0));
+        } else {
+            // This is a singleton relationship with more than 1 reference - this is an error.
+            // Collect all the erroneous references and add them to the error message.
+            List<String> errorReferences = new ArrayList<>();
+            for (ResourceResponse relationship : relationships) {
+                JsonValue content = relationship.getContent();
+                if (schemaField.isReverseRelationship() &&
+                        content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
+                    errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
+                } else {
+                    errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
+                }
+            }
+            ResourceResponse relationship = relationships.get(0);
+            relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR, true);
+            relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
+                    "Multiple references found for singleton relationship " + errorReferences);
+            return formatResponseNoException(context, request).apply(relationship);
+        }
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting,
             final Context context, final String resourceId, final JsonValue value) {
@@ -0,0 +1,307 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A memory-compact set of (normalized) object identifiers, used to hold the target ids of a reconciliation.
+ * <p>
+ * Identifiers are appended while the target query runs and stored back to back as UTF-8 in an off-heap buffer,
+ * so the heap only carries an offset and a few hash table slots per identifier instead of a {@link String} plus a
+ * hash set entry. Duplicates are detected when they are added, through an open addressing table of entry numbers.
+ * The set is sealed on first read, after which lookups in the table are lock-free. Iteration follows insertion
+ * order, like the {@link java.util.LinkedHashSet} it replaces.
+ * <p>
+ * The source phase of a reconciliation marks matched targets through {@link #newRemainingView()}, which records
+ * removals in an atomic bitmap rather than mutating a shared collection under one monitor.
+ */
+class CompactIdSet extends AbstractCollection<String> {
+
+    /** Initial size of the off-heap id buffer */
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /** UTF-8 encoded ids, in insertion order */
+    private ByteBuffer data = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    /** offsets[i] is the start of entry i in {@link #data}; offsets[count] is the end of the last entry */
+    private int[] offsets = new int[1024];
+
+    /** Number of entries appended */
+    private int count = 0;
+
+    /** Open addressing table of entry numbers plus one, 0 marking a free slot; at most half full */
+    private int[] table = new int[2048];
+
+    /** Whether the set has been read from, after which further additions are rejected */
+    private volatile boolean sealed;
+
+    /**
+     * Appends an identifier, unless the set already holds it.
+     *
+     * @param id the normalized identifier
+     * @return {@code true} if the identifier was added, {@code false} if the set already holds it
+     * @throws IllegalStateException if the set has already been read from
+     */
+    @Override
+    public synchronized boolean add(String id) {
+        if (sealed) {
+            throw new IllegalStateException("Cannot add to a sealed id set");
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int slot = slotOf(bytes);
+        if (table[slot] != 0) {
+            return false;
+        }
+        ensureCapacity(bytes.length);
+        data.position(offsets[count]);
+        data.put(bytes);
+        if (count + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[++count] = data.position();
+        table[slot] = count;
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int extra) {
+        long required = (long) offsets[count] + extra;
+        if (required > data.capacity()) {
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Id set exceeds maximum capacity of " + Integer.MAX_VALUE + " bytes");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE,
+                    Math.max(required, (long) data.capacity() * 2)));
+            data.flip();
+            grown.put(data);
+            data = grown;
+        }
+    }
+
+    /**
+     * Seals the set, if not sealed already. Further additions are rejected.
+     */
+    private void seal() {
+        if (!sealed) {
+            synchronized (this) {
+                sealed = true;
+            }
+        }
+    }
+
+    private static int hash(byte[] bytes) {
+        int h = 0;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private int hashEntry(int entry) {
+        int h = 0;
+        for (int pos = offsets[entry]; pos < offsets[entry + 1]; pos++) {
+            h = 31 * h + data.get(pos);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the slot of the table holding the entry equal to {@code probe}, or the free slot it would be put in
+     */
+    private int slotOf(byte[] probe) {
+        int mask = table.length - 1;
+        int slot = hash(probe) & mask;
+        while (table[slot] != 0 && !equalsEntry(probe, table[slot] - 1)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry = 0; entry < count; entry++) {
+            int slot = hashEntry(entry) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = entry + 1;
+        }
+        table = rehashed;
+    }
+
+    private boolean equalsEntry(byte[] probe, int entry) {
+        int pos = offsets[entry];
+        if (offsets[entry + 1] - pos != probe.length) {
+            return false;
+        }
+        for (byte b : probe) {
+            if (data.get(pos++) != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param id the normalized identifier
+     * @return the entry number of {@code id}, or {@code -1} if absent
+     */
+    int indexOf(String id) {
+        seal();
+        return table[slotOf(id.getBytes(StandardCharsets.UTF_8))] - 1;
+    }
+
+    private String entry(int i) {
+        byte[] bytes = new byte[offsets[i + 1] - offsets[i]];
+        ByteBuffer view = data.duplicate();
+        view.position(offsets[i]);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && indexOf((String) o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        seal();
+        return count;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        seal();
+        return new EntryIterator(null);
+    }
+
+    /**
+     * Returns a view of the identifiers that have not been removed from it yet. Removals are recorded in a
+     * lock-free bitmap and only affect the returned view; this set keeps answering {@link #contains(Object)}
+     * for every identifier it holds.
+     *
+     * @return a new view initially containing all identifiers of this set
+     */
+    Remaining newRemainingView() {
+        seal();
+        return new Remaining();
+    }
+
+    /**
+     * Iterates entries in insertion order, optionally skipping the removed entries.
+     */
+    private class EntryIterator implements Iterator<String> {
+        private final AtomicLongArray removed;
+        private int next = -1;
+
+        EntryIterator(AtomicLongArray removed) {
+            this.removed = removed;
+            advance();
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < count && removed != null && (removed.get(next >>> 6) & (1L << next)) != 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String id = entry(next);
+            advance();
+            return id;
+        }
+    }
+
+    /**
+     * The ids of a {@link CompactIdSet} that have not been removed yet.
+     */
+    class Remaining extends AbstractCollection<String> {
+        private final AtomicLongArray removed = new AtomicLongArray((count + 63) >>> 6);
+        private final AtomicInteger remaining = new AtomicInteger(count);
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            int i = indexOf((String) o);
+            return i >= 0 && (removed.get(i >>> 6) & (1L << i)) == 0;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            int i = indexOf((String) o);
+            if (i < 0) {
+                return false;
+            }
+            long bit = 1L << i;
+            while (true) {
+                long word = removed.get(i >>> 6);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+                if (removed.compareAndSet(i >>> 6, word, word | bit)) {
+                    remaining.decrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return remaining.get();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new EntryIterator(removed);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + size() + " remaining of " + CompactIdSet.this.size() + " ids]";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[" + size() + " ids]";
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.resource.QueryRequest;
@@ -143,8 +144,15 @@ class Correlation {
             switch (type) {
             case correlationQuery:
                 // Execute the correlationQuery and return the results
-                return json(queryTargetObjectSet(execScript(type.toString(),  correlationQueries.get(linkQualifier),
-                        scope, context).asMap())).get(QueryResponse.FIELD_RESULT).required();
+                Map<String, Object> queryParameters = execScript(type.toString(),
+                        correlationQueries.get(linkQualifier), scope, context).asMap();
+                if (reconContext != null && objectMapping.isCorrelationIndex()) {
+                    JsonValue indexed = lookupCorrelationIndex(queryParameters, reconContext);
+                    if (indexed != null) {
+                        return indexed;
+                    }
+                }
+                return json(queryTargetObjectSet(queryParameters)).get(QueryResponse.FIELD_RESULT).required();
             case correlationScript:
                 // Execute the correlationScript and return the results corresponding to the given linkQualifier
                 return execScript(type.toString(), correlationScript, scope, context);
@@ -178,6 +186,39 @@ class Correlation {
         return json(results);
     }
 
+    /**
+     * Answers an equality correlation query from the recon's index of the target object set.
+     *
+     * @param queryParameters the correlation query parameters returned by the correlation query script
+     * @param reconContext the recon context holding the index
+     * @return the correlation results, or null if the query is not a plain conjunction of equality
+     * assertions, or if its matches depend on whether the target compares values ignoring case, and it has
+     * to be run against the target object set
+     * @throws SynchronizationException if building the index failed
+     */
+    private JsonValue lookupCorrelationIndex(Map<String, Object> queryParameters,
+            ReconciliationContext reconContext) throws SynchronizationException {
+        QueryRequest request;
+        try {
+            request = RequestUtil.buildQueryRequestFromParameterMap(objectMapping.getTargetObjectSet(),
+                    queryParameters);
+        } catch (ResourceException e) {
+            // Leave reporting the invalid query to the regular query path
+            return null;
+        }
+        if (request.getQueryFilter() == null || request.getQueryId() != null
+                || request.getQueryExpression() != null || !request.getAdditionalParameters().isEmpty()) {
+            return null;
+        }
+        Map<JsonPointer, Object> terms = CorrelationIndex.equalityTerms(request.getQueryFilter());
+        if (terms == null) {
+            return null;
+        }
+        CorrelationIndex index =
+                reconContext.getCorrelationIndex(new ArrayList<>(terms.keySet()), ObjectSetContext.get());
+        return index != null ? index.lookup(terms) : null;
+    }
+
     private Map<String, Object> queryTargetObjectSet(Map<String, Object> queryParameters)
             throws SynchronizationException {
         try {
@@ -0,0 +1,305 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * An in-memory hash index of the target object set on the attributes compared by an equality
+ * correlation query, such as {@code mail eq "bjensen@example.com"} or
+ * {@code givenName eq "Barbara" and sn eq "Jensen"}.
+ * <p>
+ * During reconciliation the index is built once per link qualifier and set of correlated attributes,
+ * and answers the correlation query of each source object with a hash lookup instead of a query on
+ * the target object set. Multi-valued target attributes are indexed under each of their values. Targets
+ * created during the reconciliation are not added to the index.
+ * <p>
+ * Numbers are normalized, and strings are indexed ignoring case, as the target may or may not compare
+ * them ignoring case. A lookup that finds no target is answered by the index either way. A lookup whose
+ * targets only match ignoring case cannot be, and is left to the correlation query on the target.
+ * <p>
+ * Instances are immutable once built and are safe to share between recon threads.
+ */
+class CorrelationIndex {
+
+    /** Decides whether a query filter is a conjunction of equality assertions on distinct fields */
+    private static final QueryFilterVisitor<Boolean, Map<JsonPointer, Object>, JsonPointer> EQUALITY_TERMS =
+            new QueryFilterVisitor<Boolean, Map<JsonPointer, Object>, JsonPointer>() {
+                @Override
+                public Boolean visitAndFilter(Map<JsonPointer, Object> terms,
+                        List<QueryFilter<JsonPointer>> subFilters) {
+                    for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                        if (!subFilter.accept(this, terms)) {
+                            return false;
+                        }
+                    }
+                    return !subFilters.isEmpty();
+                }
+
+                @Override
+                public Boolean visitEqualsFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return valueAssertion != null && terms.put(field, valueAssertion) == null;
+                }
+
+                @Override
+                public Boolean visitBooleanLiteralFilter(Map<JsonPointer, Object> terms, boolean value) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitContainsFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitExtendedMatchFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        String operator, Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitGreaterThanFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitGreaterThanOrEqualToFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitLessThanFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitLessThanOrEqualToFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitNotFilter(Map<JsonPointer, Object> terms, QueryFilter<JsonPointer> subFilter) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitOrFilter(Map<JsonPointer, Object> terms,
+                        List<QueryFilter<JsonPointer>> subFilters) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitPresentFilter(Map<JsonPointer, Object> terms, JsonPointer field) {
+                    return false;
+                }
+
+                @Override
+                public Boolean visitStartsWithFilter(Map<JsonPointer, Object> terms, JsonPointer field,
+                        Object valueAssertion) {
+                    return false;
+                }
+            };
+
+    /** Orders the fields of a correlation query independently of how the filter was written */
+    private static final Comparator<JsonPointer> FIELD_ORDER = new Comparator<JsonPointer>() {
+        @Override
+        public int compare(JsonPointer first, JsonPointer second) {
+            return first.toString().compareTo(second.toString());
+        }
+    };
+
+    private final List<JsonPointer> fields;
+    private final boolean fullObjects;
+    private final Map<List<String>, List<Entry>> index = new HashMap<>();
+
+    /** A target indexed under a key, along with the exact values of that key */
+    private static final class Entry {
+        final List<String> values;
+        final JsonValue target;
+
+        Entry(List<String> values, JsonValue target) {
+            this.values = values;
+            this.target = target;
+        }
+    }
+
+    /**
+     * @param fields the correlated attributes, in the order returned by {@link #equalityTerms(QueryFilter)}
+     * @param fullObjects whether the indexed targets are complete objects, or only carry the
+     * correlated attributes besides their id
+     */
+    CorrelationIndex(List<JsonPointer> fields, boolean fullObjects) {
+        this.fields = fields;
+        this.fullObjects = fullObjects;
+    }
+
+    /**
+     * Extracts the equality assertions of a correlation query filter.
+     *
+     * @param filter the correlation query filter
+     * @return the asserted values by field, sorted by field, or null if the filter is not a
+     * conjunction of equality assertions on distinct fields
+     */
+    static Map<JsonPointer, Object> equalityTerms(QueryFilter<JsonPointer> filter) {
+        Map<JsonPointer, Object> terms = new TreeMap<>(FIELD_ORDER);
+        return filter.accept(EQUALITY_TERMS, terms) ? terms : null;
+    }
+
+    /**
+     * @return the indexed attributes
+     */
+    List<JsonPointer> getFields() {
+        return fields;
+    }
+
+    /**
+     * Adds a target object to the index.
+     *
+     * @param target the target object, carrying at least its {@code _id} and the indexed attributes
+     */
+    void add(JsonValue target) {
+        List<List<String>> keys = Collections.singletonList(Collections.<String>emptyList());
+        for (JsonPointer field : fields) {
+            JsonValue value = target.get(field);
+            if (value == null || value.isNull()) {
+                return;
+            }
+            List<String> values = new ArrayList<>();
+            if (value.isList()) {
+                for (JsonValue element : value) {
+                    if (!element.isNull()) {
+                        values.add(normalize(element.getObject()));
+                    }
+                }
+            } else {
+                values.add(normalize(value.getObject()));
+            }
+            // Multi-valued attributes match on any of their values
+            List<List<String>> extended = new ArrayList<>(keys.size() * values.size());
+            for (List<String> key : keys) {
+                for (String v : values) {
+                    List<String> extendedKey = new ArrayList<>(key.size() + 1);
+                    extendedKey.addAll(key);
+                    extendedKey.add(v);
+                    extended.add(extendedKey);
+                }
+            }
+            keys = extended;
+        }
+        JsonValue entry = fullObjects
+                ? target
+                : json(object(field(FIELD_CONTENT_ID, target.get(FIELD_CONTENT_ID).getObject())));
+        for (List<String> key : keys) {
+            List<String> caseInsensitiveKey = ignoreCase(key);
+            List<Entry> matches = index.get(caseInsensitiveKey);
+            if (matches == null) {
+                matches = new ArrayList<>(1);
+                index.put(caseInsensitiveKey, matches);
+            }
+            if (!containsTarget(matches, key, entry)) {
+                matches.add(new Entry(key, entry));
+            }
+        }
+    }
+
+    private static boolean containsTarget(List<Entry> entries, List<String> values, JsonValue target) {
+        for (Entry entry : entries) {
+            if (entry.values.equals(values) && entry.target.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> ignoreCase(List<String> key) {
+        List<String> caseInsensitiveKey = new ArrayList<>(key.size());
+        for (String value : key) {
+            caseInsensitiveKey.add(value.toLowerCase(Locale.ROOT));
+        }
+        return caseInsensitiveKey;
+    }
+
+    /**
+     * Looks up the targets matching the equality assertions of a correlation query.
+     *
+     * @param terms the asserted values by field, as returned by {@link #equalityTerms(QueryFilter)}
+     * @return the matching targets, in the form of a correlation query result, or null if some targets only
+     * match ignoring case, so that whether they match depends on the target
+     */
+    JsonValue lookup(Map<JsonPointer, Object> terms) {
+        String[] key = new String[fields.size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = normalize(terms.get(fields.get(i)));
+        }
+        List<String> values = Arrays.asList(key);
+        List<Entry> matches = index.get(ignoreCase(values));
+        List<Object> result = new ArrayList<>(matches == null ? 0 : matches.size());
+        if (matches != null) {
+            for (Entry match : matches) {
+                if (!match.values.equals(values)) {
+                    return null;
+                }
+                // Hand out copies, the sync operation may modify the correlated target
+                result.add(match.target.copy().getObject());
+            }
+        }
+        return json(result);
+    }
+
+    /**
+     * @return the number of distinct keys in the index
+     */
+    int size() {
+        return index.size();
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                // NaN or infinity
+                return value.toString();
+            }
+        }
+        return String.valueOf(value);
+    }
+}
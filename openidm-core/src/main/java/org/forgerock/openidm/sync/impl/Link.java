@@ -40,8 +40,10 @@ import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.util.RequestUtil;
 import org.forgerock.util.query.QueryFilter;
@@ -117,7 +119,7 @@ class Link {
      * @param id the local (unqualified) link identifier
      * @return the qualified id, qualified to the repository
      */
-    private static String linkId(String id) {
+    static String linkId(String id) {
         //StringBuilder sb = new StringBuilder("repo/link/").append(mapping.getLinkType().getName());
         StringBuilder sb = new StringBuilder("repo/link");
         if (id != null) {
@@ -326,6 +328,55 @@ class Link {
         return sourceIdToLink;
     }
 
+    /**
+     * Queries all the links for a given mapping one page at a time, and collects them into a compact
+     * {@link LinkIndex} keyed by the source identifier.
+     * <p>
+     * Pages are sorted by link {@code _id} so that consecutive pages are stable.
+     *
+     * @param mapping the mapping to look up the links for
+     * @param linkQualifier the link qualifier to look up the links for
+     * @param pageSize the number of links to query per page
+     * @throws SynchronizationException if the query could not be performed.
+     * @return the index from source identifier to the link for it
+     */
+    static LinkIndex getLinkIndexForMapping(final ObjectMapping mapping, String linkQualifier, int pageSize)
+            throws SynchronizationException {
+        final LinkIndex.Builder builder = new LinkIndex.Builder(mapping, linkQualifier);
+        JsonValue query = new JsonValue(new HashMap<String, Object>());
+        query.put(FIELD_QUERY_FILTER,
+                QueryFilter.and(Arrays.asList(
+                        QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
+                        QueryFilter.equalTo("/linkQualifier", linkQualifier)))
+                        .toString());
+        String pagedResultsCookie = null;
+        try {
+            do {
+                QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(linkId(null), query.asMap());
+                request.setPageSize(pageSize);
+                request.setPagedResultsCookie(pagedResultsCookie);
+                request.addSortKey(SortKey.ascendingOrder("_id"));
+                QueryResponse response = mapping.getConnectionFactory().getConnection().query(
+                        ObjectSetContext.get(), request, new QueryResourceHandler() {
+                            @Override
+                            public boolean handleResource(ResourceResponse resource) {
+                                Link link = new Link(mapping);
+                                link.fromJsonValue(resource.getContent());
+                                builder.add(link);
+                                return true;
+                            }
+                        });
+                pagedResultsCookie = response.getPagedResultsCookie();
+                LOGGER.debug("Queried {} links for mapping {}", builder.size(), mapping.getName());
+            } while (pagedResultsCookie != null);
+        } catch (JsonValueException jve) {
+            throw new SynchronizationException("Malformed link query response", jve);
+        } catch (ResourceException ose) {
+            throw new SynchronizationException("Link query failed", ose);
+        }
+        return builder.build();
+    }
+
     /** Compares the given Id to the current targetId,
      * taking into account the settings for case sensitivity
      * @param compareTargetId The target id to compare
@@ -357,6 +408,24 @@ class Link {
         }
     }
 
+    /**
+     * Creates the link, adding it to a batch of links written together if one is given.
+     *
+     * @param context the request context
+     * @param batch the batch of links to add the link to, or null to create the link immediately
+     * @throws SynchronizationException if creating the link, or writing a full batch, fails
+     */
+    void create(Context context, LinkBatch batch) throws SynchronizationException {
+        if (batch == null) {
+            create(context);
+            return;
+        }
+        _id = UUID.randomUUID().toString(); // client-assigned identifier
+        _rev = null;
+        batch.add(context, _id, toJsonValue());
+        this.initialized = true;
+    }
+
     void delete(Context context) throws SynchronizationException {
         if (_id != null) { // forgiving delete
             try {
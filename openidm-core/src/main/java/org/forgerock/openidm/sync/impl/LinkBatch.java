@@ -0,0 +1,149 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the links created during a reconciliation and writes them to the repository in batches,
+ * through the {@code bulk} action of the repository, rather than with one create request each.
+ * <p>
+ * Batched links are written when the batch is full and when {@link #flush(Context)} is called at the end
+ * of each recon phase. Until then they are not visible to link queries, and a failure to write one of
+ * them is logged and counted rather than reported by the sync operation that established the link.
+ * If the repository does not support the bulk action, the links are created one by one.
+ */
+class LinkBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkBatch.class);
+
+    static final String ACTION_BULK = "bulk";
+
+    private final ReconciliationContext reconContext;
+    private final int batchSize;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private List<Object> operations = new ArrayList<>();
+    private volatile boolean bulkSupported = true;
+
+    /**
+     * @param reconContext the reconciliation creating the links
+     * @param batchSize the number of links to write with one request
+     */
+    LinkBatch(ReconciliationContext reconContext, int batchSize) {
+        this.reconContext = reconContext;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds a link to create to the batch, writing the batch if it is full.
+     *
+     * @param context the request context
+     * @param id the client-assigned link identifier
+     * @param link the link to create
+     * @throws SynchronizationException if writing a full batch failed altogether
+     */
+    synchronized void add(Context context, String id, JsonValue link) throws SynchronizationException {
+        operations.add(object(
+                field("operation", "create"),
+                field("resourcePath", ""),
+                field("newResourceId", id),
+                field("content", link.getObject())));
+        if (operations.size() >= batchSize) {
+            flush(context);
+        }
+    }
+
+    /**
+     * Writes the links in the batch to the repository.
+     *
+     * @param context the request context
+     * @throws SynchronizationException if writing the batch failed altogether
+     */
+    synchronized void flush(Context context) throws SynchronizationException {
+        if (operations.isEmpty()) {
+            return;
+        }
+        final List<Object> batch = operations;
+        operations = new ArrayList<>();
+        final long startNanoTime = ObjectMapping.startNanoTime(reconContext);
+        try {
+            if (bulkSupported) {
+                try {
+                    ActionResponse response = reconContext.getObjectMapping().getConnectionFactory().getConnection()
+                            .action(context, newActionRequest(Link.linkId(null), ACTION_BULK)
+                                    .setContent(json(object(field("operations", batch)))));
+                    JsonValue results = response.getJsonContent();
+                    for (int i = 0; i < results.size(); i++) {
+                        if (results.get(i).isDefined("error")) {
+                            failures.incrementAndGet();
+                            LOGGER.warn("Failed to create link {}: {}",
+                                    json(batch.get(i)).get("content"), results.get(i).get("error"));
+                        }
+                    }
+                    return;
+                } catch (NotSupportedException | BadRequestException e) {
+                    LOGGER.info("Repository does not support bulk link creation, creating links one by one: {}",
+                            e.getMessage());
+                    bulkSupported = false;
+                } catch (ResourceException e) {
+                    failures.addAndGet(batch.size());
+                    LOGGER.warn("Failed to create batch of {} links", batch.size(), e);
+                    throw new SynchronizationException(e);
+                }
+            }
+            for (Object operation : batch) {
+                JsonValue value = json(operation);
+                try {
+                    reconContext.getObjectMapping().getConnectionFactory().getConnection().create(context,
+                            newCreateRequest(Link.linkId(null), value.get("newResourceId").asString(),
+                                    value.get("content")));
+                } catch (ResourceException e) {
+                    failures.incrementAndGet();
+                    LOGGER.warn("Failed to create link {}", value.get("content"), e);
+                }
+            }
+        } finally {
+            ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.linkBatchWrite,
+                    startNanoTime);
+        }
+    }
+
+    /**
+     * @return the number of links that could not be written
+     */
+    int getFailures() {
+        return failures.get();
+    }
+}
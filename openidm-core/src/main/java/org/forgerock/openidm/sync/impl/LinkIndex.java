@@ -0,0 +1,272 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only, memory-compact index of the links of one mapping and link qualifier, keyed by normalized source id.
+ * <p>
+ * Instead of one {@link Link} (with its mapping reference and qualifier) plus a hash map node per link, the
+ * index keeps the link id, revision, source id and target id in parallel arrays sorted by source id, with a
+ * second permutation sorted by target id. Revisions are interned, as most links share a handful of values.
+ * {@link Link} objects are only materialized for the entries actually looked up, and each lookup returns a
+ * new instance that the caller is free to modify.
+ */
+class LinkIndex extends AbstractMap<String, Link> {
+
+    private final ObjectMapping mapping;
+    private final String linkQualifier;
+
+    /** Link fields, sorted by source id */
+    private final String[] ids;
+    private final String[] revs;
+    private final String[] sourceIds;
+    private final String[] targetIds;
+
+    /** Entry positions, sorted by target id */
+    private final int[] byTarget;
+
+    private LinkIndex(ObjectMapping mapping, String linkQualifier, String[] ids, String[] revs,
+            String[] sourceIds, String[] targetIds, int[] byTarget) {
+        this.mapping = mapping;
+        this.linkQualifier = linkQualifier;
+        this.ids = ids;
+        this.revs = revs;
+        this.sourceIds = sourceIds;
+        this.targetIds = targetIds;
+        this.byTarget = byTarget;
+    }
+
+    /**
+     * @param sourceId the normalized source id
+     * @return a new link for the source id, or {@code null} if there is none in the index
+     */
+    @Override
+    public Link get(Object sourceId) {
+        if (!(sourceId instanceof String)) {
+            return null;
+        }
+        int i = Arrays.binarySearch(sourceIds, sourceId);
+        return i < 0 ? null : materialize(i);
+    }
+
+    @Override
+    public boolean containsKey(Object sourceId) {
+        return sourceId instanceof String && Arrays.binarySearch(sourceIds, sourceId) >= 0;
+    }
+
+    /**
+     * @param targetId the normalized target id
+     * @return a new link for the target id, or {@code null} if there is none in the index
+     */
+    Link getForTarget(String targetId) {
+        int low = 0;
+        int high = byTarget.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = targetIds[byTarget[mid]].compareTo(targetId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return materialize(byTarget[mid]);
+            }
+        }
+        return null;
+    }
+
+    private Link materialize(int i) {
+        Link link = new Link(mapping);
+        link._id = ids[i];
+        link._rev = revs[i];
+        link.sourceId = sourceIds[i];
+        link.targetId = targetIds[i];
+        link.linkQualifier = linkQualifier;
+        link.initialized = true;
+        return link;
+    }
+
+    @Override
+    public int size() {
+        return sourceIds.length;
+    }
+
+    @Override
+    public Set<Entry<String, Link>> entrySet() {
+        return new AbstractSet<Entry<String, Link>>() {
+            @Override
+            public Iterator<Entry<String, Link>> iterator() {
+                return new Iterator<Entry<String, Link>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < sourceIds.length;
+                    }
+
+                    @Override
+                    public Entry<String, Link> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(sourceIds[i], materialize(i));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return sourceIds.length;
+            }
+        };
+    }
+
+    /**
+     * Accumulates links, typically one query page at a time, and builds the index.
+     */
+    static class Builder {
+        private final ObjectMapping mapping;
+        private final String linkQualifier;
+        private final Map<String, String> internedRevs = new HashMap<>();
+        private String[] ids = new String[1024];
+        private String[] revs = new String[1024];
+        private String[] sourceIds = new String[1024];
+        private String[] targetIds = new String[1024];
+        private int count = 0;
+
+        Builder(ObjectMapping mapping, String linkQualifier) {
+            this.mapping = mapping;
+            this.linkQualifier = linkQualifier;
+        }
+
+        /**
+         * Adds a link. If a later link has the same source id, the later one wins.
+         *
+         * @param link the link, with normalized source and target ids
+         * @return this builder
+         */
+        Builder add(Link link) {
+            if (count == ids.length) {
+                int capacity = count * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                revs = Arrays.copyOf(revs, capacity);
+                sourceIds = Arrays.copyOf(sourceIds, capacity);
+                targetIds = Arrays.copyOf(targetIds, capacity);
+            }
+            ids[count] = link._id;
+            revs[count] = intern(link._rev);
+            sourceIds[count] = link.sourceId;
+            targetIds[count] = link.targetId;
+            count++;
+            return this;
+        }
+
+        private String intern(String rev) {
+            if (rev == null) {
+                return null;
+            }
+            String interned = internedRevs.get(rev);
+            if (interned == null) {
+                internedRevs.put(rev, rev);
+                interned = rev;
+            }
+            return interned;
+        }
+
+        /**
+         * @return the number of links added so far
+         */
+        int size() {
+            return count;
+        }
+
+        LinkIndex build() {
+            int[] order = identity(count);
+            sort(order, sourceIds);
+
+            // Drop all but the last link added for any source id, as a map put would
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (i + 1 < count && sourceIds[order[i]].equals(sourceIds[order[i + 1]])) {
+                    continue;
+                }
+                order[unique++] = order[i];
+            }
+
+            String[] sortedIds = new String[unique];
+            String[] sortedRevs = new String[unique];
+            String[] sortedSourceIds = new String[unique];
+            String[] sortedTargetIds = new String[unique];
+            for (int i = 0; i < unique; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedRevs[i] = revs[order[i]];
+                sortedSourceIds[i] = sourceIds[order[i]];
+                sortedTargetIds[i] = targetIds[order[i]];
+            }
+            int[] byTarget = identity(unique);
+            sort(byTarget, sortedTargetIds);
+            return new LinkIndex(mapping, linkQualifier, sortedIds, sortedRevs, sortedSourceIds, sortedTargetIds,
+                    byTarget);
+        }
+
+        private static int[] identity(int size) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+
+        /**
+         * Stable sort of positions by the keys they point to, so equal keys keep their insertion order.
+         */
+        private static void sort(int[] order, String[] keys) {
+            mergeSort(order, new int[order.length], keys, 0, order.length);
+        }
+
+        private static void mergeSort(int[] order, int[] scratch, String[] keys, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(order, scratch, keys, from, mid);
+            mergeSort(order, scratch, keys, mid, to);
+            if (keys[order[mid - 1]].compareTo(keys[order[mid]]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, scratch, from, to - from);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < mid && keys[scratch[left]].compareTo(keys[scratch[right]]) <= 0)) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+    }
+}
@@ -12,9 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
+import java.util.List;
+
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.sync.SynchronizationException;
 
@@ -30,6 +33,13 @@ public interface Mappings extends Iterable<ObjectMapping> {
      */
     ObjectMapping getMapping(String name) throws SynchronizationException;
 
+    /**
+     * Get the mappings whose source is the given object set, in the order they are configured
+     * @param sourceObjectSet the source object set
+     * @return the mappings, or an empty list if there is none
+     */
+    List<ObjectMapping> getMappingsBySource(String sourceObjectSet);
+
     /**
      * Factory method to instantiate and register a new mapping,
      * given the supplied config
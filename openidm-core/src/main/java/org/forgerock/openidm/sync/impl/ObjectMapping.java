@@ -23,6 +23,7 @@ import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.json.JsonValueFunctions.setOf;
 import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -137,6 +138,28 @@ class ObjectMapping {
      */
     private int reconSourceQueryPageSize;
 
+    /**
+     * The number of source objects to fetch with a single query when the source query returns ids only,
+     * or 0 to read each source object individually.
+     */
+    private int sourceReadAheadSize;
+
+    /**
+     * Whether recon answers equality correlation queries from an in-memory index of the target object set.
+     */
+    private final boolean correlationIndex;
+
+    /**
+     * The number of links recon creates with a single bulk request to the repository,
+     * or 0 to create each link individually.
+     */
+    private final int linkBatchSize;
+
+    /**
+     * The scripts, property mappings and policies shared by the sync operations of this mapping.
+     */
+    private final SyncPlan syncPlan;
+
     /**
      * A {@link List} containing the configured link qualifiers. 
      */
@@ -159,6 +182,12 @@ class ObjectMapping {
      */
     private final boolean prefetchLinks;
 
+    /**
+     * If greater than zero, prefetched links are queried in pages of this size and kept in a compact
+     * {@link LinkIndex} rather than as individual {@link Link} objects.
+     */
+    private final int prefetchLinksPageSize;
+
     /**
      * Whether to maintain links for sync-d targets
      * Default to {@code TRUE}
@@ -168,9 +197,18 @@ class ObjectMapping {
     /** The number of processing threads to use in reconciliation */
     private int taskThreads;
 
-    /** The number of initial tasks the ReconFeeder should submit to executors */
+    /**
+     * The maximum number of processing threads to use in reconciliation. If greater than taskThreads,
+     * the number of threads is adjusted between the two based on the observed throughput.
+     */
+    private int maxTaskThreads;
+
+    /** The number of entries the ReconFeeder keeps in flight on the executors */
     private int feedSize;
 
+    /** The number of entries processed by a single executor task */
+    private int taskBatchSize;
+
     /** a reference to the {@link ConnectionFactory} */
     private final ConnectionFactory connectionFactory;
 
@@ -219,13 +257,20 @@ class ObjectMapping {
                     field(SourceUnit.ATTR_NAME, "roles/onRecon.groovy")))));
         resultScript = Scripts.newScript(config.get("result"));
         prefetchLinks = config.get("prefetchLinks").defaultTo(true).asBoolean();
+        prefetchLinksPageSize = config.get("prefetchLinksPageSize").defaultTo(0).asInteger();
         taskThreads = config.get("taskThreads").defaultTo(DEFAULT_TASK_THREADS).asInteger();
+        maxTaskThreads = config.get("maxTaskThreads").defaultTo(taskThreads).asInteger();
         feedSize = config.get("feedSize").defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
+        taskBatchSize = config.get("taskBatchSize").defaultTo(ReconFeeder.DEFAULT_BATCH_SIZE).asInteger();
         syncEnabled = config.get("enableSync").defaultTo(true).asBoolean();
         linkingEnabled = config.get("enableLinking").defaultTo(true).asBoolean();
         reconSourceQueryPaging = config.get("reconSourceQueryPaging").defaultTo(false).asBoolean();
         reconSourceQueryPageSize = config.get("reconSourceQueryPageSize")
                 .defaultTo(reconSourceQueryPaging ? ReconFeeder.DEFAULT_FEED_SIZE : 0).asInteger();
+        sourceReadAheadSize = config.get("sourceReadAheadSize").defaultTo(0).asInteger();
+        correlationIndex = config.get("correlationIndex").defaultTo(false).asBoolean();
+        linkBatchSize = config.get("linkBatchSize").defaultTo(0).asInteger();
+        syncPlan = new SyncPlan(this);
 
         LOGGER.debug("Instantiated {}", name);
     }
@@ -728,7 +773,7 @@ class ObjectMapping {
             }
 
             // If we will handle a target phase, pre-load all relevant target identifiers
-            Set<String> remainingTargetIds = new LinkedHashSet<>();
+            Collection<String> remainingTargetIds = new LinkedHashSet<>();
             ResultIterable targetIterable =
                     new ResultIterable(Collections.<String>emptyList(), Collections.<JsonValue>emptyList());
             if (reconContext.getReconHandler().isRunTargetPhase()) {
@@ -736,8 +781,13 @@ class ObjectMapping {
                 final long targetQueryStart = startNanoTime(reconContext);
 
                 targetIterable = reconContext.queryTarget();
-                remainingTargetIds.addAll(targetIterable.getAllIds());
-                remainingTargetIds = Collections.synchronizedSet(remainingTargetIds);
+                if (targetIterable.getAllIds() instanceof CompactIdSet) {
+                    // Matched targets are marked in a lock-free bitmap, not removed from a copy of the ids
+                    remainingTargetIds = ((CompactIdSet) targetIterable.getAllIds()).newRemainingView();
+                } else {
+                    remainingTargetIds =
+                            Collections.synchronizedSet(new LinkedHashSet<>(targetIterable.getAllIds()));
+                }
 
                 stats.addDuration(DurationMetric.targetQuery, targetQueryStart);
                 stats.targetQueryEnd();
@@ -751,7 +801,9 @@ class ObjectMapping {
                 stats.linkQueryStart();
                 for (String linkQualifier : getAllLinkQualifiers(context, reconContext)) {
                     final long linkQueryStart = startNanoTime(reconContext);
-                    Map<String, Link> linksByQualifier = Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
+                    Map<String, Link> linksByQualifier = prefetchLinksPageSize > 0
+                            ? Link.getLinkIndexForMapping(ObjectMapping.this, linkQualifier, prefetchLinksPageSize)
+                            : Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
                     stats.addDuration(DurationMetric.linkQuery, linkQueryStart);
 
                     allLinks.put(linkQualifier, linksByQualifier);
@@ -782,13 +834,20 @@ class ObjectMapping {
                     sourceIter = sourceQueryResult.getIterator();
                     stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
                 }
+                if (sourceReadAheadSize > 0) {
+                    // Fetch the source objects for ids-only results in batches rather than one by one
+                    sourceIter = new SourceReadAhead(sourceIter, reconContext, sourceObjectSet, sourceReadAheadSize);
+                }
                 // Perform source recon phase on current set of source ids
                 ReconPhase sourcePhase = 
                         new ReconPhase(sourceIter, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
                 sourcePhase.setFeedSize(feedSize);
+                sourcePhase.setBatchSize(taskBatchSize);
                 sourcePhase.execute();
                 queryNextPage = true;
             } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+            // Write the links still batched, so that the target phase and later phases see them
+            flushLinkBatch(reconContext, context);
 
             stats.addDuration(DurationMetric.sourcePhase, sourcePhaseStart);
             stats.sourcePhaseEnd();
@@ -800,12 +859,16 @@ class ObjectMapping {
                 EventEntry measureTarget = Publisher.start(EVENT_RECON_TARGET, reconId, null);
                 final long targetPhaseStart = startNanoTime(reconContext);
                 reconContext.setStage(ReconStage.ACTIVE_RECONCILING_TARGET);
-                targetIterable = targetIterable.removeNotMatchingEntries(remainingTargetIds);
+                Iterator<ResultEntry> remainingTargets = remainingTargetIds instanceof CompactIdSet.Remaining
+                        ? remainingTargetEntries(remainingTargetIds, reconContext)
+                        : targetIterable.removeNotMatchingEntries(remainingTargetIds).iterator();
                 stats.targetPhaseStart();
-                ReconPhase targetPhase = new ReconPhase(targetIterable.iterator(), reconContext, context,
+                ReconPhase targetPhase = new ReconPhase(remainingTargets, reconContext, context,
                         allLinks, null, targetRecon);
                 targetPhase.setFeedSize(feedSize);
+                targetPhase.setBatchSize(taskBatchSize);
                 targetPhase.execute();
+                flushLinkBatch(reconContext, context);
                 stats.addDuration(DurationMetric.targetPhase, targetPhaseStart);
                 stats.targetPhaseEnd();
                 measureTarget.end();
@@ -845,6 +908,14 @@ class ObjectMapping {
             logReconEndFailure(reconContext, context);
             throw new SynchronizationException("Synchronization failed", e);
         } finally {
+            if (reconContext.getLinkBatch() != null) {
+                // Write the links established before a failure or cancellation
+                try {
+                    flushLinkBatch(reconContext, context);
+                } catch (SynchronizationException e) {
+                    LOGGER.warn("Failed to write batched links of recon {}", reconId, e);
+                }
+            }
             ObjectSetContext.pop(); // pop the TriggerContext
             if (!stats.hasEnded()) {
                 stats.reconEnd();
@@ -853,7 +924,48 @@ class ObjectMapping {
 
 // TODO: cleanup orphan link objects (no matching source or target) here
     }
+
+    /**
+     * Writes the links batched by a recon, if any, to the repository.
+     *
+     * @param reconContext the recon context
+     * @param context the request context
+     * @throws SynchronizationException if writing the links failed altogether
+     */
+    private void flushLinkBatch(ReconciliationContext reconContext, Context context)
+            throws SynchronizationException {
+        LinkBatch linkBatch = reconContext.getLinkBatch();
+        if (linkBatch != null) {
+            linkBatch.flush(context);
+        }
+    }
     
+    /**
+     * Streams the target entries left unmatched by the source phase straight from the compact id set,
+     * pairing each id with its pre-queried value if the target query returned full entries.
+     *
+     * @param remainingTargetIds the unmatched target ids
+     * @param reconContext the reconciliation context holding any pre-queried target values
+     * @return an iterator over the unmatched target entries
+     */
+    private Iterator<ResultEntry> remainingTargetEntries(final Collection<String> remainingTargetIds,
+            final ReconciliationContext reconContext) {
+        final Iterator<String> ids = remainingTargetIds.iterator();
+        final Map<String, JsonValue> targets = reconContext.hasTargetsValues() ? reconContext.getTargets() : null;
+        return new Iterator<ResultEntry>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public ResultEntry next() {
+                String id = ids.next();
+                return new ResultEntry(id, targets == null ? null : targets.get(id));
+            }
+        };
+    }
+
     private void executeOnRecon(Context context, final ReconciliationContext reconContext) throws SynchronizationException {
         if (onReconScript != null) {
             Map<String, Object> scope = new HashMap<>();
@@ -913,6 +1025,51 @@ class ObjectMapping {
         return taskThreads;
     }
 
+    /**
+     * @return the configured maximum number of threads to use for processing tasks;
+     * equal to {@link #getTaskThreads()} unless the number of threads should adapt to the observed throughput.
+     */
+    int getMaxTaskThreads() {
+        return maxTaskThreads;
+    }
+
+    /**
+     * @return the configured number of source objects to read with one query when the source query
+     * returns ids only, 0 if source objects are read individually
+     */
+    int getSourceReadAheadSize() {
+        return sourceReadAheadSize;
+    }
+
+    /**
+     * @return whether recon answers equality correlation queries from an index of the target object set
+     */
+    boolean isCorrelationIndex() {
+        return correlationIndex;
+    }
+
+    /**
+     * @return the configured number of links recon creates with one bulk request, 0 if links are
+     * created individually
+     */
+    int getLinkBatchSize() {
+        return linkBatchSize;
+    }
+
+    /**
+     * @return the scripts, property mappings and policies shared by the sync operations of this mapping
+     */
+    SyncPlan getSyncPlan() {
+        return syncPlan;
+    }
+
+    /**
+     * @return the configured number of entries the recon feeder keeps in flight on the executor
+     */
+    int getFeedSize() {
+        return feedSize;
+    }
+
     /**
      * Creates an entry in the audit log.
      *
@@ -26,13 +26,14 @@ package org.forgerock.openidm.sync.impl;
 
 import org.forgerock.openidm.sync.SynchronizationException;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -40,7 +41,9 @@ import java.util.concurrent.Future;
  * multi-threaded using an executor.
  *
  * Keeps the executor loaded to a desirable level, rather than filling up
- * its queue with all tasks up front.
+ * its queue with all tasks up front: entries are handed to the executor in
+ * micro-batches, and the feeder blocks once {@code feedSize} entries are in
+ * flight until workers complete some of them.
  */
 public abstract class ReconFeeder {
     
@@ -48,10 +51,14 @@ public abstract class ReconFeeder {
      * The default feed size.
      */
     protected static int DEFAULT_FEED_SIZE = 1000;
-    
-    CompletionService<Void> completionService;
+
+    /**
+     * The default number of entries processed by a single executor task.
+     */
+    protected static int DEFAULT_BATCH_SIZE = 1;
+
     int feedSize = DEFAULT_FEED_SIZE;
-    int submitted = 0;
+    int batchSize = DEFAULT_BATCH_SIZE;
 
     Iterator<ResultEntry> entriesIter;
     ReconciliationContext reconContext;
@@ -65,6 +72,10 @@ public abstract class ReconFeeder {
         this.feedSize = feedSize;
     }
 
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     void execute() throws SynchronizationException, InterruptedException {
         Executor executor = reconContext.getExcecutor();
         if (executor == null) {
@@ -73,43 +84,85 @@ public abstract class ReconFeeder {
                 ResultEntry entry = entriesIter.next();
                 try {
                     createTask(entry).call();
-                } catch (Exception ex) {
+                } catch (Throwable ex) {
                     translateTaskThrowable(ex);
                 }
             }
         } else {
-            submitted = 0;
-            completionService = new ExecutorCompletionService<Void>(executor);
-
-            // Pre-load configured number of items
-            for (int i = 0; i < feedSize; ++i) {
-                submitNextIfPresent();
-            }
-
-            // Check all submitted tasks for exception, and
-            // each time one completes, submit another if there is any more
-            for (int processed = 0; processed < submitted; ++processed) {
-                Future<Void> future = completionService.take();
-                try {
-                    // Get any exceptions
-                    Void result = future.get();
-                } catch (ExecutionException ex) {
-                    translateTaskThrowable(ex);
+            // The number of entries that may be queued or processing at any time
+            final int inFlightLimit = Math.max(1, feedSize);
+            final int entriesPerBatch = Math.max(1, Math.min(batchSize, inFlightLimit));
+            final Semaphore inFlight = new Semaphore(inFlightLimit);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final ReconThreadPoolTuner tuner = reconContext.getThreadPoolTuner();
+            try {
+                List<Callable<Void>> batch = new ArrayList<>(entriesPerBatch);
+                while (entriesIter.hasNext() && failure.get() == null) {
+                    reconContext.checkCanceled();
+                    batch.add(createTask(entriesIter.next()));
+                    if (batch.size() == entriesPerBatch) {
+                        submit(executor, batch, inFlight, failure, tuner);
+                        batch = new ArrayList<>(entriesPerBatch);
+                    }
+                }
+                if (!batch.isEmpty() && failure.get() == null) {
+                    submit(executor, batch, inFlight, failure, tuner);
                 }
-                submitNextIfPresent();
+            } finally {
+                // Wait for all submitted batches to complete
+                inFlight.acquire(inFlightLimit);
+                inFlight.release(inFlightLimit);
+            }
+            if (failure.get() != null) {
+                translateTaskThrowable(new Exception(failure.get()));
             }
         }
     }
 
-    void submitNextIfPresent() throws SynchronizationException {
-        reconContext.checkCanceled();
-        if (entriesIter.hasNext()) {
-            ResultEntry entry = entriesIter.next();
-            completionService.submit(createTask(entry));
-            ++submitted;
+    /**
+     * Submits a batch of tasks, blocking while the executor already holds {@code feedSize} entries.
+     * The tasks of a batch run one after another on the same worker; after the first failure of any
+     * batch, remaining tasks are skipped.
+     */
+    private void submit(Executor executor, final List<Callable<Void>> batch, final Semaphore inFlight,
+            final AtomicReference<Throwable> failure, final ReconThreadPoolTuner tuner) throws InterruptedException {
+        if (tuner != null) {
+            tuner.adjust();
+        }
+        inFlight.acquire(batch.size());
+        try {
+            executor.execute(newBatchTask(batch, inFlight, failure, tuner));
+        } catch (RejectedExecutionException ex) {
+            inFlight.release(batch.size());
+            throw ex;
         }
     }
 
+    private Runnable newBatchTask(final List<Callable<Void>> batch, final Semaphore inFlight,
+            final AtomicReference<Throwable> failure, final ReconThreadPoolTuner tuner) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (Callable<Void> task : batch) {
+                        if (failure.get() != null) {
+                            break;
+                        }
+                        task.call();
+                    }
+                } catch (Throwable ex) {
+                    // an Error fails the reconciliation too, rather than being lost in the worker thread
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    if (tuner != null) {
+                        tuner.completed(batch.size());
+                    }
+                    inFlight.release(batch.size());
+                }
+            }
+        };
+    }
+
     void translateTaskThrowable(Throwable throwable) throws SynchronizationException {
         Throwable cause = throwable.getCause();
         
@@ -0,0 +1,124 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Grows or shrinks the reconciliation thread pool between {@code taskThreads} and {@code maxTaskThreads},
+ * following the observed throughput.
+ * <p>
+ * When recon is bound by connector or repository latency, adding a thread raises the number of entries
+ * processed per second; once the remote end saturates, it does not. Every sample interval the tuner compares
+ * the throughput of the last interval with the one before, keeps moving the pool size in the same direction
+ * while throughput improves, and reverses direction when it degrades.
+ */
+class ReconThreadPoolTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconThreadPoolTuner.class);
+
+    /** Length of a sample interval */
+    static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /** Relative throughput change below which the pool size is left unchanged */
+    private static final double TOLERANCE = 0.05;
+
+    private final ThreadPoolExecutor executor;
+    private final int minThreads;
+    private final int maxThreads;
+    private final AtomicLong completed = new AtomicLong();
+
+    private long sampleStart;
+    private long sampleCompleted;
+    private double lastThroughput = -1;
+    private int direction = 1;
+
+    /**
+     * @param executor the executor to resize
+     * @param minThreads the minimum (and initial) number of threads
+     * @param maxThreads the maximum number of threads
+     */
+    ReconThreadPoolTuner(ThreadPoolExecutor executor, int minThreads, int maxThreads) {
+        this.executor = executor;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.sampleStart = System.nanoTime();
+    }
+
+    /**
+     * Records processed entries. Called from the worker threads.
+     *
+     * @param entries the number of entries processed
+     */
+    void completed(int entries) {
+        completed.addAndGet(entries);
+    }
+
+    /**
+     * Adjusts the pool size if a sample interval has elapsed. Called from the feeder thread only.
+     */
+    void adjust() {
+        adjust(System.nanoTime());
+    }
+
+    void adjust(long now) {
+        long elapsed = now - sampleStart;
+        if (elapsed < SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+        long total = completed.get();
+        double throughput = (total - sampleCompleted) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        sampleStart = now;
+        sampleCompleted = total;
+
+        if (lastThroughput >= 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+            direction = -direction;
+        } else if (lastThroughput >= 0 && throughput < lastThroughput * (1 + TOLERANCE)) {
+            // No significant change, hold the current size
+            lastThroughput = throughput;
+            return;
+        }
+        lastThroughput = throughput;
+
+        int current = executor.getMaximumPoolSize();
+        int size = Math.max(minThreads, Math.min(maxThreads, current + direction));
+        if (size == current) {
+            // Hit a bound, probe the other way next time
+            direction = -direction;
+            return;
+        }
+        logger.debug("Resizing recon thread pool from {} to {} threads at {} entries/s", current, size, throughput);
+        if (size > current) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * @return the current number of threads the pool is sized to
+     */
+    int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+}
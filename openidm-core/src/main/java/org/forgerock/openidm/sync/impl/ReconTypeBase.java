@@ -82,6 +82,13 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
      */
     final Boolean targetQueryFullEntry;
 
+    /**
+     * A boolean indicating if the target ids should be held in a {@link CompactIdSet} rather than a
+     * {@link java.util.LinkedHashSet}, keeping them off-heap and letting the source phase mark matched
+     * targets without locking.
+     */
+    final boolean compactTargetIds;
+
     /**
      * A constructor.
      * 
@@ -98,7 +105,8 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         logger.debug("sourceQueryFullEntry: {}", sourceQueryFullEntry);
         this.targetQueryFullEntry = calcEffectiveConfig("targetQueryFullEntry").asBoolean();
         logger.debug("targetQueryFullEntry: {}", targetQueryFullEntry);
-        
+        this.compactTargetIds = calcEffectiveConfig("compactTargetIds").defaultTo(false).asBoolean();
+        logger.debug("compactTargetIds: {}", compactTargetIds);
     }
 
     /**
@@ -117,6 +125,24 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         return allowEmptySourceSet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isTargetQueryComplete() {
+        return false;
+    }
+
+    /**
+     * Creates the collection the target query populates with the target ids.
+     *
+     * @param defaultCollection the collection to use if compact target ids are not configured
+     * @return a {@link CompactIdSet} if compact target ids are configured, otherwise the supplied collection
+     */
+    protected Collection<String> newTargetIdCollection(Collection<String> defaultCollection) {
+        return compactTargetIds ? new CompactIdSet() : defaultCollection;
+    }
+
     /**
      * Calculate the effective configuration for the given configuration property
      * Properties passed with the request body are given precedence, they override the default configuration
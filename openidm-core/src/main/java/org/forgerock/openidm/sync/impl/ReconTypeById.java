@@ -86,7 +86,7 @@ public class ReconTypeById extends ReconTypeBase {
         return query(targetQuery.get("resourceName").asString(), 
                 targetQuery, 
                 reconContext,
-                Collections.synchronizedList(new ArrayList<String>()), 
+                newTargetIdCollection(Collections.synchronizedList(new ArrayList<String>())),
                 reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(), 
                 QuerySide.TARGET,
                 0,
@@ -18,12 +18,17 @@ package org.forgerock.openidm.sync.impl;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_FILTER;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_ID;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_FILTER;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_ID;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.sync.SynchronizationException;
 
 /**
@@ -81,12 +86,26 @@ public class ReconTypeByQuery extends ReconTypeBase {
     @Override
     public ResultIterable queryTarget() throws SynchronizationException {
         return query(targetQuery.get("resourceName").asString(), targetQuery, reconContext,
-                Collections.synchronizedSet(new LinkedHashSet<String>()), 
+                newTargetIdCollection(Collections.synchronizedSet(new LinkedHashSet<String>())),
                 reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(), QuerySide.TARGET,
                 0, null
         ).getResultIterable();                
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isTargetQueryComplete() {
+        if (!reconContext.getObjectMapping().getTargetObjectSet().equals(targetQuery.get("resourceName").asString())) {
+            return false;
+        }
+        return ServerConstants.QUERY_ALL_IDS.equals(targetQuery.get(FIELD_QUERY_ID).asString())
+                || ServerConstants.QUERY_ALL_IDS.equals(targetQuery.get(PARAM_QUERY_ID).asString())
+                || "true".equals(targetQuery.get(FIELD_QUERY_FILTER).asString())
+                || "true".equals(targetQuery.get(PARAM_QUERY_FILTER).asString());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -55,6 +55,14 @@ public interface ReconTypeHandler {
      */
     boolean allowEmptySourceSet();
 
+    /**
+     * Returns a boolean indicating if the target query selects the complete target object set, so that its
+     * results can stand in for queries on the whole target object set.
+     *
+     * @return true if the target query selects all target objects, false if it selects a sub-set or is unknown
+     */
+    boolean isTargetQueryComplete();
+
     /**
      * Returns a {@link JsonValue} object containing parameters concerning source and target selection.
      * 
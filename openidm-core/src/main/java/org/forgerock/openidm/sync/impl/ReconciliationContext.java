@@ -15,20 +15,35 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -36,6 +51,8 @@ import org.forgerock.json.resource.BadRequestException;
  */
 public class ReconciliationContext {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationContext.class);
+
     ObjectMapping mapping;
     ReconciliationService service;
 
@@ -55,6 +72,7 @@ public class ReconciliationContext {
     private ReconTypeHandler reconTypeHandler;
     private final ReconciliationStatistic reconStat;
     private ExecutorService executor;
+    private ReconThreadPoolTuner threadPoolTuner;
 
     // If set, the list of all queried source Ids
     private Set<String> sourceIds;
@@ -63,7 +81,17 @@ public class ReconciliationContext {
     private Map<String, JsonValue> targets;
     // Whether the targets map contains preloaded values
     private boolean hasTargetsValues;
+
+    // If set instead of the targets map, the compact set of all queried target Ids
+    private Collection<String> targetIds;
     
+    // Correlation indexes of the target object set, by correlated fields
+    private volatile ConcurrentHashMap<List<JsonPointer>, CorrelationIndex> correlationIndexes =
+            new ConcurrentHashMap<>();
+
+    // If set, the batch of links created by this recon and not yet written to the repository
+    private final LinkBatch linkBatch;
+
     private Integer totalSourceEntries;
     private Integer totalTargetEntries;
     private Integer totalLinkEntries;
@@ -100,10 +128,18 @@ public class ReconciliationContext {
         // Initialize the executor for this recon, or null if no executor should be used
         int noOfThreads = mapping.getTaskThreads();
         if (noOfThreads > 0) {
-            executor = Executors.newFixedThreadPool(noOfThreads);
+            // The feeder bounds the entries in flight, the queue bound is only a safeguard
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(noOfThreads, noOfThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(Math.max(1, mapping.getFeedSize())));
+            executor = pool;
+            if (mapping.getMaxTaskThreads() > noOfThreads) {
+                threadPoolTuner = new ReconThreadPoolTuner(pool, noOfThreads, mapping.getMaxTaskThreads());
+            }
         } else {
             executor = null;
         }
+
+        linkBatch = mapping.getLinkBatchSize() > 1 ? new LinkBatch(this, mapping.getLinkBatchSize()) : null;
     }
 
     /**
@@ -206,6 +242,14 @@ public class ReconciliationContext {
         return mapping;
     }
 
+    /**
+     * @return the batch of links created by this recon and not yet written to the repository,
+     * or null if links are created individually
+     */
+    LinkBatch getLinkBatch() {
+        return linkBatch;
+    }
+
     public String getState() {
         return stage.getState();
     }
@@ -242,6 +286,12 @@ public class ReconciliationContext {
         sourceExisting.put("processed", getStatistics().getSourceProcessed());
         sourceExisting.put("total", totalSourceEntriesStr);
         sourceDetail.put("existing", sourceExisting);
+        if (mapping.getSourceReadAheadSize() > 0) {
+            Map<String, Object> sourceReadAhead = new LinkedHashMap<String, Object>();
+            sourceReadAhead.put("hits", getStatistics().getSourceReadAheadHits());
+            sourceReadAhead.put("misses", getStatistics().getSourceReadAheadMisses());
+            sourceDetail.put("readAhead", sourceReadAhead);
+        }
         progressDetail.put("source", sourceDetail);
 
         targetExisting.put("processed", getStatistics().getTargetProcessed());
@@ -254,6 +304,9 @@ public class ReconciliationContext {
         linkExisting.put("total", totalLinkEntriesStr);
         linkDetail.put("existing", linkExisting);
         linkDetail.put("created", getStatistics().getLinkCreated());
+        if (linkBatch != null) {
+            linkDetail.put("failed", linkBatch.getFailures());
+        }
         progressDetail.put("links", linkDetail);
 
         return progressDetail;
@@ -266,6 +319,13 @@ public class ReconciliationContext {
         return executor;
     }
 
+    /**
+     * @return the tuner adjusting the number of executor threads, or null if the number of threads is fixed
+     */
+    ReconThreadPoolTuner getThreadPoolTuner() {
+        return threadPoolTuner;
+    }
+
     /**
      * Query (and cache if necessary) sources to reconcile
      * @return the source ids to reconcile in this recon scope
@@ -303,6 +363,14 @@ public class ReconciliationContext {
      * If the target system IDs are case insensitive, the ids are kept in normalized (lower case) form
      */
     void setTargets(ResultIterable targetsIterable) {
+        if (targetsIterable.getAllIds() instanceof CompactIdSet && !targetsIterable.hasValues()) {
+            // The compact id set answers existence checks itself, do not duplicate it on the heap
+            this.targetIds = targetsIterable.getAllIds();
+            this.targets = null;
+            hasTargetsValues = false;
+            this.totalTargetEntries = Integer.valueOf(targetIds.size());
+            return;
+        }
         // Choose a hash based map as we need fast "contains" key handling
         this.targets = new ConcurrentHashMap<String, JsonValue>();
         hasTargetsValues = true;
@@ -348,6 +416,34 @@ public class ReconciliationContext {
         return targets;
     }
     
+    /**
+     * @return whether the target ids were queried at the outset of reconciliation,
+     * either into {@link #getTargets()} or into a compact id set
+     */
+    boolean hasTargetIds() {
+        return targets != null || targetIds != null;
+    }
+
+    /**
+     * @param normalizedTargetId the normalized target id
+     * @return whether the target id was returned by the target query at the outset of reconciliation
+     */
+    boolean containsTargetId(String normalizedTargetId) {
+        Map<String, JsonValue> targets = this.targets;
+        if (targets != null) {
+            return targets.containsKey(normalizedTargetId);
+        }
+        Collection<String> targetIds = this.targetIds;
+        return targetIds != null && targetIds.contains(normalizedTargetId);
+    }
+
+    /**
+     * @return the number of target ids queried at the outset of reconciliation, or 0 if none were queried
+     */
+    int getTargetIdCount() {
+        return totalTargetEntries == null ? 0 : totalTargetEntries;
+    }
+
     /**
      * @return whether getTargets contains preloaded values
      */
@@ -355,6 +451,96 @@ public class ReconciliationContext {
         return hasTargetsValues;
     }
 
+    /**
+     * Returns the index of the target object set on the given fields, building it on first use.
+     * <p>
+     * If the target query of this recon selected all target objects along with their values, the index is
+     * built from those values; otherwise the target object set is queried once for the ids and the fields.
+     *
+     * @param fields the correlated fields, as ordered by {@link CorrelationIndex#equalityTerms}
+     * @param context the context to query the target object set with
+     * @return the correlation index, or null if the reconciliation has completed
+     * @throws SynchronizationException if querying the target object set failed
+     */
+    CorrelationIndex getCorrelationIndex(List<JsonPointer> fields, final Context context)
+            throws SynchronizationException {
+        final ConcurrentHashMap<List<JsonPointer>, CorrelationIndex> indexes = correlationIndexes;
+        if (indexes == null) {
+            return null;
+        }
+        try {
+            // Only the threads correlating on the same fields wait for the index to be built
+            return indexes.computeIfAbsent(fields, new Function<List<JsonPointer>, CorrelationIndex>() {
+                @Override
+                public CorrelationIndex apply(List<JsonPointer> indexFields) {
+                    final long startNanoTime = ObjectMapping.startNanoTime(ReconciliationContext.this);
+                    try {
+                        return buildCorrelationIndex(indexFields, context);
+                    } catch (SynchronizationException e) {
+                        throw new CorrelationIndexException(e);
+                    } finally {
+                        ObjectMapping.addDuration(ReconciliationContext.this,
+                                ReconciliationStatistic.DurationMetric.correlationIndexBuild, startNanoTime);
+                    }
+                }
+            });
+        } catch (CorrelationIndexException e) {
+            throw (SynchronizationException) e.getCause();
+        }
+    }
+
+    /** Carries the failure to build a correlation index out of {@link ConcurrentHashMap#computeIfAbsent} */
+    private static final class CorrelationIndexException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CorrelationIndexException(SynchronizationException cause) {
+            super(cause);
+        }
+    }
+
+    private CorrelationIndex buildCorrelationIndex(List<JsonPointer> fields, Context context)
+            throws SynchronizationException {
+        Map<String, JsonValue> targets = this.targets;
+        if (targets != null && hasTargetsValues && reconTypeHandler.isTargetQueryComplete()) {
+            CorrelationIndex index = new CorrelationIndex(fields, true);
+            for (Map.Entry<String, JsonValue> target : targets.entrySet()) {
+                JsonValue value = target.getValue();
+                if (!value.isDefined(FIELD_CONTENT_ID)) {
+                    value = value.copy();
+                    value.put(FIELD_CONTENT_ID, target.getKey());
+                }
+                index.add(value);
+            }
+            logger.debug("Built correlation index on {} from {} preloaded targets", fields, targets.size());
+            return index;
+        }
+
+        final CorrelationIndex index = new CorrelationIndex(fields, false);
+        QueryRequest request = newQueryRequest(mapping.getTargetObjectSet())
+                .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue())
+                .addField(FIELD_CONTENT_ID);
+        for (JsonPointer field : fields) {
+            request.addField(field);
+        }
+        try {
+            mapping.getConnectionFactory().getConnection().query(context, request, new QueryResourceHandler() {
+                @Override
+                public boolean handleResource(ResourceResponse resource) {
+                    JsonValue content = resource.getContent();
+                    if (!content.isDefined(FIELD_CONTENT_ID)) {
+                        content.put(FIELD_CONTENT_ID, resource.getId());
+                    }
+                    index.add(content);
+                    return true;
+                }
+            });
+        } catch (ResourceException e) {
+            throw new SynchronizationException(e);
+        }
+        logger.debug("Built correlation index on {} with {} keys", fields, index.size());
+        return index;
+    }
+
     /**
      * @param newStage Sets the current state and stage in the reconciliation process
      */
@@ -390,6 +576,8 @@ public class ReconciliationContext {
     private synchronized void cleanupState() {
         sourceIds = null;
         targets = null;
+        targetIds = null;
+        correlationIndexes = null;
         if (executor != null) {
             executor.shutdown();
             executor = null;
@@ -43,11 +43,13 @@ public class ReconciliationStatistic {
         activePolicyPostActionScript,
         activePolicyScript,
         auditLog,
+        correlationIndexBuild,
         correlationQuery,
         correlationScript,
         defaultMappingScript,
         deleteLinkObject,
         deleteTargetObject,
+        linkBatchWrite,
         linkQualifiersScript,
         linkQuery,
         onCreateScript,
@@ -63,6 +65,7 @@ public class ReconciliationStatistic {
         sourceObjectQuery,
         sourcePhase,
         sourceQuery,
+        sourceReadAheadQuery,
         targetLinkQuery,
         targetObjectQuery,
         targetPhase,
@@ -84,6 +87,8 @@ public class ReconciliationStatistic {
     private AtomicInteger linkCreated = new AtomicInteger();
     private AtomicInteger targetProcessed = new AtomicInteger();
     private AtomicInteger targetCreated = new AtomicInteger();
+    private AtomicInteger sourceReadAheadHits = new AtomicInteger();
+    private AtomicInteger sourceReadAheadMisses = new AtomicInteger();
     private Map<Status, AtomicInteger> statusProcessed = new EnumMap<>(Status.class);
 
     private PhaseStatistic sourceStat;
@@ -222,6 +227,31 @@ public class ReconciliationStatistic {
         }
     }
 
+    /**
+     * Records the outcome of a source read-ahead batch.
+     *
+     * @param hits the number of source objects returned by the batch query
+     * @param misses the number of source objects not returned, which will be read individually
+     */
+    public void sourceReadAhead(int hits, int misses) {
+        sourceReadAheadHits.addAndGet(hits);
+        sourceReadAheadMisses.addAndGet(misses);
+    }
+
+    /**
+     * @return The number of source objects pre-loaded by read-ahead batch queries
+     */
+    public int getSourceReadAheadHits() {
+        return sourceReadAheadHits.get();
+    }
+
+    /**
+     * @return The number of source objects read-ahead batch queries did not return
+     */
+    public int getSourceReadAheadMisses() {
+        return sourceReadAheadMisses.get();
+    }
+
     public void processStatus(Status status) {
         statusProcessed.get(status).incrementAndGet();
     }
@@ -0,0 +1,165 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps the source entries of a reconciliation whose source query returned ids only, and fetches the
+ * objects of the next {@code batchSize} entries with a single {@code _id eq ... or _id eq ...} query,
+ * so that each {@link SourceRecon} task receives a pre-loaded object instead of reading it on its own.
+ * <p>
+ * Entries whose object is not returned by the batch query are passed on without a value and are read
+ * individually, as before. If the batch query fails, for instance because the source does not support
+ * such filters, read-ahead is disabled for the rest of the reconciliation.
+ * <p>
+ * This iterator is consumed by the recon feeder thread only and is not thread-safe.
+ */
+class SourceReadAhead implements Iterator<ResultEntry> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceReadAhead.class);
+
+    private static final JsonPointer ID = new JsonPointer("_id");
+
+    private final Iterator<ResultEntry> entries;
+    private final ReconciliationContext reconContext;
+    private final String sourceObjectSet;
+    private final int batchSize;
+    private final Deque<ResultEntry> buffer = new ArrayDeque<>();
+    private boolean enabled = true;
+
+    /**
+     * @param entries the source entries, as returned by the source query
+     * @param reconContext the reconciliation context
+     * @param sourceObjectSet the resource container to query the source objects from
+     * @param batchSize the number of objects to fetch per query
+     */
+    SourceReadAhead(Iterator<ResultEntry> entries, ReconciliationContext reconContext, String sourceObjectSet,
+            int batchSize) {
+        this.entries = entries;
+        this.reconContext = reconContext;
+        this.sourceObjectSet = sourceObjectSet;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !buffer.isEmpty() || entries.hasNext();
+    }
+
+    @Override
+    public ResultEntry next() {
+        if (buffer.isEmpty()) {
+            fill();
+        }
+        if (buffer.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.poll();
+    }
+
+    private void fill() {
+        List<ResultEntry> batch = new ArrayList<>(batchSize);
+        List<String> idsToRead = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && entries.hasNext()) {
+            ResultEntry entry = entries.next();
+            batch.add(entry);
+            if (entry.getValue() == null) {
+                idsToRead.add(entry.getId());
+            }
+        }
+        Map<String, JsonValue> objects = idsToRead.isEmpty() || !enabled
+                ? new HashMap<String, JsonValue>()
+                : readObjects(idsToRead);
+
+        int hits = 0;
+        for (ResultEntry entry : batch) {
+            JsonValue object = entry.getValue() == null ? objects.get(normalizeId(entry.getId())) : null;
+            if (object != null) {
+                hits++;
+                buffer.add(new ResultEntry(entry.getId(), object));
+            } else {
+                buffer.add(entry);
+            }
+        }
+        if (enabled) {
+            reconContext.getStatistics().sourceReadAhead(hits, idsToRead.size() - hits);
+        }
+    }
+
+    /**
+     * Normalizes a source id the way the link type compares them, since the source may return the ids of the
+     * objects in a different case than the source query did.
+     */
+    private String normalizeId(String id) {
+        return reconContext.getObjectMapping().getLinkType().normalizeSourceId(id);
+    }
+
+    /**
+     * Reads the objects of a batch of entries.
+     *
+     * @return the objects by normalized id
+     */
+    private Map<String, JsonValue> readObjects(List<String> ids) {
+        final Map<String, JsonValue> objects = new HashMap<>(ids.size() * 2);
+        List<QueryFilter<JsonPointer>> idFilters = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            idFilters.add(QueryFilter.equalTo(ID, id));
+        }
+        QueryRequest request = newQueryRequest(sourceObjectSet).setQueryFilter(QueryFilter.or(idFilters));
+        final long startNanoTime = ObjectMapping.startNanoTime(reconContext);
+        try {
+            reconContext.getService().getConnectionFactory().getConnection().query(
+                    reconContext.getService().getContext(), request, new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            if (resource.getId() != null) {
+                                objects.put(normalizeId(resource.getId()), resource.getContent());
+                            }
+                            return true;
+                        }
+                    });
+        } catch (ResourceException e) {
+            logger.warn("Read-ahead of source objects from {} failed, reading source objects individually for "
+                    + "the rest of reconciliation {}", sourceObjectSet, reconContext.getReconId(), e);
+            enabled = false;
+            objects.clear();
+        } finally {
+            ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.sourceReadAheadQuery,
+                    startNanoTime);
+        }
+        return objects;
+    }
+}
@@ -56,8 +56,8 @@ class SourceSyncOperation extends SyncOperation {
      */
     SourceSyncOperation(ObjectMapping objectMapping, Context context) {
         super(objectMapping, context);
-        correlation = new Correlation(objectMapping);
-        correlateEmptyTargetSet = objectMapping.getConfig().get("correlateEmptyTargetSet").defaultTo(false).asBoolean();
+        correlation = objectMapping.getSyncPlan().getCorrelation();
+        correlateEmptyTargetSet = objectMapping.getSyncPlan().isCorrelateEmptyTargetSet();
     }
 
     @Override
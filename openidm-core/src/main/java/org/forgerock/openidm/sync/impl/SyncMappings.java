@@ -12,13 +12,16 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
@@ -60,6 +63,9 @@ public class SyncMappings implements Mappings {
     /** Object mappings. Order of mappings evaluated during synchronization is significant. */
     private volatile List<ObjectMapping> mappings = new ArrayList<>();
 
+    /** Object mappings by source object set, in the order of {@link #mappings}. */
+    private volatile Map<String, List<ObjectMapping>> mappingsBySource = Collections.emptyMap();
+
     /** Enhanced configuration service. */
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
@@ -83,7 +89,7 @@ public class SyncMappings implements Mappings {
     protected void activate(ComponentContext context) {
         JsonValue config = enhancedConfig.getConfigurationAsJson(context);
         try {
-            mappings = initMappings(config);
+            setMappings(initMappings(config));
         } catch (JsonValueException jve) {
             throw new ComponentException("Configuration error: " + jve.getMessage(), jve);
         }
@@ -96,7 +102,24 @@ public class SyncMappings implements Mappings {
      */
     @Deactivate
     protected void deactivate(ComponentContext context) {
-        mappings = new ArrayList<>();
+        setMappings(new ArrayList<ObjectMapping>());
+    }
+
+    private void setMappings(List<ObjectMapping> mappingList) {
+        final Map<String, List<ObjectMapping>> bySource = new HashMap<>();
+        for (ObjectMapping mapping : mappingList) {
+            List<ObjectMapping> sourceMappings = bySource.get(mapping.getSourceObjectSet());
+            if (sourceMappings == null) {
+                sourceMappings = new ArrayList<>();
+                bySource.put(mapping.getSourceObjectSet(), sourceMappings);
+            }
+            sourceMappings.add(mapping);
+        }
+        for (Map.Entry<String, List<ObjectMapping>> entry : bySource.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        mappings = mappingList;
+        mappingsBySource = bySource;
     }
 
     private List<ObjectMapping> initMappings(JsonValue config) {
@@ -132,6 +155,19 @@ public class SyncMappings implements Mappings {
         throw new SynchronizationException("No such mapping: " + name);
     }
 
+    /**
+     * Return the {@link ObjectMapping}s whose source object set is {@code sourceObjectSet}, in the order of the
+     * mappings in sync.json.
+     *
+     * @param sourceObjectSet the source object set
+     * @return the mappings, or an empty list if there is none
+     */
+    @Override
+    public List<ObjectMapping> getMappingsBySource(String sourceObjectSet) {
+        final List<ObjectMapping> sourceMappings = mappingsBySource.get(sourceObjectSet);
+        return sourceMappings != null ? sourceMappings : Collections.<ObjectMapping>emptyList();
+    }
+
     /**
      * Instantiate an {@link ObjectMapping} with the given config
      *
@@ -20,8 +20,6 @@ import static org.forgerock.json.JsonValue.*;
 import static org.forgerock.json.resource.Requests.*;
 
 import javax.script.ScriptException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,7 +33,6 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.condition.Condition;
-import org.forgerock.openidm.condition.Conditions;
 import org.forgerock.openidm.config.enhanced.InternalErrorException;
 import org.forgerock.openidm.smartevent.EventEntry;
 import org.forgerock.openidm.smartevent.Publisher;
@@ -46,7 +43,6 @@ import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.Script;
 import org.forgerock.openidm.util.Scripts;
 import org.forgerock.script.exception.ScriptThrownException;
-import org.forgerock.script.source.SourceUnit;
 import org.forgerock.services.context.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,16 +78,16 @@ abstract class SyncOperation {
     private final Script validTarget;
 
     /** a script that applies the effective assignments as part of the mapping */
-    private Script defaultMapping;
+    private final Script defaultMapping;
 
     /** an additional set of key-value conditions to be met for a source object to be valid to be mapped */
     private final Condition sourceCondition;
 
     /** an array of property-mapping objects */
-    private final List<PropertyMapping> properties = new ArrayList<>();
+    private final List<PropertyMapping> properties;
 
-    /** a map of {@link Policy} objects */
-    private Map<String, List<Policy>> policies = new HashMap<>();
+    /** the compiled scripts, property mappings and {@link Policy} objects of the mapping */
+    private final SyncPlan syncPlan;
 
     /**
      * A reconciliation ID
@@ -161,37 +157,18 @@ abstract class SyncOperation {
         this.context = new SyncContext(context, objectMapping.getName());
         linkObject = new Link(objectMapping);
 
-        final JsonValue config = objectMapping.getConfig();
-        validSource = Scripts.newScript(config.get("validSource"));
-        validTarget = Scripts.newScript(config.get("validTarget"));
-        sourceCondition = Conditions.newCondition(config.get("sourceCondition"));
-        onCreateScript = Scripts.newScript(config.get("onCreate"));
-        onUpdateScript = Scripts.newScript(config.get("onUpdate"));
-        onDeleteScript = Scripts.newScript(config.get("onDelete"));
-        onLinkScript = Scripts.newScript(config.get("onLink"));
-        onUnlinkScript = Scripts.newScript(config.get("onUnlink"));
-        defaultMapping = Scripts.newScript(config.get("defaultMapping").defaultTo(
-                json(object(field(SourceUnit.ATTR_TYPE, "text/javascript"),
-                        field(SourceUnit.ATTR_NAME, "roles/defaultMapping.js")))));
-        postMapping = Scripts.newScript(config.get("postMapping").defaultTo(
-                json(object(field(SourceUnit.ATTR_TYPE, "groovy"),
-                        field(SourceUnit.ATTR_NAME, "roles/defaultPostMapping.groovy")))));
-
-        for (JsonValue jv : config.get("properties").expect(List.class)) {
-            properties.add(new PropertyMapping(jv));
-        }
-
-        for (JsonValue jv : config.get("policies").expect(List.class)) {
-            String situation = jv.get("situation").asString();
-            if (policies.containsKey(situation)) {
-                List<Policy> policy = policies.get(situation);
-                policy.add(new Policy(jv));
-                continue;
-            }
-            List<Policy> policyArrayList = new ArrayList<Policy>();
-            policies.put(situation, policyArrayList);
-            policyArrayList.add(new Policy(jv));
-        }
+        syncPlan = objectMapping.getSyncPlan();
+        validSource = syncPlan.getValidSource();
+        validTarget = syncPlan.getValidTarget();
+        sourceCondition = syncPlan.getSourceCondition();
+        onCreateScript = syncPlan.getOnCreateScript();
+        onUpdateScript = syncPlan.getOnUpdateScript();
+        onDeleteScript = syncPlan.getOnDeleteScript();
+        onLinkScript = syncPlan.getOnLinkScript();
+        onUnlinkScript = syncPlan.getOnUnlinkScript();
+        defaultMapping = syncPlan.getDefaultMapping();
+        postMapping = syncPlan.getPostMapping();
+        properties = syncPlan.getProperties();
     }
 
     /**
@@ -319,11 +296,11 @@ abstract class SyncOperation {
             defined = false;
         } else {
             // Either check against a list of all targets, or load to check for existence
-            if (reconContext != null && reconContext.getTargets() != null) {
+            if (reconContext != null && reconContext.hasTargetIds()) {
                 // If available, check against all queried existing IDs
                 // If target system has case insensitive IDs, compare without regard to case
                 String normalizedTargetId = objectMapping.getLinkType().normalizeTargetId(targetObjectAccessor.getLocalId());
-                defined = reconContext.getTargets().containsKey(normalizedTargetId);
+                defined = reconContext.containsTargetId(normalizedTargetId);
             } else {
                 // If no lists of existing ids is available, do a load of the object to check
                 defined = (getTargetObject() != null);
@@ -341,9 +318,9 @@ abstract class SyncOperation {
      * by another process concurrently
      */
     protected boolean hadEmptyTargetObjectSet() {
-        if (reconContext != null && reconContext.getTargets() != null) {
+        if (reconContext != null && reconContext.hasTargetIds()) {
             // If available, check against all queried existing IDs
-            return (reconContext.getTargets().size() == 0);
+            return (reconContext.getTargetIdCount() == 0);
         } else {
             return false;
         }
@@ -384,10 +361,7 @@ abstract class SyncOperation {
      * @return List of policies for given situation
      */
     private List<Policy> getPolicies(Situation situation) {
-       if (policies.get(situation.toString()) == null) {
-           return Collections.emptyList();
-       }
-        return policies.get(situation.toString());
+        return syncPlan.getPolicies(situation);
     }
 
     /**
@@ -614,7 +588,7 @@ abstract class SyncOperation {
         execScript("onLink", onLinkScript);
         linkObject.sourceId = sourceId;
         linkObject.targetId = targetId;
-        linkObject.create(context);
+        linkObject.create(context, reconContext != null ? reconContext.getLinkBatch() : null);
         initializeLink(linkObject);
         LOGGER.debug("Established link sourceId: {} targetId: {} in reconId: {}", sourceId, targetId, reconId);
     }
@@ -0,0 +1,210 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.openidm.condition.Condition;
+import org.forgerock.openidm.condition.Conditions;
+import org.forgerock.openidm.sync.PropertyMapping;
+import org.forgerock.openidm.util.Script;
+import org.forgerock.openidm.util.Scripts;
+import org.forgerock.script.source.SourceUnit;
+
+/**
+ * The scripts, conditions, property mappings and policies of a mapping, resolved once from the mapping
+ * configuration and shared by all the {@link SyncOperation}s of the mapping.
+ * <p>
+ * A plan is immutable; a change to the mapping configuration creates a new {@link ObjectMapping} and with
+ * it a new plan.
+ */
+final class SyncPlan {
+
+    private final Script onCreateScript;
+    private final Script onUpdateScript;
+    private final Script onDeleteScript;
+    private final Script onLinkScript;
+    private final Script onUnlinkScript;
+    private final Script postMapping;
+    private final Script validSource;
+    private final Script validTarget;
+    private final Script defaultMapping;
+    private final Condition sourceCondition;
+    private final List<PropertyMapping> properties;
+    private final Map<Situation, List<Policy>> policies;
+    private final Correlation correlation;
+    private final boolean correlateEmptyTargetSet;
+
+    /**
+     * Resolves the sync plan of a mapping.
+     *
+     * @param objectMapping the mapping
+     * @throws JsonValueException if the mapping configuration is invalid
+     */
+    SyncPlan(ObjectMapping objectMapping) throws JsonValueException {
+        final JsonValue config = objectMapping.getConfig();
+        validSource = Scripts.newScript(config.get("validSource"));
+        validTarget = Scripts.newScript(config.get("validTarget"));
+        sourceCondition = Conditions.newCondition(config.get("sourceCondition"));
+        onCreateScript = Scripts.newScript(config.get("onCreate"));
+        onUpdateScript = Scripts.newScript(config.get("onUpdate"));
+        onDeleteScript = Scripts.newScript(config.get("onDelete"));
+        onLinkScript = Scripts.newScript(config.get("onLink"));
+        onUnlinkScript = Scripts.newScript(config.get("onUnlink"));
+        defaultMapping = Scripts.newScript(config.get("defaultMapping").defaultTo(
+                json(object(field(SourceUnit.ATTR_TYPE, "text/javascript"),
+                        field(SourceUnit.ATTR_NAME, "roles/defaultMapping.js")))));
+        postMapping = Scripts.newScript(config.get("postMapping").defaultTo(
+                json(object(field(SourceUnit.ATTR_TYPE, "groovy"),
+                        field(SourceUnit.ATTR_NAME, "roles/defaultPostMapping.groovy")))));
+
+        List<PropertyMapping> propertyMappings = new ArrayList<>();
+        for (JsonValue jv : config.get("properties").expect(List.class)) {
+            propertyMappings.add(new PropertyMapping(jv));
+        }
+        properties = Collections.unmodifiableList(propertyMappings);
+
+        Map<Situation, List<Policy>> situationPolicies = new EnumMap<>(Situation.class);
+        for (JsonValue jv : config.get("policies").expect(List.class)) {
+            Policy policy = new Policy(jv);
+            List<Policy> list = situationPolicies.get(policy.getSituation());
+            if (list == null) {
+                list = new ArrayList<>();
+                situationPolicies.put(policy.getSituation(), list);
+            }
+            list.add(policy);
+        }
+        for (Map.Entry<Situation, List<Policy>> entry : situationPolicies.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        policies = situationPolicies;
+
+        correlation = new Correlation(objectMapping);
+        correlateEmptyTargetSet = config.get("correlateEmptyTargetSet").defaultTo(false).asBoolean();
+    }
+
+    /**
+     * @return the script to execute when a target object is to be created, or null
+     */
+    Script getOnCreateScript() {
+        return onCreateScript;
+    }
+
+    /**
+     * @return the script to execute when a target object is to be updated, or null
+     */
+    Script getOnUpdateScript() {
+        return onUpdateScript;
+    }
+
+    /**
+     * @return the script to execute when a target object is to be deleted, or null
+     */
+    Script getOnDeleteScript() {
+        return onDeleteScript;
+    }
+
+    /**
+     * @return the script to execute when a source object is to be linked to a target object, or null
+     */
+    Script getOnLinkScript() {
+        return onLinkScript;
+    }
+
+    /**
+     * @return the script to execute when a source object and a target object are to be unlinked, or null
+     */
+    Script getOnUnlinkScript() {
+        return onUnlinkScript;
+    }
+
+    /**
+     * @return the script to execute when sync has been performed on a managed object
+     */
+    Script getPostMapping() {
+        return postMapping;
+    }
+
+    /**
+     * @return the script that determines if a source object is valid to be mapped, or null
+     */
+    Script getValidSource() {
+        return validSource;
+    }
+
+    /**
+     * @return the script that determines if a target object is valid to be mapped, or null
+     */
+    Script getValidTarget() {
+        return validTarget;
+    }
+
+    /**
+     * @return the script that applies the effective assignments as part of the mapping
+     */
+    Script getDefaultMapping() {
+        return defaultMapping;
+    }
+
+    /**
+     * @return the additional conditions to be met for a source object to be valid to be mapped
+     */
+    Condition getSourceCondition() {
+        return sourceCondition;
+    }
+
+    /**
+     * @return the property mappings, in configuration order
+     */
+    List<PropertyMapping> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the policies configured for a situation.
+     *
+     * @param situation the situation
+     * @return the policies for the situation, in configuration order, or an empty list
+     */
+    List<Policy> getPolicies(Situation situation) {
+        List<Policy> list = policies.get(situation);
+        return list != null ? list : Collections.<Policy>emptyList();
+    }
+
+    /**
+     * @return the correlation queries or script of the mapping
+     */
+    Correlation getCorrelation() {
+        return correlation;
+    }
+
+    /**
+     * @return whether source objects are correlated when the target object set is empty
+     */
+    boolean isCorrelateEmptyTargetSet() {
+        return correlateEmptyTargetSet;
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -28,9 +28,20 @@ import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.util.ResourceUtil.notSupported;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.audit.events.AuditEvent;
 import com.google.common.base.Function;
@@ -39,6 +50,7 @@ import com.google.common.collect.FluentIterable;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -136,18 +148,67 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
 
+    /** Number of threads synchronizing the mappings of a changed object concurrently; 0 synchronizes them in turn. */
+    private static final String MAPPING_THREADS_PROPERTY = "openidm.sync.implicit.threads";
+
+    /** Marks the threads of the {@link #mappingExecutor}. */
+    private static final ThreadLocal<Boolean> mappingThread = new ThreadLocal<>();
+
+    /** Synchronizes the mappings of a changed object concurrently; null if they are synchronized in turn. */
+    private volatile ExecutorService mappingExecutor;
+
     @Activate
     protected void activate(ComponentContext context) {
+        startMappingExecutor(Integer.parseInt(
+                IdentityServer.getInstance().getProperty(MAPPING_THREADS_PROPERTY, "0")));
     }
 
     @Deactivate
     protected void deactivate(ComponentContext context) {
+        stopMappingExecutor();
     }
 
     @Modified
     protected void modified(ComponentContext context) {
     }
 
+    /**
+     * Starts the threads synchronizing the mappings of a changed object concurrently.
+     *
+     * @param threads the number of threads; the mappings are synchronized in turn if it is not positive
+     */
+    void startMappingExecutor(int threads) {
+        stopMappingExecutor();
+        if (threads <= 0) {
+            return;
+        }
+        mappingExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mappingThread.set(Boolean.TRUE);
+                        runnable.run();
+                    }
+                }, "sync-mapping-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        logger.info("Synchronizing the mappings of changed objects with {} threads", threads);
+    }
+
+    private void stopMappingExecutor() {
+        final ExecutorService executor = mappingExecutor;
+        mappingExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Results we can expect from synchronizing a specific source object to a given mapping.
      */
@@ -161,12 +222,32 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
      *
      * @see #syncAllMappings(Context, SyncAction, String, String)
      */
-    private interface SyncAction {
+    interface SyncAction {
         JsonValue sync(Context context, ObjectMapping mapping) throws SynchronizationException;
     }
 
+    /**
+     * The synchronization of a source object to one mapping.
+     */
+    private static final class MappingSync {
+        final int index;
+        final ObjectMapping mapping;
+        JsonValue results = json(array());
+        MappingSyncResult result = MappingSyncResult.SKIPPED;
+        SynchronizationException failure;
+
+        MappingSync(int index, ObjectMapping mapping) {
+            this.index = index;
+            this.mapping = mapping;
+        }
+    }
+
     /**
      * Synchronize all mappings; keeping track of success/failure conditions.
+     * <p>
+     * The mappings are synchronized in the order they are configured in, and once one of them fails the following
+     * ones are skipped. If the mappings are synchronized concurrently, mappings sharing a target object set or a
+     * link type are still synchronized in turn, and the mappings not started when one of them fails are skipped.
      *
      * @param action the {@code SyncAction} to perform
      * @param resourceContainer the source object set
@@ -174,7 +255,7 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
      * @returns a JsonValue list of ObjectMappings' sync results
      * @throws SynchronizationException on failure to sync one of the mappings
      */
-    private JsonValue syncAllMappings(Context context, SyncAction action, final String resourceContainer, final String resourceId)
+    JsonValue syncAllMappings(Context context, SyncAction action, final String resourceContainer, final String resourceId)
             throws SynchronizationException {
         final JsonValue syncDetails = new JsonValue(new ArrayList<Object>());
         SynchronizationException exceptionPending = null;
@@ -186,42 +267,35 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
 
         // mappings that should be synced are those which are enabled and whose
         // source object set matches the resource container
-        final Predicate<ObjectMapping> thatMatchSource = new Predicate<ObjectMapping>() {
-            public boolean apply(ObjectMapping objectMapping) {
-                return objectMapping.isSyncEnabled()
-                        && objectMapping.isSourceObject(resourceContainer, resourceId);
+        final List<MappingSync> syncs = new ArrayList<>();
+        for (ObjectMapping mapping : mappings.getMappingsBySource(resourceContainer)) {
+            if (mapping.isSyncEnabled() && mapping.isSourceObject(resourceContainer, resourceId)) {
+                syncs.add(new MappingSync(syncs.size(), mapping));
             }
-        };
+        }
 
-        for (final ObjectMapping mapping : FluentIterable.from(mappings).filter(thatMatchSource)) {
-            JsonValue mappingResults = json(array());
-            MappingSyncResult result = MappingSyncResult.SUCCESSFUL;
-            try {
-                if (exceptionPending == null) {
-                    // No failures yet, perform sync
-                    // This operation returns a list which will contain more than one result if 
-                    // there are multiple targets to sync the source to
-                    mappingResults = action.sync(context, mapping);
-                } else {
-                    // we've already failed, skip the sync attempt
-                    result = MappingSyncResult.SKIPPED;
-                }
-            } catch (SynchronizationException e) {
-                // failed to sync; store the exception and mark as failed
-                exceptionPending = new SynchronizationException(e.getMessage(), e.getCause());
-                // the exception detail contains the mapping result
-                JsonValue failedResult = e.getDetail();
-                failedResult.put("cause", exceptionPending.toJsonValue().getObject());
-                mappingResults.add(failedResult);
-                result = MappingSyncResult.FAILED;
-            } finally {
-                // Loop over each result, setting result fields and adding to syncDetails list
-                for (JsonValue mappingResult : mappingResults) {
-                    mappingResult.put("result", result.name());
-                    mappingResult.put("mapping", mapping.getName());
-                    mappingResult.put("targetObjectSet", mapping.getTargetObjectSet());
-                    syncDetails.add(mappingResult);
-                }
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final ExecutorService executor = mappingExecutor;
+        // a mapping thread does not wait on the other mapping threads, so that they cannot all wait on each other
+        final List<List<MappingSync>> lanes = executor != null && mappingThread.get() == null
+                ? lanes(syncs)
+                : Collections.singletonList(syncs);
+        if (lanes.size() > 1) {
+            syncConcurrently(context, action, lanes, failed, executor);
+        } else {
+            syncInTurn(context, action, syncs, failed);
+        }
+
+        for (MappingSync sync : syncs) {
+            // Loop over each result, setting result fields and adding to syncDetails list
+            for (JsonValue mappingResult : sync.results) {
+                mappingResult.put("result", sync.result.name());
+                mappingResult.put("mapping", sync.mapping.getName());
+                mappingResult.put("targetObjectSet", sync.mapping.getTargetObjectSet());
+                syncDetails.add(mappingResult);
+            }
+            if (exceptionPending == null) {
+                exceptionPending = sync.failure;
             }
         }
 
@@ -235,6 +309,130 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
         return syncDetails;
     }
 
+    /**
+     * Groups the mappings which have to be synchronized in turn, as they share a target object set or a link type.
+     *
+     * @param syncs the mappings to synchronize
+     * @return the groups of mappings, each in the order of the mappings
+     */
+    private static List<List<MappingSync>> lanes(List<MappingSync> syncs) {
+        final List<List<MappingSync>> lanes = new ArrayList<>();
+        final List<Set<String>> laneKeys = new ArrayList<>();
+        for (MappingSync sync : syncs) {
+            final Set<String> keys = new HashSet<>(Arrays.asList(
+                    "target:" + sync.mapping.getTargetObjectSet(), "links:" + sync.mapping.getLinkTypeName()));
+            List<MappingSync> lane = null;
+            Set<String> keysOfLane = null;
+            for (int i = 0; i < lanes.size();) {
+                if (Collections.disjoint(laneKeys.get(i), keys)) {
+                    i++;
+                } else if (lane == null) {
+                    lane = lanes.get(i);
+                    keysOfLane = laneKeys.get(i);
+                    i++;
+                } else {
+                    // the mapping joins two lanes
+                    lane.addAll(lanes.remove(i));
+                    keysOfLane.addAll(laneKeys.remove(i));
+                }
+            }
+            if (lane == null) {
+                lane = new ArrayList<>();
+                keysOfLane = new HashSet<>();
+                lanes.add(lane);
+                laneKeys.add(keysOfLane);
+            }
+            lane.add(sync);
+            keysOfLane.addAll(keys);
+        }
+        for (List<MappingSync> lane : lanes) {
+            Collections.sort(lane, new Comparator<MappingSync>() {
+                @Override
+                public int compare(MappingSync first, MappingSync second) {
+                    return Integer.compare(first.index, second.index);
+                }
+            });
+        }
+        return lanes;
+    }
+
+    private static void syncInTurn(Context context, SyncAction action, List<MappingSync> syncs, AtomicBoolean failed) {
+        for (MappingSync sync : syncs) {
+            if (failed.get()) {
+                // we've already failed, skip the sync attempt
+                continue;
+            }
+            try {
+                // This operation returns a list which will contain more than one result if
+                // there are multiple targets to sync the source to
+                sync.results = action.sync(context, sync.mapping);
+                sync.result = MappingSyncResult.SUCCESSFUL;
+            } catch (SynchronizationException e) {
+                // failed to sync; store the exception and mark as failed
+                sync.failure = new SynchronizationException(e.getMessage(), e.getCause());
+                // the exception detail contains the mapping result
+                JsonValue failedResult = e.getDetail();
+                failedResult.put("cause", sync.failure.toJsonValue().getObject());
+                sync.results.add(failedResult);
+                sync.result = MappingSyncResult.FAILED;
+                failed.set(true);
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Synchronizes each lane of mappings on a thread of the {@link #mappingExecutor}, but for the first one which is
+     * synchronized by the calling thread, and waits for all of them.
+     */
+    private static void syncConcurrently(final Context context, final SyncAction action,
+            List<List<MappingSync>> lanes, final AtomicBoolean failed, ExecutorService executor)
+            throws SynchronizationException {
+        final List<Future<?>> futures = new ArrayList<>(lanes.size() - 1);
+        for (final List<MappingSync> lane : lanes.subList(1, lanes.size())) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    ObjectSetContext.push(context);
+                    try {
+                        syncInTurn(context, action, lane, failed);
+                    } finally {
+                        ObjectSetContext.pop();
+                    }
+                }
+            }));
+        }
+
+        RuntimeException error = null;
+        try {
+            syncInTurn(context, action, lanes.get(0), failed);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof RuntimeException
+                                ? (RuntimeException) e.getCause()
+                                : new IllegalStateException(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted while synchronizing the mappings", e);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
     private JsonValue notifyCreate(Context context, final String resourceContainer, final String resourceId, final JsonValue object)
             throws SynchronizationException {
         // Handle pending link action if present
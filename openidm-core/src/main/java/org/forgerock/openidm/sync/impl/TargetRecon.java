@@ -60,6 +60,11 @@ class TargetRecon implements Recon {
                 // Pre-queried target detail
                 op.targetObjectAccessor = new LazyObjectAccessor(objectMapping.getConnectionFactory(), objectMapping.getTargetObjectSet(), id, objectEntry);
             }
+            if (allLinks != null && allLinks.get(linkQualifier) instanceof LinkIndex) {
+                // The compact link index can also be looked up by target, sparing a link query per target
+                String normalizedTargetId = objectMapping.getLinkType().normalizeTargetId(id);
+                op.initializeLink(((LinkIndex) allLinks.get(linkQualifier)).getForTarget(normalizedTargetId));
+            }
             event.setTargetObjectId(LazyObjectAccessor.qualifiedId(objectMapping.getTargetObjectSet(), id));
             op.reconId = reconContext.getReconId();
             Status status = Status.SUCCESS;
@@ -100,7 +100,7 @@ class TargetSyncOperation extends SyncOperation {
 
         // May want to consider an optimization to not query
         // if we don't need the link for the TARGET_IGNORED action
-        if (targetId != null) {
+        if (targetId != null && !linkObject.initialized) {
             final long targetLinkQueryStart = ObjectMapping.startNanoTime(reconContext);
             linkObject.getLinkForTarget(targetId);
             ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.targetLinkQuery, targetLinkQueryStart);
@@ -16,21 +16,34 @@
 package org.forgerock.openidm.managed;
 
 import static org.forgerock.json.JsonValue.*;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.forgerock.http.routing.UriRouterContext;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
@@ -147,6 +160,62 @@ public class CollectionRelationshipProviderTest {
         }
     }
 
+    @Test
+    public void testGetRelationshipValuesForResources() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        doAnswer(new Answer<QueryResponse>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                Collection<ResourceResponse> results = (Collection<ResourceResponse>) invocation.getArguments()[2];
+                results.add(relationship("1", "managed/user/mgr1", "reports", "managed/user/test1", "manager"));
+                results.add(relationship("2", "managed/user/mgr1", "reports", "managed/user/test2", "manager"));
+                results.add(relationship("3", "managed/user/a", "manager", "managed/user/mgr2", "reports"));
+                // returned again for its second side
+                results.add(relationship("2", "managed/user/mgr1", "reports", "managed/user/test2", "manager"));
+                return newQueryResponse();
+            }
+        }).when(connection).query(any(Context.class), any(QueryRequest.class), anyCollection());
+
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("reports");
+        when(schemaField.isReverseRelationship()).thenReturn(true);
+        when(schemaField.getReversePropertyName()).thenReturn("manager");
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(connectionFactory,
+                ResourcePath.resourcePath("managed/user"), schemaField, activityLogger, managedObjectSyncService);
+
+        Context context = new UriRouterContext(new RootContext(), "", "", Collections.<String, String>emptyMap());
+        Map<String, JsonValue> values =
+                provider.getRelationshipValuesForResources(context, Arrays.asList("mgr1", "mgr2", "mgr3"));
+
+        // One query for all the resources
+        ArgumentCaptor<QueryRequest> request = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(1)).query(any(Context.class), request.capture(), anyCollection());
+        assertEquals(request.getValue().getQueryId(), "find-relationships-for-resources");
+        assertEquals(request.getValue().getAdditionalParameter("fullResourceIds"),
+                "managed/user/mgr1,managed/user/mgr2,managed/user/mgr3");
+        assertEquals(request.getValue().getAdditionalParameter("resourceFieldName"), "reports");
+        assertEquals(values.size(), 3);
+        assertEquals(values.get("mgr1").size(), 2);
+        assertEquals(values.get("mgr1").get(0).get("_ref").asString(), "managed/user/test1");
+        assertEquals(values.get("mgr1").get(1).get("_refProperties").get("_id").asString(), "2");
+        // mgr2 is on the second side of its relationship
+        assertEquals(values.get("mgr2").size(), 1);
+        assertEquals(values.get("mgr2").get(0).get("_ref").asString(), "managed/user/a");
+        assertEquals(values.get("mgr3").size(), 0);
+    }
+
+    private static ResourceResponse relationship(String id, String firstId, String firstPropertyName,
+            String secondId, String secondPropertyName) {
+        return newResourceResponse(id, "0", json(object(
+                field("firstId", firstId),
+                field("firstPropertyName", firstPropertyName),
+                field("secondId", secondId),
+                field("secondPropertyName", secondPropertyName),
+                field("properties", object()))));
+    }
+
     private static class IsRouteMatcher extends ArgumentMatcher<ReadRequest> {
         private final String route;
 
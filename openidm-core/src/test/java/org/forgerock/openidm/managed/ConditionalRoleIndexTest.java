@@ -0,0 +1,78 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.openidm.managed.ConditionalRoleIndex.IndexedRole;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ConditionalRoleIndex}.
+ */
+public class ConditionalRoleIndexTest {
+
+    @Test
+    public void testReferencedAttributes() {
+        assertThat(ConditionalRoleIndex.referencedAttributes(
+                QueryFilters.parse("/city eq \"Paris\" and (/address/zip sw \"75\" or !(/manager pr))")))
+                .containsOnly("city", "address", "manager");
+        assertThat(ConditionalRoleIndex.referencedAttributes(QueryFilters.parse("true"))).containsOnly("");
+    }
+
+    @Test
+    public void testRolesAffectedByUpdate() {
+        final ConditionalRoleIndex index = new ConditionalRoleIndex();
+        final Map<String, String> conditions = new LinkedHashMap<>();
+        conditions.put("paris", "/city eq \"Paris\"");
+        conditions.put("sales", "/department eq \"sales\"");
+        conditions.put("everyone", "true");
+        index.reset(conditions);
+
+        final JsonValue oldUser = json(object(field("city", "Paris"), field("department", "sales")));
+        final JsonValue newUser = json(object(field("city", "London"), field("department", "sales")));
+        assertThat(ids(index.getRolesAffectedBy(oldUser, newUser))).containsOnly("paris", "everyone");
+        assertThat(ids(index.getRolesAffectedBy(oldUser, oldUser))).containsOnly("everyone");
+
+        assertThat(index.get("paris").isSatisfiedBy(oldUser)).isTrue();
+        assertThat(index.get("paris").isSatisfiedBy(newUser)).isFalse();
+
+        index.put("sales", "/city eq \"London\"");
+        assertThat(ids(index.getRolesAffectedBy(oldUser, newUser))).containsOnly("paris", "sales", "everyone");
+        index.remove("paris");
+        assertThat(index.get("paris")).isNull();
+        assertThat(ids(index.getRoles())).containsExactly("sales", "everyone");
+    }
+
+    private static List<String> ids(Iterable<IndexedRole> roles) {
+        final List<String> ids = new ArrayList<>();
+        for (IndexedRole role : roles) {
+            ids.add(role.getId());
+        }
+        return ids;
+    }
+}
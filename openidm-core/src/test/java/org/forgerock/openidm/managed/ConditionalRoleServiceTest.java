@@ -0,0 +1,245 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Resources.newInternalConnectionFactory;
+import static org.forgerock.json.resource.Router.uriTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.http.routing.RoutingMode;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.IDMConnectionFactoryWrapper;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ConditionalRoleService}.
+ */
+public class ConditionalRoleServiceTest {
+
+    private static final String PARIS = "/city eq \"Paris\"";
+    private static final String SALES = "/department eq \"sales\"";
+
+    private ConditionalRoleService service;
+    private Connection connection;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Router router = new Router();
+        router.addRoute(uriTemplate("managed/user"), new MemoryBackend());
+        router.addRoute(uriTemplate("managed/role"), new MemoryBackend());
+        router.addRoute(uriTemplate("managed/role/paris/members"), new MemoryBackend());
+        final IDMConnectionFactory connectionFactory =
+                new IDMConnectionFactoryWrapper(newInternalConnectionFactory(router));
+        connection = connectionFactory.getConnection();
+
+        service = new ConditionalRoleService();
+        service.bindConnectionFactory(connectionFactory);
+        // a page size of 2 to process several pages of users
+        service.start(2, 2, 0);
+        router.addRoute(RoutingMode.STARTS_WITH, uriTemplate("conditionalroles"), service);
+
+        createRole("paris", PARIS);
+        createRole("sales", SALES);
+        createRole("direct", null);
+        createUser("1", "Paris", "sales");
+        createUser("2", "Paris", "support");
+        createUser("3", "London", "sales");
+        createUser("4", "Paris", "sales");
+        createUser("5", "Lyon", "support");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        service.stop();
+    }
+
+    private void createRole(String id, String condition) throws Exception {
+        connection.create(new RootContext(), Requests.newCreateRequest("managed/role", id,
+                json(condition == null ? object() : object(field("condition", condition)))));
+    }
+
+    private void createUser(String id, String city, String department) throws Exception {
+        connection.create(new RootContext(), Requests.newCreateRequest("managed/user", id,
+                json(object(field("city", city), field("department", department)))));
+    }
+
+    private static Object grant(String roleId, boolean conditional) {
+        return conditional
+                ? object(field("_ref", "managed/role/" + roleId),
+                        field("_refProperties", object(field("_grantType", "conditional"))))
+                : object(field("_ref", "managed/role/" + roleId));
+    }
+
+    private JsonValue evaluateUser(JsonValue user, JsonValue oldUser, List<Object> directGrants,
+            List<Object> conditionalGrants) throws Exception {
+        final ActionResponse response = connection.action(new RootContext(),
+                Requests.newActionRequest("conditionalroles", "evaluateUser")
+                        .setContent(json(object(
+                                field("user", user.getObject()),
+                                field("oldUser", oldUser == null ? null : oldUser.getObject()),
+                                field("directGrants", directGrants),
+                                field("conditionalGrants", conditionalGrants)))));
+        return response.getJsonContent().get("grants");
+    }
+
+    @Test
+    public void testEvaluateCreatedUser() throws Exception {
+        final JsonValue user = json(object(field("city", "Paris"), field("department", "sales")));
+        final List<Object> directGrants = new ArrayList<>();
+        directGrants.add(grant("direct", false));
+
+        final JsonValue grants = evaluateUser(user, null, directGrants, new ArrayList<>());
+        assertThat(grants.getObject()).isEqualTo(
+                array(grant("direct", false), grant("paris", true), grant("sales", true)));
+    }
+
+    @Test
+    public void testEvaluateUpdatedUser() throws Exception {
+        final JsonValue oldUser = json(object(field("city", "Paris"), field("department", "sales")));
+        final JsonValue newUser = json(object(field("city", "London"), field("department", "sales")));
+        final List<Object> conditionalGrants = new ArrayList<>();
+        conditionalGrants.add(grant("paris", true));
+        conditionalGrants.add(grant("sales", true));
+        conditionalGrants.add(grant("deleted", true));
+
+        // the paris grant is revoked, the sales grant is retained, the grant of an unknown role is dropped
+        final JsonValue grants = evaluateUser(newUser, oldUser, new ArrayList<>(), conditionalGrants);
+        assertThat(grants.getObject()).isEqualTo(array(grant("sales", true)));
+    }
+
+    @Test
+    public void testRoleConditionChange() throws Exception {
+        // user 4 is already a member
+        connection.create(new RootContext(), Requests.newCreateRequest("managed/role/paris/members",
+                json(object(field("_ref", "managed/user/4"),
+                        field("_refProperties", object(field("_grantType", "conditional")))))));
+
+        final ActionResponse created = roleChanged(null, object(field("_id", "paris"), field("condition", PARIS)));
+        assertThat(created.getJsonContent().get("state").asString()).isEqualTo("COMPLETED");
+        assertThat(created.getJsonContent().get("granted").asLong()).isEqualTo(2L);
+        assertThat(members()).containsOnly("managed/user/1", "managed/user/2", "managed/user/4");
+
+        // users 2 and 4 are no longer support or sales
+        final ActionResponse updated = roleChanged(object(field("_id", "paris"), field("condition", PARIS)),
+                object(field("_id", "paris"), field("condition", PARIS + " and " + SALES)));
+        assertThat(updated.getJsonContent().get("revoked").asLong()).isEqualTo(1L);
+        assertThat(members()).containsOnly("managed/user/1", "managed/user/4");
+
+        final ResourceResponse job = connection.read(new RootContext(),
+                Requests.newReadRequest("conditionalroles", updated.getJsonContent().get("_id").asString()));
+        assertThat(job.getContent().get("role").asString()).isEqualTo("paris");
+
+        // the role is no longer conditional
+        final ActionResponse removed = roleChanged(
+                object(field("_id", "paris"), field("condition", PARIS + " and " + SALES)),
+                object(field("_id", "paris")));
+        assertThat(removed.getJsonContent().get("revoked").asLong()).isEqualTo(2L);
+        assertThat(members()).isEmpty();
+    }
+
+    @Test
+    public void testRoleConditionChangeRevokesUnmatchedConditionalMembers() throws Exception {
+        // user 5 never matched the condition, and user 3 is a direct member
+        createMember("managed/user/2", true);
+        createMember("managed/user/3", false);
+        createMember("managed/user/5", true);
+
+        final ActionResponse updated = roleChanged(object(field("_id", "paris"), field("condition", PARIS)),
+                object(field("_id", "paris"), field("condition", PARIS + " and " + SALES)));
+        assertThat(updated.getJsonContent().get("granted").asLong()).isEqualTo(2L);
+        assertThat(updated.getJsonContent().get("revoked").asLong()).isEqualTo(2L);
+        assertThat(members()).containsOnly("managed/user/1", "managed/user/3", "managed/user/4");
+    }
+
+    @Test
+    public void testIndexIsReloadedOnceExpired() throws Exception {
+        final JsonValue user = json(object(field("city", "London"), field("department", "support")));
+        assertThat(evaluateUser(user, null, new ArrayList<>(), new ArrayList<>()).asList()).isEmpty();
+
+        // a role created on another node is not seen until the index expires
+        createRole("london", "/city eq \"London\"");
+        assertThat(evaluateUser(user, null, new ArrayList<>(), new ArrayList<>()).asList()).isEmpty();
+
+        service.stop();
+        service.start(2, 2, 1);
+        Thread.sleep(10);
+        assertThat(evaluateUser(user, null, new ArrayList<>(), new ArrayList<>()).getObject())
+                .isEqualTo(array(grant("london", true)));
+    }
+
+    @Test
+    public void testGrantOfRoleMissingFromIndexIsRetainedIfSatisfied() throws Exception {
+        final JsonValue oldUser = json(object(field("city", "London"), field("department", "sales")));
+        final JsonValue newUser = json(object(field("city", "London"), field("department", "support")));
+        evaluateUser(oldUser, null, new ArrayList<>(), new ArrayList<>());
+
+        // roles created on another node, after the index was loaded
+        createRole("london", "/city eq \"London\"");
+        createRole("lyon", "/city eq \"Lyon\"");
+        final List<Object> conditionalGrants = new ArrayList<>();
+        conditionalGrants.add(grant("london", true));
+        conditionalGrants.add(grant("lyon", true));
+
+        assertThat(evaluateUser(newUser, oldUser, new ArrayList<>(), conditionalGrants).getObject())
+                .isEqualTo(array(grant("london", true)));
+    }
+
+    private void createMember(String userRef, boolean conditional) throws Exception {
+        connection.create(new RootContext(), Requests.newCreateRequest("managed/role/paris/members",
+                json(conditional
+                        ? object(field("_ref", userRef),
+                                field("_refProperties", object(field("_grantType", "conditional"))))
+                        : object(field("_ref", userRef)))));
+    }
+
+    private ActionResponse roleChanged(Object oldRole, Object newRole) throws Exception {
+        return connection.action(new RootContext(),
+                Requests.newActionRequest("conditionalroles", "roleChanged")
+                        .setAdditionalParameter("waitForCompletion", "true")
+                        .setContent(json(object(field("oldRole", oldRole), field("newRole", newRole)))));
+    }
+
+    private List<String> members() throws Exception {
+        final List<ResourceResponse> relationships = new ArrayList<>();
+        connection.query(new RootContext(), Requests.newQueryRequest("managed/role/paris/members")
+                .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue()), relationships);
+        final List<String> members = new ArrayList<>();
+        for (ResourceResponse relationship : relationships) {
+            members.add(relationship.getContent().get("_ref").asString());
+        }
+        return members;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Resources.newInternalConnectionFactory;
+import static org.forgerock.json.resource.Router.uriTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.http.routing.RoutingMode;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.IDMConnectionFactoryWrapper;
+import org.forgerock.openidm.util.DateUtil;
+import org.forgerock.services.context.RootContext;
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link EffectiveRoleService}.
+ */
+public class EffectiveRoleServiceTest {
+
+    private EffectiveRoleService service;
+    private Connection connection;
+    private String pastDuration;
+    private String currentDuration;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Router router = new Router();
+        router.addRoute(uriTemplate("managed/role"), new MemoryBackend());
+        router.addRoute(uriTemplate("managed/assignment"), new MemoryBackend());
+        final IDMConnectionFactory connectionFactory =
+                new IDMConnectionFactoryWrapper(newInternalConnectionFactory(router));
+        connection = connectionFactory.getConnection();
+
+        service = new EffectiveRoleService();
+        service.bindConnectionFactory(connectionFactory);
+        service.start(0);
+        router.addRoute(RoutingMode.STARTS_WITH, uriTemplate("effectiveroles"), service);
+
+        final DateUtil dateUtil = DateUtil.getDateUtil();
+        final DateTime now = dateUtil.currentDateTime();
+        pastDuration = dateUtil.formatDateTime(now.minusDays(2)) + "/" + dateUtil.formatDateTime(now.minusDays(1));
+        currentDuration = dateUtil.formatDateTime(now.minusDays(1)) + "/" + dateUtil.formatDateTime(now.plusDays(1));
+
+        createRole("employee", null, "ldap", "mail");
+        createRole("manager", null, "ldap", "crm");
+        createRole("intern", pastDuration, "mail");
+        createAssignment("ldap", "LDAP");
+        createAssignment("mail", "Mail");
+        createAssignment("crm", "CRM");
+    }
+
+    private void createRole(String id, String duration, String... assignments) throws Exception {
+        connection.create(new RootContext(),
+                Requests.newCreateRequest("managed/role", id, role(duration, assignments)));
+    }
+
+    private void updateRole(String id, String duration, String... assignments) throws Exception {
+        connection.update(new RootContext(),
+                Requests.newUpdateRequest("managed/role/" + id, role(duration, assignments)));
+    }
+
+    private static JsonValue role(String duration, String... assignments) {
+        final List<Object> refs = new ArrayList<>();
+        for (String assignment : assignments) {
+            refs.add(object(field("_ref", "managed/assignment/" + assignment)));
+        }
+        return json(duration == null
+                ? object(field("assignments", refs))
+                : object(field("assignments", refs),
+                        field("temporalConstraints", array(object(field("duration", duration))))));
+    }
+
+    private void createAssignment(String id, String name) throws Exception {
+        connection.create(new RootContext(), Requests.newCreateRequest("managed/assignment", id,
+                json(object(field("name", name)))));
+    }
+
+    private static Object grant(String roleId, String duration) {
+        return duration == null
+                ? object(field("_ref", "managed/role/" + roleId))
+                : object(field("_ref", "managed/role/" + roleId), field("_refProperties",
+                        object(field("temporalConstraints", array(object(field("duration", duration)))))));
+    }
+
+    private static Object effectiveRole(String roleId) {
+        return object(field("_ref", "managed/role/" + roleId));
+    }
+
+    private JsonValue effectiveRoles(Object... grants) throws Exception {
+        final ActionResponse response = connection.action(new RootContext(),
+                Requests.newActionRequest("effectiveroles", "effectiveRoles")
+                        .setContent(json(object(field("grants", array(grants))))));
+        return response.getJsonContent().get("effectiveRoles");
+    }
+
+    private List<String> effectiveAssignmentNames(Object... effectiveRoles) throws Exception {
+        final ActionResponse response = connection.action(new RootContext(),
+                Requests.newActionRequest("effectiveroles", "effectiveAssignments")
+                        .setContent(json(object(field("effectiveRoles", array(effectiveRoles))))));
+        final List<String> names = new ArrayList<>();
+        for (JsonValue assignment : response.getJsonContent().get("effectiveAssignments")) {
+            names.add(assignment.get("name").asString());
+        }
+        return names;
+    }
+
+    @Test
+    public void testEffectiveRolesApplyTemporalConstraints() throws Exception {
+        // the intern role and the past manager grant are not in effect, the deleted role does not exist
+        assertThat(effectiveRoles(
+                grant("employee", currentDuration),
+                grant("manager", pastDuration),
+                grant("intern", null),
+                grant("deleted", null)).getObject())
+                .isEqualTo(array(effectiveRole("employee")));
+    }
+
+    @Test
+    public void testEffectiveAssignmentsAreDistinct() throws Exception {
+        assertThat(effectiveAssignmentNames(effectiveRole("employee"), effectiveRole("manager"), object()))
+                .containsExactly("LDAP", "Mail", "CRM");
+    }
+
+    @Test
+    public void testViewIsInvalidatedByChanges() throws Exception {
+        assertThat(effectiveAssignmentNames(effectiveRole("employee"))).containsExactly("LDAP", "Mail");
+
+        // changes which are not notified are not seen
+        connection.update(new RootContext(), Requests.newUpdateRequest("managed/assignment/ldap",
+                json(object(field("name", "Directory")))));
+        updateRole("employee", null, "ldap");
+        assertThat(effectiveAssignmentNames(effectiveRole("employee"))).containsExactly("LDAP", "Mail");
+
+        service.managedObjectChanged(new RootContext(), ResourcePath.valueOf("managed/assignment/ldap"),
+                json(object()), json(object()));
+        assertThat(effectiveAssignmentNames(effectiveRole("employee"))).containsExactly("Directory");
+
+        // an assignment added to the role from the assignment side
+        updateRole("employee", null, "ldap", "crm");
+        service.managedObjectChanged(new RootContext(), ResourcePath.valueOf("managed/assignment/crm"),
+                json(object(field("roles", array()))),
+                json(object(field("roles", array(effectiveRole("employee"))))));
+        assertThat(effectiveAssignmentNames(effectiveRole("employee"))).containsExactly("Directory", "CRM");
+
+        // a role temporal constraint added to the role
+        updateRole("employee", pastDuration, "ldap", "crm");
+        service.managedObjectChanged(new RootContext(), ResourcePath.valueOf("managed/role/employee"),
+                json(object()), json(object()));
+        assertThat(effectiveRoles(grant("employee", null)).asList()).isEmpty();
+    }
+}
@@ -27,6 +27,10 @@ import static org.forgerock.openidm.managed.ManagedObjectSet.CRYPTO_KEY_PTR;
 import static org.forgerock.util.Utils.closeSilently;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import javax.crypto.KeyGenerator;
@@ -61,9 +65,14 @@ import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
 import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.audit.util.NullActivityLogger;
+import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.crypto.impl.CryptoServiceImpl;
 import org.forgerock.openidm.repo.QueryConstants;
@@ -78,6 +87,7 @@ import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.ResultHandler;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.Test;
 import org.testng.annotations.BeforeClass;
 
@@ -245,6 +255,40 @@ public class ManagedObjectSetTest {
     }
 
 
+    @Test
+    public void testQueryActivityLogSummarizesResults() throws Exception {
+        // given
+        final CryptoService cryptoService = createCryptoService();
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ActivityLogger activityLogger = mock(ActivityLogger.class);
+        final ManagedObjectSet managedObjectSet = new ManagedObjectSet(mock(ScriptRegistry.class), cryptoService,
+                new AtomicReference<>(mock(RouteService.class)), connectionObjects.getConnectionFactory(),
+                getResource(CONF_MANAGED_USER_USING_ALIAS), activityLogger);
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        createUsers(NUMBER_OF_USERS, managedObjectSet);
+        reset(activityLogger);
+
+        // when
+        final List<ResourceResponse> results = new LinkedList<>();
+        managedObjectSet.queryCollection(new RootContext(),
+                newQueryRequest(MANAGED_USER_RESOURCE_PATH).setQueryFilter(QueryFilters.parse("true")),
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse resource) {
+                        results.add(resource);
+                        return true;
+                    }
+                }).getOrThrowUninterruptibly();
+
+        // then the activity log records the number of results rather than the results
+        final ArgumentCaptor<JsonValue> after = ArgumentCaptor.forClass(JsonValue.class);
+        verify(activityLogger).log(any(Context.class), any(QueryRequest.class), anyString(), anyString(),
+                any(JsonValue.class), after.capture(), any(Status.class));
+        assertThat(results).hasSize(NUMBER_OF_USERS);
+        assertThat(after.getValue().get("resultCount").asInteger()).isEqualTo(NUMBER_OF_USERS);
+        assertThat(after.getValue().isDefined("sample")).isFalse();
+    }
+
     @Test
     public void testUpdateWithNoChanges() throws Exception {
         // given
@@ -295,6 +339,52 @@ public class ManagedObjectSetTest {
         assertThat(updatedUser.isEqualTo(createdUser)).isFalse();
     }
 
+    @Test
+    public void testChangesAreNotified() throws Exception {
+        // given
+        final CryptoService cryptoService = createCryptoService();
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ManagedObjectListener listener = mock(ManagedObjectListener.class);
+        final ManagedObjectSet managedObjectSet = new ManagedObjectSet(mock(ScriptRegistry.class), cryptoService,
+                new AtomicReference<>(mock(RouteService.class)), new AtomicReference<>(listener),
+                connectionObjects.getConnectionFactory(), getResource(CONF_MANAGED_USER_USING_NO_ENCRYPTION),
+                new NullActivityLogger());
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        final ResourcePath userPath = ResourcePath.valueOf(MANAGED_USER_RESOURCE_PATH).child(RESOURCE_ID);
+        final ArgumentCaptor<JsonValue> oldValue = ArgumentCaptor.forClass(JsonValue.class);
+        final ArgumentCaptor<JsonValue> newValue = ArgumentCaptor.forClass(JsonValue.class);
+
+        // when create user
+        createUser(RESOURCE_ID, createUserObject(RESOURCE_ID, "password1", "user@forgerock.com"), managedObjectSet);
+
+        // then
+        verify(listener).managedObjectChanged(any(Context.class), eq(userPath), oldValue.capture(),
+                newValue.capture());
+        assertThat(oldValue.getValue().isNull()).isTrue();
+        assertThat(newValue.getValue().get(FIELD_EMAIL).asString()).isEqualTo("user@forgerock.com");
+
+        // when update user
+        reset(listener);
+        managedObjectSet.updateInstance(new RootContext(), RESOURCE_ID, newUpdateRequest(MANAGED_USER_RESOURCE_PATH,
+                RESOURCE_ID, createUserObject(RESOURCE_ID, "password1", "bjensen@forgerock.com"))).getOrThrow();
+
+        // then
+        verify(listener).managedObjectChanged(any(Context.class), eq(userPath), oldValue.capture(),
+                newValue.capture());
+        assertThat(oldValue.getValue().get(FIELD_EMAIL).asString()).isEqualTo("user@forgerock.com");
+        assertThat(newValue.getValue().get(FIELD_EMAIL).asString()).isEqualTo("bjensen@forgerock.com");
+
+        // when delete user
+        reset(listener);
+        managedObjectSet.deleteInstance(new RootContext(), RESOURCE_ID,
+                newDeleteRequest(MANAGED_USER_RESOURCE_PATH, RESOURCE_ID)).getOrThrow();
+
+        // then
+        verify(listener).managedObjectChanged(any(Context.class), eq(userPath), oldValue.capture(),
+                newValue.capture());
+        assertThat(newValue.getValue().isNull()).isTrue();
+    }
+
     @Test
     public void testUpdateWithPasswordAliasChanged() throws Exception {
         // given
@@ -0,0 +1,142 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class CompactIdSetTest {
+
+    @Test
+    public void testIterationKeepsInsertionOrderAndSkipsDuplicates() {
+        CompactIdSet ids = new CompactIdSet();
+        assertThat(ids.add("id3")).isTrue();
+        assertThat(ids.add("id1")).isTrue();
+        assertThat(ids.add("été")).isTrue();
+        assertThat(ids.add("id3")).isFalse();
+        assertThat(ids.add("id2")).isTrue();
+
+        assertThat(ids).containsExactly("id3", "id1", "été", "id2");
+        assertThat(ids.size()).isEqualTo(4);
+        assertThat(ids.contains("id2")).isTrue();
+        assertThat(ids.contains("été")).isTrue();
+        assertThat(ids.contains("id")).isFalse();
+        assertThat(ids.contains("id22")).isFalse();
+    }
+
+    @Test
+    public void testDuplicatesAreDetectedWhileGrowing() {
+        CompactIdSet ids = new CompactIdSet();
+        for (int i = 0; i < 5000; i++) {
+            assertThat(ids.add("id" + i)).isTrue();
+        }
+        for (int i = 0; i < 5000; i += 7) {
+            assertThat(ids.add("id" + i)).isFalse();
+        }
+        assertThat(ids.size()).isEqualTo(5000);
+        assertThat(ids.contains("id4999")).isTrue();
+        assertThat(ids.contains("id5000")).isFalse();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddAfterReadIsRejected() {
+        CompactIdSet ids = new CompactIdSet();
+        ids.add("id1");
+        ids.contains("id1");
+        ids.add("id2");
+    }
+
+    @Test
+    public void testRemainingViewRecordsRemovals() {
+        CompactIdSet ids = new CompactIdSet();
+        for (int i = 0; i < 200; i++) {
+            ids.add("id" + i);
+        }
+        Collection<String> remaining = ids.newRemainingView();
+
+        assertThat(remaining.remove("id10")).isTrue();
+        assertThat(remaining.remove("id10")).isFalse();
+        assertThat(remaining.remove("unknown")).isFalse();
+        assertThat(remaining.remove("id199")).isTrue();
+
+        assertThat(remaining.size()).isEqualTo(198);
+        assertThat(remaining.contains("id10")).isFalse();
+        assertThat(remaining).doesNotContain("id10", "id199").contains("id0", "id198");
+        // The set itself still knows every id
+        assertThat(ids.contains("id10")).isTrue();
+        assertThat(ids.size()).isEqualTo(200);
+    }
+
+    @Test
+    public void testEmptySet() {
+        CompactIdSet ids = new CompactIdSet();
+        assertThat(ids).isEmpty();
+        assertThat(ids.contains("id")).isFalse();
+        assertThat(ids.newRemainingView()).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentRemovals() throws Exception {
+        final CompactIdSet ids = new CompactIdSet();
+        final List<String> all = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String id = UUID.randomUUID().toString();
+            all.add(id);
+            ids.add(id);
+        }
+        final Collection<String> remaining = ids.newRemainingView();
+        final AtomicInteger removed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Every thread tries to remove every other id, only one of them can succeed per id
+                        for (int i = 0; i < all.size(); i += 2) {
+                            if (remaining.remove(all.get(i))) {
+                                removed.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(removed.get()).isEqualTo(10000);
+        assertThat(remaining.size()).isEqualTo(10000);
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i < all.size(); i += 2) {
+            expected.add(all.get(i));
+        }
+        assertThat(remaining).containsExactlyElementsOf(expected);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.testng.annotations.Test;
+
+public class CorrelationIndexTest {
+
+    private static Map<JsonPointer, Object> terms(String filter) {
+        return CorrelationIndex.equalityTerms(QueryFilters.parse(filter));
+    }
+
+    private static CorrelationIndex index(Map<JsonPointer, Object> terms, boolean fullObjects) {
+        return new CorrelationIndex(new ArrayList<>(terms.keySet()), fullObjects);
+    }
+
+    @Test
+    public void testEqualityTerms() {
+        assertThat(terms("mail eq \"bjensen@example.com\"")).hasSize(1);
+        Map<JsonPointer, Object> terms = terms("sn eq \"Jensen\" and givenName eq \"Barbara\"");
+        assertThat(terms).hasSize(2);
+        assertThat(terms.keySet().iterator().next()).isEqualTo(new JsonPointer("givenName"));
+
+        assertThat(terms("mail eq \"a\" or mail eq \"b\"")).isNull();
+        assertThat(terms("mail sw \"a\"")).isNull();
+        assertThat(terms("mail eq \"a\" and mail eq \"b\"")).isNull();
+        assertThat(terms("mail eq \"a\" and !(sn eq \"b\")")).isNull();
+        assertThat(terms("true")).isNull();
+    }
+
+    @Test
+    public void testLookupFullObjects() {
+        Map<JsonPointer, Object> terms = terms("givenName eq \"Barbara\" and sn eq \"Jensen\"");
+        CorrelationIndex index = index(terms, true);
+        index.add(json(object(field("_id", "1"), field("givenName", "Barbara"), field("sn", "Jensen"))));
+        index.add(json(object(field("_id", "2"), field("givenName", "Babs"), field("sn", "Jensen"))));
+        index.add(json(object(field("_id", "3"), field("sn", "Jensen"))));
+
+        JsonValue result = index.lookup(terms);
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).get("_id").asString()).isEqualTo("1");
+        assertThat(result.get(0).get("sn").asString()).isEqualTo("Jensen");
+
+        assertThat(index.lookup(terms("givenName eq \"Babs\" and sn eq \"Smith\"")).size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCaseInsensitiveMatchesAreLeftToTheTarget() {
+        Map<JsonPointer, Object> terms = terms("mail eq \"bjensen@example.com\"");
+        CorrelationIndex index = index(terms, false);
+        index.add(json(object(field("_id", "1"), field("mail", "BJensen@example.com"))));
+        index.add(json(object(field("_id", "2"), field("mail", "scarter@example.com"))));
+
+        // whether the target matches depends on how it compares the values
+        assertThat(index.lookup(terms)).isNull();
+        assertThat(index.lookup(terms("mail eq \"BJensen@example.com\"")).get(0).get("_id").asString())
+                .isEqualTo("1");
+        assertThat(index.lookup(terms("mail eq \"bjensen@example.org\"")).size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLookupReturnsCopies() {
+        Map<JsonPointer, Object> terms = terms("mail eq \"a@example.com\"");
+        CorrelationIndex index = index(terms, true);
+        index.add(json(object(field("_id", "1"), field("mail", "a@example.com"))));
+
+        index.lookup(terms).get(0).put("mail", "changed");
+        assertThat(index.lookup(terms).get(0).get("mail").asString()).isEqualTo("a@example.com");
+    }
+
+    @Test
+    public void testIdOnlyEntriesAndMultiValuedAttributes() {
+        Map<JsonPointer, Object> terms = terms("mail eq \"b@example.com\"");
+        CorrelationIndex index = index(terms, false);
+        index.add(json(object(field("_id", "1"), field("mail", array("a@example.com", "b@example.com")))));
+        index.add(json(object(field("_id", "2"), field("mail", "b@example.com"))));
+
+        JsonValue result = index.lookup(terms);
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(0).keys()).containsOnly("_id");
+        assertThat(index.lookup(terms("mail eq \"a@example.com\"")).get(0).get("_id").asString()).isEqualTo("1");
+    }
+
+    @Test
+    public void testNumbersAreNormalized() {
+        Map<JsonPointer, Object> terms = terms("employeeNumber eq 42");
+        CorrelationIndex index = index(terms, false);
+        index.add(json(object(field("_id", "1"), field("employeeNumber", 42.0))));
+
+        assertThat(index.lookup(terms).size()).isEqualTo(1);
+    }
+}
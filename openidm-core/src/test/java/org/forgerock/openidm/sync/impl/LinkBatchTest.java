@@ -0,0 +1,129 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LinkBatchTest {
+
+    private final Context context = new RootContext();
+    private Connection connection;
+    private ReconciliationContext reconContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getObjectMapping()).thenReturn(mapping);
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+    }
+
+    private static JsonValue link(String firstId) {
+        return json(object(field("linkType", "systemXmlfileAccounts_managedUser"), field("linkQualifier", "default"),
+                field("firstId", firstId), field("secondId", "managed-" + firstId)));
+    }
+
+    @Test
+    public void testLinksAreWrittenInBatches() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class))).thenReturn(
+                newActionResponse(json(array(object(field("_id", "1")), object(field("_id", "2"))))));
+        LinkBatch batch = new LinkBatch(reconContext, 2);
+
+        batch.add(context, "1", link("a"));
+        verify(connection, never()).action(any(Context.class), any(ActionRequest.class));
+        batch.add(context, "2", link("b"));
+        batch.add(context, "3", link("c"));
+
+        ArgumentCaptor<ActionRequest> request = ArgumentCaptor.forClass(ActionRequest.class);
+        verify(connection).action(any(Context.class), request.capture());
+        assertThat(request.getValue().getResourcePath()).isEqualTo("repo/link");
+        assertThat(request.getValue().getAction()).isEqualTo(LinkBatch.ACTION_BULK);
+        JsonValue operations = request.getValue().getContent().get("operations");
+        assertThat(operations.size()).isEqualTo(2);
+        assertThat(operations.get(0).get("operation").asString()).isEqualTo("create");
+        assertThat(operations.get(0).get("newResourceId").asString()).isEqualTo("1");
+        assertThat(operations.get(1).get("content").get("firstId").asString()).isEqualTo("b");
+        assertThat(batch.getFailures()).isEqualTo(0);
+
+        // The remaining link is written on flush, once
+        batch.flush(context);
+        batch.flush(context);
+        verify(connection, times(2)).action(any(Context.class), any(ActionRequest.class));
+    }
+
+    @Test
+    public void testFailedLinksAreCounted() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class))).thenReturn(
+                newActionResponse(json(array(object(field("_id", "1")),
+                        object(field("error", object(field("code", 412))))))));
+        LinkBatch batch = new LinkBatch(reconContext, 10);
+
+        batch.add(context, "1", link("a"));
+        batch.add(context, "2", link("b"));
+        batch.flush(context);
+
+        assertThat(batch.getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFallbackToIndividualCreates() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenThrow(new NotSupportedException("bulk"));
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenReturn(newResourceResponse("1", "0", json(object())));
+        LinkBatch batch = new LinkBatch(reconContext, 2);
+
+        batch.add(context, "1", link("a"));
+        batch.add(context, "2", link("b"));
+        batch.add(context, "3", link("c"));
+        batch.add(context, "4", link("d"));
+
+        // The bulk action is only attempted once
+        verify(connection, times(1)).action(any(Context.class), any(ActionRequest.class));
+        ArgumentCaptor<CreateRequest> request = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(connection, times(4)).create(any(Context.class), request.capture());
+        assertThat(request.getAllValues().get(0).getNewResourceId()).isEqualTo("1");
+        assertThat(request.getAllValues().get(3).getContent().get("firstId").asString()).isEqualTo("d");
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.testng.annotations.Test;
+
+public class LinkIndexTest {
+
+    private final ObjectMapping mapping = mock(ObjectMapping.class);
+
+    private Link link(String id, String rev, String sourceId, String targetId) {
+        Link link = new Link(mapping);
+        link._id = id;
+        link._rev = rev;
+        link.sourceId = sourceId;
+        link.targetId = targetId;
+        return link;
+    }
+
+    @Test
+    public void testLookupBySourceAndTarget() {
+        LinkIndex index = new LinkIndex.Builder(mapping, "default")
+                .add(link("l3", "0", "s3", "t1"))
+                .add(link("l1", "1", "s1", "t3"))
+                .add(link("l2", "0", "s2", "t2"))
+                .build();
+
+        assertThat(index.size()).isEqualTo(3);
+        Link link = index.get("s1");
+        assertThat(link._id).isEqualTo("l1");
+        assertThat(link._rev).isEqualTo("1");
+        assertThat(link.targetId).isEqualTo("t3");
+        assertThat(link.linkQualifier).isEqualTo("default");
+        assertThat(link.initialized).isTrue();
+
+        assertThat(index.getForTarget("t1").sourceId).isEqualTo("s3");
+        assertThat(index.getForTarget("t2")._id).isEqualTo("l2");
+        assertThat(index.get("s4")).isNull();
+        assertThat(index.getForTarget("t4")).isNull();
+        assertThat(index.containsKey("s2")).isTrue();
+        assertThat(index.keySet()).containsOnly("s1", "s2", "s3");
+    }
+
+    @Test
+    public void testLookupsReturnIndependentLinks() {
+        LinkIndex index = new LinkIndex.Builder(mapping, "default")
+                .add(link("l1", "0", "s1", "t1"))
+                .build();
+
+        Link first = index.get("s1");
+        first.clear();
+        assertThat(index.get("s1")._id).isEqualTo("l1");
+    }
+
+    @Test
+    public void testLastLinkForSourceWins() {
+        LinkIndex index = new LinkIndex.Builder(mapping, "default")
+                .add(link("l1", "0", "s1", "t1"))
+                .add(link("l2", "0", "s1", "t2"))
+                .build();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.get("s1")._id).isEqualTo("l2");
+        assertThat(index.getForTarget("t1")).isNull();
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        LinkIndex index = new LinkIndex.Builder(mapping, "default").build();
+        assertThat(index).isEmpty();
+        assertThat(index.get("s1")).isNull();
+        assertThat(index.getForTarget("t1")).isNull();
+    }
+}
@@ -133,6 +133,17 @@ public class ObjectMappingTest {
         testSyncOperation.performAction();
     }
     
+    @Test
+    public void testSyncPlanIsSharedByOperations() throws Exception {
+        TestObjectMapping mapping = createObjectMapping("/conf/sync.json");
+        SyncPlan syncPlan = mapping.getSyncPlan();
+
+        assertThat(mapping.getSyncOperation().objectMapping.getSyncPlan()).isSameAs(syncPlan);
+        assertThat(syncPlan.getPolicies(Situation.ABSENT)).hasSize(2);
+        assertThat(syncPlan.getPolicies(Situation.ABSENT).get(0).getSituation()).isEqualTo(Situation.ABSENT);
+        assertThat(syncPlan.getPolicies(Situation.LINK_ONLY)).isEmpty();
+    }
+
     private TestObjectMapping createObjectMapping(String syncJson) throws Exception {
         URL config = ObjectMappingTest.class.getResource(syncJson);
         assertThat(config).as("sync configuration is not found").isNotNull();
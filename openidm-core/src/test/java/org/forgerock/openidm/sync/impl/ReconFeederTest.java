@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconFeederTest {
+
+    private ExecutorService executor;
+    private ReconciliationContext reconContext;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getExcecutor()).thenReturn(executor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ReconFeeder feeder(final String failingId) {
+        List<ResultEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(new ResultEntry("id" + i, null));
+        }
+        ReconFeeder feeder = new ReconFeeder(entries.iterator(), reconContext) {
+            @Override
+            Callable<Void> createTask(final ResultEntry entry) {
+                return new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        if (entry.getId().equals(failingId)) {
+                            throw new AssertionError("failed " + entry.getId());
+                        }
+                        return null;
+                    }
+                };
+            }
+        };
+        feeder.setFeedSize(4);
+        feeder.setBatchSize(2);
+        return feeder;
+    }
+
+    @Test(timeOut = 10000)
+    public void testErrorOfTaskFailsThePhase() throws Exception {
+        try {
+            feeder("id3").execute();
+            throw new IllegalStateException("Expected SynchronizationException");
+        } catch (SynchronizationException e) {
+            assertThat(e.getCause()).isInstanceOf(AssertionError.class).hasMessage("failed id3");
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testErrorOfTaskFailsThePhaseSingleThreaded() throws Exception {
+        when(reconContext.getExcecutor()).thenReturn(null);
+        try {
+            feeder("id3").execute();
+            throw new IllegalStateException("Expected SynchronizationException");
+        } catch (SynchronizationException e) {
+            assertThat(e.getCause()).isInstanceOf(AssertionError.class).hasMessage("failed id3");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.openidm.sync.impl.ReconThreadPoolTuner.SAMPLE_INTERVAL_NANOS;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconThreadPoolTunerTest {
+
+    private ThreadPoolExecutor executor;
+    private ReconThreadPoolTuner tuner;
+    private long now;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        tuner = new ReconThreadPoolTuner(executor, 2, 4);
+        now = System.nanoTime();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private void sample(int entries) {
+        tuner.completed(entries);
+        now += SAMPLE_INTERVAL_NANOS;
+        tuner.adjust(now);
+    }
+
+    @Test
+    public void testGrowsWhileThroughputImproves() {
+        sample(100);
+        assertThat(tuner.getPoolSize()).isEqualTo(3);
+        sample(150);
+        assertThat(tuner.getPoolSize()).isEqualTo(4);
+        assertThat(executor.getCorePoolSize()).isEqualTo(4);
+        // Bounded by the maximum
+        sample(200);
+        assertThat(tuner.getPoolSize()).isEqualTo(4);
+    }
+
+    @Test
+    public void testShrinksWhenThroughputDegrades() {
+        sample(100);
+        sample(150);
+        assertThat(tuner.getPoolSize()).isEqualTo(4);
+        sample(100);
+        assertThat(tuner.getPoolSize()).isEqualTo(3);
+        // Shrinking helped, keep shrinking down to the minimum
+        sample(150);
+        assertThat(tuner.getPoolSize()).isEqualTo(2);
+        sample(200);
+        assertThat(tuner.getPoolSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHoldsWhenThroughputIsStable() {
+        sample(100);
+        assertThat(tuner.getPoolSize()).isEqualTo(3);
+        sample(101);
+        assertThat(tuner.getPoolSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void testNoChangeWithinSampleInterval() {
+        tuner.completed(100);
+        tuner.adjust(now + SAMPLE_INTERVAL_NANOS / 2);
+        assertThat(tuner.getPoolSize()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SourceReadAheadTest {
+
+    private Connection connection;
+    private ReconciliationContext reconContext;
+    private ReconciliationStatistic statistics;
+    private boolean sourceCaseSensitive;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        ReconciliationService service = mock(ReconciliationService.class);
+        when(service.getConnectionFactory()).thenReturn(connectionFactory);
+        when(service.getContext()).thenReturn(new RootContext());
+        statistics = mock(ReconciliationStatistic.class);
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getService()).thenReturn(service);
+        when(reconContext.getStatistics()).thenReturn(statistics);
+        sourceCaseSensitive = true;
+        LinkType linkType = mock(LinkType.class);
+        when(linkType.normalizeSourceId(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                String id = (String) invocation.getArguments()[0];
+                return sourceCaseSensitive ? id : id.toLowerCase();
+            }
+        });
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(linkType);
+        when(reconContext.getObjectMapping()).thenReturn(mapping);
+    }
+
+    private List<ResultEntry> entries(String... ids) {
+        List<ResultEntry> entries = new ArrayList<>();
+        for (String id : ids) {
+            entries.add(new ResultEntry(id, null));
+        }
+        return entries;
+    }
+
+    private static JsonValue sourceObject(String id) {
+        return json(object(field("_id", id), field("name", "name-" + id)));
+    }
+
+    /** Answers source queries with the objects for all requested ids except "missing" */
+    private static class QueryAnswer implements Answer<QueryResponse> {
+        final List<String> filters = new ArrayList<>();
+
+        @Override
+        public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+            QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+            QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+            filters.add(request.getQueryFilter().toString());
+            for (String id : Arrays.asList("a", "b", "c", "d", "e")) {
+                if (request.getQueryFilter().toString().contains("\"" + id + "\"")) {
+                    handler.handleResource(newResourceResponse(id, null, sourceObject(id)));
+                }
+            }
+            return newQueryResponse();
+        }
+    }
+
+    @Test
+    public void testObjectsAreReadInBatches() throws Exception {
+        QueryAnswer answer = new QueryAnswer();
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(answer);
+
+        List<ResultEntry> result = new ArrayList<>();
+        SourceReadAhead readAhead = new SourceReadAhead(entries("a", "b", "missing", "c", "d").iterator(),
+                reconContext, "system/ldap/account", 3);
+        while (readAhead.hasNext()) {
+            result.add(readAhead.next());
+        }
+
+        assertThat(answer.filters).hasSize(2);
+        assertThat(result).hasSize(5);
+        assertThat(result.get(0).getId()).isEqualTo("a");
+        assertThat(result.get(0).getValue().get("name").asString()).isEqualTo("name-a");
+        assertThat(result.get(2).getId()).isEqualTo("missing");
+        assertThat(result.get(2).getValue()).isNull();
+        assertThat(result.get(4).getValue().get("_id").asString()).isEqualTo("d");
+        verify(statistics).sourceReadAhead(2, 1);
+        verify(statistics).sourceReadAhead(2, 0);
+    }
+
+    @Test
+    public void testPreloadedEntriesAreNotRead() throws Exception {
+        QueryAnswer answer = new QueryAnswer();
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(answer);
+
+        List<ResultEntry> entries = Arrays.asList(new ResultEntry("a", sourceObject("a")), new ResultEntry("b", null));
+        SourceReadAhead readAhead = new SourceReadAhead(entries.iterator(), reconContext, "system/ldap/account", 10);
+        assertThat(readAhead.next().getValue()).isSameAs(entries.get(0).getValue());
+        assertThat(readAhead.next().getValue().get("_id").asString()).isEqualTo("b");
+        assertThat(readAhead.hasNext()).isFalse();
+        assertThat(answer.filters).hasSize(1);
+        assertThat(answer.filters.get(0)).doesNotContain("\"a\"");
+    }
+
+    @Test
+    public void testFailedQueryDisablesReadAhead() throws Exception {
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenThrow(new NotSupportedException("or not supported"));
+
+        SourceReadAhead readAhead = new SourceReadAhead(entries("a", "b", "c").iterator(),
+                reconContext, "system/ldap/account", 1);
+        while (readAhead.hasNext()) {
+            assertThat(readAhead.next().getValue()).isNull();
+        }
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class),
+                any(QueryResourceHandler.class));
+    }
+
+    @Test
+    public void testIdsAreMatchedLikeTheLinkType() throws Exception {
+        sourceCaseSensitive = false;
+        // the source returns the ids in another case than the source query did
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(new Answer<QueryResponse>() {
+                    @Override
+                    public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                        QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+                        handler.handleResource(newResourceResponse("uid=a", null, sourceObject("uid=a")));
+                        return newQueryResponse();
+                    }
+                });
+
+        SourceReadAhead readAhead = new SourceReadAhead(entries("UID=A").iterator(), reconContext,
+                "system/ldap/account", 10);
+        ResultEntry entry = readAhead.next();
+
+        assertThat(entry.getId()).isEqualTo("UID=A");
+        assertThat(entry.getValue().get("_id").asString()).isEqualTo("uid=a");
+        verify(statistics).sourceReadAhead(1, 0);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -112,4 +113,20 @@ public class SyncMappingsTest {
 
         assertThat(iterator.hasNext()).isFalse();
     }
+
+    @Test
+    public void testGetMappingsBySource() throws Exception {
+        EnhancedConfig enhancedConfig = mock(EnhancedConfig.class);
+        when(enhancedConfig.getConfigurationAsJson(any(ComponentContext.class))).thenReturn(getConfig());
+
+        SyncMappings mappings = new SyncMappings();
+        mappings.bindEnhancedConfig(enhancedConfig);
+        mappings.activate(mock(ComponentContext.class));
+
+        assertThat(mappings.getMappingsBySource("managed/user")).containsExactly(mappings.getMapping("testMapping"));
+        assertThat(mappings.getMappingsBySource("system/ldap/account")).isEmpty();
+
+        mappings.deactivate(mock(ComponentContext.class));
+        assertThat(mappings.getMappingsBySource("managed/user")).isEmpty();
+    }
 }
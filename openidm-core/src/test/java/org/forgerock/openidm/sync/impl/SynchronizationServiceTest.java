@@ -12,11 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static java.util.Arrays.asList;
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
@@ -27,12 +30,19 @@ import static org.forgerock.openidm.sync.impl.SynchronizationService.ACTION_PARA
 import static org.forgerock.util.test.assertj.AssertJPromiseAssert.assertThat;
 import static org.forgerock.json.test.assertj.AssertJJsonValueAssert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.audit.events.AuditEvent;
 import org.forgerock.json.JsonValue;
@@ -47,6 +57,7 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.Scripts;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
@@ -59,6 +70,7 @@ import org.mockito.stubbing.Answer;
 import org.osgi.service.component.ComponentContext;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import org.testng.Assert;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -163,4 +175,125 @@ public class SynchronizationServiceTest {
         assertThat(resource).stringAt("linkQualifier").isEqualTo("default");
         assertThat(resource).stringAt("linkType").isEqualTo("testMapping");
     }
+
+    private static ObjectMapping mockMapping(String name, String target) {
+        final ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getName()).thenReturn(name);
+        when(mapping.getSourceObjectSet()).thenReturn("managed/user");
+        when(mapping.getTargetObjectSet()).thenReturn(target);
+        when(mapping.getLinkTypeName()).thenReturn(name);
+        when(mapping.isSyncEnabled()).thenReturn(true);
+        when(mapping.isSourceObject(anyString(), anyString())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return "managed/user".equals(invocation.getArguments()[0])
+                        && !((String) invocation.getArguments()[1]).isEmpty();
+            }
+        });
+        return mapping;
+    }
+
+    private static SynchronizationService newSynchronizationService(ObjectMapping... objectMappings) {
+        final Mappings mappings = mock(Mappings.class);
+        when(mappings.getMappingsBySource("managed/user")).thenReturn(asList(objectMappings));
+        when(mappings.getMappingsBySource("managed/role")).thenReturn(Collections.<ObjectMapping>emptyList());
+        final SynchronizationService synchronizationService = new SynchronizationService();
+        synchronizationService.mappings = mappings;
+        return synchronizationService;
+    }
+
+    @Test
+    public void testSyncAllMappingsSkipsMappingsAfterFailure() throws Exception {
+        final ObjectMapping disabled = mockMapping("disabled", "system/ldap/group");
+        when(disabled.isSyncEnabled()).thenReturn(false);
+        final SynchronizationService synchronizationService = newSynchronizationService(
+                mockMapping("first", "system/ldap/account"), disabled, mockMapping("second", "system/ad/account"),
+                mockMapping("third", "system/csv/account"));
+        final List<String> synced = Collections.synchronizedList(new ArrayList<String>());
+        final SynchronizationService.SyncAction action = new SynchronizationService.SyncAction() {
+            @Override
+            public JsonValue sync(Context context, ObjectMapping mapping) throws SynchronizationException {
+                synced.add(mapping.getName());
+                if ("second".equals(mapping.getName())) {
+                    final SynchronizationException e = new SynchronizationException("unavailable");
+                    e.setDetail(json(object(field("situation", "FOUND"))));
+                    throw e;
+                }
+                return json(array(object(field("situation", "ABSENT"))));
+            }
+        };
+
+        assertThat(synchronizationService.syncAllMappings(mock(Context.class), action, "managed/role", "1").size())
+                .isEqualTo(0);
+        try {
+            synchronizationService.syncAllMappings(mock(Context.class), action, "managed/user", "1");
+            Assert.fail("Expected SynchronizationException");
+        } catch (SynchronizationException e) {
+            assertThat(synced).containsExactly("first", "second");
+            final JsonValue details = e.getDetail();
+            assertThat(details.size()).isEqualTo(2);
+            assertThat(details.get(0).get("mapping").asString()).isEqualTo("first");
+            assertThat(details.get(0).get("result").asString()).isEqualTo("SUCCESSFUL");
+            assertThat(details.get(1).get("mapping").asString()).isEqualTo("second");
+            assertThat(details.get(1).get("result").asString()).isEqualTo("FAILED");
+            assertThat(details.get(1).get("cause").isNotNull()).isTrue();
+        }
+    }
+
+    @Test
+    public void testSyncAllMappingsIgnoresTheSourceContainer() throws Exception {
+        final ObjectMapping mapping = mockMapping("first", "system/ldap/account");
+        final SynchronizationService synchronizationService = newSynchronizationService(mapping);
+        final SynchronizationService.SyncAction action = new SynchronizationService.SyncAction() {
+            @Override
+            public JsonValue sync(Context context, ObjectMapping mapping) {
+                throw new AssertionError("Synchronized " + mapping.getName());
+            }
+        };
+
+        assertThat(synchronizationService.syncAllMappings(mock(Context.class), action, "managed/user", "").size())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void testSyncAllMappingsConcurrently() throws Exception {
+        final SynchronizationService synchronizationService = newSynchronizationService(
+                mockMapping("first", "system/ldap/account"), mockMapping("second", "system/ad/account"),
+                mockMapping("third", "system/ldap/account"), mockMapping("fourth", "system/csv/account"));
+        synchronizationService.startMappingExecutor(4);
+        // the first mappings of the three lanes wait for each other, so they have to run concurrently
+        final CountDownLatch running = new CountDownLatch(3);
+        final Map<String, String> threads = Collections.synchronizedMap(new HashMap<String, String>());
+        try {
+            final JsonValue details = synchronizationService.syncAllMappings(mock(Context.class),
+                    new SynchronizationService.SyncAction() {
+                        @Override
+                        public JsonValue sync(Context context, ObjectMapping mapping) {
+                            threads.put(mapping.getName(), Thread.currentThread().getName());
+                            if (!"third".equals(mapping.getName())) {
+                                running.countDown();
+                                try {
+                                    assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+                                } catch (InterruptedException e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            }
+                            return json(array(object(field("situation", "ABSENT"))));
+                        }
+                    }, "managed/user", "1");
+
+            assertThat(details.size()).isEqualTo(4);
+            for (int i = 0; i < 4; i++) {
+                assertThat(details.get(i).get("mapping").asString())
+                        .isEqualTo(asList("first", "second", "third", "fourth").get(i));
+                assertThat(details.get(i).get("result").asString()).isEqualTo("SUCCESSFUL");
+            }
+            // mappings to the same target are synchronized in turn, on the calling thread for the first lane
+            assertThat(threads.get("first")).isEqualTo(Thread.currentThread().getName());
+            assertThat(threads.get("third")).isEqualTo(threads.get("first"));
+            assertThat(threads.get("second")).isNotEqualTo(threads.get("first"));
+        } finally {
+            synchronizationService.deactivate(mock(ComponentContext.class));
+        }
+    }
 }
@@ -25,6 +25,8 @@ import static org.forgerock.json.JsonValueFunctions.identity;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.forgerock.json.JsonException;
 import org.forgerock.json.JsonValue;
@@ -77,6 +79,11 @@ public class CryptoServiceImpl implements CryptoService {
     private Function<JsonValue, JsonValue, JsonValueException> decryptionFunction = identity();
     private SimpleKeySelector keySelector;
 
+    /**
+     * The field storage schemes by algorithm, shared since their digests and salt generators are per thread.
+     */
+    private final ConcurrentMap<String, FieldStorageScheme> fieldStorageSchemes = new ConcurrentHashMap<>();
+
     @Reference(target="(service.pid=org.forgerock.openidm.keystore)")
     private KeyStoreService keyStoreService;
 
@@ -236,6 +243,18 @@ public class CryptoServiceImpl implements CryptoService {
      * @throws JsonCryptoException
      */
     private FieldStorageScheme getFieldStorageScheme(String algorithm) throws JsonCryptoException {
+        FieldStorageScheme fieldStorageScheme = fieldStorageSchemes.get(algorithm);
+        if (fieldStorageScheme == null) {
+            fieldStorageScheme = newFieldStorageScheme(algorithm);
+            FieldStorageScheme existing = fieldStorageSchemes.putIfAbsent(algorithm, fieldStorageScheme);
+            if (existing != null) {
+                fieldStorageScheme = existing;
+            }
+        }
+        return fieldStorageScheme;
+    }
+
+    private FieldStorageScheme newFieldStorageScheme(String algorithm) throws JsonCryptoException {
         try {
             if (algorithm.equals(CryptoConstants.ALGORITHM_MD5)) {
                 return new SaltedMD5FieldStorageScheme();
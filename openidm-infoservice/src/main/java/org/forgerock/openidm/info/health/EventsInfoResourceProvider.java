@@ -0,0 +1,77 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.info.health;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.api.annotations.Handler;
+import org.forgerock.api.annotations.Operation;
+import org.forgerock.api.annotations.Read;
+import org.forgerock.api.annotations.Schema;
+import org.forgerock.api.annotations.SingletonProvider;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.info.health.api.EventsInfoResource;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gets the latency statistics of the monitoring events from the smartevent statistics MBean.
+ */
+@SingletonProvider(@Handler(
+        id = "eventsInfoResourceProvider:0",
+        title = "Health - Monitoring event latencies",
+        description = "Returns the latency percentiles and rates of the monitoring events.",
+        mvccSupported = false,
+        resourceSchema = @Schema(fromType = EventsInfoResource.class)))
+public class EventsInfoResourceProvider extends AbstractInfoResourceProvider {
+
+    private final static Logger logger = LoggerFactory.getLogger(EventsInfoResourceProvider.class);
+
+    @Read(operationDescription = @Operation(description = "Read monitoring event latency statistics."))
+    @Override
+    public Promise<ResourceResponse, ResourceException> readInstance(Context context, ReadRequest request) {
+        try {
+            final ObjectName objectName = new ObjectName("OpenIDM:type=Statistics");
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            // The MBean is only registered once monitoring events have been published
+            final JsonValue result = json(object(
+                    field("events", mBeanServer.isRegistered(objectName)
+                            ? mBeanServer.getAttribute(objectName, "Latencies")
+                            : Collections.emptyMap())
+            ));
+            return newResourceResponse("", "", result).asPromise();
+        } catch (Exception e) {
+            logger.error("Unable to get statistics mbean");
+            return new InternalServerErrorException("Unable to get statistics mbean", e).asPromise();
+        }
+    }
+}
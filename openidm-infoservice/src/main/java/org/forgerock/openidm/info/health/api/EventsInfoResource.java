@@ -0,0 +1,177 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.info.health.api;
+
+import java.util.Map;
+
+import org.forgerock.api.annotations.Description;
+import org.forgerock.api.annotations.ReadOnly;
+
+/**
+ * Api pojo for {@link org.forgerock.openidm.info.health.EventsInfoResourceProvider}
+ */
+public class EventsInfoResource {
+    private Map<String, EventLatency> events;
+
+    /**
+     * Returns the latency statistics per event name.
+     *
+     * @return the latency statistics per event name.
+     */
+    @Description("Latency statistics per event name")
+    @ReadOnly
+    public Map<String, EventLatency> getEvents() {
+        return events;
+    }
+
+    /**
+     * Latency statistics of an event name.
+     */
+    public static class EventLatency {
+        private long invocations;
+        private double totalTime;
+        private double mean;
+        private double p50;
+        private double p95;
+        private double p99;
+        private double p999;
+        private double max;
+        private double rate1m;
+        private double rate5m;
+        private double rate10m;
+
+        /**
+         * Returns the number of events.
+         *
+         * @return the number of events.
+         */
+        @Description("Number of events")
+        @ReadOnly
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Returns the total duration of the events in milliseconds.
+         *
+         * @return the total duration of the events in milliseconds.
+         */
+        @Description("Total duration of the events in milliseconds")
+        @ReadOnly
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        /**
+         * Returns the mean duration in milliseconds.
+         *
+         * @return the mean duration in milliseconds.
+         */
+        @Description("Mean duration in milliseconds")
+        @ReadOnly
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Returns the median duration in milliseconds.
+         *
+         * @return the median duration in milliseconds.
+         */
+        @Description("Median duration in milliseconds")
+        @ReadOnly
+        public double getP50() {
+            return p50;
+        }
+
+        /**
+         * Returns the 95th percentile duration in milliseconds.
+         *
+         * @return the 95th percentile duration in milliseconds.
+         */
+        @Description("95th percentile duration in milliseconds")
+        @ReadOnly
+        public double getP95() {
+            return p95;
+        }
+
+        /**
+         * Returns the 99th percentile duration in milliseconds.
+         *
+         * @return the 99th percentile duration in milliseconds.
+         */
+        @Description("99th percentile duration in milliseconds")
+        @ReadOnly
+        public double getP99() {
+            return p99;
+        }
+
+        /**
+         * Returns the 99.9th percentile duration in milliseconds.
+         *
+         * @return the 99.9th percentile duration in milliseconds.
+         */
+        @Description("99.9th percentile duration in milliseconds")
+        @ReadOnly
+        public double getP999() {
+            return p999;
+        }
+
+        /**
+         * Returns the longest duration in milliseconds.
+         *
+         * @return the longest duration in milliseconds.
+         */
+        @Description("Longest duration in milliseconds")
+        @ReadOnly
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the number of events per second over the last minute.
+         *
+         * @return the number of events per second over the last minute.
+         */
+        @Description("Events per second over the last complete minute")
+        @ReadOnly
+        public double getRate1m() {
+            return rate1m;
+        }
+
+        /**
+         * Returns the number of events per second over the last 5 minutes.
+         *
+         * @return the number of events per second over the last 5 minutes.
+         */
+        @Description("Events per second over the last 5 complete minutes")
+        @ReadOnly
+        public double getRate5m() {
+            return rate5m;
+        }
+
+        /**
+         * Returns the number of events per second over the last 10 minutes.
+         *
+         * @return the number of events per second over the last 10 minutes.
+         */
+        @Description("Events per second over the last 10 complete minutes")
+        @ReadOnly
+        public double getRate10m() {
+            return rate10m;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Processes the deltas of a liveSync run on a bounded set of worker threads.
+ * <p>
+ * Deltas are partitioned by key (the object UID): all deltas of one object are processed by the same
+ * worker, in the order the connector delivered them, while deltas of different objects are processed
+ * concurrently. The dispatcher tracks the token of the highest delta such that it and all deltas delivered
+ * before it have completed, which is the token liveSync can safely persist.
+ * <p>
+ * A failed delta waits until all deltas delivered before it have completed before its failure is handled,
+ * so that the sync failure handler sees failures in token order, as with sequential processing. If the
+ * failure handler requests a retry, no further deltas are dispatched and deltas delivered after the failed
+ * one are skipped if they have not started yet; they are delivered again by the next liveSync run, after
+ * the persisted token. Deltas delivered after the failed one which had already been processed are
+ * processed again by that run.
+ *
+ * @param <T> the type of the sync tokens
+ */
+final class LiveSyncDispatcher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveSyncDispatcher.class);
+
+    /**
+     * The processing of a single delta.
+     */
+    interface DeltaTask {
+        /**
+         * Processes the delta.
+         *
+         * @throws Exception if the delta could not be processed
+         */
+        void execute() throws Exception;
+
+        /**
+         * Handles the failure to process the delta.
+         *
+         * @param e the failure
+         * @return true if the failure was handled and processing continues,
+         *         false if processing stops so that the delta is retried
+         */
+        boolean onFailure(Exception e);
+    }
+
+    private final ExecutorService[] workers;
+    private final Semaphore inFlight;
+
+    /** Sequence number of the next delta to dispatch, only used by the dispatching thread */
+    private long nextDispatched = 0;
+
+    /** Sequence number of the first delta that has not completed, guarded by this */
+    private long nextCompleted = 0;
+
+    /** Tokens of the deltas completed after a delta still in progress, guarded by this */
+    private final Map<Long, T> completedTokens = new HashMap<>();
+
+    /** Token of the last delta completed in sequence, guarded by this */
+    private T lastToken = null;
+
+    /** Sequence number of the delta which stopped processing, guarded by this */
+    private long stoppedAt = Long.MAX_VALUE;
+
+    /**
+     * Creates the dispatcher and starts its workers.
+     *
+     * @param name the name of the workers' threads
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of deltas dispatched but not yet completed
+     */
+    LiveSyncDispatcher(final String name, int threads, int queueSize) {
+        workers = new ExecutorService[threads];
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        for (int i = 0; i < threads; i++) {
+            workers[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        inFlight = new Semaphore(Math.max(threads, queueSize));
+    }
+
+    /**
+     * Dispatches a delta to the worker of its key, blocking while the maximum number of deltas are in progress.
+     *
+     * @param key the key partitioning the deltas
+     * @param token the token of the delta
+     * @param task the processing of the delta
+     * @return true if the delta was dispatched, false if processing has stopped
+     * @throws InterruptedException if interrupted while waiting for a delta to complete
+     */
+    boolean dispatch(String key, final T token, final DeltaTask task) throws InterruptedException {
+        if (isStopped()) {
+            return false;
+        }
+        inFlight.acquire();
+        final long sequence = nextDispatched++;
+        workers[(key.hashCode() & Integer.MAX_VALUE) % workers.length].execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    process(sequence, token, task);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+        return true;
+    }
+
+    private void process(long sequence, T token, DeltaTask task) {
+        if (isStoppedBefore(sequence)) {
+            // An earlier delta stopped processing, this one is delivered again by the next run
+            return;
+        }
+        boolean handled = false;
+        try {
+            try {
+                task.execute();
+            } catch (Exception e) {
+                if (!handleFailure(sequence, task, e)) {
+                    handled = true;
+                    return;
+                }
+            }
+            completed(sequence, token);
+            handled = true;
+        } finally {
+            if (!handled) {
+                // An Error escaped the task, the delta is retried like a failure that stops processing
+                logger.warn("Unexpected error processing liveSync delta, stopping");
+                stop(sequence);
+            }
+        }
+    }
+
+    /**
+     * Hands a failed delta to the failure handling of its task, once all earlier deltas have completed.
+     *
+     * @return true if the failure was handled, false if processing stopped
+     */
+    private boolean handleFailure(long sequence, DeltaTask task, Exception e) {
+        try {
+            if (!awaitTurn(sequence)) {
+                return false;
+            }
+            if (task.onFailure(e)) {
+                return true;
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException re) {
+            logger.warn("Failed to handle liveSync failure", re);
+        }
+        stop(sequence);
+        return false;
+    }
+
+    /**
+     * Waits until all deltas dispatched before the given one have completed.
+     *
+     * @return true if they have, false if processing stopped at an earlier delta
+     */
+    private synchronized boolean awaitTurn(long sequence) throws InterruptedException {
+        while (nextCompleted < sequence && stoppedAt > sequence) {
+            wait();
+        }
+        return stoppedAt > sequence;
+    }
+
+    private synchronized void completed(long sequence, T token) {
+        completedTokens.put(sequence, token);
+        while (completedTokens.containsKey(nextCompleted)) {
+            lastToken = completedTokens.remove(nextCompleted);
+            nextCompleted++;
+        }
+        notifyAll();
+    }
+
+    private synchronized void stop(long sequence) {
+        stoppedAt = Math.min(stoppedAt, sequence);
+        notifyAll();
+    }
+
+    private synchronized boolean isStoppedBefore(long sequence) {
+        return stoppedAt < sequence;
+    }
+
+    /**
+     * @return whether processing has stopped at a delta to retry
+     */
+    synchronized boolean isStopped() {
+        return stoppedAt != Long.MAX_VALUE;
+    }
+
+    /**
+     * Waits for the dispatched deltas to complete and stops the workers.
+     *
+     * @return the token of the last delta completed in sequence, or null if the first delta did not complete
+     * @throws InterruptedException if interrupted while waiting
+     */
+    T awaitCompletion() throws InterruptedException {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ExecutorService worker : workers) {
+            while (!worker.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for liveSync deltas to complete");
+            }
+        }
+        return getLastToken();
+    }
+
+    /**
+     * Stops the workers without waiting for the dispatched deltas.
+     */
+    void shutdownNow() {
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the token of the last delta completed in sequence, or null if the first delta has not completed
+     */
+    synchronized T getLastToken() {
+        return lastToken;
+    }
+}
@@ -131,6 +131,8 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
     private static final Logger logger = LoggerFactory.getLogger(OpenICFProvisionerService.class);
 
+    private static final int DEFAULT_LIVESYNC_QUEUE_SIZE = 1000;
+
     private SimpleSystemIdentifier systemIdentifier = null;
     private OperationHelperBuilder operationHelperBuilder = null;
     private Promise<ConnectorInfo, RuntimeException> connectorFacadeCallback = null;
@@ -140,6 +142,12 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
     private SyncFailureHandler syncFailureHandler = null;
     private String factoryPid = null;
 
+    /** number of threads processing liveSync deltas, deltas are processed by the connector thread if 1 or less */
+    private int liveSyncThreads = 1;
+
+    /** maximum number of liveSync deltas dispatched to the threads but not yet processed */
+    private int liveSyncQueueSize = DEFAULT_LIVESYNC_QUEUE_SIZE;
+
     /** use null-object activity logger until/unless ConnectionFactory binder updates it */
     private ActivityLogger activityLogger = NullActivityLogger.INSTANCE;
 
@@ -237,6 +245,10 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
             syncFailureHandler = syncFailureHandlerFactory.create(jsonConfiguration.get("syncFailureHandler"));
 
+            JsonValue liveSyncConfig = jsonConfiguration.get("liveSyncConfig");
+            liveSyncThreads = liveSyncConfig.get("threads").defaultTo(1).asInteger();
+            liveSyncQueueSize = liveSyncConfig.get("queueSize").defaultTo(DEFAULT_LIVESYNC_QUEUE_SIZE).asInteger();
+
             final OpenICFProvisionerService provisionerService = this;
             connectorInfoProvider.findConnectorInfoAsync(connectorReference).thenOnResult(
                     new org.forgerock.util.promise.ResultHandler<ConnectorInfo>() {
@@ -834,10 +846,17 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
                     OperationOptionsBuilder operationOptionsBuilder =
                             helper.getOperationOptionsBuilder(SyncApiOp.class, null, previousStage);
 
+                    final LiveSyncDispatcher<SyncToken> dispatcher = liveSyncThreads > 1
+                            ? new LiveSyncDispatcher<SyncToken>("liveSync-" + systemIdentifier.getName(),
+                                    liveSyncThreads, liveSyncQueueSize)
+                            : null;
+
                     try {
                         logger.debug("Execute sync(ObjectClass:{}, SyncToken:{})",
                                 new Object[] { helper.getObjectClass().getObjectClassValue(), token });
-                        SyncToken syncToken = operation.sync(helper.getObjectClass(), token,
+                        SyncToken syncToken;
+                        try {
+                            syncToken = operation.sync(helper.getObjectClass(), token,
                                 new SyncResultsHandler() {
                                     /**
                                      * Called to handle a delta in the stream. The Connector framework will call
@@ -853,105 +872,54 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
                                      * @throws RuntimeException If the application encounters an exception. This will
                                      * stop iteration and the exception will propagate to the application.
                                      */
-                                    @SuppressWarnings("fallthrough")
-                                    public boolean handle(SyncDelta syncDelta) {
-                                        try {
-                                            // Q: are we going to encode ids?
-                                            final String resourceId = syncDelta.getUid().getUidValue();
-                                            final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
-                                            final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
-                                            final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
-
-                                            //rebuild the OperationHelper if the helper is for the __ALL__ object class
-                                            final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
-                                                    ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
-                                                    : helper;
-
-                                            switch (syncDelta.getDeltaType()) {
-                                                case CREATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
-                                                    ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onCreateRequest);
-
-                                                    activityLogger.log(context, onCreateRequest,
-                                                                    "sync-create", onCreateRequest.getResourcePath(),
-                                                                    deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
-                                                }
-                                                case UPDATE:
-                                                case CREATE_OR_UPDATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    if (null != syncDelta.getPreviousUid()) {
-                                                        deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
-                                                    }
-                                                    // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
-                                                    ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onUpdateRequest);
-
-                                                    activityLogger.log(context, onUpdateRequest,
-                                                            "sync-update", onUpdateRequest.getResourcePath(),
-                                                            deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
-                                                }
-                                                case DELETE:
-                                                    // TODO Pass along the old deltaObject - do we have it?
-                                                    content.put("oldValue", null);
-                                                    // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
-                                                    ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onDeleteRequest);
-
-                                                    activityLogger.log(context, onDeleteRequest,
-                                                            "sync-delete", onDeleteRequest.getResourcePath(),
-                                                            null, null, Status.SUCCESS);
-                                                    break;
-                                            }
-                                        } catch (Exception e) {
-                                            failedRecord[0] = SerializerUtil.serializeXmlObject(syncDelta, true);
-                                            logger.debug("Failed to synchronize {} object, handle failure using {}",
-                                                    syncDelta.getUid(), syncFailureHandler, e);
-                                            Map<String, Object> syncFailureMap = new HashMap<>(6);
-                                            syncFailureMap.put("token", syncDelta.getToken().getValue());
-                                            syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
-                                            syncFailureMap.put("objectType", objectType);
-                                            syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
-                                            syncFailureMap.put("failedRecord", failedRecord[0]);
+                                    public boolean handle(final SyncDelta syncDelta) {
+                                        if (dispatcher != null) {
+                                            // Process the delta on the thread of its object, the token is
+                                            // tracked by the dispatcher
                                             try {
-                                                syncFailureHandler.invoke(context, syncFailureMap, e);
-                                            } catch (SyncHandlerException syncHandlerException) {
-                                                // Current contract of the failure handler is that throwing this exception indicates 
-                                                // that it should retry for this entry
-                                                syncRetry.setValue(true);
-                                                syncRetry.setThrowable(syncHandlerException);
-                                                logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}", 
-                                                        syncHandlerException.getMessage(), syncHandlerException);
+                                                return dispatcher.dispatch(syncDelta.getUid().getUidValue(),
+                                                        syncDelta.getToken(), new LiveSyncDispatcher.DeltaTask() {
+                                                            @Override
+                                                            public void execute() throws Exception {
+                                                                processSyncDelta(context, objectType, helper, stage,
+                                                                        syncDelta);
+                                                            }
+
+                                                            @Override
+                                                            public boolean onFailure(Exception e) {
+                                                                return handleSyncFailure(context, objectType,
+                                                                        syncDelta, e, syncRetry, failedRecord);
+                                                            }
+                                                        });
+                                            } catch (InterruptedException e) {
+                                                Thread.currentThread().interrupt();
+                                                return false;
                                             }
                                         }
 
-                                        if (syncRetry.getValue()) {
-                                            // Stop the processing of this result set. Next retry will start again after last token.
-                                            return false; 
-                                        } else {
-                                            // success (either by original sync or by failure handler)
-                                            // Continue the processing of the rest of the result set
-                                            lastToken[0] = syncDelta.getToken();
-                                            return true;
+                                        try {
+                                            processSyncDelta(context, objectType, helper, stage, syncDelta);
+                                        } catch (Exception e) {
+                                            if (!handleSyncFailure(context, objectType, syncDelta, e, syncRetry,
+                                                    failedRecord)) {
+                                                // Stop the processing of this result set. Next retry will start again after last token.
+                                                return false;
+                                            }
                                         }
+                                        // success (either by original sync or by failure handler)
+                                        // Continue the processing of the rest of the result set
+                                        lastToken[0] = syncDelta.getToken();
+                                        return true;
                                     }
                         }, operationOptionsBuilder.build());
+                        } finally {
+                            if (dispatcher != null) {
+                                SyncToken completedToken = awaitLiveSyncCompletion(dispatcher);
+                                if (completedToken != null) {
+                                    lastToken[0] = completedToken;
+                                }
+                            }
+                        }
                         if (syncRetry.getValue()) {
                             Throwable throwable = syncRetry.getThrowable();
                             Map<String, Object> lastException = new LinkedHashMap<>(2);
@@ -962,6 +930,9 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
                             stage.put("lastException", lastException);
                             logger.debug("Live synchronization of {} failed on {}",
                                     new Object[] { objectType, systemIdentifier.getName() }, throwable);
+                        } else if (dispatcher != null && dispatcher.isStopped()) {
+                            logger.debug("Live synchronization of {} on {} stopped before the last change",
+                                    objectType, systemIdentifier.getName());
                         } else {
                             if (syncToken != null) {
                                 lastToken[0] = syncToken;
@@ -989,6 +960,138 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
         return stage;
     }
 
+    /**
+     * Sends a liveSync change to the synchronization service.
+     *
+     * @param context the request context associated with the invocation
+     * @param objectType the object type being synchronized
+     * @param helper the operation helper of the object type
+     * @param stage the liveSync stage
+     * @param syncDelta the change
+     * @throws Exception if the change could not be synchronized
+     */
+    @SuppressWarnings("fallthrough")
+    private void processSyncDelta(final Context context, final String objectType, final OperationHelper helper,
+            final JsonValue stage, final SyncDelta syncDelta) throws Exception {
+        // Q: are we going to encode ids?
+        final String resourceId = syncDelta.getUid().getUidValue();
+        final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
+        final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
+        final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
+
+        //rebuild the OperationHelper if the helper is for the __ALL__ object class
+        final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
+                ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
+                : helper;
+
+        switch (syncDelta.getDeltaType()) {
+            case CREATE: {
+                JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                content.put("oldValue", null);
+                content.put("newValue", deltaObject.getObject());
+                // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
+                ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
+                        .setAdditionalParameter("resourceContainer", resourceContainer)
+                        .setAdditionalParameter("resourceId", resourceId)
+                        .setContent(content);
+                connectionFactory.getConnection().action(context, onCreateRequest);
+
+                activityLogger.log(context, onCreateRequest,
+                                "sync-create", onCreateRequest.getResourcePath(),
+                                deltaObject, deltaObject, Status.SUCCESS);
+                break;
+            }
+            case UPDATE:
+            case CREATE_OR_UPDATE: {
+                JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                content.put("oldValue", null);
+                content.put("newValue", deltaObject.getObject());
+                if (null != syncDelta.getPreviousUid()) {
+                    deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
+                }
+                // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
+                ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
+                        .setAdditionalParameter("resourceContainer", resourceContainer)
+                        .setAdditionalParameter("resourceId", resourceId)
+                        .setContent(content);
+                connectionFactory.getConnection().action(context, onUpdateRequest);
+
+                activityLogger.log(context, onUpdateRequest,
+                        "sync-update", onUpdateRequest.getResourcePath(),
+                        deltaObject, deltaObject, Status.SUCCESS);
+                break;
+            }
+            case DELETE:
+                // TODO Pass along the old deltaObject - do we have it?
+                content.put("oldValue", null);
+                // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
+                ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
+                        .setAdditionalParameter("resourceContainer", resourceContainer)
+                        .setAdditionalParameter("resourceId", resourceId)
+                        .setContent(content);
+                connectionFactory.getConnection().action(context, onDeleteRequest);
+
+                activityLogger.log(context, onDeleteRequest,
+                        "sync-delete", onDeleteRequest.getResourcePath(),
+                        null, null, Status.SUCCESS);
+                break;
+        }
+    }
+
+    /**
+     * Hands a change that failed to synchronize to the sync failure handler.
+     *
+     * @param context the request context associated with the invocation
+     * @param objectType the object type being synchronized
+     * @param syncDelta the change
+     * @param e the cause of the failure
+     * @param syncRetry set if the failure handler requests the change to be retried
+     * @param failedRecord set to the serialized change if it is to be retried
+     * @return true if the failure was handled and liveSync continues with the next change,
+     *         false if liveSync stops so that the change is retried
+     */
+    private boolean handleSyncFailure(final Context context, final String objectType, final SyncDelta syncDelta,
+            final Exception e, final SyncRetry syncRetry, final String[] failedRecord) {
+        final String record = SerializerUtil.serializeXmlObject(syncDelta, true);
+        logger.debug("Failed to synchronize {} object, handle failure using {}",
+                syncDelta.getUid(), syncFailureHandler, e);
+        Map<String, Object> syncFailureMap = new HashMap<>(6);
+        syncFailureMap.put("token", syncDelta.getToken().getValue());
+        syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
+        syncFailureMap.put("objectType", objectType);
+        syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
+        syncFailureMap.put("failedRecord", record);
+        try {
+            syncFailureHandler.invoke(context, syncFailureMap, e);
+            return true;
+        } catch (SyncHandlerException syncHandlerException) {
+            // Current contract of the failure handler is that throwing this exception indicates
+            // that it should retry for this entry
+            failedRecord[0] = record;
+            syncRetry.setValue(true);
+            syncRetry.setThrowable(syncHandlerException);
+            logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}",
+                    syncHandlerException.getMessage(), syncHandlerException);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the changes dispatched to the liveSync threads to be processed.
+     *
+     * @param dispatcher the dispatcher of the changes
+     * @return the token of the last change processed after all changes before it, or null if none was
+     */
+    private SyncToken awaitLiveSyncCompletion(LiveSyncDispatcher<SyncToken> dispatcher) {
+        try {
+            return dispatcher.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dispatcher.shutdownNow();
+            return dispatcher.getLastToken();
+        }
+    }
+
     /**
      * Package level setter to allow unit tests to set the logger.
      * @param activityLogger the new activity logger
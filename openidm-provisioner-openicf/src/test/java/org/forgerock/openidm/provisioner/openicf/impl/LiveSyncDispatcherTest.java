@@ -0,0 +1,163 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+public class LiveSyncDispatcherTest {
+
+    /** Records the order in which the deltas of each key are processed */
+    private final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    private LiveSyncDispatcher.DeltaTask record(final String key, final int token) {
+        return new LiveSyncDispatcher.DeltaTask() {
+            @Override
+            public void execute() {
+                List<Integer> tokens = processed.get(key);
+                if (tokens == null) {
+                    processed.putIfAbsent(key, new CopyOnWriteArrayList<Integer>());
+                    tokens = processed.get(key);
+                }
+                tokens.add(token);
+            }
+
+            @Override
+            public boolean onFailure(Exception e) {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testDeltasOfAnObjectAreProcessedInOrder() throws Exception {
+        LiveSyncDispatcher<Integer> dispatcher = new LiveSyncDispatcher<>("test", 4, 10);
+        for (int token = 1; token <= 200; token++) {
+            assertThat(dispatcher.dispatch("uid" + (token % 7), token, record("uid" + (token % 7), token))).isTrue();
+        }
+
+        assertThat(dispatcher.awaitCompletion()).isEqualTo(200);
+        assertThat(dispatcher.isStopped()).isFalse();
+        for (List<Integer> tokens : processed.values()) {
+            List<Integer> sorted = new ArrayList<>(tokens);
+            Collections.sort(sorted);
+            assertThat(tokens).isEqualTo(sorted);
+        }
+    }
+
+    @Test
+    public void testTokenIsTheLastContiguousCompletedDelta() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        LiveSyncDispatcher<Integer> dispatcher = new LiveSyncDispatcher<>("test", 2, 10);
+        // The first delta blocks on its worker while later deltas complete on the other worker
+        dispatcher.dispatch("a", 1, new LiveSyncDispatcher.DeltaTask() {
+            @Override
+            public void execute() throws Exception {
+                release.await(10, TimeUnit.SECONDS);
+            }
+
+            @Override
+            public boolean onFailure(Exception e) {
+                return false;
+            }
+        });
+        String other = "b";
+        while ((other.hashCode() & Integer.MAX_VALUE) % 2 == ("a".hashCode() & Integer.MAX_VALUE) % 2) {
+            other = other + "b";
+        }
+        dispatcher.dispatch(other, 2, record(other, 2));
+        dispatcher.dispatch(other, 3, record(other, 3));
+        while (processed.get(other) == null || processed.get(other).size() < 2) {
+            Thread.sleep(10);
+        }
+
+        assertThat(dispatcher.getLastToken()).isNull();
+        release.countDown();
+        assertThat(dispatcher.awaitCompletion()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRetryStopsAtTheFailedDelta() throws Exception {
+        final List<Integer> failures = new CopyOnWriteArrayList<>();
+        LiveSyncDispatcher<Integer> dispatcher = new LiveSyncDispatcher<>("test", 3, 10);
+        boolean dispatched = true;
+        int token = 0;
+        while (dispatched && token < 1000) {
+            final int current = ++token;
+            dispatched = dispatcher.dispatch("uid" + current, current, new LiveSyncDispatcher.DeltaTask() {
+                @Override
+                public void execute() throws Exception {
+                    if (current == 5 || current == 8) {
+                        throw new Exception("failed " + current);
+                    }
+                }
+
+                @Override
+                public boolean onFailure(Exception e) {
+                    failures.add(current);
+                    // The first failure is handled, the second one is to be retried
+                    return current == 5;
+                }
+            });
+        }
+
+        assertThat(dispatcher.awaitCompletion()).isEqualTo(7);
+        assertThat(dispatcher.isStopped()).isTrue();
+        assertThat(failures).containsExactly(5, 8);
+        assertThat(token).isLessThan(1000);
+    }
+
+    @Test(timeOut = 10000)
+    public void testErrorStopsAtTheFailedDelta() throws Exception {
+        final List<Integer> failures = new CopyOnWriteArrayList<>();
+        LiveSyncDispatcher<Integer> dispatcher = new LiveSyncDispatcher<>("test", 3, 10);
+        for (int token = 1; token <= 6; token++) {
+            final int current = token;
+            dispatcher.dispatch("uid" + current, current, new LiveSyncDispatcher.DeltaTask() {
+                @Override
+                public void execute() throws Exception {
+                    if (current == 3) {
+                        throw new AssertionError("failed " + current);
+                    } else if (current == 5) {
+                        throw new Exception("failed " + current);
+                    }
+                }
+
+                @Override
+                public boolean onFailure(Exception e) {
+                    failures.add(current);
+                    return true;
+                }
+            });
+        }
+
+        // The failure after the error does not wait for the errored delta to complete
+        assertThat(dispatcher.awaitCompletion()).isEqualTo(2);
+        assertThat(dispatcher.isStopped()).isTrue();
+        assertThat(failures).isEmpty();
+    }
+}
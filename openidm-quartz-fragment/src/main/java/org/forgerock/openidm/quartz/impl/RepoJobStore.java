@@ -20,15 +20,14 @@ import static org.forgerock.json.JsonValue.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.resource.ConnectionFactory;
@@ -38,6 +37,7 @@ import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.cluster.ClusterEvent;
 import org.forgerock.openidm.cluster.ClusterEventListener;
@@ -45,6 +45,7 @@ import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
@@ -155,6 +156,11 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     private volatile boolean shutdown = false;
 
     private volatile RepositoryService repositoryService;
+
+    /**
+     * The waiting triggers ordered by next fire time, kept in step with the repository list of waiting triggers
+     */
+    private final WaitingTriggerIndex waitingTriggerIndex = new WaitingTriggerIndex(new TriggerComparator());
     
     /**
      * Creates a new <code>RepoJobStore</code>.
@@ -491,15 +497,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         synchronized (lock) {
             logger.debug("Attempting to acquire the next trigger");
             Trigger trigger = null;
-            WaitingTriggers waitingTriggers = null;
             while (trigger == null && !shutdown) {
-                try {
-                    waitingTriggers = getWaitingTriggers();
-                    trigger = waitingTriggers.getTriggers().first();
-                } catch (NoSuchElementException e1) {
-                    logger.debug("No waiting triggers to acquire");
-                    return null;
-                }
+                // Pick up the changes made by other nodes, reading only the triggers which changed
+                syncWaitingTriggers();
+                trigger = waitingTriggerIndex.first();
 
                 if (trigger == null) {
                     logger.debug("No waiting triggers to acquire");
@@ -528,6 +529,22 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 }
 
                 TriggerWrapper tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
+                if (tw == null) {
+                    logger.debug("Waiting trigger {} no longer exists", trigger.getName());
+                    trigger = null;
+                    continue;
+                }
+                trigger = tw.getTrigger();
+
+                if (!nextFireTime.equals(trigger.getNextFireTime())) {
+                    // The indexed trigger was out of date, put it back with its current fire time
+                    logger.debug("Trigger {} was rescheduled, not acquiring", trigger.getName());
+                    if (trigger.getNextFireTime() != null) {
+                        addWaitingTrigger(trigger);
+                    }
+                    trigger = null;
+                    continue;
+                }
 
                 if (hasTriggerMisfired(trigger)) {
                     logger.debug("Attempting to process misfired trigger");
@@ -1595,8 +1612,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
                     try {
                         // update repo
-                        addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        updateWaitingTriggers(trigger, true);
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Adding waiting trigger failed {}, retrying", e);
@@ -1623,8 +1639,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 int retries = 0;
                 while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
                     try {
-                        result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        result = updateWaitingTriggers(trigger, false);
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Removing waiting trigger failed {}, retrying", e);
@@ -1752,56 +1767,120 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     /**
-     * Returns the a WaitingTriggers object which wraps the Tree of all triggers in the "waiting" state
+     * Adds a Trigger to, or removes it from, the repository list of waiting triggers and the index of waiting
+     * triggers. The list is written from the index with a revision-checked update; if the list was changed by
+     * another node the update fails and the index is refreshed before the next attempt.
      *
-     * @return  the WaitingTriggers object
+     * @param trigger the Trigger to add or remove
+     * @param add true to add the Trigger, false to remove it
+     * @return true if the list was changed
      * @throws JobPersistenceException
+     * @throws ResourceException if the update failed, PreconditionFailedException if the list was changed
      */
-    private WaitingTriggers getWaitingTriggers() throws JobPersistenceException {
-        TreeSet<Trigger> waitingTriggers = new TreeSet<>(new TriggerComparator());
-        List<String> waitingTriggersRepoList = null;
-        final String repoId = WAITING_TRIGGERS_RESOURCE_PATH;
-        String revision = null;
-        JsonValue map;
-        try {
-            try {
-                map = getRepositoryService().read(Requests.newReadRequest(repoId)).getContent();
-            } catch (NotFoundException e) {
-                logger.debug("repo list {} not found, lets create it", "names");
-                map = null;
+    private boolean updateWaitingTriggers(Trigger trigger, boolean add)
+            throws JobPersistenceException, ResourceException {
+        synchronized (lock) {
+            if (waitingTriggerIndex.getRevision() == null) {
+                syncWaitingTriggers();
+            }
+            String id = getTriggerId(trigger.getGroup(), trigger.getName());
+            logger.trace("{} waiting trigger {}", add ? "Adding" : "Removing", id);
+            List<String> names = waitingTriggerIndex.getNames();
+            boolean changed = add
+                    ? !names.contains(id) && names.add(id)
+                    : names.remove(id);
+            if (changed) {
+                try {
+                    JsonValue updated = getRepositoryService().update(
+                            Requests.newUpdateRequest(WAITING_TRIGGERS_RESOURCE_PATH, json(object(field("names", names))))
+                                    .setRevision(waitingTriggerIndex.getRevision())).getContent();
+                    waitingTriggerIndex.setNames(names, updated.get("_rev").asString());
+                } catch (PreconditionFailedException e) {
+                    waitingTriggerIndex.invalidate();
+                    throw e;
+                }
             }
-            if (map == null || map.isNull()) {
-                map = json(object());
-                waitingTriggersRepoList = new ArrayList<>();
-                map.put("names", waitingTriggersRepoList);
-                // create in repo
-                map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
-                revision = map.get("_rev").asString();
+            if (add) {
+                waitingTriggerIndex.put(id, trigger);
             } else {
-                // else check if list exists in map
-                waitingTriggersRepoList = map.get("names").asList(String.class);
-                revision = map.get("_rev").asString();
-                if (waitingTriggersRepoList == null) {
+                waitingTriggerIndex.remove(id);
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Brings the index of waiting triggers up to date with the repository list of waiting triggers. Only the list
+     * is read when it has not changed; otherwise only the triggers which were added or updated since the index was
+     * last in step are read.
+     *
+     * @throws JobPersistenceException
+     */
+    private void syncWaitingTriggers() throws JobPersistenceException {
+        synchronized (lock) {
+            List<String> waitingTriggersRepoList = null;
+            final String repoId = WAITING_TRIGGERS_RESOURCE_PATH;
+            String revision = null;
+            JsonValue map;
+            try {
+                try {
+                    map = getRepositoryService().read(Requests.newReadRequest(repoId)).getContent();
+                } catch (NotFoundException e) {
+                    logger.debug("repo list {} not found, lets create it", "names");
+                    map = null;
+                }
+                if (map == null || map.isNull()) {
+                    map = json(object());
                     waitingTriggersRepoList = new ArrayList<>();
                     map.put("names", waitingTriggersRepoList);
-                    JsonValue updatedValue = getRepositoryService().update(Requests.newUpdateRequest(repoId, map)
-                                    .setRevision(revision)).getContent();
-                    revision = updatedValue.get("_rev").asString();
-                }
-            }
-            for (String id : waitingTriggersRepoList) {
-                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
-                if (tw == null) {
-                    logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
+                    // create in repo
+                    map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
+                    revision = map.get("_rev").asString();
                 } else {
-                    logger.debug("Found waiting trigger {} in group {}", tw.getName(),tw.getGroup());
-                    waitingTriggers.add(tw.getTrigger());
+                    // else check if list exists in map
+                    waitingTriggersRepoList = map.get("names").asList(String.class);
+                    revision = map.get("_rev").asString();
+                    if (waitingTriggersRepoList == null) {
+                        waitingTriggersRepoList = new ArrayList<>();
+                        map.put("names", waitingTriggersRepoList);
+                        JsonValue updatedValue = getRepositoryService().update(Requests.newUpdateRequest(repoId, map)
+                                        .setRevision(revision)).getContent();
+                        revision = updatedValue.get("_rev").asString();
+                    }
                 }
+                if (revision != null && revision.equals(waitingTriggerIndex.getRevision())) {
+                    return;
+                }
+                // The revisions of the triggers tell which ones another node changed, whatever their order in the list
+                Map<String, String> revisions = getTriggerRevisionsFromRepo();
+                List<String> changedIds = waitingTriggerIndex.getChangedIds(waitingTriggersRepoList, revisions);
+                logger.debug("Waiting triggers changed, deserializing {} of {} triggers",
+                        changedIds.size(), waitingTriggersRepoList.size());
+                waitingTriggerIndex.retainAll(waitingTriggersRepoList);
+                for (String id : changedIds) {
+                    ResourceResponse triggerResource = null;
+                    if (revisions.containsKey(id)) {
+                        try {
+                            triggerResource = getRepositoryService().read(
+                                    Requests.newReadRequest(TRIGGERS_RESOURCE_PATH.concat(id)));
+                        } catch (NotFoundException e) {
+                            // deleted since the revisions were queried
+                        }
+                    }
+                    if (triggerResource == null) {
+                        logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
+                        waitingTriggerIndex.remove(id);
+                    } else {
+                        TriggerWrapper tw = getTriggerWrapper(triggerResource.getContent());
+                        logger.debug("Found waiting trigger {} in group {}", tw.getName(),tw.getGroup());
+                        waitingTriggerIndex.put(id, tw.getTrigger(), triggerResource.getRevision());
+                    }
+                }
+                waitingTriggerIndex.setNames(waitingTriggersRepoList, revision);
+            } catch (ResourceException e) {
+                logger.warn("Error initializing waiting triggers", e);
+                throw new JobPersistenceException("Error initializing waiting triggers", e);
             }
-            return new WaitingTriggers(waitingTriggers, revision);
-        } catch (ResourceException e) {
-            logger.warn("Error initializing waiting triggers", e);
-            throw new JobPersistenceException("Error initializing waiting triggers", e);
         }
     }
 
@@ -1957,6 +2036,27 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
+    /**
+     * Gets the revisions of all of the trigger containers from the repo, without their content.
+     *
+     * @return the trigger revisions by trigger id
+     * @throws JobPersistenceException
+     * @throws ResourceException
+     */
+    private Map<String, String> getTriggerRevisionsFromRepo() throws JobPersistenceException, ResourceException {
+        synchronized (lock) {
+            Map<String, String> revisions = new HashMap<>();
+            String path = TRIGGERS_RESOURCE_PATH.substring(0, TRIGGERS_RESOURCE_PATH.length() - 1);
+            for (ResourceResponse trigger : getRepositoryService().query(
+                    Requests.newQueryRequest(path)
+                            .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue())
+                            .addField(ResourceResponse.FIELD_CONTENT_ID, ResourceResponse.FIELD_CONTENT_REVISION))) {
+                revisions.put(trigger.getId(), trigger.getRevision());
+            }
+            return revisions;
+        }
+    }
+
     /**
      * Updates a trigger in the repo.
      *
@@ -1996,6 +2096,17 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         if (triggerValue.isNull()) {
             return null;
         }
+        return getTriggerWrapper(triggerValue);
+    }
+
+    /**
+     * Gets a trigger container read from the repo as a TriggerWrapper object.
+     *
+     * @param triggerValue the trigger container
+     * @return the TriggerWrapper
+     * @throws JobPersistenceException
+     */
+    private TriggerWrapper getTriggerWrapper(JsonValue triggerValue) throws JobPersistenceException {
         try {
             return new TriggerWrapper(triggerValue);
         } catch (Exception e) {
@@ -2082,9 +2193,8 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 }
 
                 // Ignore triggers which are already present in the waiting list.
-                WaitingTriggers wt = getWaitingTriggers();
-                TreeSet<Trigger> waitingTriggers = wt.getTriggers();
-                for (Trigger t : waitingTriggers) {
+                syncWaitingTriggers();
+                for (Trigger t : waitingTriggerIndex.getTriggers()) {
                     storedTriggers.remove(t);
                 }
                 
@@ -2135,43 +2245,6 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
-    /**
-     * A wrapper for the tree of waiting triggers
-     */
-    protected class WaitingTriggers {
-
-        private TreeSet<Trigger> triggers;
-        private String revision;
-
-        public WaitingTriggers(TreeSet<Trigger> triggers, String rev) {
-            this.triggers = triggers;
-            revision = rev;
-        }
-
-        public TreeSet<Trigger> getTriggers() {
-            return triggers;
-        }
-
-        public String getRevision() {
-            return revision;
-        }
-
-        public void setRevision(String rev) {
-            revision = rev;
-        }
-
-        public List<String> getTriggerNamesList() {
-            List<String> names = new ArrayList<String>();
-            Iterator<Trigger> iterator = triggers.iterator();
-            while (iterator.hasNext()) {
-                Trigger t = iterator.next();
-                names.add(getTriggerId(t.getGroup(), t.getName()));
-            }
-            return names;
-        }
-
-    }
-
     /**
      * A wrapper for the list of acquired triggers
      */
@@ -0,0 +1,203 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.quartz.Trigger;
+
+/**
+ * An in-memory index of the waiting triggers, ordered by next fire time, mirroring the list of waiting trigger ids
+ * stored in the repository.
+ * <p>
+ * The index records the list of ids and the revision of the repository document it reflects, and the repository
+ * revision of each indexed trigger. While the revision of the list is current, the next trigger to acquire is the
+ * first trigger of the index and the list can be written back with a revision-checked update, without reading the
+ * document or the triggers. When the document was changed by another node, {@link #getChangedIds(List, Map)}
+ * returns the ids whose triggers have to be read again, by comparing the indexed revisions with the current ones.
+ * <p>
+ * The index keeps its own copies of the triggers, since the ordering of a trigger must not change while it is
+ * indexed. It is not thread safe; {@link RepoJobStore} only uses it under its lock.
+ */
+final class WaitingTriggerIndex {
+
+    /** The waiting triggers, ordered by next fire time */
+    private final TreeSet<Trigger> triggers;
+
+    /** The waiting triggers by trigger id */
+    private final Map<String, Trigger> triggersById = new HashMap<>();
+
+    /** The repository revisions of the indexed triggers by trigger id, null if unknown */
+    private final Map<String, String> revisionsById = new HashMap<>();
+
+    /** The list of waiting trigger ids, as stored in the repository */
+    private List<String> names = new ArrayList<>();
+
+    /** The revision of the repository document holding {@link #names}, or null if unknown */
+    private String revision = null;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param comparator the ordering of the triggers
+     */
+    WaitingTriggerIndex(Comparator<Trigger> comparator) {
+        triggers = new TreeSet<>(comparator);
+    }
+
+    /**
+     * @return the revision of the repository list the index reflects, or null if the index has to be refreshed
+     */
+    String getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return a copy of the list of waiting trigger ids, in repository order
+     */
+    List<String> getNames() {
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Records the repository list the index reflects.
+     *
+     * @param names the list of waiting trigger ids
+     * @param revision the revision of the repository document
+     */
+    void setNames(List<String> names, String revision) {
+        this.names = new ArrayList<>(names);
+        this.revision = revision;
+    }
+
+    /**
+     * Marks the index as out of date, after a write failed because the repository document was changed by another
+     * node. The indexed triggers are kept so that the next refresh is incremental.
+     */
+    void invalidate() {
+        revision = null;
+    }
+
+    /**
+     * @return the waiting trigger to fire first, or null if there is none
+     */
+    Trigger first() {
+        return triggers.isEmpty() ? null : triggers.first();
+    }
+
+    /**
+     * @param id the trigger id
+     * @return the indexed trigger, or null
+     */
+    Trigger get(String id) {
+        return triggersById.get(id);
+    }
+
+    /**
+     * @return the indexed triggers, in firing order
+     */
+    Collection<Trigger> getTriggers() {
+        return new ArrayList<>(triggers);
+    }
+
+    /**
+     * Indexes a copy of a trigger whose repository revision is not known, replacing the trigger indexed with the
+     * same id. The trigger is read again on the next refresh after a change by another node.
+     *
+     * @param id the trigger id
+     * @param trigger the trigger
+     */
+    void put(String id, Trigger trigger) {
+        put(id, trigger, null);
+    }
+
+    /**
+     * Indexes a copy of a trigger, replacing the trigger indexed with the same id.
+     *
+     * @param id the trigger id
+     * @param trigger the trigger
+     * @param revision the repository revision of the trigger, or null if unknown
+     */
+    void put(String id, Trigger trigger, String revision) {
+        remove(id);
+        Trigger copy = (Trigger) trigger.clone();
+        triggers.add(copy);
+        triggersById.put(id, copy);
+        revisionsById.put(id, revision);
+    }
+
+    /**
+     * Removes a trigger from the index.
+     *
+     * @param id the trigger id
+     * @return true if the trigger was indexed
+     */
+    boolean remove(String id) {
+        Trigger trigger = triggersById.remove(id);
+        revisionsById.remove(id);
+        if (trigger != null) {
+            triggers.remove(trigger);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the triggers whose ids are not in the supplied list.
+     *
+     * @param ids the ids of the triggers to keep
+     */
+    void retainAll(Collection<String> ids) {
+        Set<String> retained = new HashSet<>(ids);
+        Iterator<Map.Entry<String, Trigger>> iterator = triggersById.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Trigger> entry = iterator.next();
+            if (!retained.contains(entry.getKey())) {
+                triggers.remove(entry.getValue());
+                revisionsById.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of a newer repository list whose triggers have to be read again: the ids which are not indexed,
+     * the ids whose indexed revision is unknown, and the ids whose trigger has a different revision in the repository.
+     *
+     * @param newNames the repository list
+     * @param revisions the current repository revisions of the triggers by trigger id
+     * @return the ids to read again
+     */
+    List<String> getChangedIds(List<String> newNames, Map<String, String> revisions) {
+        List<String> changed = new ArrayList<>();
+        for (String id : newNames) {
+            String revision = revisionsById.get(id);
+            if (!triggersById.containsKey(id) || revision == null || !revision.equals(revisions.get(id))) {
+                changed.add(id);
+            }
+        }
+        return changed;
+    }
+}
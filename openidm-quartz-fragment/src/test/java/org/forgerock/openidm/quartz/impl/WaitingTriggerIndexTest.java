@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quartz.SimpleTrigger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WaitingTriggerIndexTest {
+
+    private WaitingTriggerIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        index = new WaitingTriggerIndex(new RepoJobStore().new TriggerComparator());
+    }
+
+    private static SimpleTrigger trigger(String name, long nextFireTime) {
+        SimpleTrigger trigger = new SimpleTrigger(name, "group", new Date(nextFireTime));
+        trigger.setNextFireTime(new Date(nextFireTime));
+        return trigger;
+    }
+
+    @Test
+    public void testFirstIsTheNextTriggerToFire() {
+        assertThat((Object) index.first()).isNull();
+        index.put("a", trigger("a", 3000));
+        index.put("b", trigger("b", 1000));
+        index.put("c", trigger("c", 2000));
+        assertThat(index.first().getName()).isEqualTo("b");
+
+        // Re-indexing a trigger replaces it
+        index.put("b", trigger("b", 4000));
+        assertThat(index.first().getName()).isEqualTo("c");
+        assertThat(index.getTriggers()).hasSize(3);
+
+        assertThat(index.remove("c")).isTrue();
+        assertThat(index.remove("c")).isFalse();
+        assertThat(index.first().getName()).isEqualTo("a");
+    }
+
+    @Test
+    public void testIndexedTriggersAreCopies() {
+        SimpleTrigger trigger = trigger("a", 1000);
+        index.put("a", trigger);
+        index.put("b", trigger("b", 2000));
+
+        // Changing the trigger after indexing it does not affect the index order
+        trigger.setNextFireTime(new Date(3000));
+        assertThat(index.first().getName()).isEqualTo("a");
+        assertThat(index.first().getNextFireTime().getTime()).isEqualTo(1000);
+    }
+
+    private static Map<String, String> revisions(String... idsAndRevisions) {
+        Map<String, String> revisions = new HashMap<>();
+        for (int i = 0; i < idsAndRevisions.length; i += 2) {
+            revisions.put(idsAndRevisions[i], idsAndRevisions[i + 1]);
+        }
+        return revisions;
+    }
+
+    @Test
+    public void testChangedIdsAreNewOrUpdatedTriggers() {
+        index.put("a", trigger("a", 1000), "0");
+        index.put("b", trigger("b", 2000), "0");
+        index.put("c", trigger("c", 3000), "0");
+        index.put("d", trigger("d", 4000), "0");
+        index.setNames(asList("a", "b", "c", "d"), "1");
+        assertThat(index.getRevision()).isEqualTo("1");
+
+        // b was updated, e was added, d was removed
+        assertThat(index.getChangedIds(asList("a", "c", "b", "e"), revisions("a", "0", "b", "1", "c", "0", "e", "0")))
+                .containsExactly("b", "e");
+        // an update which leaves the order of the list unchanged
+        assertThat(index.getChangedIds(asList("a", "b", "c", "d"), revisions("a", "0", "b", "0", "c", "0", "d", "1")))
+                .containsExactly("d");
+
+        index.retainAll(asList("a", "c", "b", "e"));
+        assertThat((Object) index.get("d")).isNull();
+        assertThat(index.getTriggers()).hasSize(3);
+    }
+
+    @Test
+    public void testChangedIdsDoNotDependOnTheListOrder() {
+        index.put("a", trigger("a", 1000), "0");
+        index.put("b", trigger("b", 2000), "0");
+        index.put("c", trigger("c", 3000), "0");
+        index.setNames(asList("a", "b", "c"), "1");
+
+        // another node updated c, then b: c is back in its previous position but its revision changed
+        assertThat(index.getChangedIds(asList("a", "c", "b"), revisions("a", "0", "b", "1", "c", "1")))
+                .containsExactly("c", "b");
+    }
+
+    @Test
+    public void testTriggersOfUnknownRevisionAreChanged() {
+        index.put("a", trigger("a", 1000));
+        index.put("b", trigger("b", 2000), "0");
+        index.setNames(asList("a", "b"), "1");
+
+        assertThat(index.getChangedIds(asList("a", "b"), revisions("a", "0", "b", "0"))).containsExactly("a");
+    }
+
+    @Test
+    public void testInvalidateKeepsTheTriggers() {
+        index.put("a", trigger("a", 1000));
+        index.setNames(asList("a"), "1");
+        index.invalidate();
+
+        assertThat(index.getRevision()).isNull();
+        assertThat(index.getNames()).containsExactly("a");
+        assertThat(index.first().getName()).isEqualTo("a");
+    }
+}
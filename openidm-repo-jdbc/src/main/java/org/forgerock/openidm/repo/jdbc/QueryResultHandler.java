@@ -0,0 +1,33 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc;
+
+import java.util.Map;
+
+/**
+ * Receives the records of a query one at a time, as they are read from the database cursor.
+ */
+public interface QueryResultHandler {
+
+    /**
+     * Handles a query result record.
+     *
+     * @param result the record, in the same JSON object structure as returned by
+     * {@link TableHandler#query(String, Map, java.sql.Connection)}
+     * @return true to continue reading records, false to stop and close the cursor
+     */
+    boolean handleResult(Map<String, Object> result);
+}
@@ -38,6 +38,7 @@ import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.util.query.QueryFilter;
 
 public interface TableHandler {
@@ -157,6 +158,26 @@ public interface TableHandler {
     public List<Map<String, Object>> query(String type, Map<String, Object> params, Connection connection)
                 throws SQLException, ResourceException;
 
+    /**
+     * Performs the query on the specified object and hands each result record to the handler as it
+     * is read from the database, instead of collecting all records first.
+     * <p>
+     * The records are read with the fetch size passed in the {@code TableQueries.FETCH_SIZE} parameter,
+     * if any; reading stops as soon as the handler returns false.
+     *
+     * @param type identifies the object to query.
+     * @param params the parameters of the query to perform.
+     * @param connection
+     * @param handler the handler of the result records.
+     * @throws BadRequestException if the specified params contain invalid arguments, e.g. a query id that is not
+     * configured, a query expression that is invalid, or missing query substitution tokens.
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws java.sql.SQLException
+     * @see #query(String, Map, Connection)
+     */
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+                throws SQLException, ResourceException;
+
     /**
      * Performs the command on the specified target and returns the number of affected objects
      * <p>
@@ -195,6 +216,16 @@ public interface TableHandler {
      * @return the raw query String
      */
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params);
+
+    /**
+     * Returns whether query filter results sorted by the given keys can be paged by seeking past the
+     * {@code _id} of the last object returned, rather than by skipping an offset. This requires the sort
+     * to be backed by the object id index.
+     *
+     * @param sortKeys the sort keys of the query, may be null
+     * @return true if keyset paging can be used with the sort keys
+     */
+    public boolean isKeysetPagingSupported(List<SortKey> sortKeys);
     
     /**
      * Query if a given exception signifies a well known error type
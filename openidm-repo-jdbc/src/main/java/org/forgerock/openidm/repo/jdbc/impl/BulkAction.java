@@ -0,0 +1,344 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_REVISION;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the {@code bulk} action of the JDBC repository: a list of create, update and delete operations,
+ * possibly on different object types, applied with one transaction and commit per chunk of operations.
+ * <p>
+ * The operations are grouped by {@link TableHandler} and each group is split into chunks of at most
+ * {@code chunkSize} operations, executed on a single connection and committed together. The object types of the
+ * created objects are added before the transaction of the chunk, as adding a type commits. If any operation
+ * of a chunk fails, the chunk is rolled back and its operations are applied one by one, so that each
+ * operation reports its own result or error.
+ * <p>
+ * The action content is an object with an {@code operations} list, each operation being an object such as
+ * <pre>
+ * { "operation" : "create", "resourcePath" : "link", "newResourceId" : "...", "content" : { ... } }
+ * { "operation" : "update", "resourcePath" : "link/...", "revision" : "0", "content" : { ... } }
+ * { "operation" : "delete", "resourcePath" : "link/...", "revision" : "1" }
+ * </pre>
+ * with resource paths relative to the path of the action request. The result is a list with, for each
+ * operation in order, either its {@code _id} and {@code _rev} or an {@code error} object.
+ */
+final class BulkAction {
+
+    final static Logger logger = LoggerFactory.getLogger(BulkAction.class);
+
+    static final String ACTION_BULK = "bulk";
+
+    static final String FIELD_OPERATIONS = "operations";
+    static final String FIELD_OPERATION = "operation";
+    static final String FIELD_RESOURCE_PATH = "resourcePath";
+    static final String FIELD_NEW_RESOURCE_ID = "newResourceId";
+    static final String FIELD_REVISION = "revision";
+    static final String FIELD_CONTENT = "content";
+    static final String FIELD_ERROR = "error";
+
+    enum Operation {
+        create, update, delete
+    }
+
+    /**
+     * A single operation of a bulk request.
+     */
+    private static final class BulkOperation {
+        final int index;
+        final Operation operation;
+        final String type;
+        final String localId;
+        final String revision;
+        final JsonValue content;
+
+        BulkOperation(int index, Operation operation, String type, String localId, String revision,
+                JsonValue content) {
+            this.index = index;
+            this.operation = operation;
+            this.type = type;
+            this.localId = localId;
+            this.revision = revision;
+            this.content = content;
+        }
+
+        String getFullId() {
+            return type + "/" + localId;
+        }
+    }
+
+    private final JDBCRepoService repoService;
+    private final int chunkSize;
+
+    /**
+     * @param repoService the repository service executing the operations
+     * @param chunkSize the maximum number of operations committed together
+     */
+    BulkAction(JDBCRepoService repoService, int chunkSize) {
+        this.repoService = repoService;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Executes the operations of a bulk request.
+     *
+     * @param resourcePath the path of the action request, which the operation resource paths are relative to
+     * @param content the content of the action request
+     * @return the result of each operation
+     * @throws BadRequestException if the content does not carry a list of operations
+     */
+    JsonValue execute(String resourcePath, JsonValue content) throws BadRequestException {
+        final JsonValue operations = content.get(FIELD_OPERATIONS);
+        if (!operations.isList()) {
+            throw new BadRequestException("The bulk action requires a list of " + FIELD_OPERATIONS);
+        }
+        final Object[] results = new Object[operations.size()];
+
+        // Group the operations by table handler, keeping their order within each group
+        final Map<TableHandler, List<BulkOperation>> groups = new IdentityHashMap<>();
+        final List<TableHandler> handlerOrder = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                BulkOperation operation = parse(i, resourcePath, operations.get(i));
+                TableHandler handler = repoService.getTableHandler(operation.type);
+                if (handler == null) {
+                    throw new InternalServerErrorException("No handler configured for resource type "
+                            + operation.type);
+                }
+                List<BulkOperation> group = groups.get(handler);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(handler, group);
+                    handlerOrder.add(handler);
+                }
+                group.add(operation);
+            } catch (ResourceException e) {
+                results[i] = error(operations.get(i), e);
+            }
+        }
+
+        for (TableHandler handler : handlerOrder) {
+            List<BulkOperation> group = groups.get(handler);
+            for (int from = 0; from < group.size(); from += chunkSize) {
+                List<BulkOperation> chunk = group.subList(from, Math.min(from + chunkSize, group.size()));
+                if (!executeChunk(handler, chunk, results)) {
+                    for (BulkOperation operation : chunk) {
+                        results[operation.index] = executeSingle(operation, operations.get(operation.index));
+                    }
+                }
+            }
+        }
+        return json(new ArrayList<>(Arrays.asList(results)));
+    }
+
+    private BulkOperation parse(int index, String resourcePath, JsonValue value) throws BadRequestException {
+        try {
+            Operation operation = Operation.valueOf(value.get(FIELD_OPERATION).required().asString());
+            String path = value.get(FIELD_RESOURCE_PATH).required().asString();
+            if (!resourcePath.isEmpty()) {
+                path = path.isEmpty() ? resourcePath : resourcePath + "/" + path;
+            }
+            String revision = value.get(FIELD_REVISION).asString();
+            JsonValue content = value.get(FIELD_CONTENT);
+            switch (operation) {
+            case create:
+                String newResourceId = value.get(FIELD_NEW_RESOURCE_ID).asString();
+                if (newResourceId == null || newResourceId.isEmpty()) {
+                    newResourceId = UUID.randomUUID().toString(); // Generate ID server side.
+                }
+                return new BulkOperation(index, operation, path, newResourceId, null, content.required().copy());
+            case update:
+            case delete:
+                int separator = path.lastIndexOf('/');
+                if (separator < 1) {
+                    throw new BadRequestException("The repository requires clients to supply an identifier for the "
+                            + "object to " + operation + " in bulk operation " + index);
+                }
+                if (operation == Operation.delete && revision == null) {
+                    throw new BadRequestException("Object passed into delete does not have revision it expects set "
+                            + "in bulk operation " + index);
+                }
+                return new BulkOperation(index, operation, path.substring(0, separator), path.substring(separator + 1),
+                        revision, operation == Operation.update ? content.required().copy() : null);
+            default:
+                throw new BadRequestException("Unsupported bulk operation " + operation);
+            }
+        } catch (JsonValueException | IllegalArgumentException e) {
+            throw new BadRequestException("Invalid bulk operation " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Executes a chunk of operations in a single transaction.
+     *
+     * @return true if all operations succeeded and were committed, false if the transaction was rolled back
+     */
+    private boolean executeChunk(TableHandler handler, List<BulkOperation> chunk, Object[] results) {
+        final Object[] chunkResults = new Object[chunk.size()];
+        Connection connection = null;
+        Integer previousIsolationLevel = null;
+        try {
+            connection = repoService.getConnection();
+            resolveTypes(handler, chunk, connection);
+            previousIsolationLevel = connection.getTransactionIsolation();
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            connection.setAutoCommit(false);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                chunkResults[i] = apply(handler, chunk.get(i), connection);
+            }
+
+            connection.commit();
+            logger.debug("Committed bulk chunk of {} operations", chunk.size());
+        } catch (SQLException | IOException | RuntimeException ex) {
+            // ResourceException is an IOException
+            logger.debug("Bulk chunk of {} operations failed, applying them one by one", chunk.size(), ex);
+            rollback(connection);
+            return false;
+        } finally {
+            if (connection != null) {
+                try {
+                    if (previousIsolationLevel != null) {
+                        connection.setTransactionIsolation(previousIsolationLevel);
+                    }
+                } catch (SQLException ex) {
+                    logger.warn("Failure in resetting connection isolation level ", ex);
+                }
+                CleanupHelper.loggedClose(connection);
+            }
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            results[chunk.get(i).index] = chunkResults[i];
+        }
+        return true;
+    }
+
+    /**
+     * Adds the object types of the created objects to the objecttypes table before the chunk transaction starts,
+     * since adding a type commits the transaction of its connection.
+     */
+    private static void resolveTypes(TableHandler handler, List<BulkOperation> chunk, Connection connection)
+            throws SQLException, InternalServerErrorException {
+        if (handler instanceof GenericTableHandler) {
+            for (BulkOperation operation : chunk) {
+                if (operation.operation == Operation.create) {
+                    ((GenericTableHandler) handler).getTypeId(operation.type, connection);
+                }
+            }
+        }
+    }
+
+    private Object apply(TableHandler handler, BulkOperation operation, Connection connection)
+            throws SQLException, IOException, ResourceException {
+        switch (operation.operation) {
+        case create:
+            Map<String, Object> created = new LinkedHashMap<>(operation.content.asMap());
+            handler.create(operation.getFullId(), operation.type, operation.localId, created, connection);
+            return result(created.get(FIELD_CONTENT_ID), created.get(FIELD_CONTENT_REVISION));
+        case update:
+            String revision = operation.revision;
+            if (revision == null || revision.isEmpty()) {
+                revision = handler.read(operation.getFullId(), operation.type, operation.localId, connection)
+                        .getRevision();
+            }
+            Map<String, Object> updated = new LinkedHashMap<>(operation.content.asMap());
+            handler.update(operation.getFullId(), operation.type, operation.localId, revision, updated, connection);
+            return result(updated.get(FIELD_CONTENT_ID), updated.get(FIELD_CONTENT_REVISION));
+        case delete:
+            handler.delete(operation.getFullId(), operation.type, operation.localId, operation.revision, connection);
+            return result(operation.localId, operation.revision);
+        default:
+            throw new BadRequestException("Unsupported bulk operation " + operation.operation);
+        }
+    }
+
+    /**
+     * Applies an operation on its own, with the retries and error handling of the single object operations.
+     */
+    private Object executeSingle(BulkOperation operation, JsonValue value) {
+        try {
+            ResourceResponse response;
+            switch (operation.operation) {
+            case create:
+                response = repoService.create(
+                        Requests.newCreateRequest(operation.type, operation.localId, operation.content.copy()));
+                break;
+            case update:
+                response = repoService.update(Requests.newUpdateRequest(operation.getFullId(),
+                        operation.content.copy()).setRevision(operation.revision));
+                break;
+            case delete:
+                response = repoService.delete(Requests.newDeleteRequest(operation.getFullId())
+                        .setRevision(operation.revision));
+                break;
+            default:
+                throw new BadRequestException("Unsupported bulk operation " + operation.operation);
+            }
+            return result(response.getId(), response.getRevision());
+        } catch (ResourceException e) {
+            logger.debug("Bulk {} of {} failed", operation.operation, operation.getFullId(), e);
+            return error(value, e);
+        }
+    }
+
+    private static Object result(Object id, Object revision) {
+        return object(field(FIELD_CONTENT_ID, id), field(FIELD_CONTENT_REVISION, revision));
+    }
+
+    private static Object error(JsonValue operation, ResourceException e) {
+        return object(
+                field(FIELD_OPERATION, operation.get(FIELD_OPERATION).getObject()),
+                field(FIELD_RESOURCE_PATH, operation.get(FIELD_RESOURCE_PATH).getObject()),
+                field(FIELD_ERROR, e.toJsonValue().getObject()));
+    }
+
+    private static void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                logger.debug("Rolling back transaction.");
+                connection.rollback();
+            } catch (SQLException ex) {
+                logger.warn("Rolling back transaction reported failure ", ex);
+            }
+        }
+    }
+}
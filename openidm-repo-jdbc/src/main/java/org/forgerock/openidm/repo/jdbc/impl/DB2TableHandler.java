@@ -134,7 +134,7 @@ public class DB2TableHandler extends GenericTableHandler {
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
         if (sortKeys != null && sortKeys.size() > 0) {
-            prepareSortKeyStatements(builder, sortKeys, replacementTokens);
+            prepareSortKeyStatements(builder, sortKeys, params, replacementTokens);
         } else {
             builder.orderBy("obj.id", false);
         }
@@ -167,7 +167,7 @@ public class DB2TableHandler extends GenericTableHandler {
         PreparedStatement readForUpdateStatement = null;
         ResultSet rs = null;
         try {
-            long typeId = readTypeId(type, connection);
+            long typeId = lookupTypeId(type, connection);
             if (typeId < 0) {
                 throw new NotFoundException("Object " + fullId + " not found. No id could be retrieved for type " + type);
             }
@@ -27,6 +27,7 @@ import java.util.Map;
 
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -82,7 +83,28 @@ public class GenericResultSetMapper implements ResultSetMapper {
      */
     @Override
     public List<Map<String, Object>> mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params) throws SQLException, IOException {
-        List<Map<String, Object>> result = new ArrayList<>();
+        final List<Map<String, Object>> result = new ArrayList<>();
+        mapToObject(rs, queryId, type, params, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> obj) {
+                result.add(obj);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Maps the ResultSet row by row to objects representing the OpenIDM object.
+     * 
+     * The cursor is moved one row at a time, and only as long as the handler
+     * accepts more rows.
+     * 
+     * @return the number of rows handed to the handler
+     */
+    @Override
+    public int mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params,
+            QueryResultHandler handler) throws SQLException, IOException {
         ResultSetMetaData rsMetaData = rs.getMetaData();
         boolean hasFullObject = hasColumn(rsMetaData, "fullobject");
         boolean hasId = false;
@@ -97,15 +119,16 @@ public class GenericResultSetMapper implements ResultSetMapper {
             hasPropValue = hasColumn(rsMetaData, "propvalue");
             hasTotal = hasColumn(rsMetaData, "total");
         }
+        int count = 0;
         while (rs.next()) {
+            Map<String, Object> obj;
             if (hasFullObject) {
                 String objString = rs.getString("fullobject");
-                Map<String, Object> obj = mapper.readValue(objString, typeRef);
+                obj = mapper.readValue(objString, typeRef);
                 // TODO: remove data logging
                 logger.trace("Query result for queryId: {} type: {} converted obj: {}", new Object[]{queryId, type, obj});
-                result.add(obj);
             } else {
-                Map<String, Object> obj = new HashMap<String, Object>();
+                obj = new HashMap<String, Object>();
                 if (hasId) {
                     obj.put("_id", rs.getString("objectid"));
                 }
@@ -123,10 +146,13 @@ public class GenericResultSetMapper implements ResultSetMapper {
                     JsonValue wrapped = new JsonValue(obj);
                     wrapped.put(pointer, propValue);
                 }
-                result.add(obj);
+            }
+            count++;
+            if (!handler.handleResult(obj)) {
+                break;
             }
         }
-        return result;
+        return count;
     }
     
     /**
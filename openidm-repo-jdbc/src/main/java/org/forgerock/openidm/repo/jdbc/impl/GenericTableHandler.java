@@ -29,9 +29,15 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.json.JsonPointer;
@@ -44,9 +50,13 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,6 +96,13 @@ public class GenericTableHandler implements TableHandler {
     
     Map<QueryDefinition, String> queryMap;
 
+    /** Ids of the rows of the objecttypes table by object type, which are never changed once assigned */
+    private final ConcurrentMap<String, Long> typeIds = new ConcurrentHashMap<>();
+
+    // Monitoring event names of the object type id cache
+    static final Name EVENT_TYPE_ID_HIT = Name.get("openidm/internal/repo/jdbc/objecttypes/cache/hit");
+    static final Name EVENT_TYPE_ID_MISS = Name.get("openidm/internal/repo/jdbc/objecttypes/cache/miss");
+
     final boolean enableBatching; // Whether to use JDBC statement batching.
     int maxBatchSize;       // The maximum number of statements to batch together. If max batch size is 1, do not use batching.
 
@@ -99,6 +116,9 @@ public class GenericTableHandler implements TableHandler {
         DELETEQUERYSTR,
         PROPCREATEQUERYSTR,
         PROPDELETEQUERYSTR,
+        PROPREADQUERYSTR,
+        PROPUPDATEQUERYSTR,
+        PROPKEYDELETEQUERYSTR,
         QUERYALLIDS
     }
 
@@ -192,6 +212,9 @@ public class GenericTableHandler implements TableHandler {
         // Object properties table
         result.put(QueryDefinition.PROPCREATEQUERYSTR, "INSERT INTO " + propertyTable + " ( " + mainTableName + "_id, propkey, proptype, propvalue) VALUES (?,?,?,?)");
         result.put(QueryDefinition.PROPDELETEQUERYSTR, "DELETE prop FROM " + propertyTable + " prop INNER JOIN " + mainTable + " obj ON prop." + mainTableName + "_id = obj.id INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ? AND obj.objectid = ?");
+        result.put(QueryDefinition.PROPREADQUERYSTR, "SELECT propkey, proptype, propvalue FROM " + propertyTable + " WHERE " + mainTableName + "_id = ?");
+        result.put(QueryDefinition.PROPUPDATEQUERYSTR, "UPDATE " + propertyTable + " SET proptype = ?, propvalue = ? WHERE " + mainTableName + "_id = ? AND propkey = ?");
+        result.put(QueryDefinition.PROPKEYDELETEQUERYSTR, "DELETE FROM " + propertyTable + " WHERE " + mainTableName + "_id = ? AND propkey = ?");
         // Default object queries
         String tableVariable =  dbSchemaName == null ? "${_mainTable}" : "${_dbSchema}.${_mainTable}";
         result.put(QueryDefinition.QUERYALLIDS, "SELECT obj.objectid FROM " + tableVariable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ${_resource}");
@@ -285,50 +308,161 @@ public class GenericTableHandler implements TableHandler {
      */
     void writeValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection) throws SQLException {
         if (cfg.hasPossibleSearchableProperties()) {
-            Integer batchingCount = 0;
-            PreparedStatement propCreateStatement = getPreparedStatement(connection, QueryDefinition.PROPCREATEQUERYSTR);
+            Map<String, SearchableProperty> properties = new LinkedHashMap<>();
+            collectValueProperties(value, properties);
+            insertValueProperties(fullId, dbId, properties, connection);
+        }
+    }
+
+    /**
+     * Updates the properties table rows of an existing resource to match its new searchable properties.
+     * <p>
+     * The rows currently stored for the resource are compared with the searchable properties of the new value,
+     * and only the properties that were added, removed or changed are inserted, deleted or updated. An update
+     * touching a single property, e.g. a login timestamp, thereby writes a single row rather than deleting and
+     * re-inserting every row of the resource.
+     *
+     * @param fullId the full URI of the resource the belongs to
+     * @param dbId the identifier linking the properties table with the main table (foreign key)
+     * @param value the JSON value with the new properties
+     * @param connection the DB connection
+     * @throws SQLException if reading or writing the properties failed
+     */
+    void updateValueProperties(String fullId, long dbId, JsonValue value, Connection connection) throws SQLException {
+        Map<String, SearchableProperty> properties = new LinkedHashMap<>();
+        if (cfg.hasPossibleSearchableProperties()) {
+            collectValueProperties(value, properties);
+        }
+
+        // Rows to delete by propkey, including all rows of a propkey stored more than once
+        Set<String> deletes = new LinkedHashSet<>();
+        Map<String, SearchableProperty> updates = new LinkedHashMap<>();
+        Map<String, SearchableProperty> inserts = new LinkedHashMap<>(properties);
+
+        Map<String, SearchableProperty> existing = new HashMap<>();
+        PreparedStatement readStatement = getPreparedStatement(connection, QueryDefinition.PROPREADQUERYSTR);
+        ResultSet rs = null;
+        try {
+            readStatement.setLong(1, dbId);
+            logger.debug("Executing: {}", readStatement);
+            rs = readStatement.executeQuery();
+            while (rs.next()) {
+                String propkey = rs.getString(1);
+                SearchableProperty stored = new SearchableProperty(rs.getString(2), rs.getString(3));
+                if (existing.put(propkey, stored) != null) {
+                    deletes.add(propkey);
+                }
+            }
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(readStatement);
+        }
+
+        for (Map.Entry<String, SearchableProperty> entry : existing.entrySet()) {
+            String propkey = entry.getKey();
+            if (deletes.contains(propkey)) {
+                // Duplicate rows are deleted and the property, if still present, inserted again
+                continue;
+            }
+            SearchableProperty property = inserts.get(propkey);
+            if (property == null) {
+                deletes.add(propkey);
+            } else {
+                inserts.remove(propkey);
+                if (!property.equals(entry.getValue())) {
+                    updates.put(propkey, property);
+                }
+            }
+        }
+        logger.debug("Update of properties for {}: {} deleted, {} updated, {} inserted, {} unchanged", fullId,
+                deletes.size(), updates.size(), inserts.size(), properties.size() - updates.size() - inserts.size());
+
+        if (!deletes.isEmpty()) {
+            PreparedStatement deleteStatement = getPreparedStatement(connection, QueryDefinition.PROPKEYDELETEQUERYSTR);
             try {
-                batchingCount = writeValueProperties(fullId, dbId, localId, value, connection, propCreateStatement, batchingCount);
-                if (enableBatching && batchingCount > 0) {
-                    int[] numUpdates = propCreateStatement.executeBatch();
-                    logger.debug("Batch update of objectproperties updated: {}", numUpdates);
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Writing batch of objectproperties, updated: {}", Arrays.asList(numUpdates));
-                    }
-                    propCreateStatement.clearBatch();
+                int batchingCount = 0;
+                for (String propkey : deletes) {
+                    deleteStatement.setLong(1, dbId);
+                    deleteStatement.setString(2, propkey);
+                    batchingCount = executeBatched(deleteStatement, batchingCount);
+                }
+                executeBatch(deleteStatement, batchingCount);
+            } finally {
+                CleanupHelper.loggedClose(deleteStatement);
+            }
+        }
+        if (!updates.isEmpty()) {
+            PreparedStatement updateStatement = getPreparedStatement(connection, QueryDefinition.PROPUPDATEQUERYSTR);
+            try {
+                int batchingCount = 0;
+                for (Map.Entry<String, SearchableProperty> entry : updates.entrySet()) {
+                    updateStatement.setString(1, entry.getValue().type);
+                    updateStatement.setString(2, entry.getValue().value);
+                    updateStatement.setLong(3, dbId);
+                    updateStatement.setString(4, entry.getKey());
+                    batchingCount = executeBatched(updateStatement, batchingCount);
                 }
+                executeBatch(updateStatement, batchingCount);
             } finally {
-                CleanupHelper.loggedClose(propCreateStatement);
+                CleanupHelper.loggedClose(updateStatement);
             }
         }
+        if (!inserts.isEmpty()) {
+            insertValueProperties(fullId, dbId, inserts, connection);
+        }
     }
+
     /**
-     * Internal recursive function to add/write properties.
-     * If batching is enabled, prepared statements are added to the batch and only executed if they hit the max limit.
-     * After completion returns the number of properties that have only been added to the batch but not yet executed.
-     * The caller is responsible for executing the batch on remaining items when it deems the batch complete.
-     *
-     * If batching is not enabled, prepared statements are immediately executed.
+     * Inserts properties into the properties table, batching the inserts if batching is enabled.
      *
      * @param fullId the full URI of the resource the belongs to
-     * @param dbId the generated identifier to link the properties table with the main table (foreign key)
-     * @param localId the local identifier of the resource these properties belong to
-     * @param value the JSON value with the properties to write
+     * @param dbId the identifier linking the properties table with the main table (foreign key)
+     * @param properties the properties to insert by propkey
      * @param connection the DB connection
-     * @param propCreateStatement the prepared properties insert statement
-     * @param batchingCount the current number of statements that have been batched and not yet executed on the prepared statement
-     * @return status of the current batchingCount, i.e. how many statements are not yet executed in the PreparedStatement
      * @throws SQLException if the insert failed
      */
-    private int writeValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection,
-            PreparedStatement propCreateStatement, int batchingCount) throws SQLException {
+    private void insertValueProperties(String fullId, long dbId, Map<String, SearchableProperty> properties,
+            Connection connection) throws SQLException {
+        PreparedStatement propCreateStatement = getPreparedStatement(connection, QueryDefinition.PROPCREATEQUERYSTR);
+        try {
+            int batchingCount = 0;
+            for (Map.Entry<String, SearchableProperty> entry : properties.entrySet()) {
+                String propkey = entry.getKey();
+                SearchableProperty property = entry.getValue();
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Populating statement {} with params {}, {}, {}, {}",
+                            queryMap.get(QueryDefinition.PROPCREATEQUERYSTR), dbId, propkey, property.type, property.value);
+                }
+                propCreateStatement.setLong(1, dbId);
+                propCreateStatement.setString(2, propkey);
+                propCreateStatement.setString(3, property.type);
+                propCreateStatement.setString(4, property.value);
+                logger.debug("Executing: {}", propCreateStatement);
+                batchingCount = executeBatched(propCreateStatement, batchingCount);
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inserting objectproperty id: {} propkey: {} proptype: {}, propvalue: {}",
+                            fullId, propkey, property.type, property.value);
+                }
+            }
+            executeBatch(propCreateStatement, batchingCount);
+        } finally {
+            CleanupHelper.loggedClose(propCreateStatement);
+        }
+    }
 
+    /**
+     * Internal recursive function collecting the searchable properties of a value, as they are stored in the
+     * properties table.
+     *
+     * @param value the JSON value with the properties
+     * @param properties the map collecting the properties by propkey
+     */
+    private void collectValueProperties(JsonValue value, Map<String, SearchableProperty> properties) {
         for (JsonValue entry : value) {
             JsonPointer propPointer = entry.getPointer();
             if (cfg.isSearchable(propPointer)) {
-                String propkey = propPointer.toString();
                 if (entry.isMap() || entry.isList()) {
-                    batchingCount = writeValueProperties(fullId, dbId, localId, entry, connection, propCreateStatement, batchingCount);
+                    collectValueProperties(entry, properties);
                 } else {
                     String propvalue = null;
                     Object val = entry.getObject();
@@ -339,39 +473,83 @@ public class GenericTableHandler implements TableHandler {
                     if (propvalue != null) {
                         proptype = entry.getObject().getClass().getName(); // TODO: proper type info
                     }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Populating statement {} with params {}, {}, {}, {}, {}",
-                                queryMap.get(QueryDefinition.PROPCREATEQUERYSTR), dbId, localId, propkey, proptype, propvalue);
-                    }
-                    propCreateStatement.setLong(1, dbId);
-                    propCreateStatement.setString(2, propkey);
-                    propCreateStatement.setString(3, proptype);
-                    propCreateStatement.setString(4, propvalue);
-                    logger.debug("Executing: {}", propCreateStatement);
-                    if (enableBatching) {
-                        propCreateStatement.addBatch();
-                        batchingCount++;
-                    } else {
-                        int numUpdate = propCreateStatement.executeUpdate();
-                    }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Inserting objectproperty id: {} propkey: {} proptype: {}, propvalue: {}", fullId, propkey, proptype, propvalue);
-                    }
-                }
-                if (enableBatching && batchingCount >= maxBatchSize) {
-                    int[] numUpdates = propCreateStatement.executeBatch();
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Batch limit reached, update of objectproperties updated: {}", Arrays.asList(numUpdates));
-                    }
-                    propCreateStatement.clearBatch();
-                    batchingCount = 0;
+                    properties.put(propPointer.toString(), new SearchableProperty(proptype, propvalue));
                 }
             }
         }
+    }
 
+    /**
+     * Executes the statement, or adds it to the batch if batching is enabled.
+     * If batching is enabled, the batch is only executed if it hits the max limit; the caller is responsible for
+     * executing the batch on remaining items when it deems the batch complete.
+     *
+     * @param statement the populated prepared statement
+     * @param batchingCount the current number of statements that have been batched and not yet executed
+     * @return how many statements are not yet executed in the PreparedStatement
+     * @throws SQLException if the execution failed
+     */
+    private int executeBatched(PreparedStatement statement, int batchingCount) throws SQLException {
+        if (!enableBatching) {
+            statement.executeUpdate();
+            return 0;
+        }
+        statement.addBatch();
+        if (++batchingCount >= maxBatchSize) {
+            int[] numUpdates = statement.executeBatch();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Batch limit reached, update of objectproperties updated: {}", Arrays.asList(numUpdates));
+            }
+            statement.clearBatch();
+            batchingCount = 0;
+        }
         return batchingCount;
     }
 
+    /**
+     * Executes the statements remaining in the batch.
+     *
+     * @param statement the prepared statement
+     * @param batchingCount the number of statements that have been batched and not yet executed
+     * @throws SQLException if the execution failed
+     */
+    private void executeBatch(PreparedStatement statement, int batchingCount) throws SQLException {
+        if (enableBatching && batchingCount > 0) {
+            int[] numUpdates = statement.executeBatch();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Writing batch of objectproperties, updated: {}", Arrays.asList(numUpdates));
+            }
+            statement.clearBatch();
+        }
+    }
+
+    /**
+     * The type and value of a searchable property as stored in the properties table.
+     */
+    private static final class SearchableProperty {
+        final String type;
+        final String value;
+
+        SearchableProperty(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SearchableProperty)) {
+                return false;
+            }
+            SearchableProperty other = (SearchableProperty) o;
+            return Objects.equals(type, other.type) && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, value);
+        }
+    }
+
     /**
      * @inheritDoc
      */
@@ -392,7 +570,7 @@ public class GenericTableHandler implements TableHandler {
     // Callers should note that this may commit a transaction and start a new one if a new type gets added
     long getTypeId(String type, Connection connection) throws SQLException, InternalServerErrorException {
         Exception detectedEx = null;
-        long typeId = readTypeId(type, connection);
+        long typeId = lookupTypeId(type, connection);
         if (typeId < 0) {
             connection.setAutoCommit(true); // Commit the new type right away, and have no transaction isolation for read
             try {
@@ -403,7 +581,7 @@ public class GenericTableHandler implements TableHandler {
                 // Could extend this in the future to more explicitly check for duplicate key error codes, but these again can be DB specific
                 detectedEx = ex;
             }
-            typeId = readTypeId(type, connection);
+            typeId = lookupTypeId(type, connection);
             if (typeId < 0) {
                 throw new InternalServerErrorException("Failed to populate and look up objecttypes table, no id could be retrieved for " + type, detectedEx);
             }
@@ -412,6 +590,40 @@ public class GenericTableHandler implements TableHandler {
         return typeId;
     }
 
+    /**
+     * Looks up the id of an object type, reading it from the objecttypes table only the first time it is found.
+     *
+     * @param type       the object type URI
+     * @param connection the DB connection
+     * @return the typeId for the given type if exists, or -1 if does not exist
+     * @throws java.sql.SQLException
+     */
+    long lookupTypeId(String type, Connection connection) throws SQLException {
+        Long cached = typeIds.get(type);
+        if (cached != null) {
+            Publisher.start(EVENT_TYPE_ID_HIT, type, null).end();
+            return cached;
+        }
+        EventEntry measure = Publisher.start(EVENT_TYPE_ID_MISS, type, null);
+        try {
+            long typeId = readTypeId(type, connection);
+            if (typeId >= 0) {
+                // Types are inserted in their own transaction, so a type that was read has been committed
+                typeIds.putIfAbsent(type, typeId);
+            }
+            return typeId;
+        } finally {
+            measure.end();
+        }
+    }
+
+    /**
+     * Drops the cached object type ids, so that they are read again from the objecttypes table.
+     */
+    void clearTypeIdCache() {
+        typeIds.clear();
+    }
+
     /**
      * @param type       the object type URI
      * @param connection the DB connection
@@ -518,7 +730,6 @@ public class GenericTableHandler implements TableHandler {
         obj.put("_rev", newRev); // Save the rev in the object, and return the changed rev from the create.
 
         PreparedStatement updateStatement = null;
-        PreparedStatement deletePropStatement = null;
         try {
             JsonValue result = new JsonValue(readForUpdate(fullId, type, localId, connection));
             String existingRev = result.get(Constants.RAW_OBJECT_REV).asString();
@@ -530,7 +741,6 @@ public class GenericTableHandler implements TableHandler {
                 throw new PreconditionFailedException("Update rejected as current Object revision " + existingRev + " is different than expected by caller (" + rev + "), the object has changed since retrieval.");
             }
             updateStatement = getPreparedStatement(connection, QueryDefinition.UPDATEQUERYSTR);
-            deletePropStatement = getPreparedStatement(connection, QueryDefinition.PROPDELETEQUERYSTR);
 
             // Support changing object identifier
             String newLocalId = (String) obj.get(Constants.OBJECT_ID);
@@ -555,17 +765,9 @@ public class GenericTableHandler implements TableHandler {
             }
 
             JsonValue jv = new JsonValue(obj);
-            // TODO: only update what changed?
-            logger.trace("Populating prepared statement {} for {} {} {}", deletePropStatement, fullId, type, localId);
-            deletePropStatement.setString(1, type);
-            deletePropStatement.setString(2, localId);
-            logger.debug("Update properties del statement: {}", deletePropStatement);
-            int deleteCount = deletePropStatement.executeUpdate();
-            logger.trace("Deleted child rows: {} for: {}", deleteCount, fullId);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            updateValueProperties(fullId, dbId, jv, connection);
         } finally {
             CleanupHelper.loggedClose(updateStatement);
-            CleanupHelper.loggedClose(deletePropStatement);
         }
     }
 
@@ -623,11 +825,22 @@ public class GenericTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+            throws ResourceException {
+        queries.query(type, params, connection, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
     }
 
+    @Override
+    public boolean isKeysetPagingSupported(List<SortKey> sortKeys) {
+        return KeysetPaging.isIdSort(sortKeys);
+    }
+
     @Override
     public String toString() {
         return "Generic handler mapped to [" + mainTableName + ", " + propTableName + "]";
@@ -681,22 +894,36 @@ public class GenericTableHandler implements TableHandler {
         // JsonValue-cheat to avoid an unchecked cast
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
-        prepareSortKeyStatements(builder, sortKeys, replacementTokens);
+        prepareSortKeyStatements(builder, sortKeys, params, replacementTokens);
 
         return builder.toSQL();
     }
 
     /**
      * Loops through sort keys constructing the inner join and key statements.
+     * <p>
+     * A sort on {@code _id} alone orders by the indexed object id column instead of joining the properties
+     * table, and seeks past the last id of the previous page if the query is keyset paged.
      *
      * @param builder the SQL builder
      * @param sortKeys a {@link java.util.List} of sort keys
+     * @param params a map containing query parameters
      * @param replacementTokens a {@link java.util.Map} containing replacement tokens for the {@link java.sql.PreparedStatement}
      */
-    protected void prepareSortKeyStatements(SQLBuilder builder, List<SortKey> sortKeys, Map<String, Object> replacementTokens) {
+    protected void prepareSortKeyStatements(SQLBuilder builder, List<SortKey> sortKeys, Map<String, Object> params,
+            Map<String, Object> replacementTokens) {
         if (sortKeys == null) {
             return;
         }
+        if (isKeysetPagingSupported(sortKeys)) {
+            builder.orderBy("obj.objectid", sortKeys.get(0).isAscendingOrder());
+            Object afterId = params.get(KeysetPaging.PAGED_RESULTS_AFTER_ID);
+            if (afterId != null) {
+                builder.seek("obj.objectid", KeysetPaging.seekOperator(sortKeys), "afterId");
+                replacementTokens.put("afterId", afterId);
+            }
+            return;
+        }
         for (int i = 0; i < sortKeys.size(); i++) {
             final SortKey sortKey = sortKeys.get(i);
             final String tokenName = "sortKey" + i;
@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 import org.forgerock.openidm.datasource.DataSourceService;
 import org.forgerock.openidm.smartevent.EventEntry;
@@ -79,7 +80,9 @@ import org.forgerock.openidm.repo.RepoBootService;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.openidm.repo.jdbc.DatabaseType;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.util.Accessor;
 import org.forgerock.util.promise.Promise;
 import org.osgi.framework.BundleContext;
@@ -124,6 +127,10 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     public static final String CONFIG_DB_TYPE = "dbType";
     public static final String CONFIG_MAX_TX_RETRY = "maxTxRetry";
     public static final String CONFIG_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String CONFIG_QUERY_FETCH_SIZE = "queryFetchSize";
+    public static final String CONFIG_MAX_STREAMING_QUERIES = "maxStreamingQueries";
+
+    private static final int DEFAULT_MAX_STREAMING_QUERIES = 5;
 
     Map<String, TableHandler> tableHandlers;
     TableHandler defaultTableHandler;
@@ -132,6 +139,14 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
     private JsonValue config;
     private int maxTxRetry = 5;
+    private int queryFetchSize = 0;
+    private int maxBatchSize = 100;
+
+    /** Permits of the queries holding their connection while their results are streamed to the handler */
+    private Semaphore streamingQueries = new Semaphore(DEFAULT_MAX_STREAMING_QUERIES);
+
+    /** Set while the current thread streams query results to a handler */
+    private final ThreadLocal<Boolean> streamingQuery = new ThreadLocal<>();
 
     /** CryptoService for detecting whether a value is encrypted */
     @Reference
@@ -226,6 +241,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     void modified(ComponentContext compContext) throws Exception {
         logger.debug("Reconfiguring the JDBC Repository Service with configuration {}", compContext
                 .getProperties());
+        clearTypeIdCaches();
         try {
             JsonValue newConfig = enhancedConfig.getConfigurationAsJson(compContext);
             if (hasConfigChanged(config, newConfig)) {
@@ -241,6 +257,22 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Drops the object type ids cached by the generic table handlers.
+     */
+    private void clearTypeIdCaches() {
+        if (defaultTableHandler instanceof GenericTableHandler) {
+            ((GenericTableHandler) defaultTableHandler).clearTypeIdCache();
+        }
+        if (tableHandlers != null) {
+            for (TableHandler handler : tableHandlers.values()) {
+                if (handler instanceof GenericTableHandler) {
+                    ((GenericTableHandler) handler).clearTypeIdCache();
+                }
+            }
+        }
+    }
+
     @Override
     public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
         try {
@@ -578,35 +610,48 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             // the index of the first result to be returned.
             final int requestPageSize = request.getPageSize();
 
-            // Cookie containing offset of last request
+            // Cookie containing offset of last request, or the _id of the last result if keyset paged
             final String pagedResultsCookie = request.getPagedResultsCookie();
 
             final boolean pagedResultsRequested = requestPageSize > 0;
 
+            final TableHandler tableHandler = pagedResultsRequested
+                    ? getTableHandler(trimStartingSlash(request.getResourcePath()))
+                    : null;
+
+            // Query filter results sorted by _id are paged by seeking past the last _id, rather than by offset
+            final boolean keysetPaging = tableHandler != null
+                    && request.getQueryFilter() != null
+                    && tableHandler.isKeysetPagingSupported(request.getSortKeys());
+
             // index of first record (used for SKIP/OFFSET)
-            final int firstResultIndex;
+            int firstResultIndex = 0;
+
+            // _id of the last record of the previous page (used for keyset paging)
+            String pagedResultsAfterId = null;
 
             if (pagedResultsRequested) {
-                if (!isNullOrEmpty(pagedResultsCookie)) {
+                if (isNullOrEmpty(pagedResultsCookie)) {
+                    firstResultIndex = Math.max(0, request.getPagedResultsOffset());
+                } else if (KeysetPaging.isKeysetCookie(pagedResultsCookie)) {
+                    if (!keysetPaging) {
+                        throw new BadRequestException("Invalid paged results cookie");
+                    }
+                    pagedResultsAfterId = KeysetPaging.decodeCookie(pagedResultsCookie);
+                } else {
                     try {
                         firstResultIndex = Integer.parseInt(pagedResultsCookie);
                     } catch (final NumberFormatException e) {
                         throw new BadRequestException("Invalid paged results cookie");
                     }
-                } else {
-                    firstResultIndex = Math.max(0, request.getPagedResultsOffset());
                 }
-            } else {
-                firstResultIndex = 0;
             }
 
             // Once cookie is processed Queries.query() can rely on the offset.
             request.setPagedResultsOffset(firstResultIndex);
 
-            List<ResourceResponse> results = query(request);
-            for (ResourceResponse result : results) {
-                handler.handleResource(result);
-            }
+            final ResultCounter counter = new ResultCounter(handler);
+            query(request, pagedResultsAfterId, counter);
 
             /*
              * Execute additional -count query if we are paging
@@ -617,8 +662,6 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             final int resultCount;
 
             if (pagedResultsRequested) {
-                TableHandler tableHandler = getTableHandler(trimStartingSlash(request.getResourcePath()));
-
                 // count if requested
                 switch (request.getTotalPagedResultsPolicy()) {
                     case ESTIMATE:
@@ -653,10 +696,12 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                         break;
                 }
 
-                if (results.size() < requestPageSize) {
+                if (counter.count < requestPageSize) {
                     nextCookie = null;
+                } else if (keysetPaging) {
+                    nextCookie = KeysetPaging.newCookie(counter.lastId);
                 } else {
-                    final int remainingResults = resultCount - (firstResultIndex + results.size());
+                    final int remainingResults = resultCount - (firstResultIndex + counter.count);
                     if (remainingResults == 0) {
                         nextCookie = null;
                     } else {
@@ -680,8 +725,101 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Counts the results passed on to a query handler, and remembers the last one for the paged results cookie.
+     */
+    private static final class ResultCounter implements QueryResourceHandler {
+        private final QueryResourceHandler handler;
+        private int count;
+        private String lastId;
+
+        ResultCounter(QueryResourceHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean handleResource(ResourceResponse resource) {
+            count++;
+            lastId = resource.getId();
+            return handler.handleResource(resource);
+        }
+    }
+
     @Override
     public List<ResourceResponse> query(QueryRequest request) throws ResourceException {
+        return query(request, null);
+    }
+
+    /**
+     * Performs the query, optionally restricted to the results following a given {@code _id}, and collects
+     * the results. The connection is released before the results are returned.
+     *
+     * @param request the query request
+     * @param pagedResultsAfterId the {@code _id} of the last result of the previous page if keyset paged,
+     * or null
+     * @return the query results, at most a page of them if paged results are requested
+     * @throws ResourceException on failure to execute the query
+     */
+    private List<ResourceResponse> query(QueryRequest request, String pagedResultsAfterId)
+            throws ResourceException {
+        final List<ResourceResponse> results = new ArrayList<>();
+        executeQuery(request, pagedResultsAfterId, new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                results.add(resource);
+                return true;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Performs the query, optionally restricted to the results following a given {@code _id}, and hands
+     * each result to the handler.
+     * <p>
+     * The results are streamed to the handler as they are read from the cursor, on a connection held until
+     * the handler has seen the last result or has returned false. As the handler may use the repository while
+     * the query holds its connection, at most {@code maxStreamingQueries} queries stream at once, leaving the
+     * rest of the pool to the handlers. Beyond that, and for the queries run by the handler of a streaming
+     * query, the results are collected and the connection is released before the handler sees them.
+     *
+     * @param request the query request
+     * @param pagedResultsAfterId the {@code _id} of the last result of the previous page if keyset paged,
+     * or null
+     * @param handler the handler of the query results
+     * @throws ResourceException on failure to execute the query
+     */
+    private void query(QueryRequest request, String pagedResultsAfterId, QueryResourceHandler handler)
+            throws ResourceException {
+        final Semaphore permits = streamingQueries;
+        if (streamingQuery.get() == null && permits.tryAcquire()) {
+            streamingQuery.set(Boolean.TRUE);
+            try {
+                executeQuery(request, pagedResultsAfterId, handler);
+            } finally {
+                streamingQuery.remove();
+                permits.release();
+            }
+        } else {
+            for (ResourceResponse result : query(request, pagedResultsAfterId)) {
+                if (!handler.handleResource(result)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the query and hands each result to the handler as it is read from the cursor.
+     *
+     * @param request the query request
+     * @param pagedResultsAfterId the {@code _id} of the last result of the previous page if keyset paged,
+     * or null
+     * @param handler the handler of the query results, called while the connection is held
+     * @throws ResourceException on failure to execute the query
+     */
+    private void executeQuery(QueryRequest request, String pagedResultsAfterId,
+            final QueryResourceHandler handler) throws ResourceException {
         String fullId = request.getResourcePath();
         String type = trimStartingSlash(fullId);
         logger.trace("Full id: {} Extracted type: {}", fullId, type);
@@ -693,6 +831,12 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         params.put(PAGE_SIZE, request.getPageSize());
         params.put(PAGED_RESULTS_OFFSET, request.getPagedResultsOffset());
         params.put(SORT_KEYS, request.getSortKeys());  
+        params.put(TableQueries.FETCH_SIZE, queryFetchSize);
+        if (pagedResultsAfterId != null) {
+            params.put(KeysetPaging.PAGED_RESULTS_AFTER_ID, pagedResultsAfterId);
+        } else {
+            params.remove(KeysetPaging.PAGED_RESULTS_AFTER_ID);
+        }
 
         Connection connection = null;
         try {
@@ -705,16 +849,15 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             connection.setAutoCommit(true); // Ensure we do not implicitly
                                             // start transaction isolation
 
-            List<Map<String, Object>> docs = tableHandler.query(type, params, connection);
-            List<ResourceResponse> results = new ArrayList<>();
-            for (Map<String, Object> resultMap : docs) {
-                String id = (String) resultMap.get("_id");
-                String rev = (String) resultMap.get("_rev");
-                JsonValue value = new JsonValue(resultMap);
-                ResourceResponse resultResource = newResourceResponse(id, rev, value);
-                results.add(resultResource);
-            }
-            return results;
+            tableHandler.query(type, params, connection, new QueryResultHandler() {
+                @Override
+                public boolean handleResult(Map<String, Object> resultMap) {
+                    String id = (String) resultMap.get("_id");
+                    String rev = (String) resultMap.get("_rev");
+                    JsonValue value = new JsonValue(resultMap);
+                    return handler.handleResource(newResourceResponse(id, rev, value));
+                }
+            });
         } catch (SQLException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
@@ -734,6 +877,9 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         try {
             if (ACTION_COMMAND.equalsIgnoreCase(request.getAction())) {
                 return command(request).asPromise();
+            } else if (BulkAction.ACTION_BULK.equalsIgnoreCase(request.getAction())) {
+                return newActionResponse(new BulkAction(this, maxBatchSize)
+                        .execute(request.getResourcePathObject().toString(), request.getContent())).asPromise();
             } else {
                 throw new NotSupportedException("Action operations are not supported");
             }
@@ -892,7 +1038,10 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                     .defaultTo(DatabaseType.ANSI_SQL99.name())
                     .as(enumConstant(DatabaseType.class));
             maxTxRetry = config.get(CONFIG_MAX_TX_RETRY).defaultTo(5).asInteger();
-            int maxBatchSize = config.get(CONFIG_MAX_BATCH_SIZE).defaultTo(100).asInteger();
+            queryFetchSize = config.get(CONFIG_QUERY_FETCH_SIZE).defaultTo(0).asInteger();
+            streamingQueries = new Semaphore(
+                    config.get(CONFIG_MAX_STREAMING_QUERIES).defaultTo(DEFAULT_MAX_STREAMING_QUERIES).asInteger());
+            maxBatchSize = config.get(CONFIG_MAX_BATCH_SIZE).defaultTo(100).asInteger();
 
             JsonValue defaultMapping = config.get("resourceMapping").get("default");
             if (!defaultMapping.isNull()) {
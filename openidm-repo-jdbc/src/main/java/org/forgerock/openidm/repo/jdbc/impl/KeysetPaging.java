@@ -0,0 +1,99 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.jdbc.Constants;
+
+/**
+ * Support for keyset (seek) paging of query filter results sorted by {@code _id}.
+ * <p>
+ * Rather than encoding the offset of the next page, a keyset paged results cookie encodes the {@code _id}
+ * of the last object returned. The next page is then selected with a predicate such as
+ * {@code objectid > ?} on the indexed object id column, so that reading page N costs the same as reading
+ * the first page instead of growing with the number of rows skipped.
+ */
+final class KeysetPaging {
+
+    /** Query parameter carrying the {@code _id} after which the requested page starts */
+    static final String PAGED_RESULTS_AFTER_ID = "_pagedResultsAfterId";
+
+    /** Distinguishes keyset cookies from offset cookies, which are plain integers */
+    private static final String COOKIE_PREFIX = "id:";
+
+    private static final JsonPointer OBJECT_ID = new JsonPointer(Constants.OBJECT_ID);
+
+    private KeysetPaging() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns whether results sorted by the given keys can be paged by seeking past the last {@code _id}.
+     *
+     * @param sortKeys the sort keys of the query, may be null
+     * @return true if the results are sorted by {@code _id} only
+     */
+    static boolean isIdSort(List<SortKey> sortKeys) {
+        return sortKeys != null && sortKeys.size() == 1 && OBJECT_ID.equals(sortKeys.get(0).getField());
+    }
+
+    /**
+     * Returns the comparison operator selecting the objects after the last returned one.
+     *
+     * @param sortKeys the sort keys of the query, as accepted by {@link #isIdSort(List)}
+     * @return {@code >} for an ascending sort, {@code <} for a descending sort
+     */
+    static String seekOperator(List<SortKey> sortKeys) {
+        return sortKeys.get(0).isAscendingOrder() ? ">" : "<";
+    }
+
+    /**
+     * @param cookie a paged results cookie
+     * @return whether the cookie is a keyset cookie
+     */
+    static boolean isKeysetCookie(String cookie) {
+        return cookie.startsWith(COOKIE_PREFIX);
+    }
+
+    /**
+     * @param lastId the {@code _id} of the last object of a page
+     * @return the cookie of the next page
+     */
+    static String newCookie(String lastId) {
+        return COOKIE_PREFIX
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cookie a keyset cookie
+     * @return the {@code _id} of the last object of the previous page
+     * @throws BadRequestException if the cookie is malformed
+     */
+    static String decodeCookie(String cookie) throws BadRequestException {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cookie.substring(COOKIE_PREFIX.length())),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid paged results cookie");
+        }
+    }
+}
@@ -58,7 +58,7 @@ public class MSSQLMappedTableHandler extends MappedTableHandler {
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
         final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-        String filterString = getFilterString(filter, replacementTokens);
+        String filterString = getFilterString(filter, replacementTokens, params);
         String keysClause = "";
         
         // JsonValue-cheat to avoid an unchecked cast
@@ -46,6 +46,7 @@ import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
@@ -474,6 +475,12 @@ public class MappedTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+            throws ResourceException {
+        queries.query(type, params, connection, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
@@ -519,7 +526,7 @@ public class MappedTableHandler implements TableHandler {
         }
 
         return "SELECT obj.* FROM ${_dbSchema}.${_mainTable} obj"
-                + getFilterString(filter, replacementTokens)
+                + getFilterString(filter, replacementTokens, params)
                 + pageClause;
     }
 
@@ -548,4 +555,40 @@ public class MappedTableHandler implements TableHandler {
     protected String getFilterString(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens) {
         return " WHERE " + filter.accept(queryFilterVisitor, replacementTokens).toSQL();
     }
+
+    /**
+     * Returns a query string representing the supplied filter, restricted to the objects following the
+     * previous page if the query is keyset paged.
+     *
+     * @param filter the {@link QueryFilter} object
+     * @param replacementTokens replacement tokens for the query string
+     * @param params a map containing query parameters
+     * @return a query string
+     */
+    protected String getFilterString(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens,
+            Map<String, Object> params) {
+        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
+        final Object afterId = params.get(KeysetPaging.PAGED_RESULTS_AFTER_ID);
+        if (afterId == null || !isKeysetPagingSupported(sortKeys)) {
+            return getFilterString(filter, replacementTokens);
+        }
+        replacementTokens.put("afterId", afterId);
+        return " WHERE (" + filter.accept(queryFilterVisitor, replacementTokens).toSQL() + ") AND "
+                + explicitMapping.getDbColumnName(sortKeys.get(0).getField()) + " "
+                + KeysetPaging.seekOperator(sortKeys) + " ${afterId}";
+    }
+
+    @Override
+    public boolean isKeysetPagingSupported(List<SortKey> sortKeys) {
+        if (!KeysetPaging.isIdSort(sortKeys)) {
+            return false;
+        }
+        try {
+            // The column mapped to _id is the indexed key of explicit tables
+            explicitMapping.getDbColumnName(sortKeys.get(0).getField());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
@@ -52,7 +52,7 @@ public class OracleMappedTableHandler extends MappedTableHandler {
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
         final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-        String filterString = getFilterString(filter, replacementTokens);
+        String filterString = getFilterString(filter, replacementTokens, params);
         final String keysClause;
 
         // JsonValue-cheat to avoid an unchecked cast
@@ -177,7 +177,7 @@ public class OracleTableHandler extends GenericTableHandler {
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
         if (sortKeys != null && sortKeys.size() > 0) {
-            prepareSortKeyStatements(builder, sortKeys, replacementTokens);
+            prepareSortKeyStatements(builder, sortKeys, params, replacementTokens);
         } else {
             builder.orderBy("obj.id", false);
         }
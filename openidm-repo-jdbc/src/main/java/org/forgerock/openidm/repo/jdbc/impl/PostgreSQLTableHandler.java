@@ -151,8 +151,18 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
         
         // JsonValue-cheat to avoid an unchecked cast
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
+        String seekClause = "";
         // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
+        if (isKeysetPagingSupported(sortKeys)) {
+            // Order by the indexed object id, and seek past the previous page if keyset paged
+            pageClause = " ORDER BY obj.objectid" + (sortKeys.get(0).isAscendingOrder() ? " ASC" : " DESC")
+                    + pageClause;
+            Object afterId = params.get(KeysetPaging.PAGED_RESULTS_AFTER_ID);
+            if (afterId != null) {
+                seekClause = " AND obj.objectid " + KeysetPaging.seekOperator(sortKeys) + " ${afterId}";
+                replacementTokens.put("afterId", afterId);
+            }
+        } else if (sortKeys != null && sortKeys.size() > 0) {
             List<String> keys = new ArrayList<String>();
             for (int i = 0; i < sortKeys.size(); i++) {
                 final SortKey sortKey = sortKeys.get(i);
@@ -167,7 +177,8 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
         return "SELECT fullobject::text"
                 + " FROM ${_dbSchema}.${_mainTable} obj"
                 + " INNER JOIN ${_dbSchema}.objecttypes objtype ON objtype.id = obj.objecttypes_id AND objtype.objecttype = ${otype}"
-                + " WHERE "
-                + filter.accept(new JsonExtractPathQueryFilterVisitor(), replacementTokens).toSQL() + pageClause;
+                + " WHERE ("
+                + filter.accept(new JsonExtractPathQueryFilterVisitor(), replacementTokens).toSQL() + ")"
+                + seekClause + pageClause;
     }
 }
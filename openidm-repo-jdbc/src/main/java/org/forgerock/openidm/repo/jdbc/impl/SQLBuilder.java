@@ -188,6 +188,8 @@ abstract class SQLBuilder implements SQLRenderer<String> {
     private final List<SQLRenderer<String>> joins = new ArrayList<SQLRenderer<String>>();
     // the where clause is not final because it is not set at build time
     private SQLRenderer<String> whereClause = null;
+    // optional keyset paging predicate, and-ed to the where clause
+    private String seekClause = null;
     private final List<SQLRenderer<String>> orderBys = new ArrayList<SQLRenderer<String>>();
 
     /**
@@ -314,6 +316,19 @@ abstract class SQLBuilder implements SQLRenderer<String> {
         return this;
     }
 
+    /**
+     * Restrict the results to the rows following a given key, for keyset paging.
+     *
+     * @param column the indexed column the results are ordered by
+     * @param operator the comparison operator, {@code >} for ascending or {@code <} for descending order
+     * @param placeholder the name of the replacement token holding the last key of the previous page
+     * @return the builder
+     */
+    SQLBuilder seek(String column, String operator, String placeholder) {
+        this.seekClause = column + " " + operator + " ${" + placeholder + "}";
+        return this;
+    }
+
     /**
      * Add an order-by clause.
      *
@@ -399,7 +414,9 @@ abstract class SQLBuilder implements SQLRenderer<String> {
         return new SQLRenderer<String>() {
             @Override
             public String toSQL() {
-                return " WHERE " + whereClause.toSQL();
+                return seekClause == null
+                        ? " WHERE " + whereClause.toSQL()
+                        : " WHERE (" + whereClause.toSQL() + ") AND " + seekClause;
             }
         };
     }
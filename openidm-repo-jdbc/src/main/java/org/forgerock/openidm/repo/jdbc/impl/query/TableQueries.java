@@ -43,6 +43,7 @@ import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.CleanupHelper;
 import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.QueryDefinition;
@@ -69,6 +70,9 @@ public class TableQueries {
     public static final String PREFIX_INT = "int";
     
     public static final String PREFIX_LIST = "list";
+
+    /** Query parameter carrying the JDBC fetch size of streamed queries */
+    public static final String FETCH_SIZE = "_fetchSize";
     
     // Monitoring event name prefix
     static final String EVENT_RAW_QUERY_PREFIX = "openidm/internal/repo/jdbc/raw/query/";
@@ -283,8 +287,48 @@ public class TableQueries {
      */
     public List<Map<String, Object>> query(final String type, Map<String, Object> params, Connection con)
             throws ResourceException {
+        final List<Map<String, Object>> result = new ArrayList<>();
+        query(type, params, con, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> obj) {
+                result.add(obj);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Execute a query, either a pre-configured query by using the query ID, or
+     * a query expression passed as part of the params, and hand each result
+     * record to the handler as it is read from the database cursor.
+     *
+     * If the params carry a positive {@link #FETCH_SIZE}, it is set on the
+     * statement so that the driver fetches that many rows per round trip rather
+     * than its own default. Reading stops, and the cursor is closed, as soon as
+     * the handler returns false.
+     *
+     * @param type
+     *            the resource component name targeted by the URI
+     * @param params
+     *            the parameters which include the query id, or the query
+     *            expression, as well as the token key/value pairs to replace in
+     *            the query
+     * @param con
+     *            a handle to a database connection newBuilder for exclusive use
+     *            by the query method whilst it is executing.
+     * @param handler
+     *            the handler of the result records
+     * @throws BadRequestException
+     *             if the passed request parameters are invalid, e.g. missing
+     *             query id or query expression or tokens.
+     * @throws InternalServerErrorException
+     *             if the preparing or executing the query fails because of
+     *             configuration or DB issues
+     */
+    public void query(final String type, Map<String, Object> params, Connection con, QueryResultHandler handler)
+            throws ResourceException {
 
-        List<Map<String, Object>> result = null;
         params.put(ServerConstants.RESOURCE_NAME, type);
 
         // If paged results are requested then decode the cookie in order to determine
@@ -343,9 +387,12 @@ public class TableQueries {
         EventEntry measure = Publisher.start(eventName, foundQuery, null);
         ResultSet rs = null;
         try {
+            Object fetchSize = params.get(FETCH_SIZE);
+            if (fetchSize instanceof Integer && (Integer) fetchSize > 0) {
+                foundQuery.setFetchSize((Integer) fetchSize);
+            }
             rs = foundQuery.executeQuery();
-            result = resultMapper.mapToObject(rs, queryId, type, params);
-            measure.setResult(result);
+            measure.setResult(resultMapper.mapToObject(rs, queryId, type, params, handler));
         } catch (SQLException ex) {
             logger.debug("DB reported failure executing query " +
                             "{} with params: {} error code: {} sqlstate: {} message: {}",
@@ -360,7 +407,6 @@ public class TableQueries {
             CleanupHelper.loggedClose(foundQuery);
             measure.end();
         }
-        return result;
     }
 
     public Integer command(final String type, Map<String, Object> params, Connection con)
@@ -0,0 +1,167 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of the bulk action of the JDBC repository
+ */
+public class BulkActionTest {
+
+    private JDBCRepoService repoService;
+    private TableHandler handler;
+    private Connection connection;
+
+    /** Stores the id and revision in the created object like the table handlers do */
+    private static final Answer<Void> SET_ID_AND_REV = new Answer<Void>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Void answer(InvocationOnMock invocation) throws Throwable {
+            Map<String, Object> obj = (Map<String, Object>) invocation.getArguments()[3];
+            obj.put("_id", invocation.getArguments()[2]);
+            obj.put("_rev", "0");
+            return null;
+        }
+    };
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        handler = mock(TableHandler.class);
+        repoService = mock(JDBCRepoService.class);
+        when(repoService.getConnection()).thenReturn(connection);
+        when(repoService.getTableHandler(anyString())).thenReturn(handler);
+    }
+
+    private static JsonValue create(String id) {
+        return json(object(field("operation", "create"), field("resourcePath", "link"), field("newResourceId", id),
+                field("content", object(field("firstId", "s-" + id), field("secondId", "t-" + id)))));
+    }
+
+    @Test
+    public void testOperationsAreCommittedInChunks() throws Exception {
+        doAnswer(SET_ID_AND_REV).when(handler).create(anyString(), anyString(), anyString(), anyMap(),
+                any(Connection.class));
+        JsonValue content = json(object(field("operations", array(
+                create("1").getObject(),
+                create("2").getObject(),
+                object(field("operation", "delete"), field("resourcePath", "link/3"), field("revision", "2"))))));
+
+        JsonValue results = new BulkAction(repoService, 2).execute("", content);
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0).get("_id").asString(), "1");
+        Assert.assertEquals(results.get(0).get("_rev").asString(), "0");
+        Assert.assertEquals(results.get(2).get("_id").asString(), "3");
+        verify(handler).create(eq("link/2"), eq("link"), eq("2"), anyMap(), eq(connection));
+        verify(handler).delete("link/3", "link", "3", "2", connection);
+        verify(connection, times(2)).commit();
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    public void testFailedChunkIsAppliedOneByOne() throws Exception {
+        doAnswer(SET_ID_AND_REV).when(handler).create(anyString(), anyString(), eq("1"), anyMap(),
+                any(Connection.class));
+        doThrow(new SQLException("duplicate")).when(handler).create(anyString(), anyString(), eq("2"), anyMap(),
+                any(Connection.class));
+        when(repoService.create(any(CreateRequest.class)))
+                .thenReturn(newResourceResponse("1", "0", json(object())))
+                .thenThrow(new PreconditionFailedException("Create rejected as Object with same ID already exists"));
+        JsonValue content = json(object(field("operations", array(create("1").getObject(), create("2").getObject()))));
+
+        JsonValue results = new BulkAction(repoService, 10).execute("", content);
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(repoService, times(2)).create(any(CreateRequest.class));
+        Assert.assertEquals(results.get(0).get("_id").asString(), "1");
+        Assert.assertEquals(results.get(1).get("error").get("code").asInteger(), Integer.valueOf(412));
+        Assert.assertEquals(results.get(1).get("resourcePath").asString(), "link");
+    }
+
+    @Test
+    public void testTypesAreAddedBeforeTheChunkTransaction() throws Exception {
+        final GenericTableHandler genericHandler = mock(GenericTableHandler.class);
+        when(repoService.getTableHandler(anyString())).thenReturn(genericHandler);
+        doAnswer(SET_ID_AND_REV).when(genericHandler).create(anyString(), anyString(), anyString(), anyMap(),
+                any(Connection.class));
+        JsonValue content = json(object(field("operations", array(create("1").getObject(), create("2").getObject()))));
+
+        new BulkAction(repoService, 10).execute("", content);
+
+        // adding a type commits, so it must not happen within the transaction of the chunk
+        InOrder inOrder = inOrder(genericHandler, connection);
+        inOrder.verify(genericHandler, times(2)).getTypeId("link", connection);
+        inOrder.verify(connection).setAutoCommit(false);
+        inOrder.verify(genericHandler, times(2)).create(anyString(), eq("link"), anyString(), anyMap(),
+                eq(connection));
+        inOrder.verify(connection).commit();
+    }
+
+    @Test
+    public void testInvalidOperationsAreReported() throws Exception {
+        JsonValue content = json(object(field("operations", array(
+                object(field("operation", "patch"), field("resourcePath", "link/1")),
+                object(field("operation", "delete"), field("resourcePath", "link/1")),
+                object(field("operation", "update"), field("resourcePath", "link"), field("content", object()))))));
+
+        JsonValue results = new BulkAction(repoService, 10).execute("", content);
+
+        for (JsonValue result : results) {
+            Assert.assertEquals(result.get("error").get("code").asInteger(), Integer.valueOf(400));
+        }
+        verify(repoService, never()).getConnection();
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testOperationsAreRequired() throws Exception {
+        new BulkAction(repoService, 10).execute("", json(object()));
+    }
+}
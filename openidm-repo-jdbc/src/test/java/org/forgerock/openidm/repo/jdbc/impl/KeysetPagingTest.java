@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.SortKey;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test of keyset paging of query filter results
+ */
+public class KeysetPagingTest {
+
+    private final GenericTableHandler handler = new GenericTableHandler(
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties"))),
+            "openidm", json(object()), json(object()), 1, null);
+
+    private Map<String, Object> params(SortKey... sortKeys) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(PAGED_RESULTS_OFFSET, "0");
+        params.put(PAGE_SIZE, "10");
+        params.put(SORT_KEYS, Arrays.asList(sortKeys));
+        params.put("_resource", "managed/user");
+        return params;
+    }
+
+    @Test
+    public void testCookieRoundTrip() throws Exception {
+        String cookie = KeysetPaging.newCookie("user/é 1");
+        Assert.assertTrue(KeysetPaging.isKeysetCookie(cookie));
+        Assert.assertFalse(KeysetPaging.isKeysetCookie("100"));
+        Assert.assertEquals(KeysetPaging.decodeCookie(cookie), "user/é 1");
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testInvalidCookie() throws Exception {
+        KeysetPaging.decodeCookie("id:!!");
+    }
+
+    @Test
+    public void testOnlyIdSortIsSupported() {
+        Assert.assertTrue(handler.isKeysetPagingSupported(Collections.singletonList(SortKey.descendingOrder("_id"))));
+        Assert.assertFalse(handler.isKeysetPagingSupported(Collections.singletonList(SortKey.ascendingOrder("userName"))));
+        Assert.assertFalse(handler.isKeysetPagingSupported(
+                Arrays.asList(SortKey.ascendingOrder("_id"), SortKey.ascendingOrder("userName"))));
+        Assert.assertFalse(handler.isKeysetPagingSupported(null));
+    }
+
+    @Test
+    public void testSeekPredicate() {
+        Map<String, Object> params = params(SortKey.ascendingOrder("_id"));
+        params.put(KeysetPaging.PAGED_RESULTS_AFTER_ID, "bjensen");
+        Map<String, Object> replacementTokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(QueryFilters.parse("userName sw \"b\""), replacementTokens, params);
+
+        Assert.assertTrue(sql.contains(") AND obj.objectid > ${afterId}"), sql);
+        Assert.assertTrue(sql.contains(" ORDER BY obj.objectid ASC LIMIT 10 OFFSET 0"), sql);
+        Assert.assertFalse(sql.contains("orderby0"), sql);
+        Assert.assertEquals(replacementTokens.get("afterId"), "bjensen");
+    }
+
+    @Test
+    public void testDescendingFirstPage() {
+        Map<String, Object> replacementTokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(QueryFilters.parse("true"), replacementTokens,
+                params(SortKey.descendingOrder("_id")));
+
+        Assert.assertFalse(sql.contains("${afterId}"), sql);
+        Assert.assertTrue(sql.contains(" ORDER BY obj.objectid DESC"), sql);
+    }
+
+    @Test
+    public void testOtherSortsUseOffset() {
+        Map<String, Object> params = params(SortKey.ascendingOrder("userName"));
+        params.put(PAGED_RESULTS_OFFSET, "20");
+        Map<String, Object> replacementTokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(QueryFilters.parse("true"), replacementTokens, params);
+
+        Assert.assertTrue(sql.contains("ORDER BY orderby0.propvalue ASC LIMIT 10 OFFSET 20"), sql);
+        Assert.assertEquals(replacementTokens.get("sortKey0"), "/userName");
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.QueryDefinition;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of the differential update of the properties table rows of an object
+ */
+public class PropertyUpdateTest {
+
+    private static final String STRING_TYPE = String.class.getName();
+
+    private final GenericTableHandler handler = new GenericTableHandler(
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties"))),
+            "openidm", json(object()), json(object()), 1, null);
+
+    private Connection connection;
+    private ResultSet existingRows;
+    private PreparedStatement insertStatement;
+    private PreparedStatement updateStatement;
+    private PreparedStatement deleteStatement;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        existingRows = mock(ResultSet.class);
+        PreparedStatement readStatement = mock(PreparedStatement.class);
+        when(readStatement.executeQuery()).thenReturn(existingRows);
+        insertStatement = mock(PreparedStatement.class);
+        updateStatement = mock(PreparedStatement.class);
+        deleteStatement = mock(PreparedStatement.class);
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(handler.queryMap.get(QueryDefinition.PROPREADQUERYSTR)))
+                .thenReturn(readStatement);
+        when(connection.prepareStatement(handler.queryMap.get(QueryDefinition.PROPCREATEQUERYSTR)))
+                .thenReturn(insertStatement);
+        when(connection.prepareStatement(handler.queryMap.get(QueryDefinition.PROPUPDATEQUERYSTR)))
+                .thenReturn(updateStatement);
+        when(connection.prepareStatement(handler.queryMap.get(QueryDefinition.PROPKEYDELETEQUERYSTR)))
+                .thenReturn(deleteStatement);
+    }
+
+    @Test
+    public void testOnlyChangedPropertiesAreWritten() throws Exception {
+        when(existingRows.next()).thenReturn(true, true, true, true, false);
+        when(existingRows.getString(1)).thenReturn("/_id", "/sn", "/lastLogin", "/gone");
+        when(existingRows.getString(2)).thenReturn(STRING_TYPE);
+        when(existingRows.getString(3)).thenReturn("1", "Jensen", "2026-01-01", "x");
+
+        handler.updateValueProperties("managed/user/1", 7L, json(object(field("_id", "1"), field("sn", "Jensen"),
+                field("lastLogin", "2026-02-01"), field("mail", "bjensen@example.com"))), connection);
+
+        verify(deleteStatement).setString(2, "/gone");
+        verify(deleteStatement, times(1)).executeUpdate();
+        verify(updateStatement).setString(2, "2026-02-01");
+        verify(updateStatement).setString(4, "/lastLogin");
+        verify(updateStatement, times(1)).executeUpdate();
+        verify(insertStatement).setString(2, "/mail");
+        verify(insertStatement, times(1)).executeUpdate();
+    }
+
+    @Test
+    public void testUnchangedPropertiesAreNotWritten() throws Exception {
+        when(existingRows.next()).thenReturn(true, true, false);
+        when(existingRows.getString(1)).thenReturn("/_id", "/sn");
+        when(existingRows.getString(2)).thenReturn(STRING_TYPE);
+        when(existingRows.getString(3)).thenReturn("1", "Jensen");
+
+        handler.updateValueProperties("managed/user/1", 7L,
+                json(object(field("_id", "1"), field("sn", "Jensen"))), connection);
+
+        verify(connection, never()).prepareStatement(handler.queryMap.get(QueryDefinition.PROPCREATEQUERYSTR));
+        verify(connection, never()).prepareStatement(handler.queryMap.get(QueryDefinition.PROPUPDATEQUERYSTR));
+        verify(connection, never()).prepareStatement(handler.queryMap.get(QueryDefinition.PROPKEYDELETEQUERYSTR));
+    }
+
+    @Test
+    public void testDuplicateRowsAreRewritten() throws Exception {
+        when(existingRows.next()).thenReturn(true, true, false);
+        when(existingRows.getString(1)).thenReturn("/sn", "/sn");
+        when(existingRows.getString(2)).thenReturn(STRING_TYPE);
+        when(existingRows.getString(3)).thenReturn("Jensen");
+
+        handler.updateValueProperties("managed/user/1", 7L, json(object(field("sn", "Jensen"))), connection);
+
+        verify(deleteStatement).setString(2, "/sn");
+        verify(insertStatement).setString(2, "/sn");
+        verify(updateStatement, never()).executeUpdate();
+        verify(deleteStatement, times(1)).executeUpdate();
+        verify(insertStatement, times(1)).executeUpdate();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.QUERY_ID;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.util.query.QueryFilter;
+import org.mockito.ArgumentCaptor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test of reading the relationships of several managed objects at once
+ */
+public class RelationshipsQueryTest {
+
+    /** The find-relationships-for-resources query of the generic tables of MySQL, DB2, Oracle and SQL Server */
+    private static final String RELATIONSHIPS_QUERY = "SELECT obj.* FROM ${_dbSchema}.relationships obj "
+            + "INNER JOIN ${_dbSchema}.relationshipproperties firstId ON (firstId.relationships_id = obj.id "
+            + "AND firstId.propkey = '/firstId' AND firstId.propvalue IN (${list:fullResourceIds})) "
+            + "INNER JOIN ${_dbSchema}.relationshipproperties firstPropertyName "
+            + "ON (firstPropertyName.relationships_id = obj.id AND firstPropertyName.propkey = '/firstPropertyName' "
+            + "AND firstPropertyName.propvalue = ${resourceFieldName}) "
+            + "UNION ALL SELECT obj.* FROM ${_dbSchema}.relationships obj "
+            + "INNER JOIN ${_dbSchema}.relationshipproperties secondId ON (secondId.relationships_id = obj.id "
+            + "AND secondId.propkey = '/secondId' AND secondId.propvalue IN (${list:fullResourceIds})) "
+            + "INNER JOIN ${_dbSchema}.relationshipproperties secondPropertyName "
+            + "ON (secondPropertyName.relationships_id = obj.id "
+            + "AND secondPropertyName.propkey = '/secondPropertyName' "
+            + "AND secondPropertyName.propvalue = ${resourceFieldName}) ";
+
+    /** The number of managed objects whose relationships are read at once by default */
+    private static final int BATCH_SIZE = 100;
+
+    private final GenericTableHandler handler = new GenericTableHandler(
+            json(object(field("mainTable", "relationships"), field("propertiesTable", "relationshipproperties"))),
+            "openidm", json(object(field("find-relationships-for-resources", RELATIONSHIPS_QUERY))),
+            json(object()), 1, null);
+
+    private static List<String> resourcePaths() {
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            paths.add("managed/user/" + i);
+        }
+        return paths;
+    }
+
+    @Test
+    public void testQueryFilterJoinsEachValue() {
+        // the filter that would otherwise select the relationships of the batch
+        final List<QueryFilter<JsonPointer>> firstIds = new ArrayList<>();
+        for (String path : resourcePaths()) {
+            firstIds.add(QueryFilter.equalTo(new JsonPointer("firstId"), (Object) path));
+        }
+        final QueryFilter<JsonPointer> filter = QueryFilter.and(
+                QueryFilter.equalTo(new JsonPointer("firstPropertyName"), (Object) "reports"),
+                QueryFilter.or(firstIds));
+        final Map<String, Object> params = new HashMap<>();
+        params.put(PAGED_RESULTS_OFFSET, "0");
+        params.put(PAGE_SIZE, String.valueOf(Integer.MAX_VALUE));
+        params.put("_resource", "relationships");
+
+        final String sql = handler.renderQueryFilter(filter, new LinkedHashMap<String, Object>(), params);
+
+        // beyond the limit of 61 tables in a join of MySQL
+        Assert.assertTrue(StringUtils.countMatches(sql, " JOIN ") > 61, sql);
+    }
+
+    @Test
+    public void testRelationshipsQueryBindsEachResource() throws Exception {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        final Connection connection = mock(Connection.class);
+        final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(connection.prepareStatement(sql.capture())).thenReturn(statement);
+        when(connection.prepareStatement(sql.capture(), anyInt(), anyInt())).thenReturn(statement);
+
+        final Map<String, Object> params = new HashMap<>();
+        params.put(QUERY_ID, "find-relationships-for-resources");
+        params.put(PAGE_SIZE, 0);
+        params.put(PAGED_RESULTS_OFFSET, 0);
+        params.put("fullResourceIds", StringUtils.join(resourcePaths(), ","));
+        params.put("resourceFieldName", "reports");
+
+        handler.query("relationships", params, connection);
+
+        // the number of joins does not depend on the number of managed objects
+        Assert.assertEquals(StringUtils.countMatches(sql.getValue(), " JOIN "), 4, sql.getValue());
+        Assert.assertEquals(StringUtils.countMatches(sql.getValue(), "?"), 2 * BATCH_SIZE + 2, sql.getValue());
+        verify(statement).setString(1, "managed/user/0");
+        verify(statement).setString(BATCH_SIZE, "managed/user/" + (BATCH_SIZE - 1));
+        verify(statement).setString(BATCH_SIZE + 1, "reports");
+        verify(statement).setString(2 * BATCH_SIZE + 2, "reports");
+    }
+}
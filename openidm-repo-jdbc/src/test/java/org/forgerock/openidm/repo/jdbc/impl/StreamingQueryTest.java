@@ -0,0 +1,260 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.QUERY_EXPRESSION;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of streaming query results from the database cursor to a result handler
+ */
+public class StreamingQueryTest {
+
+    private final GenericTableHandler handler = new GenericTableHandler(
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties"))),
+            "openidm", json(object()), json(object()), 1, null);
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnName(1)).thenReturn("fullobject");
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getString("fullobject")).thenReturn("{\"_id\":\"1\"}", "{\"_id\":\"2\"}", "{\"_id\":\"3\"}");
+        statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+    }
+
+    private Map<String, Object> params(int fetchSize) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(QUERY_EXPRESSION, "SELECT fullobject FROM openidm.managedobjects");
+        params.put(PAGE_SIZE, 0);
+        params.put(PAGED_RESULTS_OFFSET, 0);
+        params.put(TableQueries.FETCH_SIZE, fetchSize);
+        return params;
+    }
+
+    @Test
+    public void testResultsAreStreamed() throws Exception {
+        final List<Object> ids = new ArrayList<>();
+        handler.query("managed/user", params(500), connection, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> result) {
+                ids.add(result.get("_id"));
+                return true;
+            }
+        });
+
+        Assert.assertEquals(ids.size(), 3);
+        Assert.assertEquals(ids.get(2), "3");
+        verify(statement).setFetchSize(500);
+        verify(resultSet).close();
+        verify(statement).close();
+    }
+
+    @Test
+    public void testHandlerStopsReading() throws Exception {
+        final List<Object> ids = new ArrayList<>();
+        handler.query("managed/user", params(0), connection, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> result) {
+                ids.add(result.get("_id"));
+                return false;
+            }
+        });
+
+        Assert.assertEquals(ids.size(), 1);
+        verify(resultSet, times(1)).next();
+        verify(statement, never()).setFetchSize(0);
+        verify(resultSet).close();
+    }
+
+    @Test
+    public void testListQueryCollectsAllResults() throws Exception {
+        List<Map<String, Object>> results = handler.query("managed/user", params(0), connection);
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0).get("_id"), "1");
+    }
+
+    /**
+     * Creates a repository service whose pool fails to hand out more than the given number of connections,
+     * instead of waiting for one, and whose table handler returns two results, recording whether the
+     * handler accepted them.
+     */
+    private JDBCRepoService newRepoService(final Semaphore pool, final List<Boolean> accepted) throws Exception {
+        final Connection pooledConnection = mock(Connection.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                pool.release();
+                return null;
+            }
+        }).when(pooledConnection).close();
+        final JDBCRepoService repoService = spy(new JDBCRepoService());
+        doAnswer(new Answer<Connection>() {
+            @Override
+            public Connection answer(InvocationOnMock invocation) throws SQLException {
+                if (!pool.tryAcquire()) {
+                    throw new SQLException("Connection is not available");
+                }
+                return pooledConnection;
+            }
+        }).when(repoService).getConnection();
+
+        final TableHandler tableHandler = mock(TableHandler.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                QueryResultHandler resultHandler = (QueryResultHandler) invocation.getArguments()[3];
+                for (String id : new String[] { "1", "2" }) {
+                    final boolean more = resultHandler.handleResult(
+                            json(object(field("_id", id), field("_rev", "0"))).asMap());
+                    accepted.add(more);
+                    if (!more) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        }).when(tableHandler).query(anyString(), anyMapOf(String.class, Object.class), any(Connection.class),
+                any(QueryResultHandler.class));
+        when(tableHandler.read(anyString(), anyString(), anyString(), any(Connection.class)))
+                .thenReturn(newResourceResponse("1", "0", json(object())));
+        doAnswer(new Answer<TableHandler>() {
+            @Override
+            public TableHandler answer(InvocationOnMock invocation) {
+                return tableHandler;
+            }
+        }).when(repoService).getTableHandler(anyString());
+        return repoService;
+    }
+
+    @Test
+    public void testResultsAreStreamedToTheQueryHandler() throws Exception {
+        final Semaphore pool = new Semaphore(1);
+        final List<Boolean> accepted = new ArrayList<>();
+        final JDBCRepoService repoService = newRepoService(pool, accepted);
+
+        final List<String> ids = new ArrayList<>();
+        repoService.handleQuery(new RootContext(), newQueryRequest("managed/user").setQueryId("query-all-ids"),
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse resource) {
+                        // the connection is held while the results are handed over
+                        Assert.assertEquals(pool.availablePermits(), 0);
+                        ids.add(resource.getId());
+                        return false;
+                    }
+                }).getOrThrow();
+
+        // the handler stopped the query after the first row
+        Assert.assertEquals(ids.size(), 1);
+        Assert.assertEquals(accepted.size(), 1);
+        Assert.assertFalse(accepted.get(0));
+        Assert.assertEquals(pool.availablePermits(), 1);
+    }
+
+    @Test
+    public void testHandlerMayUseRepositoryWhileStreaming() throws Exception {
+        // a connection for the streaming query, and one for the handler
+        final Semaphore pool = new Semaphore(2);
+        final JDBCRepoService repoService = newRepoService(pool, new ArrayList<Boolean>());
+
+        // the handler queries and reads from the repository, like the managed object query handler does
+        final List<String> ids = new ArrayList<>();
+        repoService.handleQuery(new RootContext(), newQueryRequest("managed/user").setQueryId("query-all-ids"),
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse resource) {
+                        try {
+                            repoService.handleQuery(new RootContext(),
+                                    newQueryRequest("managed/role").setQueryId("query-all-ids"),
+                                    new QueryResourceHandler() {
+                                        @Override
+                                        public boolean handleResource(ResourceResponse role) {
+                                            // the nested query released its connection before handing over
+                                            // the results
+                                            try {
+                                                repoService.read(newReadRequest("managed/role", role.getId()));
+                                            } catch (ResourceException e) {
+                                                Assert.fail("The repository could not be used from the handler",
+                                                        e);
+                                            }
+                                            return true;
+                                        }
+                                    }).getOrThrow();
+                        } catch (ResourceException | InterruptedException e) {
+                            Assert.fail("The repository could not be used from the query handler", e);
+                        }
+                        ids.add(resource.getId());
+                        return true;
+                    }
+                }).getOrThrow();
+
+        Assert.assertEquals(ids.size(), 2);
+        Assert.assertEquals(pool.availablePermits(), 2);
+    }
+}
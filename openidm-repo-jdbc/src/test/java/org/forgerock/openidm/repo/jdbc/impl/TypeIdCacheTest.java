@@ -0,0 +1,85 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.forgerock.openidm.repo.jdbc.Constants;
+import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.QueryDefinition;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of the cache of object type ids
+ */
+public class TypeIdCacheTest {
+
+    private final GenericTableHandler handler = new GenericTableHandler(
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties"))),
+            "openidm", json(object()), json(object()), 1, null);
+
+    private Connection connection;
+    private ResultSet rs;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        handler.clearTypeIdCache();
+        rs = mock(ResultSet.class);
+        PreparedStatement readStatement = mock(PreparedStatement.class);
+        when(readStatement.executeQuery()).thenReturn(rs);
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(handler.queryMap.get(QueryDefinition.READTYPEQUERYSTR)))
+                .thenReturn(readStatement);
+    }
+
+    @Test
+    public void testTypeIdIsReadOnce() throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(Constants.RAW_ID)).thenReturn(3L);
+
+        Assert.assertEquals(handler.getTypeId("managed/user", connection), 3L);
+        Assert.assertEquals(handler.getTypeId("managed/user", connection), 3L);
+
+        verify(connection, times(1)).prepareStatement(handler.queryMap.get(QueryDefinition.READTYPEQUERYSTR));
+        verify(connection, never()).setAutoCommit(true);
+
+        handler.clearTypeIdCache();
+        handler.getTypeId("managed/user", connection);
+        verify(connection, times(2)).prepareStatement(handler.queryMap.get(QueryDefinition.READTYPEQUERYSTR));
+    }
+
+    @Test
+    public void testMissingTypeIsNotCached() throws Exception {
+        when(rs.next()).thenReturn(false);
+
+        Assert.assertEquals(handler.lookupTypeId("managed/role", connection), -1L);
+        Assert.assertEquals(handler.lookupTypeId("managed/role", connection), -1L);
+
+        verify(connection, times(2)).prepareStatement(handler.queryMap.get(QueryDefinition.READTYPEQUERYSTR));
+    }
+}
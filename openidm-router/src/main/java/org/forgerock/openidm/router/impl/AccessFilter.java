@@ -0,0 +1,619 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.ForbiddenException;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.RequestType;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.ServiceUnavailableException;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.json.resource.http.HttpContext;
+import org.forgerock.script.Script;
+import org.forgerock.script.ScriptEntry;
+import org.forgerock.script.engine.Utils;
+import org.forgerock.services.context.ClientContext;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.SecurityContext;
+import org.forgerock.util.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Authorizes the requests of external callers, and of the self-service, against the role and resource based access
+ * rules of access.js, the way router-authz.js does, without evaluating a script for each request.
+ * <p>
+ * A request is allowed if one of the rules matches its resource path, the roles of the caller, its method and its
+ * action. The {@code customAuthz} expressions of the rules are conjunctions, whose {@code disallowQueryExpression()},
+ * {@code disallowCommandAction()}, {@code isSelfServiceRequest()} and {@code ownDataOnly()} terms are evaluated like
+ * router-authz.js does. The remaining terms can only be evaluated by the authorization script, so when only rules
+ * with such terms may allow a request, their remaining expressions are passed to the script, which allows the
+ * request if one of them is true.
+ * <p>
+ * The rules are either given with the filter, or read from the {@code httpAccessConfig} object of access.js, the
+ * same source router-authz.js loads, and reloaded whenever access.js changes. If access.js cannot be read as a JSON
+ * object, all of the requests are passed to the script.
+ */
+class AccessFilter implements Filter {
+
+    /** Logger for this class. */
+    private static final Logger logger = LoggerFactory.getLogger(AccessFilter.class);
+
+    /** The name of the context of the self-service requests */
+    private static final String SELF_SERVICE_CONTEXT = "selfservice";
+
+    /** Headers one of which must be present in the HTTP requests other than reads, to prevent CSRF attacks */
+    private static final String[] AJAX_HEADERS = { "X-Requested-With", "Authorization", "X-OpenIDM-Username" };
+
+    private static final String ALL = "*";
+
+    private static final String COMMAND_ACTION = "command";
+
+    /** The binding of the customAuthz expressions passed to the authorization script */
+    private static final String CUSTOM_AUTHZ_EXPRESSIONS = "customAuthzExpressions";
+
+    /** The operators separating the terms of a customAuthz expression */
+    private static final String AND = "&&";
+    private static final String OR = "||";
+    private static final String CONDITIONAL = "?";
+
+    /** The start of the access rules in access.js */
+    private static final Pattern HTTP_ACCESS_CONFIG = Pattern.compile("\\bhttpAccessConfig\\s*=\\s*\\{");
+
+    /** Reads the JavaScript object literal of the access rules as JSON */
+    private static final ObjectMapper ACCESS_SCRIPT_MAPPER = new ObjectMapper()
+            .configure(JsonParser.Feature.ALLOW_COMMENTS, true)
+            .configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true)
+            .configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true)
+            .configure(JsonParser.Feature.ALLOW_TRAILING_COMMA, true);
+
+    /** The helpers of router-authz.js that are evaluated without the script, by their call in an expression */
+    private enum NativeCheck {
+        DISALLOW_QUERY_EXPRESSION("disallowQueryExpression()") {
+            @Override
+            boolean check(Context context, Request request) {
+                if (!(request instanceof QueryRequest)) {
+                    return true;
+                }
+                final String queryExpression = ((QueryRequest) request).getQueryExpression();
+                return queryExpression == null || queryExpression.isEmpty();
+            }
+        },
+        DISALLOW_COMMAND_ACTION("disallowCommandAction()") {
+            @Override
+            boolean check(Context context, Request request) {
+                return !(request instanceof ActionRequest)
+                        || !COMMAND_ACTION.equals(((ActionRequest) request).getAction());
+            }
+        },
+        IS_SELF_SERVICE_REQUEST("isSelfServiceRequest()") {
+            @Override
+            boolean check(Context context, Request request) {
+                return SELF_SERVICE_CONTEXT.equals(context.getContextName());
+            }
+        },
+        OWN_DATA_ONLY("ownDataOnly()") {
+            @Override
+            boolean check(Context context, Request request) {
+                if (!context.containsContext(SecurityContext.class)) {
+                    return false;
+                }
+                final Map<String, Object> authorization =
+                        context.asContext(SecurityContext.class).getAuthorization();
+                final Object id = authorization.get(SecurityContext.AUTHZID_ID);
+                final Object component = authorization.get(SecurityContext.AUTHZID_COMPONENT);
+                return id != null && component != null
+                        && request.getResourcePath().equals(component + "/" + id);
+            }
+        };
+
+        private final String expression;
+
+        NativeCheck(String expression) {
+            this.expression = expression;
+        }
+
+        abstract boolean check(Context context, Request request);
+
+        static NativeCheck of(String term) {
+            for (NativeCheck check : values()) {
+                if (check.expression.equals(term)) {
+                    return check;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates the {@code customAuthz} expressions that are not evaluated by the filter.
+     */
+    interface CustomAuthz {
+        /**
+         * Authorizes a request.
+         *
+         * @param context the context of the request
+         * @param request the request
+         * @param expressions the remaining expressions of the matching rules, one of which must be true, or null to
+         *                    evaluate all of the access rules
+         * @throws ResourceException if the request is not authorized
+         */
+        void authorize(Context context, Request request, List<String> expressions) throws ResourceException;
+    }
+
+    /**
+     * Evaluates the {@code customAuthz} expressions with the authorization script, router-authz.js, which is given
+     * the expressions in its {@code customAuthzExpressions} binding.
+     */
+    static final class ScriptedCustomAuthz implements CustomAuthz {
+        private final Pair<JsonPointer, ScriptEntry> script;
+
+        ScriptedCustomAuthz(Pair<JsonPointer, ScriptEntry> script) {
+            this.script = script;
+        }
+
+        @Override
+        public void authorize(Context context, Request request, List<String> expressions) throws ResourceException {
+            final ScriptEntry scriptEntry = script.getRight();
+            if (!scriptEntry.isActive()) {
+                throw new ServiceUnavailableException("Failed to execute inactive script: " + scriptEntry.getName());
+            }
+            final Script authzScript = scriptEntry.getScript(context);
+            authzScript.put("request", request);
+            authzScript.put("context", context);
+            if (expressions != null) {
+                authzScript.put(CUSTOM_AUTHZ_EXPRESSIONS, expressions);
+            }
+            try {
+                authzScript.eval();
+            } catch (Exception e) {
+                logger.debug("Filter/{} script {} encountered exception", script.getLeft(), scriptEntry.getName(), e);
+                throw Utils.adapt(e);
+            }
+        }
+    }
+
+    /**
+     * An access rule of the access configuration.
+     */
+    static final class AccessRule {
+        private final String pattern;
+        private final List<String> excludePatterns;
+        private final Set<String> roles;
+        private final Set<String> methods;
+        private final Set<String> actions;
+        private final List<NativeCheck> nativeChecks = new ArrayList<>();
+        private final String scriptExpression;
+
+        AccessRule(JsonValue config) {
+            pattern = config.get("pattern").required().asString();
+            excludePatterns = items(config.get("excludePatterns"), false);
+            roles = new HashSet<>(items(config.get("roles").required(), true));
+            methods = new HashSet<>(items(config.get("methods"), true));
+            actions = new HashSet<>(items(config.get("actions"), true));
+
+            final String customAuthz = config.get("customAuthz").asString();
+            final List<String> scriptTerms = new ArrayList<>();
+            if (customAuthz != null) {
+                if (splitTopLevel(customAuthz, OR).size() > 1 || splitTopLevel(customAuthz, CONDITIONAL).size() > 1) {
+                    // operators of a lower precedence than && leave the expression to the script as a whole
+                    scriptTerms.add(customAuthz.trim());
+                } else {
+                    for (String term : splitTopLevel(customAuthz, AND)) {
+                        final NativeCheck check = NativeCheck.of(term);
+                        if (check != null) {
+                            nativeChecks.add(check);
+                        } else {
+                            scriptTerms.add(term);
+                        }
+                    }
+                }
+            }
+            scriptExpression = scriptTerms.isEmpty() ? null : join(scriptTerms, " " + AND + " ");
+        }
+
+        /**
+         * Returns the part of the {@code customAuthz} expression that is left to the script.
+         *
+         * @return the terms of the expression the filter does not evaluate, or null if it evaluates all of them
+         */
+        String getScriptExpression() {
+            return scriptExpression;
+        }
+
+        /**
+         * Evaluates the terms of the {@code customAuthz} expression that do not need the script.
+         *
+         * @param context the context of the request
+         * @param request the request
+         * @return false if one of the terms is false
+         */
+        boolean checks(Context context, Request request) {
+            for (NativeCheck check : nativeChecks) {
+                if (!check.check(context, request)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether the rule matches a request, not considering its {@code customAuthz} expression.
+         *
+         * @param id the resource path of the request
+         * @param callerRoles the roles of the caller
+         * @param method the method of the request
+         * @param action the action of the request, or an empty string
+         * @return true if the rule matches the request
+         */
+        boolean matches(String id, List<String> callerRoles, String method, String action) {
+            if (!matchesResourceIdPattern(id, pattern)) {
+                return false;
+            }
+            for (String excludePattern : excludePatterns) {
+                if (matchesResourceIdPattern(id, excludePattern)) {
+                    return false;
+                }
+            }
+            return containsAny(roles, callerRoles)
+                    && contains(methods, method)
+                    && (action.isEmpty() || contains(actions, action));
+        }
+
+        /**
+         * Splits an expression at an operator outside of parentheses, brackets, braces and string literals.
+         *
+         * @param expression the expression
+         * @param operator the operator
+         * @return the trimmed operands, or the trimmed expression if the operator is not found
+         */
+        static List<String> splitTopLevel(String expression, String operator) {
+            final List<String> terms = new ArrayList<>();
+            int depth = 0;
+            char quote = 0;
+            int start = 0;
+            for (int i = 0; i < expression.length(); i++) {
+                final char c = expression.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '(' || c == '[' || c == '{') {
+                    depth++;
+                } else if (c == ')' || c == ']' || c == '}') {
+                    depth--;
+                } else if (depth == 0 && expression.startsWith(operator, i)) {
+                    terms.add(expression.substring(start, i).trim());
+                    i += operator.length() - 1;
+                    start = i + 1;
+                }
+            }
+            terms.add(expression.substring(start).trim());
+            return terms;
+        }
+
+        private static String join(List<String> terms, String separator) {
+            final StringBuilder joined = new StringBuilder();
+            for (String term : terms) {
+                if (joined.length() > 0) {
+                    joined.append(separator);
+                }
+                joined.append(term);
+            }
+            return joined.toString();
+        }
+
+        private static List<String> items(JsonValue value, boolean lowerCase) {
+            final List<String> items = new ArrayList<>();
+            if (value.isNull()) {
+                return items;
+            }
+            final List<String> values = value.isList()
+                    ? value.asList(String.class)
+                    : Arrays.asList(value.asString().split(","));
+            for (String item : values) {
+                items.add(lowerCase ? item.toLowerCase(Locale.ROOT) : item);
+            }
+            return items;
+        }
+
+        private static boolean contains(Set<String> configItems, String item) {
+            return isAll(configItems) || configItems.contains(item.toLowerCase(Locale.ROOT));
+        }
+
+        private static boolean containsAny(Set<String> configItems, List<String> items) {
+            if (isAll(configItems)) {
+                return true;
+            }
+            for (String item : items) {
+                if (item != null && configItems.contains(item.toLowerCase(Locale.ROOT))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isAll(Set<String> configItems) {
+            return configItems.size() == 1 && configItems.contains(ALL);
+        }
+
+        private static boolean matchesResourceIdPattern(String id, String pattern) {
+            if (ALL.equals(pattern) || id.equals(pattern)) {
+                return true;
+            }
+            // a pattern ending with "/*" matches everything below its parent
+            return pattern.endsWith("/*") && id.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+    }
+
+    /**
+     * The access rules of an access configuration.
+     */
+    private static final class AccessRules {
+        private final List<AccessRule> rules = new ArrayList<>();
+
+        AccessRules(JsonValue config) {
+            for (JsonValue ruleConfig : config.get("configs").required().expect(List.class)) {
+                rules.add(new AccessRule(ruleConfig));
+            }
+        }
+    }
+
+    private final File accessScript;
+    private final CustomAuthz customAuthz;
+    private volatile AccessRules accessRules;
+    private volatile long accessScriptLastModified;
+
+    /**
+     * Construct an AccessFilter from the access configuration.
+     *
+     * @param config the access configuration, listing the access rules under {@code configs}
+     * @param customAuthz the evaluation of the {@code customAuthz} expressions that are not evaluated natively, or
+     *                    null to deny the requests only these expressions may allow
+     */
+    AccessFilter(JsonValue config, CustomAuthz customAuthz) {
+        this.accessScript = null;
+        this.accessRules = new AccessRules(config);
+        this.customAuthz = customAuthz;
+    }
+
+    /**
+     * Construct an AccessFilter reading the access rules from access.js.
+     *
+     * @param accessScript the access.js script declaring the {@code httpAccessConfig} access configuration
+     * @param customAuthz the evaluation of the {@code customAuthz} expressions that are not evaluated natively, and
+     *                    of all of the rules if access.js cannot be read, or null to deny these requests
+     */
+    AccessFilter(File accessScript, CustomAuthz customAuthz) {
+        this.accessScript = accessScript;
+        this.customAuthz = customAuthz;
+        this.accessScriptLastModified = -1;
+        getAccessRules();
+    }
+
+    /**
+     * Reads the access configuration declared by an access.js script.
+     *
+     * @param script the content of the script
+     * @return the access configuration
+     * @throws IOException if the script does not declare the access configuration as a JSON object
+     */
+    static JsonValue parseAccessScript(String script) throws IOException {
+        final Matcher matcher = HTTP_ACCESS_CONFIG.matcher(script);
+        if (!matcher.find()) {
+            throw new IOException("No httpAccessConfig object");
+        }
+        try (JsonParser parser = ACCESS_SCRIPT_MAPPER.getFactory().createParser(script.substring(matcher.end() - 1))) {
+            return new JsonValue(ACCESS_SCRIPT_MAPPER.readValue(parser, Object.class));
+        }
+    }
+
+    /**
+     * Returns the access rules, reloading them if access.js has changed.
+     *
+     * @return the access rules, or null if access.js cannot be read
+     */
+    private AccessRules getAccessRules() {
+        if (accessScript != null && accessScript.lastModified() != accessScriptLastModified) {
+            synchronized (this) {
+                final long lastModified = accessScript.lastModified();
+                if (lastModified != accessScriptLastModified) {
+                    try {
+                        accessRules = new AccessRules(parseAccessScript(
+                                new String(Files.readAllBytes(accessScript.toPath()), StandardCharsets.UTF_8)));
+                    } catch (IOException | JsonValueException e) {
+                        logger.warn("Unable to read the access rules of {}, authorizing the requests with the "
+                                + "customAuthz script", accessScript, e);
+                        accessRules = null;
+                    }
+                    accessScriptLastModified = lastModified;
+                }
+            }
+        }
+        return accessRules;
+    }
+
+    /**
+     * Authorizes a request.
+     *
+     * @param context the context of the request
+     * @param request the request
+     * @return null if the request is allowed, or the reason it is denied
+     */
+    private ResourceException authorize(Context context, Request request) {
+        if (!isExternal(context)) {
+            return null;
+        }
+        final AccessRules accessRules = getAccessRules();
+        if (accessRules == null) {
+            return customAuthz != null ? authorize(context, request, null) : new ForbiddenException("Access denied");
+        }
+        final String method = request.getRequestType().name().toLowerCase(Locale.ROOT);
+        // only non-AJAX requests other than reads need to be blocked
+        if (context.containsContext(HttpContext.class)
+                && request.getRequestType() != RequestType.READ
+                && !isAJAXRequest(context.asContext(HttpContext.class))) {
+            return new ForbiddenException("Access denied");
+        }
+
+        final String id = request.getResourcePath();
+        final String action = request instanceof ActionRequest && ((ActionRequest) request).getAction() != null
+                ? ((ActionRequest) request).getAction()
+                : "";
+        final List<String> roles = getRoles(context);
+        logger.debug("Access Check for HTTP request for resource id: {}, role: {}, method: {}, action: {}",
+                id, roles, method, action);
+
+        final List<String> expressions = new ArrayList<>();
+        for (AccessRule rule : accessRules.rules) {
+            if (rule.matches(id, roles, method, action) && rule.checks(context, request)) {
+                if (rule.getScriptExpression() == null) {
+                    return null;
+                }
+                expressions.add(rule.getScriptExpression());
+            }
+        }
+        if (expressions.isEmpty() || customAuthz == null) {
+            return new ForbiddenException("Access denied");
+        }
+        return authorize(context, request, expressions);
+    }
+
+    private ResourceException authorize(Context context, Request request, List<String> expressions) {
+        try {
+            customAuthz.authorize(context, request, expressions);
+            return null;
+        } catch (ResourceException e) {
+            return e;
+        }
+    }
+
+    private static boolean isExternal(Context context) {
+        return (context.containsContext(ClientContext.class) && context.asContext(ClientContext.class).isExternal())
+                || SELF_SERVICE_CONTEXT.equals(context.getContextName());
+    }
+
+    private static boolean isAJAXRequest(HttpContext context) {
+        for (String header : context.getHeaders().keySet()) {
+            for (String ajaxHeader : AJAX_HEADERS) {
+                if (ajaxHeader.equalsIgnoreCase(header)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> getRoles(Context context) {
+        if (context.containsContext(SecurityContext.class)) {
+            final Object roles = context.asContext(SecurityContext.class).getAuthorization()
+                    .get(SecurityContext.AUTHZID_ROLES);
+            if (roles instanceof List) {
+                return (List<String>) roles;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleAction(context, request) : denied.<ActionResponse>asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterCreate(Context context, CreateRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleCreate(context, request) : denied.<ResourceResponse>asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleDelete(context, request) : denied.<ResourceResponse>asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handlePatch(context, request) : denied.<ResourceResponse>asPromise();
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler, RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleQuery(context, request, handler) : denied.<QueryResponse>asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleRead(context, request) : denied.<ResourceResponse>asPromise();
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, UpdateRequest request,
+            RequestHandler next) {
+        final ResourceException denied = authorize(context, request);
+        return denied == null ? next.handleUpdate(context, request) : denied.<ResourceResponse>asPromise();
+    }
+}
@@ -0,0 +1,1109 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.util.query.QueryFilter.equalTo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.crypto.JsonCrypto;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Evaluates the {@code validateObject} action of the policy service for a resource, the way policy.js does, when
+ * all of the policies of the resource are built into policy.js.
+ * <p>
+ * The policies of a resource are those of the policy configuration, merged with the policies derived from the
+ * schema of a managed object. A custom policy, a conditional policy, an encrypted value or a value that Java cannot
+ * evaluate exactly the way policy.js does can only be evaluated by the policy service, and
+ * {@link UnsupportedPolicyException} is then thrown.
+ */
+class PolicyEvaluator {
+
+    /**
+     * Thrown when a resource can only be validated by the policy service.
+     */
+    static final class UnsupportedPolicyException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedPolicyException(String message) {
+            super(message);
+        }
+    }
+
+    /** The JavaScript undefined value, for the properties missing from an object */
+    private static final Object UNDEFINED = new Object();
+
+    private static final String POLICY_CONFIG = "config/policy";
+    private static final String MANAGED_CONFIG = "config/managed";
+    private static final String SYNC_CONFIG = "config/sync";
+    private static final String INTERNAL_USER = "repo/internal/user";
+
+    /** The policy script whose built-in policies are evaluated */
+    private static final String POLICY_SCRIPT = "policy.js";
+
+    private static final String ARRAY_SUFFIX = "[*]";
+    private static final String POLICY_REQUIREMENT = "policyRequirement";
+    private static final String REQUIRED = "REQUIRED";
+
+    /** The characters that are line terminators for either JavaScript or Java regular expressions */
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+    /** The characters matched by \s in JavaScript */
+    private static final String JS_WHITESPACE = "\\s\\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F"
+            + "\\u3000\\uFEFF";
+
+    /** The date-time formats that JavaScript and Joda parse alike */
+    private static final Pattern ISO_DATE_TIME =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}(T\\d{2}:\\d{2}(:\\d{2}(\\.\\d{3})?)?(Z|[+-]\\d{2}:\\d{2})?)?");
+    private static final DateTimeFormatter ISO_PARSER = ISODateTimeFormat.dateTimeParser().withZoneUTC();
+
+    /** The number formats that JavaScript and Java parse alike */
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern INTEGER_PREFIX = Pattern.compile("\\s*([+-]?\\d+)");
+    private static final Pattern ARRAY_INDEX = Pattern.compile("0|[1-9]\\d{0,8}");
+
+    private static final Pattern CAPITAL = Pattern.compile("[(A-Z)]");
+    private static final Pattern NUMBER = Pattern.compile("\\d");
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile(".+@.+\\..+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PHONE = Pattern.compile("\\+?([0-9\\- \\(\\)])*");
+    private static final Pattern NAME = Pattern.compile("([A-Za'-\\u0105\\u0107\\u0119\\u0142\\u00F3\\u015B"
+            + "\\u017C\\u017A\\u0104\\u0106\\u0118\\u0141\\u00D3\\u015A\\u017B\\u0179\\u00C0\\u00C8\\u00CC\\u00D2"
+            + "\\u00D9\\u00E0\\u00E8\\u00EC\\u00F2\\u00F9\\u00C1\\u00C9\\u00CD\\u00D3\\u00DA\\u00DD\\u00E1\\u00E9"
+            + "\\u00ED\\u00F3\\u00FA\\u00FD\\u00C2\\u00CA\\u00CE\\u00D4\\u00DB\\u00E2\\u00EA\\u00EE\\u00F4\\u00FB"
+            + "\\u00C3\\u00D1\\u00D5\\u00E3\\u00F1\\u00F5\\u00C4\\u00CB\\u00CF\\u00D6\\u00DC\\u0178\\u00E4\\u00EB"
+            + "\\u00EF\\u00F6\\u00FC\\u0178\\u00A1\\u00BF\\u00E7\\u00C7\\u0152\\u0153\\u00DF\\u00D8\\u00F8\\u00C5"
+            + "\\u00E5\\u00C6\\u00E6\\u00DE\\u00FE\\u00D0\\u00F0\\-" + JS_WHITESPACE + "])+");
+
+    /**
+     * The built-in policies of policy.js.
+     */
+    private enum BuiltInPolicy {
+        REQUIRED_POLICY("required", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) {
+                return value == UNDEFINED ? failure(REQUIRED) : none();
+            }
+        },
+        NOT_EMPTY("not-empty", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) {
+                return value != UNDEFINED && (value == null || !isTruthy(member(value, "length")))
+                        ? failure(REQUIRED)
+                        : none();
+            }
+        },
+        MAX_ATTEMPTS_TRIGGERS_LOCK_COOLDOWN("max-attempts-triggers-lock-cooldown", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                final Object max = param(params, "max");
+                if (!isGreaterThan(value, max)) {
+                    return none();
+                }
+                final double lastFailedDate = toTime(member(evaluator.getFullObject(),
+                        toPropertyKey(param(params, "dateTimeField"))));
+                final double numMinutes = toNumber(param(params, "numMinutes"));
+                if (lastFailedDate + 1000 * 60 * numMinutes > System.currentTimeMillis()) {
+                    return failure("NO_MORE_THAN_X_ATTEMPTS_WITHIN_Y_MINUTES", params, "max", "numMinutes");
+                }
+                return none();
+            }
+        },
+        UNIQUE("unique", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws ResourceException, UnsupportedPolicyException {
+                if (isTruthy(value) && isTruthy(member(value, "length"))) {
+                    final ResourcePath path = ResourcePath.valueOf(evaluator.resourcePath);
+                    final QueryRequest request = newQueryRequest(path.parent())
+                            .setQueryFilter(equalTo(new JsonPointer(property), toStringValue(value)));
+                    if (evaluator.existsOther(request, path.leaf())) {
+                        return failure("UNIQUE");
+                    }
+                }
+                return none();
+            }
+        },
+        NO_INTERNAL_USER_CONFLICT("no-internal-user-conflict", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws ResourceException, UnsupportedPolicyException {
+                if (isTruthy(value) && isTruthy(member(value, "length"))) {
+                    final QueryRequest request = newQueryRequest(INTERNAL_USER)
+                            .setQueryId("credential-internaluser-query")
+                            .setAdditionalParameter("username", toStringValue(value));
+                    if (evaluator.existsOther(request, ResourcePath.valueOf(evaluator.resourcePath).leaf())) {
+                        return failure("UNIQUE");
+                    }
+                }
+                return none();
+            }
+        },
+        REGEXP_MATCHES("regexpMatches", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                final Object string = value instanceof Number ? toJsString((Number) value) : value;
+                final Object regexp = param(params, "regexp");
+                final Object flags = param(params, "flags");
+                final Pattern pattern = compile(regexp == UNDEFINED ? "(?:)" : toStringValue(regexp),
+                        isTruthy(flags) ? toStringValue(flags) : "");
+                if ((required || isNonEmptyString(string)) && !(isNonEmptyString(string) && find(pattern, string))) {
+                    final Map<String, Object> failure = new LinkedHashMap<>();
+                    failure.put(POLICY_REQUIREMENT, "MATCH_REGEXP");
+                    putIfDefined(failure, "regexp", regexp);
+                    failure.put("params", params.getObject());
+                    putIfDefined(failure, "flags", flags);
+                    return Collections.<Object>singletonList(failure);
+                }
+                return none();
+            }
+        },
+        VALID_TYPE("valid-type", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                if (value == UNDEFINED) {
+                    return none();
+                }
+                final String type = typeOf(value);
+                final Object types = param(params, "types");
+                if (types != UNDEFINED && types != null && !(types instanceof List)) {
+                    throw new UnsupportedPolicyException("Unsupported valid-type types " + types);
+                }
+                if (types instanceof List && ((List<?>) types).contains(type)) {
+                    return none();
+                }
+                final Map<String, Object> failureParams = new LinkedHashMap<>();
+                failureParams.put("invalidType", type);
+                putIfDefined(failureParams, "validTypes", types);
+                return failure("VALID_TYPE", failureParams);
+            }
+        },
+        VALID_DATE("valid-date", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                if (isNonEmptyString(value)) {
+                    // a date that cannot be parsed here is left to policy.js
+                    parseDate((String) value, false);
+                    return none();
+                }
+                return required ? failure("VALID_DATE") : none();
+            }
+        },
+        VALID_EMAIL_ADDRESS_FORMAT("valid-email-address-format", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                return matchesFormat(value, EMAIL_ADDRESS, false, required, "VALID_EMAIL_ADDRESS_FORMAT");
+            }
+        },
+        VALID_NAME_FORMAT("valid-name-format", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                return matchesFormat(value, NAME, true, required, "VALID_NAME_FORMAT");
+            }
+        },
+        VALID_PHONE_FORMAT("valid-phone-format", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                return matchesFormat(value, PHONE, true, required, "VALID_PHONE_FORMAT");
+            }
+        },
+        AT_LEAST_X_CAPITALS("at-least-X-capitals", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                return hasAtLeast(value, CAPITAL, params, "numCaps", required, "AT_LEAST_X_CAPITAL_LETTERS");
+            }
+        },
+        AT_LEAST_X_NUMBERS("at-least-X-numbers", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                return hasAtLeast(value, NUMBER, params, "numNums", required, "AT_LEAST_X_NUMBERS");
+            }
+        },
+        MINIMUM_LENGTH("minimum-length", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                final double minLength = toNumber(param(params, "minLength"));
+                final boolean hasMinLength = isNonEmptyString(value) && ((String) value).length() >= minLength;
+                if ((required || isNonEmptyString(value)) && !hasMinLength) {
+                    return failure("MIN_LENGTH", params, "minLength");
+                }
+                return none();
+            }
+        },
+        CANNOT_CONTAIN_OTHERS("cannot-contain-others", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws ResourceException, UnsupportedPolicyException {
+                if (!isNonEmptyString(value)) {
+                    return none();
+                }
+                final Object disallowedFields = param(params, "disallowedFields");
+                final List<Object> fields = new ArrayList<>();
+                if (disallowedFields instanceof String) {
+                    // legacy csv support
+                    Collections.addAll(fields, (Object[]) ((String) disallowedFields).split(",", -1));
+                } else if (disallowedFields instanceof List) {
+                    fields.addAll((List<?>) disallowedFields);
+                } else {
+                    throw new UnsupportedPolicyException("Unsupported disallowedFields " + disallowedFields);
+                }
+                for (Object field : fields) {
+                    final String key = toPropertyKey(field);
+                    Object other = member(evaluator.getFullObject(), key);
+                    if (other == UNDEFINED) {
+                        // like policy.js, complete the validated object with the stored value
+                        other = member(evaluator.getServerObject(), key);
+                        if (other != UNDEFINED) {
+                            evaluator.setFullObjectMember(key, other);
+                        }
+                    }
+                    if (other instanceof String && find(compile((String) other, ""), value)) {
+                        final Map<String, Object> failureParams = new LinkedHashMap<>();
+                        failureParams.put("disallowedFields", field);
+                        return failure("CANNOT_CONTAIN_OTHERS", failureParams);
+                    }
+                }
+                return none();
+            }
+        },
+        CANNOT_CONTAIN_CHARACTERS("cannot-contain-characters", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                if (!isNonEmptyString(value)) {
+                    return none();
+                }
+                final List<Object> forbiddenChars = elements(param(params, "forbiddenChars"));
+                for (Object forbiddenChar : forbiddenChars) {
+                    if (((String) value).contains(toStringValue(forbiddenChar))) {
+                        final StringBuilder joined = new StringBuilder();
+                        for (Object item : forbiddenChars) {
+                            joined.append(joined.length() > 0 ? ", " : "").append(toStringValue(item));
+                        }
+                        final Map<String, Object> failureParams = new LinkedHashMap<>();
+                        failureParams.put("forbiddenChars", joined.toString());
+                        return failure("CANNOT_CONTAIN_CHARACTERS", failureParams);
+                    }
+                }
+                return none();
+            }
+        },
+        CANNOT_CONTAIN_DUPLICATES("cannot-contain-duplicates", true) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws UnsupportedPolicyException {
+                if (!isTruthy(value) || !isTruthy(member(value, "length"))) {
+                    return none();
+                } else if (!(value instanceof List) && !(value instanceof String)) {
+                    throw new UnsupportedPolicyException("Unsupported value " + value);
+                }
+                final Set<String> checkedValues = new HashSet<>();
+                for (Object item : elements(value)) {
+                    if (!checkedValues.add(toPropertyKey(item))) {
+                        final Map<String, Object> failureParams = new LinkedHashMap<>();
+                        failureParams.put("duplicateValue", item);
+                        return failure("CANNOT_CONTAIN_DUPLICATES", failureParams);
+                    }
+                }
+                return none();
+            }
+        },
+        MAPPING_EXISTS("mapping-exists", false) {
+            @Override
+            List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                    boolean required) throws ResourceException, UnsupportedPolicyException {
+                final JsonValue syncConfig = evaluator.read(SYNC_CONFIG);
+                if (syncConfig != null) {
+                    final JsonValue mappings = syncConfig.get("mappings");
+                    if (!mappings.isList()) {
+                        throw new UnsupportedPolicyException("Unsupported sync configuration");
+                    }
+                    for (JsonValue mapping : mappings) {
+                        if (value instanceof String && value.equals(mapping.get("name").getObject())) {
+                            return none();
+                        }
+                    }
+                }
+                return failure("MAPPING_EXISTS");
+            }
+        };
+
+        private static final Map<String, BuiltInPolicy> POLICIES = new HashMap<>();
+
+        static {
+            for (BuiltInPolicy policy : values()) {
+                POLICIES.put(policy.policyId, policy);
+            }
+        }
+
+        private final String policyId;
+        private final boolean validateOnlyIfPresent;
+
+        BuiltInPolicy(String policyId, boolean validateOnlyIfPresent) {
+            this.policyId = policyId;
+            this.validateOnlyIfPresent = validateOnlyIfPresent;
+        }
+
+        /**
+         * Returns the built-in policy with the given identifier.
+         *
+         * @param policyId the identifier of the policy
+         * @return the built-in policy, or null for a custom policy
+         */
+        static BuiltInPolicy forId(Object policyId) {
+            return POLICIES.get(policyId);
+        }
+
+        /**
+         * Evaluates the policy for a value.
+         *
+         * @param evaluator the evaluator of the resource
+         * @param value the value, or {@link #UNDEFINED}
+         * @param params the parameters of the policy
+         * @param property the name of the property
+         * @param required true if a REQUIRED requirement of the property has already failed
+         * @return the failed policy requirements
+         */
+        abstract List<Object> evaluate(PolicyEvaluator evaluator, Object value, JsonValue params, String property,
+                boolean required) throws ResourceException, UnsupportedPolicyException;
+    }
+
+    private final Context context;
+    private final RequestHandler next;
+    private final String resourcePath;
+    private final JsonValue content;
+    private Object serverObject;
+
+    /**
+     * Construct a PolicyEvaluator.
+     *
+     * @param context the context of the request
+     * @param next the handler to read and query the resources through
+     * @param resourcePath the path of the validated resource, ending with {@code *} for a new resource without an
+     *                     identifier
+     * @param content the content of the validated resource
+     */
+    PolicyEvaluator(Context context, RequestHandler next, String resourcePath, JsonValue content) {
+        this.context = context;
+        this.next = next;
+        this.resourcePath = resourcePath;
+        this.content = content;
+    }
+
+    /**
+     * Validates the content of the resource against its policies.
+     *
+     * @return the result of the validation, as the {@code validateObject} action of the policy service returns it
+     * @throws ResourceException if the policies cannot be read or evaluated
+     * @throws UnsupportedPolicyException if the resource can only be validated by the policy service
+     */
+    JsonValue validateObject() throws ResourceException, UnsupportedPolicyException {
+        final List<JsonValue> properties = getProperties();
+        for (JsonValue property : properties) {
+            checkSupported(property);
+        }
+        final List<Object> failedPolicyRequirements = new ArrayList<>();
+        for (JsonValue property : properties) {
+            final String name = property.get("name").asString();
+            validate(getPolicies(property), name, getPropertyValue(getFullObject(), name), failedPolicyRequirements);
+        }
+        return json(object(
+                field("result", failedPolicyRequirements.isEmpty()),
+                field("failedPolicyRequirements", failedPolicyRequirements)));
+    }
+
+    private void validate(List<JsonValue> policies, String name, Object value, List<Object> failedPolicyRequirements)
+            throws ResourceException, UnsupportedPolicyException {
+        final List<Object> policyRequirements = new ArrayList<>();
+        for (JsonValue policyConfig : policies) {
+            final BuiltInPolicy policy = BuiltInPolicy.forId(policyConfig.get("policyId").getObject());
+            if (policy.validateOnlyIfPresent && value == UNDEFINED) {
+                continue;
+            }
+            final boolean array = name.endsWith(ARRAY_SUFFIX);
+            final List<Object> values = array ? arrayElements(value) : Collections.singletonList(value);
+            for (int i = 0; i < values.size(); i++) {
+                final Object item = values.get(i);
+                if (item instanceof Map && JsonCrypto.isJsonCrypto(new JsonValue(item))) {
+                    throw new UnsupportedPolicyException("Encrypted value of " + name);
+                }
+                final List<Object> failed = policy.evaluate(this, item, policyConfig.get("params"), name,
+                        isRequired(policyRequirements));
+                if (!failed.isEmpty()) {
+                    policyRequirements.addAll(failed);
+                    failedPolicyRequirements.add(object(
+                            field("policyRequirements", new ArrayList<>(failed)),
+                            field("property", array
+                                    ? name.substring(0, name.length() - ARRAY_SUFFIX.length()) + "[" + i + "]"
+                                    : name)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the properties of the resource with their policies, those of the policy configuration merged with
+     * those of the managed object schema.
+     */
+    private List<JsonValue> getProperties() throws ResourceException, UnsupportedPolicyException {
+        final JsonValue policyConfig = read(POLICY_CONFIG);
+        if (policyConfig == null) {
+            throw new UnsupportedPolicyException("No policy configuration");
+        } else if (!POLICY_SCRIPT.equals(policyConfig.get("file").getObject())) {
+            throw new UnsupportedPolicyException("Policy script other than " + POLICY_SCRIPT);
+        }
+        final List<JsonValue> properties = new ArrayList<>();
+        for (JsonValue resource : policyConfig.get("resources")) {
+            if (!resource.get("resource").isString()) {
+                throw new UnsupportedPolicyException("Unsupported policy resource " + resource);
+            }
+            if (resourceMatches(resource.get("resource").asString(), resourcePath)) {
+                if (!resource.get("properties").isList()) {
+                    throw new UnsupportedPolicyException("Unsupported policy resource " + resource);
+                }
+                for (JsonValue property : resource.get("properties").copy()) {
+                    properties.add(property);
+                }
+                break;
+            }
+        }
+        for (JsonValue newProperty : getAdditionalProperties()) {
+            boolean found = false;
+            for (JsonValue property : properties) {
+                if (Objects.equals(newProperty.get("name").getObject(), property.get("name").getObject())) {
+                    found = true;
+                    if (property.get("policies").isList() && property.get("policies").size() > 0) {
+                        property.put("policies", mergePolicies(property.get("policies"), newProperty.get("policies")));
+                    } else {
+                        property.put("policies", newProperty.get("policies").getObject());
+                    }
+                    final JsonValue conditionalPolicies = property.get("conditionalPolicies");
+                    if (conditionalPolicies.isList() && conditionalPolicies.size() > 0) {
+                        if (newProperty.get("conditionalPolicies").isList()) {
+                            conditionalPolicies.asList().addAll(newProperty.get("conditionalPolicies").asList());
+                        }
+                    } else {
+                        property.put("conditionalPolicies", newProperty.get("conditionalPolicies").getObject());
+                    }
+                }
+            }
+            if (!found) {
+                properties.add(newProperty);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the properties whose policies are derived from the schema of a managed object.
+     */
+    private List<JsonValue> getAdditionalProperties() throws ResourceException, UnsupportedPolicyException {
+        final String[] parts = resourcePath.split("/", -1);
+        // only managed objects support additional policies
+        if (!"managed".equals(parts[0]) || parts.length > 3) {
+            return Collections.emptyList();
+        }
+        final JsonValue managedConfig = read(MANAGED_CONFIG);
+        if (managedConfig == null) {
+            throw new UnsupportedPolicyException("No managed object configuration");
+        }
+        JsonValue schema = null;
+        for (JsonValue managedObject : managedConfig.get("objects")) {
+            if (parts.length > 1 && parts[1].equals(managedObject.get("name").getObject())) {
+                schema = managedObject.get("schema");
+                break;
+            }
+        }
+        if (schema == null || !schema.isMap() || !schema.get("properties").isMap()) {
+            return Collections.emptyList();
+        }
+        final List<JsonValue> properties = new ArrayList<>();
+        for (String name : schema.get("properties").keys()) {
+            final JsonValue property = schema.get("properties").get(name);
+            final JsonValue type = property.get("type");
+            final JsonValue minLength = property.get("minLength");
+            final List<Object> policies = new ArrayList<>();
+            if (schema.get("required").isList() && schema.get("required").asList().contains(name)) {
+                policies.add(object(field("policyId", "required")));
+            }
+            if ((type.isList() && !type.asList().contains("null"))
+                    || (minLength.isNumber() && minLength.asDouble() > 0)) {
+                policies.add(object(field("policyId", "not-empty")));
+            }
+            if ((type.isList() && type.asList().contains("string")) || "string".equals(type.getObject())) {
+                final Long minimumLength = parseInt(minLength.getObject());
+                if (minimumLength != null) {
+                    policies.add(object(
+                            field("policyId", "minimum-length"),
+                            field("params", object(field("minLength", minimumLength)))));
+                }
+                if (property.get("pattern").isString()) {
+                    policies.add(object(
+                            field("policyId", "regexpMatches"),
+                            field("params", object(field("regexp", property.get("pattern").getObject())))));
+                }
+            }
+            final List<Object> types = new ArrayList<>();
+            if (type.isString()) {
+                types.add(type.getObject());
+            } else if (type.isList() || type.isMap()) {
+                for (JsonValue item : type) {
+                    types.add(item.getObject());
+                }
+            }
+            // treat a relationship type as an object
+            for (int i = 0; i < types.size(); i++) {
+                if ("relationship".equals(types.get(i))) {
+                    types.set(i, "object");
+                }
+            }
+            policies.add(object(field("policyId", "valid-type"), field("params", object(field("types", types)))));
+            if (property.get("policies").isList() || property.get("policies").isMap()) {
+                for (JsonValue policy : property.get("policies")) {
+                    policies.add(policy.getObject());
+                }
+            } else if (property.get("policies").isNotNull()) {
+                throw new UnsupportedPolicyException("Unsupported policies of " + name);
+            }
+            final JsonValue additionalProperty = json(object(field("name", name), field("policies", policies)));
+            if (property.isDefined("conditionalPolicies")) {
+                additionalProperty.put("conditionalPolicies", property.get("conditionalPolicies").getObject());
+            }
+            if (property.isDefined("fallbackPolicies")) {
+                additionalProperty.put("fallbackPolicies", property.get("fallbackPolicies").getObject());
+            }
+            properties.add(additionalProperty);
+        }
+        return properties;
+    }
+
+    /**
+     * Merges policies, replacing the existing policies with the new policies that have the same identifier.
+     */
+    private static List<Object> mergePolicies(JsonValue oldPolicies, JsonValue newPolicies) {
+        final List<Object> policies = new ArrayList<>(oldPolicies.asList());
+        for (JsonValue newPolicy : newPolicies) {
+            boolean found = false;
+            for (int i = 0; i < policies.size(); i++) {
+                final Object policyId = new JsonValue(policies.get(i)).get("policyId").getObject();
+                if (Objects.equals(newPolicy.get("policyId").getObject(), policyId)) {
+                    // update old policy with new config
+                    policies.set(i, newPolicy.getObject());
+                    found = true;
+                }
+            }
+            if (!found) {
+                final Map<String, Object> params = new LinkedHashMap<>();
+                if (newPolicy.get("params").isMap()) {
+                    params.putAll(newPolicy.get("params").asMap());
+                }
+                policies.add(object(field("policyId", newPolicy.get("policyId").getObject()), field("params", params)));
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * Checks that all of the policies of a property are built into policy.js.
+     */
+    private static void checkSupported(JsonValue property) throws UnsupportedPolicyException {
+        if (!property.get("name").isString() || !property.get("policies").isList()) {
+            throw new UnsupportedPolicyException("Unsupported policy property " + property);
+        }
+        final JsonValue conditionalPolicies = property.get("conditionalPolicies");
+        final JsonValue fallbackPolicies = property.get("fallbackPolicies");
+        if ((conditionalPolicies.isNotNull() && !(conditionalPolicies.isList() && conditionalPolicies.size() == 0))
+                || (fallbackPolicies.isNotNull() && !fallbackPolicies.isList())) {
+            throw new UnsupportedPolicyException("Conditional policies of " + property.get("name").getObject());
+        }
+        for (JsonValue policy : getPolicies(property)) {
+            if (!policy.isMap() || BuiltInPolicy.forId(policy.get("policyId").getObject()) == null) {
+                throw new UnsupportedPolicyException("Custom policy " + policy.get("policyId").getObject());
+            }
+            if (policy.get("params").isNotNull() && !policy.get("params").isMap()) {
+                throw new UnsupportedPolicyException("Unsupported params of " + policy.get("policyId").getObject());
+            }
+        }
+    }
+
+    /**
+     * Returns the policies applied to a property, which include its fallback policies since the property has no
+     * conditional policies.
+     */
+    private static List<JsonValue> getPolicies(JsonValue property) {
+        final List<JsonValue> policies = new ArrayList<>();
+        for (JsonValue policy : property.get("policies")) {
+            policies.add(policy);
+        }
+        for (JsonValue policy : property.get("fallbackPolicies")) {
+            policies.add(policy);
+        }
+        return policies;
+    }
+
+    private static boolean resourceMatches(String resource1, String resource2) {
+        final String[] rsrc1 = resource1.split("/", -1);
+        final String[] rsrc2 = resource2.split("/", -1);
+        if (rsrc1.length != rsrc2.length) {
+            return false;
+        }
+        for (int i = 0; i < rsrc1.length; i++) {
+            if (!rsrc1[i].equals(rsrc2[i]) && !"*".equals(rsrc1[i]) && !"*".equals(rsrc2[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRequired(List<Object> policyRequirements) {
+        for (Object policyRequirement : policyRequirements) {
+            if (REQUIRED.equals(new JsonValue(policyRequirement).get(POLICY_REQUIREMENT).getObject())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of a property, whose name is a path of object members.
+     */
+    private static Object getPropertyValue(Object object, String name) {
+        if (object == null) {
+            return null;
+        }
+        Object value = object;
+        for (String part : name.split("/", -1)) {
+            value = member(value, part.endsWith(ARRAY_SUFFIX)
+                    ? part.substring(0, part.length() - ARRAY_SUFFIX.length())
+                    : part);
+            if (value == UNDEFINED || value == null) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    private Object getFullObject() {
+        return content.getObject();
+    }
+
+    private void setFullObjectMember(String key, Object value) throws UnsupportedPolicyException {
+        if (!content.isMap()) {
+            throw new UnsupportedPolicyException("Unsupported content " + content);
+        }
+        content.put(key, value);
+    }
+
+    /**
+     * Returns the stored content of the validated resource, or an empty object if it is new or not found.
+     */
+    private Object getServerObject() throws ResourceException {
+        if (serverObject == null) {
+            final JsonValue stored = resourcePath.endsWith("/*") ? null : read(resourcePath);
+            serverObject = stored != null ? stored.getObject() : new LinkedHashMap<String, Object>();
+        }
+        return serverObject;
+    }
+
+    /**
+     * Reads a resource.
+     *
+     * @return the content of the resource, or null if it is not found
+     */
+    private JsonValue read(String path) throws ResourceException {
+        try {
+            return next.handleRead(context, newReadRequest(path)).getOrThrowUninterruptibly().getContent();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a query returns a resource other than the validated one.
+     */
+    private boolean existsOther(QueryRequest request, String id) throws ResourceException {
+        final List<ResourceResponse> results = new ArrayList<>();
+        next.handleQuery(context, request, new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                results.add(resource);
+                return false;
+            }
+        }).getOrThrowUninterruptibly();
+        return !results.isEmpty() && (id == null || id.isEmpty() || !id.equals(results.get(0).getId()));
+    }
+
+    // The JavaScript semantics of the values policy.js evaluates
+
+    private static Object member(Object object, String key) {
+        if (object instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) object;
+            return map.containsKey(key) ? map.get(key) : UNDEFINED;
+        } else if (object instanceof List || object instanceof String) {
+            final int length = object instanceof List ? ((List<?>) object).size() : ((String) object).length();
+            if ("length".equals(key)) {
+                return length;
+            } else if (!ARRAY_INDEX.matcher(key).matches() || Integer.parseInt(key) >= length) {
+                return UNDEFINED;
+            }
+            final int index = Integer.parseInt(key);
+            return object instanceof List
+                    ? ((List<?>) object).get(index)
+                    : String.valueOf(((String) object).charAt(index));
+        }
+        return UNDEFINED;
+    }
+
+    /**
+     * Returns the elements of an array or the characters of a string, or nothing for any other value.
+     */
+    private static List<Object> arrayElements(Object value) {
+        if (value instanceof List) {
+            return new ArrayList<Object>((List<?>) value);
+        }
+        final List<Object> elements = new ArrayList<>();
+        if (value instanceof String) {
+            for (char c : ((String) value).toCharArray()) {
+                elements.add(String.valueOf(c));
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Returns the values a for-in loop iterates over.
+     */
+    private static List<Object> elements(Object value) throws UnsupportedPolicyException {
+        if (value instanceof Map) {
+            return new ArrayList<Object>(((Map<?, ?>) value).values());
+        } else if (value instanceof List || value instanceof String) {
+            return arrayElements(value);
+        } else if (value == UNDEFINED || value == null) {
+            return Collections.emptyList();
+        }
+        throw new UnsupportedPolicyException("Unsupported values " + value);
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == UNDEFINED || value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Number) {
+            final double number = ((Number) value).doubleValue();
+            return number != 0 && !Double.isNaN(number);
+        } else if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return true;
+    }
+
+    private static boolean isNonEmptyString(Object value) {
+        return value instanceof String && !((String) value).isEmpty();
+    }
+
+    private static String typeOf(Object value) throws UnsupportedPolicyException {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof List) {
+            return "array";
+        } else if (value instanceof Map) {
+            return "object";
+        } else if (value instanceof String) {
+            return "string";
+        } else if (value instanceof Number) {
+            return "number";
+        } else if (value instanceof Boolean) {
+            return "boolean";
+        }
+        throw new UnsupportedPolicyException("Unsupported value " + value);
+    }
+
+    private static String toStringValue(Object value) throws UnsupportedPolicyException {
+        if (value instanceof String) {
+            return (String) value;
+        } else if (value instanceof Number) {
+            return toJsString((Number) value);
+        } else if (value instanceof Boolean) {
+            return value.toString();
+        }
+        throw new UnsupportedPolicyException("Unsupported value " + value);
+    }
+
+    /**
+     * Converts a value to the string key of an object member.
+     */
+    private static String toPropertyKey(Object value) throws UnsupportedPolicyException {
+        if (value == null) {
+            return "null";
+        } else if (value == UNDEFINED) {
+            return "undefined";
+        }
+        return toStringValue(value);
+    }
+
+    private static String toJsString(Number value) throws UnsupportedPolicyException {
+        if (value instanceof Integer || value instanceof Long) {
+            return value.toString();
+        }
+        final double number = value.doubleValue();
+        if (Double.isNaN(number)) {
+            return "NaN";
+        } else if (Double.isInfinite(number)) {
+            return number > 0 ? "Infinity" : "-Infinity";
+        } else if (number == 0) {
+            return "0";
+        } else if (Math.abs(number) < 1e-6 || Math.abs(number) >= 1e21) {
+            throw new UnsupportedPolicyException("Unsupported number " + value);
+        }
+        return new BigDecimal(Double.toString(number)).stripTrailingZeros().toPlainString();
+    }
+
+    private static double toNumber(Object value) throws UnsupportedPolicyException {
+        if (value == UNDEFINED) {
+            return Double.NaN;
+        } else if (value == null) {
+            return 0;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else if (value instanceof String) {
+            final String string = ((String) value).trim();
+            if (string.isEmpty()) {
+                return 0;
+            } else if (DECIMAL.matcher(string).matches()) {
+                return Double.parseDouble(string);
+            } else if (!string.matches("(?i)[+-]?(0x.*|infinity)")) {
+                return Double.NaN;
+            }
+        }
+        throw new UnsupportedPolicyException("Unsupported number " + value);
+    }
+
+    /**
+     * Compares two values the way the JavaScript {@code >} operator does.
+     */
+    private static boolean isGreaterThan(Object value, Object other) throws UnsupportedPolicyException {
+        if (value instanceof String && other instanceof String) {
+            return ((String) value).compareTo((String) other) > 0;
+        }
+        return toNumber(value) > toNumber(other);
+    }
+
+    /**
+     * Returns the time of a date the way the JavaScript Date constructor does, or NaN for an invalid date.
+     */
+    private static double toTime(Object value) throws UnsupportedPolicyException {
+        if (value instanceof String) {
+            return parseDate((String) value, true);
+        } else if (value == UNDEFINED || value instanceof Number || value instanceof Boolean || value == null) {
+            return toNumber(value);
+        }
+        throw new UnsupportedPolicyException("Unsupported date " + value);
+    }
+
+    /**
+     * Parses an ISO 8601 date, without a time or with a time zone if the zone matters.
+     *
+     * @throws UnsupportedPolicyException if the date could be parsed differently by policy.js
+     */
+    private static long parseDate(String value, boolean zoned) throws UnsupportedPolicyException {
+        final Matcher matcher = ISO_DATE_TIME.matcher(value);
+        if (!matcher.matches() || (zoned && matcher.group(1) != null && matcher.group(4) == null)) {
+            throw new UnsupportedPolicyException("Unsupported date " + value);
+        }
+        try {
+            return ISO_PARSER.parseMillis(value);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedPolicyException("Unsupported date " + value);
+        }
+    }
+
+    /**
+     * Parses an integer the way the JavaScript parseInt function does.
+     *
+     * @return the integer, or null for NaN
+     */
+    private static Long parseInt(Object value) throws UnsupportedPolicyException {
+        if (value instanceof Number) {
+            final double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return null;
+            } else if (Math.abs(number) < 1e18) {
+                return (long) number;
+            }
+        } else if (value instanceof String) {
+            final Matcher matcher = INTEGER_PREFIX.matcher((String) value);
+            if (!((String) value).trim().matches("(?i)[+-]?0x.*")) {
+                if (!matcher.lookingAt()) {
+                    return null;
+                } else if (matcher.group(1).length() <= 18) {
+                    return Long.valueOf(matcher.group(1));
+                }
+            }
+        } else if (value == null || value instanceof Boolean) {
+            return null;
+        }
+        throw new UnsupportedPolicyException("Unsupported integer " + value);
+    }
+
+    /**
+     * Compiles a JavaScript regular expression.
+     *
+     * @throws UnsupportedPolicyException if Java does not compile the expression, or its flags
+     */
+    private static Pattern compile(String regexp, String flags) throws UnsupportedPolicyException {
+        int javaFlags = 0;
+        for (char flag : flags.toCharArray()) {
+            if (flag == 'i') {
+                javaFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            } else if (flag == 'm') {
+                javaFlags |= Pattern.MULTILINE;
+            } else if (flag != 'g') {
+                throw new UnsupportedPolicyException("Unsupported regular expression flags " + flags);
+            }
+        }
+        try {
+            return Pattern.compile(regexp, javaFlags);
+        } catch (PatternSyntaxException e) {
+            throw new UnsupportedPolicyException("Unsupported regular expression " + regexp);
+        }
+    }
+
+    /**
+     * Checks whether a regular expression matches a part of a string.
+     *
+     * @throws UnsupportedPolicyException if the string contains line terminators, which Java regular expressions
+     *                                    do not treat the way JavaScript does
+     */
+    private static boolean find(Pattern pattern, Object value) throws UnsupportedPolicyException {
+        final String string = (String) value;
+        for (char c : LINE_TERMINATORS.toCharArray()) {
+            if (string.indexOf(c) != -1) {
+                throw new UnsupportedPolicyException("Unsupported line terminator");
+            }
+        }
+        return pattern.matcher(string).find();
+    }
+
+    private static List<Object> matchesFormat(Object value, Pattern pattern, boolean whole, boolean required,
+            String policyRequirement) throws UnsupportedPolicyException {
+        final boolean passes = isNonEmptyString(value)
+                && (whole ? pattern.matcher((String) value).matches() : find(pattern, value));
+        return (required || isNonEmptyString(value)) && !passes ? failure(policyRequirement) : none();
+    }
+
+    private static List<Object> hasAtLeast(Object value, Pattern pattern, JsonValue params, String param,
+            boolean required, String policyRequirement) throws UnsupportedPolicyException {
+        final double minimum = toNumber(param(params, param));
+        int count = 0;
+        if (isNonEmptyString(value)) {
+            final Matcher matcher = pattern.matcher((String) value);
+            while (matcher.find()) {
+                count++;
+            }
+        }
+        if ((required || isNonEmptyString(value)) && !(count > 0 && count >= minimum)) {
+            return failure(policyRequirement, params, param);
+        }
+        return none();
+    }
+
+    /**
+     * Returns a parameter of a policy.
+     *
+     * @throws UnsupportedPolicyException if the policy has no parameters, which policy.js fails to evaluate
+     */
+    private static Object param(JsonValue params, String name) throws UnsupportedPolicyException {
+        if (params.isNull()) {
+            throw new UnsupportedPolicyException("Missing params " + name);
+        }
+        return params.isDefined(name) ? params.get(name).getObject() : UNDEFINED;
+    }
+
+    private static void putIfDefined(Map<String, Object> map, String key, Object value) {
+        if (value != UNDEFINED) {
+            map.put(key, value);
+        }
+    }
+
+    private static List<Object> none() {
+        return Collections.emptyList();
+    }
+
+    private static List<Object> failure(String policyRequirement) {
+        return Collections.<Object>singletonList(object(field(POLICY_REQUIREMENT, policyRequirement)));
+    }
+
+    private static List<Object> failure(String policyRequirement, Map<String, Object> params) {
+        return Collections.<Object>singletonList(object(
+                field(POLICY_REQUIREMENT, policyRequirement),
+                field("params", params)));
+    }
+
+    private static List<Object> failure(String policyRequirement, JsonValue params, String... names) {
+        final Map<String, Object> failureParams = new LinkedHashMap<>();
+        for (String name : names) {
+            if (params.isDefined(name)) {
+                failureParams.put(name, params.get(name).getObject());
+            }
+        }
+        return failure(policyRequirement, failureParams);
+    }
+}
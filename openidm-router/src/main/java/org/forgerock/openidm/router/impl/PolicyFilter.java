@@ -0,0 +1,198 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+
+import org.forgerock.http.util.Uris;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.ForbiddenException;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.AsyncFunction;
+import org.forgerock.util.Function;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.Promises;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates the content of the created and updated resources against the policies of the policy service, the way
+ * policyFilter.js does, without evaluating a script for each request.
+ * <p>
+ * The built-in policies of policy.js are evaluated by {@link PolicyEvaluator}. The {@code validateObject} action is
+ * only sent to the policy service, through the rest of the filter chain, for the resources with custom or
+ * conditional policies. A request whose content fails a policy is rejected with a 403 error whose detail is the
+ * result of the validation.
+ */
+class PolicyFilter implements Filter {
+
+    /** Logger for this class. */
+    private static final Logger logger = LoggerFactory.getLogger(PolicyFilter.class);
+
+    private static final String POLICY_PATH = "policy/";
+    private static final String ACTION_VALIDATE_OBJECT = "validateObject";
+
+    private final boolean enforce;
+
+    /**
+     * Construct a PolicyFilter.
+     *
+     * @param enforce false to pass the requests through without validating them
+     */
+    PolicyFilter(boolean enforce) {
+        this.enforce = enforce;
+    }
+
+    /**
+     * Translates the request details into the path of the resource whose policies are evaluated.
+     *
+     * @param basePath the resource path of the request
+     * @param newResourceId the identifier of a created resource, or null
+     * @param create true if the request is a create request
+     * @return the path to use for policy evaluation
+     */
+    static String getFullResourcePath(String basePath, String newResourceId, boolean create) {
+        if (!create) {
+            return basePath;
+        }
+        final String id = newResourceId != null ? Uris.urlEncodePathElement(newResourceId) : "*";
+        return basePath.isEmpty() ? id : basePath + "/" + id;
+    }
+
+    /**
+     * Validates the content of a resource.
+     *
+     * @return the result of the validation, or null if the resource is not validated
+     */
+    private Promise<ActionResponse, ResourceException> validate(Context context, String fullResourcePath,
+            JsonValue content, RequestHandler next) {
+        if (!enforce || fullResourcePath.startsWith(POLICY_PATH)) {
+            return Promises.<ActionResponse, ResourceException>newResultPromise(null);
+        }
+        try {
+            final JsonValue result = new PolicyEvaluator(context, next, fullResourcePath, content).validateObject();
+            return Promises.<ActionResponse, ResourceException>newResultPromise(
+                    checkResult(newActionResponse(result)));
+        } catch (PolicyEvaluator.UnsupportedPolicyException e) {
+            logger.debug("Validating {} with the policy service: {}", fullResourcePath, e.getMessage());
+        } catch (ResourceException e) {
+            return e.asPromise();
+        }
+        final ActionRequest validateRequest;
+        try {
+            validateRequest = newActionRequest(POLICY_PATH + fullResourcePath, ACTION_VALIDATE_OBJECT)
+                    .setContent(content)
+                    .setAdditionalParameter("external", "true");
+        } catch (ResourceException e) {
+            return e.asPromise();
+        }
+        return next.handleAction(context, validateRequest)
+                .then(new Function<ActionResponse, ActionResponse, ResourceException>() {
+                    @Override
+                    public ActionResponse apply(ActionResponse response) throws ResourceException {
+                        return checkResult(response);
+                    }
+                });
+    }
+
+    /**
+     * Rejects the request if its content failed a policy.
+     *
+     * @return the result of the validation
+     * @throws ForbiddenException if the content failed a policy
+     */
+    private static ActionResponse checkResult(ActionResponse response) throws ResourceException {
+        final JsonValue result = response.getJsonContent();
+        if (!result.get("result").defaultTo(false).asBoolean()) {
+            throw new ForbiddenException("Policy validation failed").setDetail(result);
+        }
+        return response;
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterCreate(final Context context,
+            final CreateRequest request, final RequestHandler next) {
+        return validate(context,
+                getFullResourcePath(request.getResourcePath(), request.getNewResourceId(), true),
+                request.getContent(), next)
+                .thenAsync(new AsyncFunction<ActionResponse, ResourceResponse, ResourceException>() {
+                    @Override
+                    public Promise<ResourceResponse, ResourceException> apply(ActionResponse value) {
+                        return next.handleCreate(context, request);
+                    }
+                });
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterUpdate(final Context context,
+            final UpdateRequest request, final RequestHandler next) {
+        return validate(context,
+                getFullResourcePath(request.getResourcePath(), null, false),
+                request.getContent(), next)
+                .thenAsync(new AsyncFunction<ActionResponse, ResourceResponse, ResourceException>() {
+                    @Override
+                    public Promise<ResourceResponse, ResourceException> apply(ActionResponse value) {
+                        return next.handleUpdate(context, request);
+                    }
+                });
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+            RequestHandler next) {
+        return next.handleAction(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest request,
+            RequestHandler next) {
+        return next.handleDelete(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest request,
+            RequestHandler next) {
+        return next.handlePatch(context, request);
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler, RequestHandler next) {
+        return next.handleQuery(context, request, handler);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+            RequestHandler next) {
+        return next.handleRead(context, request);
+    }
+}
@@ -12,16 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.router.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.JsonValueFunctions.*;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -39,7 +43,10 @@ import org.forgerock.json.resource.FilterCondition;
 import org.forgerock.json.resource.Filters;
 import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestType;
+import org.forgerock.openidm.condition.Condition;
+import org.forgerock.openidm.condition.Conditions;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.openidm.filter.ScriptedFilter;
@@ -77,6 +84,15 @@ public class RouterConfig {
 
     static final String PID = "org.forgerock.openidm.router";
 
+    /** The type of the native filter authorizing requests against access rules */
+    static final String FILTER_TYPE_AUTHORIZATION = "authorization";
+
+    /** The access rules of router-authz.js, relative to the project location */
+    static final String ACCESS_SCRIPT = "script/access.js";
+
+    /** The type of the native filter validating the content of requests against policies */
+    static final String FILTER_TYPE_POLICY = "policy";
+
     /** Logger for this class. */
     private final static Logger logger = LoggerFactory.getLogger(RouterConfig.class);
 
@@ -190,6 +206,8 @@ public class RouterConfig {
     /**
      * Create a Filter from the filter configuration.
      *
+     * The filter is either scripted, or a native filter of the given {@code type}.
+     *
      * @param config
      *            the configuration describing a single filter.
      * @return a Filter
@@ -199,14 +217,34 @@ public class RouterConfig {
     Filter newFilter(JsonValue config) throws JsonValueException, ScriptException {
         FilterCondition filterCondition = null;
 
-        final Pair<JsonPointer, ScriptEntry> condition = getScript(config.get("condition"));
-        final Pair<JsonPointer, ScriptEntry> onRequest = getScript(config.get("onRequest"));
-        final Pair<JsonPointer, ScriptEntry> onResponse = getScript(config.get("onResponse"));
-        final Pair<JsonPointer, ScriptEntry> onFailure = getScript(config.get("onFailure"));
+        final JsonValue conditionConfig = config.get("condition");
+        final Pair<JsonPointer, ScriptEntry> condition = conditionConfig.isString() ? null : getScript(conditionConfig);
+        final Filter delegate;
 
-        // Require at least one of the following
-        if (null == onRequest && null == onResponse && null == onFailure) {
-            return null;
+        final String type = config.get("type").asString();
+        if (null == type) {
+            final Pair<JsonPointer, ScriptEntry> onRequest = getScript(config.get("onRequest"));
+            final Pair<JsonPointer, ScriptEntry> onResponse = getScript(config.get("onResponse"));
+            final Pair<JsonPointer, ScriptEntry> onFailure = getScript(config.get("onFailure"));
+
+            // Require at least one of the following
+            if (null == onRequest && null == onResponse && null == onFailure) {
+                return null;
+            }
+            delegate = new ScriptedFilter(onRequest, onResponse, onFailure);
+        } else if (FILTER_TYPE_AUTHORIZATION.equals(type)) {
+            final Pair<JsonPointer, ScriptEntry> customAuthz = getScript(config.get("customAuthz"));
+            final AccessFilter.CustomAuthz customAuthzFilter =
+                    null == customAuthz ? null : new AccessFilter.ScriptedCustomAuthz(customAuthz);
+            delegate = config.isDefined("access")
+                    ? new AccessFilter(config.get("access"), customAuthzFilter)
+                    : new AccessFilter(new File(IdentityServer.getInstance().getProjectLocation(), ACCESS_SCRIPT),
+                            customAuthzFilter);
+        } else if (FILTER_TYPE_POLICY.equals(type)) {
+            delegate = new PolicyFilter(!"false".equals(IdentityServer.getInstance()
+                    .getProperty("openidm.policy.enforcement.enabled", "true", true)));
+        } else {
+            throw new JsonValueException(config.get("type"), "Unsupported filter type: " + type);
         }
 
         // Check for condition on pattern
@@ -228,8 +266,8 @@ public class RouterConfig {
 
         // Create the filter
         Filter filter = (null == filterCondition)
-                ? new ScriptedFilter(onRequest, onResponse, onFailure)
-                : Filters.conditionalFilter(filterCondition, new ScriptedFilter(onRequest, onResponse, onFailure));
+                ? delegate
+                : Filters.conditionalFilter(filterCondition, delegate);
 
         // Check for a condition script
         if (null != condition) {
@@ -248,10 +286,56 @@ public class RouterConfig {
                 }
             };
             filter = Filters.conditionalFilter(conditionFilterCondition, filter);
+        } else if (conditionConfig.isString()) {
+            filter = Filters.conditionalFilter(newQueryFilterCondition(conditionConfig.asString()), filter);
         }
         return filter;
     }
 
+    /**
+     * Creates a filter condition from a query filter, which is evaluated against an object holding the
+     * {@code request} and the {@code context} of each request, without calling the script engine. Like in the
+     * scripts, the contexts are available by name, so that {@code /context/security/authorization/roles} holds the
+     * roles of the caller.
+     *
+     * @param queryFilter the query filter
+     * @return the filter condition
+     */
+    static FilterCondition newQueryFilterCondition(String queryFilter) {
+        final Condition condition = Conditions.newCondition(queryFilter);
+        return new FilterCondition() {
+            @Override
+            public boolean matches(final Context context, final Request request) {
+                try {
+                    return condition.evaluate(object(
+                            field("request", request.toJsonValue().getObject()),
+                            field("context", contextsByName(context))), context);
+                } catch (JsonValueException e) {
+                    logger.warn("Failed to evaluate filter condition: {}", e.getMessage(), e);
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the contexts of a context chain by name, the closest context of a given name first.
+     */
+    private static Map<String, Object> contextsByName(Context context) {
+        final Map<String, Object> contexts = new LinkedHashMap<>();
+        JsonValue current = context.toJsonValue();
+        while (current.isNotNull()) {
+            final JsonValue parent = current.get("parent");
+            current.remove("parent");
+            final String name = current.get("name").asString();
+            if (name != null && !contexts.containsKey(name)) {
+                contexts.put(name, current.getObject());
+            }
+            current = parent;
+        }
+        return contexts;
+    }
+
     private Pair<JsonPointer, ScriptEntry> getScript(JsonValue scriptJson) throws ScriptException {
         if (scriptJson.expect(Map.class).isNull()) {
             return null;
@@ -0,0 +1,424 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Router.uriTemplate;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.ForbiddenException;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Router;
+import org.forgerock.json.resource.http.HttpContext;
+import org.forgerock.services.context.AbstractContext;
+import org.forgerock.services.context.ClientContext;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.services.context.SecurityContext;
+import org.forgerock.util.promise.Promise;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A test of the access rules of the {@link AccessFilter}.
+ */
+public class AccessFilterTest {
+
+    private static final JsonValue ACCESS = json(object(field("configs", array(
+            object(
+                    field("pattern", "info/*"),
+                    field("roles", "*"),
+                    field("methods", "read"),
+                    field("actions", "*")),
+            object(
+                    field("pattern", "authentication"),
+                    field("roles", "*"),
+                    field("methods", "read,action"),
+                    field("actions", "getAuthToken,logout")),
+            object(
+                    field("pattern", "managed/*"),
+                    field("roles", "openidm-admin"),
+                    field("methods", "*"),
+                    field("actions", "*"),
+                    field("excludePatterns", "managed/secret,managed/secret/*")),
+            object(
+                    field("pattern", "managed/user"),
+                    field("roles", "openidm-reg"),
+                    field("methods", "create"),
+                    field("actions", "*"),
+                    field("customAuthz", "onlyEditableManagedObjectProperties('user', [])")),
+            object(
+                    field("pattern", "managed/user/*"),
+                    field("roles", "openidm-authorized"),
+                    field("methods", "read,update"),
+                    field("actions", "*"),
+                    field("customAuthz", "ownDataOnly() && restrictPatchToFields(['password'])")),
+            object(
+                    field("pattern", "managed/user"),
+                    field("roles", "*"),
+                    field("methods", "query"),
+                    field("actions", "*"),
+                    field("customAuthz",
+                            "disallowQueryExpression() && (isSelfServiceRequest() || checkIfUIIsEnabled('x'))"))))));
+
+    private static final String ACCESS_SCRIPT = "// A configuration for allowed HTTP requests\n"
+            + "var httpAccessConfig =\n"
+            + "{\n"
+            + "    \"configs\" : [\n"
+            + "        // Anyone can read from these endpoints\n"
+            + "        {\n"
+            + "            \"pattern\"   : \"managed/*\",\n"
+            + "            \"roles\"     : \"openidm-admin\",\n"
+            + "            \"methods\"   : \"*\",\n"
+            + "            \"actions\"   : \"*\"\n"
+            + "        },\n"
+            + "        {\n"
+            + "            \"pattern\"   : \"managed/user\",\n"
+            + "            \"roles\"     : \"openidm-reg\",\n"
+            + "            \"methods\"   : \"create\",\n"
+            + "            \"actions\"   : \"*\",\n"
+            + "            \"customAuthz\" : \"isQueryOneOf({'managed/user': ['for-userName']})\"\n"
+            + "        }\n"
+            + "    ]\n"
+            + "};\n"
+            + "\n"
+            + "// Additional custom authorization functions go here\n"
+            + "function isSelfServiceRequest() { return true; }\n";
+
+    /** The access rules shipped with OpenIDM */
+    private static final File SHIPPED_ACCESS_SCRIPT = new File("../openidm-zip/src/main/resources/script/access.js");
+
+    private Router router;
+
+    /** Records the requests passed to the custom authorization */
+    private final List<String> customAuthorized = new ArrayList<>();
+
+    /** Records the expressions passed to the custom authorization */
+    private final List<List<String>> customAuthzExpressions = new ArrayList<>();
+
+    private final AccessFilter.CustomAuthz customAuthz = new AccessFilter.CustomAuthz() {
+        @Override
+        public void authorize(Context context, Request request, List<String> expressions) {
+            customAuthorized.add(request.getResourcePath());
+            customAuthzExpressions.add(expressions);
+        }
+    };
+
+    @BeforeMethod
+    public void setUp() {
+        router = new Router();
+        router.addRoute(uriTemplate("managed/user"), new MemoryBackend());
+        router.addRoute(uriTemplate("managed/secret"), new MemoryBackend());
+        customAuthorized.clear();
+        customAuthzExpressions.clear();
+    }
+
+    private static Context externalContext(Map<String, List<String>> headers, String... roles) {
+        final HttpContext httpContext = new HttpContext(json(object(
+                field(HttpContext.ATTR_METHOD, "POST"),
+                field(HttpContext.ATTR_PARAMETERS, object()),
+                field(HttpContext.ATTR_HEADERS, headers))),
+                ClassLoader.getSystemClassLoader());
+        final Map<String, Object> authorization = new HashMap<>();
+        authorization.put(SecurityContext.AUTHZID_ID, "bjensen");
+        authorization.put(SecurityContext.AUTHZID_ROLES, asList(roles));
+        authorization.put(SecurityContext.AUTHZID_COMPONENT, "managed/user");
+        return new SecurityContext(ClientContext.buildExternalClientContext(httpContext).build(),
+                "bjensen", authorization);
+    }
+
+    private static Context ajaxContext(String... roles) {
+        return externalContext(Collections.singletonMap("X-Requested-With", asList("XMLHttpRequest")), roles);
+    }
+
+    private static Context selfServiceContext(String... roles) {
+        return new SelfServiceContext(ajaxContext(roles));
+    }
+
+    /** A context of the self-service requests */
+    private static final class SelfServiceContext extends AbstractContext {
+        SelfServiceContext(Context parent) {
+            super(parent, "selfservice");
+        }
+    }
+
+    private Promise<ResourceResponse, ResourceException> create(Filter filter, Context context, String path) {
+        return filter.filterCreate(context,
+                Requests.newCreateRequest(path, json(object(field("userName", "bjensen")))), router);
+    }
+
+    @Test
+    public void testAllowedByRole() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+
+        assertThat(create(filter, ajaxContext("openidm-authorized", "OpenIDM-Admin"), "managed/user")
+                .getOrThrow().getContent().get("userName").asString()).isEqualTo("bjensen");
+    }
+
+    @Test(expectedExceptions = ForbiddenException.class)
+    public void testDeniedWithoutRole() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, null);
+        create(filter, ajaxContext("openidm-authorized"), "managed/user").getOrThrow();
+    }
+
+    @Test(expectedExceptions = ForbiddenException.class)
+    public void testDeniedByExcludePattern() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+        create(filter, ajaxContext("openidm-admin"), "managed/secret").getOrThrow();
+    }
+
+    @Test(expectedExceptions = ForbiddenException.class)
+    public void testNonAjaxRequestIsDenied() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+        create(filter, externalContext(Collections.<String, List<String>>emptyMap(), "openidm-admin"),
+                "managed/user").getOrThrow();
+    }
+
+    @Test
+    public void testActions() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, null);
+        final Router authentication = new Router();
+        authentication.addRoute(uriTemplate("authentication"), new MemoryBackend());
+
+        try {
+            filter.filterAction(ajaxContext(), Requests.newActionRequest("authentication", "reauthenticate"),
+                    authentication).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(e.getMessage()).isEqualTo("Access denied");
+        }
+        // the action is allowed, the memory backend does not support it
+        try {
+            filter.filterAction(ajaxContext(), Requests.newActionRequest("authentication", "logout"),
+                    authentication).getOrThrow();
+        } catch (ResourceException e) {
+            assertThat(e).isNotInstanceOf(ForbiddenException.class);
+        }
+    }
+
+    @Test
+    public void testCustomAuthzRuleIsPassedToScript() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+
+        create(filter, ajaxContext("openidm-reg"), "managed/user").getOrThrow();
+        assertThat(customAuthorized).containsExactly("managed/user");
+        assertThat(customAuthzExpressions).containsExactly(asList("onlyEditableManagedObjectProperties('user', [])"));
+
+        create(filter, ajaxContext("openidm-admin"), "managed/user").getOrThrow();
+        assertThat(customAuthorized).containsExactly("managed/user");
+    }
+
+    @Test
+    public void testOwnDataOnlyIsEvaluatedByTheFilter() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+        router.handleCreate(new RootContext(), Requests.newCreateRequest("managed/user", "bjensen",
+                json(object(field("userName", "bjensen"))))).getOrThrow();
+        router.handleCreate(new RootContext(), Requests.newCreateRequest("managed/user", "scarter",
+                json(object(field("userName", "scarter"))))).getOrThrow();
+
+        filter.filterRead(ajaxContext("openidm-authorized"), Requests.newReadRequest("managed/user/bjensen"), router)
+                .getOrThrow();
+        // only the expression the filter cannot evaluate is passed to the script
+        assertThat(customAuthorized).containsExactly("managed/user/bjensen");
+        assertThat(customAuthzExpressions).containsExactly(asList("restrictPatchToFields(['password'])"));
+        try {
+            filter.filterRead(ajaxContext("openidm-authorized"), Requests.newReadRequest("managed/user/scarter"),
+                    router).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(customAuthorized).containsExactly("managed/user/bjensen");
+        }
+    }
+
+    @Test
+    public void testQueryExpressionIsDeniedByTheFilter() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+        final QueryRequest query = Requests.newQueryRequest("managed/user").setQueryExpression("select * from x");
+        try {
+            filter.filterQuery(selfServiceContext("openidm-reg"), query, null, router).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(customAuthorized).isEmpty();
+        }
+    }
+
+    @Test
+    public void testOtherOperatorsArePassedToScript() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, customAuthz);
+        final QueryRequest query = Requests.newQueryRequest("managed/user").setQueryFilter(QueryFilters.parse("true"));
+
+        filter.filterQuery(selfServiceContext("openidm-reg"), query, new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                return true;
+            }
+        }, router).getOrThrow();
+        assertThat(customAuthzExpressions)
+                .containsExactly(asList("(isSelfServiceRequest() || checkIfUIIsEnabled('x'))"));
+    }
+
+    @Test
+    public void testSplitTopLevel() {
+        assertThat(AccessFilter.AccessRule.splitTopLevel("a() && b('&&', \"x\\\"&&\") && (c || d)", "&&"))
+                .containsExactly("a()", "b('&&', \"x\\\"&&\")", "(c || d)");
+        assertThat(AccessFilter.AccessRule.splitTopLevel("f({'a': [g() || h()]}) || i", "||"))
+                .containsExactly("f({'a': [g() || h()]})", "i");
+        assertThat(AccessFilter.AccessRule.splitTopLevel(" a ", "||")).containsExactly("a");
+    }
+
+    /**
+     * Reads the access rules of the shipped access.js and checks that the administrators are authorized without the
+     * script.
+     */
+    @Test
+    public void testAdministratorIsAuthorizedWithoutScriptByShippedAccessScript() throws Exception {
+        final AccessFilter filter = new AccessFilter(SHIPPED_ACCESS_SCRIPT, customAuthz);
+        router.addRoute(uriTemplate("repo/internal/user"), new MemoryBackend());
+        router.addRoute(uriTemplate("system/ldap/account"), new MemoryBackend());
+        final Context admin = ajaxContext("openidm-admin", "openidm-authorized");
+        final QueryResourceHandler handler = new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                return true;
+            }
+        };
+
+        for (String path : asList("managed/user", "repo/internal/user", "system/ldap/account")) {
+            final String id = create(filter, admin, path).getOrThrow().getId();
+            filter.filterRead(admin, Requests.newReadRequest(path, id), router).getOrThrow();
+            filter.filterUpdate(admin, Requests.newUpdateRequest(path, id, json(object(field("userName", "babs")))),
+                    router).getOrThrow();
+            filter.filterQuery(admin, Requests.newQueryRequest(path).setQueryFilter(QueryFilters.parse("true")),
+                    handler, router).getOrThrow();
+            filter.filterDelete(admin, Requests.newDeleteRequest(path, id), router).getOrThrow();
+        }
+        assertThat(customAuthorized).isEmpty();
+
+        // the rules denying query expressions and commands are evaluated without the script too
+        try {
+            filter.filterQuery(admin, Requests.newQueryRequest("managed/user").setQueryExpression("select 1"),
+                    handler, router).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(customAuthorized).isEmpty();
+        }
+        try {
+            filter.filterAction(admin, Requests.newActionRequest("repo/internal/user", "command"), router)
+                    .getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(customAuthorized).isEmpty();
+        }
+        // the command deleting the links is allowed by its own expression
+        try {
+            filter.filterAction(admin, Requests.newActionRequest("repo/links", "command")
+                    .setAdditionalParameter("commandId", "delete-mapping-links"), router).getOrThrow();
+        } catch (ResourceException e) {
+            assertThat(e).isNotInstanceOf(ForbiddenException.class);
+        }
+        assertThat(customAuthzExpressions).containsExactly(
+                asList("request.additionalParameters.commandId === 'delete-mapping-links'"));
+    }
+
+    @Test
+    public void testInternalRequestIsNotAuthorized() throws Exception {
+        final AccessFilter filter = new AccessFilter(ACCESS, null);
+        create(filter, new RootContext(), "managed/user").getOrThrow();
+        create(filter, ClientContext.newInternalClientContext(new RootContext()), "managed/user").getOrThrow();
+    }
+
+    private static File writeAccessScript(String script) throws Exception {
+        final File file = File.createTempFile("access", ".js");
+        file.deleteOnExit();
+        Files.write(file.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testParseAccessScript() throws Exception {
+        final JsonValue config = AccessFilter.parseAccessScript(ACCESS_SCRIPT);
+
+        assertThat(config.get("configs").size()).isEqualTo(2);
+        assertThat(config.get("configs").get(1).get("customAuthz").asString())
+                .isEqualTo("isQueryOneOf({'managed/user': ['for-userName']})");
+    }
+
+    @Test
+    public void testRulesAreReadFromAccessScript() throws Exception {
+        final AccessFilter filter = new AccessFilter(writeAccessScript(ACCESS_SCRIPT), customAuthz);
+
+        create(filter, ajaxContext("openidm-admin"), "managed/user").getOrThrow();
+        create(filter, ajaxContext("openidm-reg"), "managed/user").getOrThrow();
+        assertThat(customAuthorized).containsExactly("managed/user");
+        try {
+            create(filter, ajaxContext("openidm-authorized"), "managed/user").getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(e.getMessage()).isEqualTo("Access denied");
+        }
+    }
+
+    @Test
+    public void testRulesAreReloadedWhenAccessScriptChanges() throws Exception {
+        final File accessScript = writeAccessScript(ACCESS_SCRIPT);
+        final AccessFilter filter = new AccessFilter(accessScript, null);
+        create(filter, ajaxContext("openidm-admin"), "managed/user").getOrThrow();
+
+        Files.write(accessScript.toPath(), ACCESS_SCRIPT.replace("openidm-admin", "openidm-authorized")
+                .getBytes(StandardCharsets.UTF_8));
+        accessScript.setLastModified(accessScript.lastModified() + 1000);
+
+        create(filter, ajaxContext("openidm-authorized"), "managed/user").getOrThrow();
+        try {
+            create(filter, ajaxContext("openidm-admin"), "managed/user").getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(e.getMessage()).isEqualTo("Access denied");
+        }
+    }
+
+    @Test
+    public void testUnreadableAccessScriptIsPassedToScript() throws Exception {
+        final AccessFilter filter = new AccessFilter(
+                writeAccessScript("var httpAccessConfig = { \"configs\" : getConfigs() };"), customAuthz);
+
+        create(filter, ajaxContext("openidm-authorized"), "managed/user").getOrThrow();
+        assertThat(customAuthorized).containsExactly("managed/user");
+    }
+}
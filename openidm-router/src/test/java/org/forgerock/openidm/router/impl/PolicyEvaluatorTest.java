@@ -0,0 +1,225 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Router.uriTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A test of the {@link PolicyEvaluator}.
+ */
+public class PolicyEvaluatorTest {
+
+    private Router router;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        router = new Router();
+        router.addRoute(uriTemplate("config"), new MemoryBackend());
+        router.addRoute(uriTemplate("managed/user"), new MemoryBackend());
+        createConfig("policy", policyConfig(
+                object(field("name", "roles[*]"), field("policies", array(object(
+                        field("policyId", "cannot-contain-characters"),
+                        field("params", object(field("forbiddenChars", array("/"))))))))));
+        createConfig("managed", json(object(field("objects", array(object(
+                field("name", "user"),
+                field("schema", object(
+                        field("required", array("userName")),
+                        field("properties", object(
+                                field("userName", object(
+                                        field("type", "string"),
+                                        field("policies", array(object(field("policyId", "unique")))))),
+                                field("password", object(
+                                        field("type", "string"),
+                                        field("minLength", 8),
+                                        field("policies", array(object(
+                                                field("policyId", "cannot-contain-others"),
+                                                field("params", object(field("disallowedFields", "userName")))))))),
+                                field("mail", object(
+                                        field("type", array("string", "null")),
+                                        field("pattern", "^.+@.+$"))),
+                                field("age", object(field("type", "number"))),
+                                field("manager", object(field("type", "relationship")))))))))))));
+    }
+
+    private void createConfig(String id, JsonValue config) throws Exception {
+        router.handleCreate(new RootContext(), newCreateRequest("config", id, config)).getOrThrow();
+    }
+
+    private static JsonValue policyConfig(Object... properties) {
+        return json(object(
+                field("type", "text/javascript"),
+                field("file", "policy.js"),
+                field("resources", array(object(
+                        field("resource", "repo/internal/user/*"),
+                        field("properties", array(properties)))))));
+    }
+
+    private JsonValue validate(String resourcePath, JsonValue content) throws Exception {
+        return new PolicyEvaluator(new RootContext(), router, resourcePath, content).validateObject();
+    }
+
+    private static List<String> failedProperties(JsonValue result) {
+        final List<String> properties = new ArrayList<>();
+        for (JsonValue failed : result.get("failedPolicyRequirements")) {
+            properties.add(failed.get("property").asString());
+        }
+        return properties;
+    }
+
+    @Test
+    public void testValidObjectPasses() throws Exception {
+        final JsonValue result = validate("managed/user/*", json(object(
+                field("userName", "bjensen"),
+                field("password", "Passw0rd1"),
+                field("mail", "bjensen@example.com"),
+                field("age", 30),
+                field("manager", object(field("_ref", "managed/user/2"))))));
+
+        assertThat(result.get("result").asBoolean()).isTrue();
+        assertThat(result.get("failedPolicyRequirements").asList()).isEmpty();
+    }
+
+    @Test
+    public void testSchemaPoliciesAreEvaluated() throws Exception {
+        final JsonValue result = validate("managed/user/*", json(object(
+                field("password", "short"),
+                field("mail", "bjensen"),
+                field("age", "30"))));
+
+        assertThat(result.get("result").asBoolean()).isFalse();
+        assertThat(failedProperties(result)).containsExactly("userName", "password", "mail", "age");
+        final JsonValue failed = result.get("failedPolicyRequirements");
+        assertThat(failed.get(0).get("policyRequirements").getObject())
+                .isEqualTo(array(object(field("policyRequirement", "REQUIRED"))));
+        assertThat(failed.get(1).get("policyRequirements").getObject()).isEqualTo(array(object(
+                field("policyRequirement", "MIN_LENGTH"),
+                field("params", object(field("minLength", 8L))))));
+        assertThat(failed.get(2).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("MATCH_REGEXP");
+        assertThat(failed.get(2).get("policyRequirements").get(0).get("regexp").asString()).isEqualTo("^.+@.+$");
+        assertThat(failed.get(3).get("policyRequirements").getObject()).isEqualTo(array(object(
+                field("policyRequirement", "VALID_TYPE"),
+                field("params", object(field("invalidType", "string"), field("validTypes", array("number")))))));
+    }
+
+    @Test
+    public void testUniqueValueIsQueried() throws Exception {
+        router.handleCreate(new RootContext(), newCreateRequest("managed/user", "1",
+                json(object(field("userName", "bjensen"))))).getOrThrow();
+        final JsonValue content = json(object(field("userName", "bjensen"), field("password", "Passw0rd1")));
+
+        final JsonValue created = validate("managed/user/*", content);
+        assertThat(failedProperties(created)).containsExactly("userName");
+        assertThat(created.get("failedPolicyRequirements").get(0).get("policyRequirements").getObject())
+                .isEqualTo(array(object(field("policyRequirement", "UNIQUE"))));
+
+        assertThat(validate("managed/user/1", content).get("result").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void testOtherFieldsAreReadFromTheStoredObject() throws Exception {
+        router.handleCreate(new RootContext(), newCreateRequest("managed/user", "1",
+                json(object(field("userName", "bjensen"))))).getOrThrow();
+        final JsonValue content = json(object(field("password", "xbjensen99")));
+
+        final JsonValue result = validate("managed/user/1", content);
+
+        assertThat(failedProperties(result)).containsExactly("userName", "password");
+        assertThat(result.get("failedPolicyRequirements").get(1).get("policyRequirements").getObject())
+                .isEqualTo(array(object(
+                        field("policyRequirement", "CANNOT_CONTAIN_OTHERS"),
+                        field("params", object(field("disallowedFields", "userName"))))));
+        // like policy.js, the validated object is completed with the stored value
+        assertThat(content.get("userName").asString()).isEqualTo("bjensen");
+    }
+
+    @Test
+    public void testArrayElementsAreEvaluated() throws Exception {
+        final JsonValue result = validate("repo/internal/user/x", json(object(field("roles", array("a", "b/c")))));
+
+        assertThat(failedProperties(result)).containsExactly("roles[1]");
+        assertThat(result.get("failedPolicyRequirements").get(0).get("policyRequirements").getObject())
+                .isEqualTo(array(object(
+                        field("policyRequirement", "CANNOT_CONTAIN_CHARACTERS"),
+                        field("params", object(field("forbiddenChars", "/"))))));
+    }
+
+    @Test
+    public void testResourceWithoutPoliciesPasses() throws Exception {
+        assertThat(validate("system/ldap/account/*", json(object())).get("result").asBoolean()).isTrue();
+    }
+
+    @Test(expectedExceptions = PolicyEvaluator.UnsupportedPolicyException.class,
+            expectedExceptionsMessageRegExp = "Custom policy is-new")
+    public void testCustomPolicyIsUnsupported() throws Exception {
+        router.handleDelete(new RootContext(), newDeleteRequest("config/policy"))
+                .getOrThrow();
+        createConfig("policy", policyConfig(object(
+                field("name", "password"),
+                field("policies", array(object(field("policyId", "is-new")))))));
+        validate("repo/internal/user/x", json(object(field("password", "Passw0rd1"))));
+    }
+
+    @Test(expectedExceptions = PolicyEvaluator.UnsupportedPolicyException.class,
+            expectedExceptionsMessageRegExp = "Conditional policies of password")
+    public void testConditionalPoliciesAreUnsupported() throws Exception {
+        router.handleDelete(new RootContext(), newDeleteRequest("config/policy"))
+                .getOrThrow();
+        createConfig("policy", policyConfig(object(
+                field("name", "password"),
+                field("policies", array()),
+                field("conditionalPolicies", array(object(
+                        field("condition", object(field("type", "text/javascript"), field("source", "true"))),
+                        field("policies", array(object(field("policyId", "required"))))))))));
+        validate("repo/internal/user/x", json(object(field("password", "Passw0rd1"))));
+    }
+
+    @Test(expectedExceptions = PolicyEvaluator.UnsupportedPolicyException.class,
+            expectedExceptionsMessageRegExp = "Encrypted value of password")
+    public void testEncryptedValueIsUnsupported() throws Exception {
+        validate("managed/user/*", json(object(
+                field("userName", "bjensen"),
+                field("password", object(field("$crypto", object(
+                        field("type", "x-simple-encryption"),
+                        field("value", object(field("data", "abc"), field("key", "openidm-sym-default"))))))))));
+    }
+
+    @Test(expectedExceptions = PolicyEvaluator.UnsupportedPolicyException.class,
+            expectedExceptionsMessageRegExp = "No policy configuration")
+    public void testMissingPolicyConfigurationIsUnsupported() throws Exception {
+        router.handleDelete(new RootContext(), newDeleteRequest("config/policy"))
+                .getOrThrow();
+        validate("managed/user/*", json(object(field("userName", "bjensen"))));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.router.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.Router.uriTemplate;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.forgerock.http.routing.RoutingMode;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.ForbiddenException;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.promise.Promise;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A test of the {@link PolicyFilter}.
+ */
+public class PolicyFilterTest {
+
+    private Router router;
+    private RequestHandler policyService;
+    private ArgumentCaptor<ActionRequest> validateRequest;
+
+    @BeforeMethod
+    public void setUp() {
+        policyService = mock(RequestHandler.class);
+        validateRequest = ArgumentCaptor.forClass(ActionRequest.class);
+        // the policy service fails the objects without a userName
+        when(policyService.handleAction(any(Context.class), validateRequest.capture())).thenAnswer(
+                new Answer<Promise<ActionResponse, ResourceException>>() {
+                    @Override
+                    public Promise<ActionResponse, ResourceException> answer(InvocationOnMock invocation) {
+                        final ActionRequest request = (ActionRequest) invocation.getArguments()[1];
+                        final boolean valid = request.getContent().isDefined("userName");
+                        return newActionResponse(json(object(
+                                field("result", valid),
+                                field("failedPolicyRequirements", valid ? null : "userName"))))
+                                .asPromise();
+                    }
+                });
+        router = new Router();
+        router.addRoute(RoutingMode.STARTS_WITH, uriTemplate("policy"), policyService);
+        router.addRoute(uriTemplate("managed/user"), new MemoryBackend());
+    }
+
+    /**
+     * Configures the policies of the managed users, which are otherwise evaluated by the policy service.
+     */
+    private void addPolicyConfig(Object policy) throws Exception {
+        final MemoryBackend config = new MemoryBackend();
+        router.addRoute(uriTemplate("config"), config);
+        router.handleCreate(new RootContext(), Requests.newCreateRequest("config", "managed",
+                json(object(field("objects", array()))))).getOrThrow();
+        router.handleCreate(new RootContext(), Requests.newCreateRequest("config", "policy", json(object(
+                field("file", "policy.js"),
+                field("resources", array(object(
+                        field("resource", "managed/user/*"),
+                        field("properties", array(object(
+                                field("name", "userName"),
+                                field("policies", array(policy))))))))))))
+                .getOrThrow();
+    }
+
+    @Test
+    public void testGetFullResourcePath() {
+        assertThat(PolicyFilter.getFullResourcePath("managed/user", null, true)).isEqualTo("managed/user/*");
+        assertThat(PolicyFilter.getFullResourcePath("managed/user", "a b", true)).isEqualTo("managed/user/a%20b");
+        assertThat(PolicyFilter.getFullResourcePath("", "x", true)).isEqualTo("x");
+        assertThat(PolicyFilter.getFullResourcePath("managed/user/1", null, false)).isEqualTo("managed/user/1");
+    }
+
+    @Test
+    public void testValidObjectIsCreated() throws Exception {
+        final PolicyFilter filter = new PolicyFilter(true);
+        filter.filterCreate(new RootContext(),
+                Requests.newCreateRequest("managed/user", "1", json(object(field("userName", "bjensen")))), router)
+                .getOrThrow();
+
+        // the router passes the path relative to the policy service
+        assertThat(validateRequest.getValue().getResourcePath()).isEqualTo("managed/user/1");
+        assertThat(validateRequest.getValue().getAction()).isEqualTo("validateObject");
+        assertThat(validateRequest.getValue().getAdditionalParameter("external")).isEqualTo("true");
+
+        filter.filterUpdate(new RootContext(),
+                Requests.newUpdateRequest("managed/user/1", json(object(field("userName", "babs")))), router)
+                .getOrThrow();
+        assertThat(validateRequest.getValue().getResourcePath()).isEqualTo("managed/user/1");
+    }
+
+    @Test
+    public void testInvalidObjectIsRejected() throws Exception {
+        final PolicyFilter filter = new PolicyFilter(true);
+        try {
+            filter.filterCreate(new RootContext(),
+                    Requests.newCreateRequest("managed/user", json(object(field("mail", "bjensen@example.com")))),
+                    router).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            assertThat(e.getMessage()).isEqualTo("Policy validation failed");
+            assertThat(e.getDetail().get("result").asBoolean()).isFalse();
+        }
+        assertThat(validateRequest.getValue().getResourcePath()).isEqualTo("managed/user/*");
+    }
+
+    @Test
+    public void testNotEnforced() throws Exception {
+        final PolicyFilter filter = new PolicyFilter(false);
+        filter.filterCreate(new RootContext(),
+                Requests.newCreateRequest("managed/user", json(object(field("mail", "bjensen@example.com")))),
+                router).getOrThrow();
+        verify(policyService, never()).handleAction(any(Context.class), any(ActionRequest.class));
+    }
+
+    @Test
+    public void testBuiltInPoliciesAreEvaluatedWithoutThePolicyService() throws Exception {
+        addPolicyConfig(object(field("policyId", "required")));
+        final PolicyFilter filter = new PolicyFilter(true);
+        filter.filterCreate(new RootContext(),
+                Requests.newCreateRequest("managed/user", "1", json(object(field("userName", "bjensen")))), router)
+                .getOrThrow();
+        try {
+            filter.filterCreate(new RootContext(),
+                    Requests.newCreateRequest("managed/user", json(object(field("mail", "bjensen@example.com")))),
+                    router).getOrThrow();
+            throw new AssertionError("Expected ForbiddenException");
+        } catch (ForbiddenException e) {
+            final JsonValue detail = e.getDetail();
+            assertThat(detail.get("result").asBoolean()).isFalse();
+            assertThat(detail.get("failedPolicyRequirements").get(0).get("property").asString())
+                    .isEqualTo("userName");
+        }
+        verify(policyService, never()).handleAction(any(Context.class), any(ActionRequest.class));
+    }
+
+    @Test
+    public void testCustomPoliciesAreEvaluatedByThePolicyService() throws Exception {
+        addPolicyConfig(object(field("policyId", "is-new")));
+        final PolicyFilter filter = new PolicyFilter(true);
+        filter.filterCreate(new RootContext(),
+                Requests.newCreateRequest("managed/user", "1", json(object(field("userName", "bjensen")))), router)
+                .getOrThrow();
+
+        assertThat(validateRequest.getValue().getResourcePath()).isEqualTo("managed/user/1");
+        assertThat(validateRequest.getValue().getAction()).isEqualTo("validateObject");
+    }
+}
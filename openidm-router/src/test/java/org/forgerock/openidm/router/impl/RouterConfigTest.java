@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.router.impl;
@@ -31,6 +32,7 @@ import java.util.Map;
 import javax.script.SimpleBindings;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.FilterCondition;
 import org.forgerock.json.resource.MemoryBackend;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.Router;
@@ -101,6 +103,20 @@ public class RouterConfigTest {
         assertThat(response.get("password").asString()).isEqualTo("secret");
     }
 
+    @Test
+    public void testQueryFilterCondition() throws Exception {
+        final FilterCondition condition = RouterConfig.newQueryFilterCondition(
+                "/request/method eq \"create\" and /context/security/authorization/roles eq \"system\"");
+        JsonValue content = json(object(field("username", "bob")));
+
+        assertThat(condition.matches(createContext("admin"), Requests.newCreateRequest("managed/user", content)))
+                .isTrue();
+        assertThat(condition.matches(createContext("admin"), Requests.newUpdateRequest("managed/user/0", content)))
+                .isFalse();
+        assertThat(condition.matches(new RootContext(), Requests.newCreateRequest("managed/user", content)))
+                .isFalse();
+    }
+
     private Context createContext(String id) {
         final Map<String, Object> authzid = new HashMap<>();
         authzid.put(SecurityContext.AUTHZID_ID, id);
@@ -46,6 +46,9 @@ public class TaskScannerContext {
         ERROR
     }
 
+    /** Default number of objects read per page of the scan query */
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
     private String invokerName;
     private String scriptName;
     private JsonValue params;
@@ -201,6 +204,16 @@ public class TaskScannerContext {
         return numParams.asInteger();
     }
 
+    /**
+     * Retrieve the number of objects read per page of the scan query. It also bounds the number of objects read
+     * ahead of the threads processing them.
+     *
+     * @return the page size of the scan query
+     */
+    public int getPageSize() {
+        return params.get("pageSize").defaultTo(DEFAULT_PAGE_SIZE).asInteger();
+    }
+
     public TaskScannerStatistic getStatistics() {
         return this.statistics;
     }
@@ -212,6 +225,7 @@ public class TaskScannerContext {
         progress.put("total", statistics.getNumberOfTasksToProcess());
         progress.put("successes", statistics.getNumberOfTasksSucceeded());
         progress.put("failures", statistics.getNumberOfTasksFailed());
+        progress.put("throughput", statistics.getThroughput());
         return progress;
     }
 
@@ -17,13 +17,17 @@
 package org.forgerock.openidm.scheduler.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.script.ScriptException;
 
@@ -37,13 +41,16 @@ import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.quartz.impl.ExecutionException;
 import org.forgerock.openidm.util.ConfigMacroUtil;
 import org.forgerock.openidm.util.DateUtil;
 import org.forgerock.openidm.util.RequestUtil;
+import org.forgerock.util.query.QueryFilter;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
 import org.joda.time.DateTime;
@@ -55,6 +62,12 @@ public class TaskScannerJob {
     private final static Logger logger = LoggerFactory.getLogger(TaskScannerJob.class);
     private final static DateUtil DATE_UTIL = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
 
+    /** Marks the end of the scan query results for a worker thread */
+    private final static JsonValue END_OF_SCAN = new JsonValue(null);
+
+    /** The resources whose scan queries are paged by _id */
+    private final static Set<String> PAGED_BY_ID_RESOURCES = new HashSet<>(Arrays.asList("repo", "managed"));
+
     private ConnectionFactory connectionFactory;
     private TaskScannerContext taskScannerContext;
 
@@ -105,7 +118,9 @@ public class TaskScannerJob {
 
     /**
      * Performs the task associated with the task scanner event.
-     * Runs the query and executes the script across each resulting object.
+     * Pages through the query results and executes the script across each resulting object. The objects are queued
+     * as they are read and taken from the queue by the worker threads, so that only a bounded number of objects is
+     * held in memory and a slow object does not hold up the objects queued after it.
      *
      * @param executor ExecutorService in which to invoke this task.
      * @throws ExecutionException
@@ -116,151 +131,227 @@ public class TaskScannerJob {
         logger.info("Task {} started from {} with script {}",
                 new Object[] { taskScannerContext.getTaskScanID(), taskScannerContext.getInvokerName(), taskScannerContext.getScriptName() });
 
-        JsonValue results;
-        taskScannerContext.startQuery();
-        try {
-            results = fetchAllObjects();
-        } catch (ResourceException e1) {
-            throw new ExecutionException("Error during query", e1);
-        }
-        taskScannerContext.endQuery();
-        Integer maxRecords = taskScannerContext.getMaxRecords();
-        if (maxRecords == null) {
-            taskScannerContext.setNumberOfTasksToProcess(results.size());
-        } else {
-            taskScannerContext.setNumberOfTasksToProcess(Math.min(results.size(), maxRecords));
-        }
-        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(), results.size());
-        // TODO jump out early if it's empty?
-
-        // Split and prune the result set according to our max and if we're synchronous or not
-        List<JsonValue> resultSets = splitResultsOverThreads(results, taskScannerContext.getNumberOfThreads(), maxRecords);
-        logger.debug("Split result set into {} units", resultSets.size());
+        int numberOfThreads = taskScannerContext.getNumberOfThreads();
+        // Room for the end of scan markers of all the workers
+        final BlockingQueue<JsonValue> queue =
+                new ArrayBlockingQueue<JsonValue>(Math.max(taskScannerContext.getPageSize(), numberOfThreads));
 
-        List<Callable<Object>> todo = new ArrayList<Callable<Object>>();
-        for (final JsonValue result : resultSets) {
-            Runnable command = new Runnable() {
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            workers.add(executor.submit(new Runnable() {
                 @Override
                 public void run() {
-                    try {
-                        performTaskOverSet(result);
-                    } catch (Exception ex) {
-                        logger.warn("Taskscanner failed with unexpected exception", ex);
-                    }
+                    performTaskOverQueue(queue);
                 }
-            };
-            todo.add(Executors.callable(command));
+            }));
+        }
+
+        ExecutionException queryException = null;
+        taskScannerContext.startQuery();
+        try {
+            fetchAllObjects(queue);
+            logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(),
+                    taskScannerContext.getStatistics().getNumberOfTasksToProcess());
+        } catch (ResourceException e1) {
+            // Let the workers finish the objects already queued
+            queryException = new ExecutionException("Error during query", e1);
+        } catch (InterruptedException e) {
+            // Mark it interrupted and drop the objects not yet processed
+            taskScannerContext.interrupted();
+            logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+            queue.clear();
+            Thread.currentThread().interrupt();
+        } finally {
+            taskScannerContext.endQuery();
         }
 
         try {
-            executor.invokeAll(todo);
+            for (int i = 0; i < numberOfThreads; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // The queue was cleared and is large enough for the markers
+                    queue.offer(END_OF_SCAN);
+                } else {
+                    queue.put(END_OF_SCAN);
+                }
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
         } catch (InterruptedException e) {
             // Mark it interrupted
             taskScannerContext.interrupted();
             logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+        } catch (java.util.concurrent.ExecutionException e) {
+            logger.warn("Taskscanner failed with unexpected exception", e.getCause());
+        }
+        if (queryException != null) {
+            throw queryException;
         }
         // Don't mark the job as completed if its been deactivated
         if (!taskScannerContext.isInactive()) {
             taskScannerContext.endJob();
         }
 
-        logger.info("Task '{}' completed. Total time: {}ms. Query time: {}ms. Progress: {}",
+        logger.info("Task '{}' completed. Total time: {}ms. Query time: {}ms. Throughput: {}/s. Progress: {}",
                 new Object[] { taskScannerContext.getTaskScanID(),
                 taskScannerContext.getStatistics().getJobDuration(),
                 taskScannerContext.getStatistics().getQueryDuration(),
+                taskScannerContext.getStatistics().getThroughput(),
                 taskScannerContext.getProgress()
         });
     }
 
-    private List<JsonValue> splitResultsOverThreads(JsonValue results, int numberOfThreads, Integer max) {
-        List<List<Object>> resultSets = new ArrayList<List<Object>>();
-        for (int i = 0; i < numberOfThreads; i++) {
-            resultSets.add(new ArrayList<Object>());
-        }
-
-        int i = 0;
-        for (JsonValue obj : results) {
-            if (max != null && i >= max) {
-                break;
+    /**
+     * Processes the objects taken from the queue until the end of the scan. Once the job is cancelled the remaining
+     * objects are drained without being processed, so that the query never blocks on a full queue.
+     *
+     * @param queue the queue fed by the scan query
+     */
+    private void performTaskOverQueue(BlockingQueue<JsonValue> queue) {
+        try {
+            JsonValue input;
+            boolean cancelLogged = false;
+            while ((input = queue.take()) != END_OF_SCAN) {
+                if (taskScannerContext.isCanceled()) {
+                    if (!cancelLogged) {
+                        logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
+                        cancelLogged = true;
+                    }
+                    continue;
+                }
+                try {
+                    performTaskOverObject(input);
+                } catch (Exception ex) {
+                    logger.warn("Taskscanner failed with unexpected exception", ex);
+                }
             }
-            resultSets.get(i % numberOfThreads).add(obj.getObject());
-            i++;
-        }
-
-        List<JsonValue> jsonSets = new ArrayList<JsonValue>();
-        for (List<Object> set : resultSets) {
-            jsonSets.add(new JsonValue(set));
+        } catch (InterruptedException e) {
+            logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' worker interrupted");
+            Thread.currentThread().interrupt();
         }
-
-        return jsonSets;
     }
 
-    private void performTaskOverSet(JsonValue results)
+    private void performTaskOverObject(JsonValue input)
                     throws ExecutionException {
-        for (JsonValue input : results) {
-            if (taskScannerContext.isCanceled()) {
-                logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
-                break; // Jump out quick since we've cancelled the job
-            }
-            // Check if this object has a STARTED time already
-            JsonValue startTime = input.get(taskScannerContext.getStartField());
-            String startTimeString = null;
-            if (startTime != null && !startTime.isNull()) {
-                startTimeString = startTime.asString();
-                DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
-
-                // Skip if the startTime + interval has not been passed
-                ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
-                DateTime expirationDate = startedTime.plus(period);
-                if (expirationDate.isAfterNow()) {
-                    logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
-                            new Object[] {
-                            DATE_UTIL.formatDateTime(startedTime),
-                            period,
-                            DATE_UTIL.formatDateTime(expirationDate)});
-                    continue;
-                }
+        // Check if this object has a STARTED time already
+        JsonValue startTime = input.get(taskScannerContext.getStartField());
+        String startTimeString = null;
+        if (startTime != null && !startTime.isNull()) {
+            startTimeString = startTime.asString();
+            DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
+
+            // Skip if the startTime + interval has not been passed
+            ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
+            DateTime expirationDate = startedTime.plus(period);
+            if (expirationDate.isAfterNow()) {
+                logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
+                        new Object[] {
+                        DATE_UTIL.formatDateTime(startedTime),
+                        period,
+                        DATE_UTIL.formatDateTime(expirationDate)});
+                return;
             }
+        }
 
-            try {
-                claimAndExecScript(input, startTimeString);
-            } catch (ResourceException e) {
-                throw new ExecutionException("Error during claim and execution phase", e);
-            }
+        try {
+            claimAndExecScript(input, startTimeString);
+        } catch (ResourceException e) {
+            throw new ExecutionException("Error during claim and execution phase", e);
         }
     }
 
     /**
-     * Flatten a list of parameters and perform a query to fetch all objects from storage.
+     * Flatten a list of parameters and perform a query to queue all objects from storage.
      *
-     * @return JsonValue containing a list of all the retrieved objects
+     * @param queue the queue to put the retrieved objects in
      * @throws ResourceException
+     * @throws InterruptedException if interrupted while waiting for room in the queue
      */
-    private JsonValue fetchAllObjects() throws ResourceException {
+    private void fetchAllObjects(BlockingQueue<JsonValue> queue) throws ResourceException, InterruptedException {
         JsonValue flatParams = flattenJson(taskScannerContext.getScanValue());
         ConfigMacroUtil.expand(flatParams);
-        return performQuery(taskScannerContext.getObjectID(), flatParams);
+        performQuery(taskScannerContext.getObjectID(), flatParams, queue);
     }
 
     /**
-     * Performs a query on a resource and returns the result set
+     * Performs a query on a resource and queues the results, up to the maximum number of records, as they are
+     * returned.
+     * <p>
+     * A {@code _queryFilter} query of a repository or managed resource is read one page at a time, sorted by
+     * {@code _id} and resumed after the last {@code _id} read, since claiming and completing the objects already read
+     * takes them out of the query results and would shift offset based pages. Other queries, including those of
+     * connector objects which may not support sorting or filtering on {@code _id}, are not paged; their results are
+     * still queued one at a time.
+     *
      * @param resourceID the identifier of the resource to query
      * @param params parameters to supply to the query
-     * @return the set of results from the performed query
+     * @param queue the queue to put the query results in
      * @throws ResourceException
+     * @throws InterruptedException if interrupted while waiting for room in the queue
      */
-    private JsonValue performQuery(String resourceID, JsonValue params) throws ResourceException {
-        final JsonValue queryResults = new JsonValue(new ArrayList<Map<String, Object>>());;
+    private void performQuery(String resourceID, JsonValue params, final BlockingQueue<JsonValue> queue)
+            throws ResourceException, InterruptedException {
+        final Integer maxRecords = taskScannerContext.getMaxRecords();
+        final TaskScannerStatistic statistics = taskScannerContext.getStatistics();
+        final int pageSize = taskScannerContext.getPageSize();
+        final QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, params.asMap());
+        final QueryFilter<JsonPointer> queryFilter = isPagedById(request.getResourcePathObject())
+                ? request.getQueryFilter()
+                : null;
+        if (queryFilter != null) {
+            request.setPageSize(pageSize);
+            request.addSortKey(SortKey.ascendingOrder(ResourceResponse.FIELD_CONTENT_ID));
+        }
 
-        QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, params.asMap());
-        connectionFactory.getConnection().query(taskScannerContext.getContext(), request, new QueryResourceHandler() {
+        final String[] lastId = new String[1];
+        final int[] pageCount = new int[1];
+        QueryResourceHandler handler = new QueryResourceHandler() {
             @Override
             public boolean handleResource(ResourceResponse resource) {
-                queryResults.add(resource.getContent().getObject());
+                if (taskScannerContext.isCanceled()
+                        || (maxRecords != null && statistics.getNumberOfTasksToProcess() >= maxRecords)) {
+                    return false;
+                }
+                try {
+                    queue.put(resource.getContent());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                statistics.taskQueued();
+                lastId[0] = resource.getId();
+                pageCount[0]++;
                 return true;
             }
-        });
-        return queryResults;
+        };
+
+        boolean morePages;
+        do {
+            pageCount[0] = 0;
+            connectionFactory.getConnection().query(taskScannerContext.getContext(), request, handler);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            morePages = queryFilter != null
+                    && pageCount[0] == pageSize
+                    && lastId[0] != null
+                    && !taskScannerContext.isCanceled()
+                    && (maxRecords == null || statistics.getNumberOfTasksToProcess() < maxRecords);
+            if (morePages) {
+                request.setQueryFilter(QueryFilter.and(queryFilter,
+                        QueryFilter.greaterThan(new JsonPointer(ResourceResponse.FIELD_CONTENT_ID), lastId[0])));
+            }
+        } while (morePages);
+    }
+
+    /**
+     * Returns whether the scan query of a resource can be paged by {@code _id}.
+     *
+     * @param resourcePath the path of the scanned resource
+     * @return true for the repository and managed resources
+     */
+    private static boolean isPagedById(ResourcePath resourcePath) {
+        return !resourcePath.isEmpty() && PAGED_BY_ID_RESOURCES.contains(resourcePath.get(0));
     }
 
     /**
@@ -31,13 +31,14 @@ public class TaskScannerStatistic {
     private long jobEndTime;
     private long queryStartTime;
     private long queryEndTime;
-    private int numberToProcess = 0;
 
     // Note: These should be the only ones used during the thread executions
+    private AtomicInteger numberToProcess;
     private AtomicInteger numSuccessful;
     private AtomicInteger numFailed;
 
     public TaskScannerStatistic() {
+        numberToProcess = new AtomicInteger(0);
         numSuccessful = new AtomicInteger(0);
         numFailed = new AtomicInteger(0);
     }
@@ -95,14 +96,36 @@ public class TaskScannerStatistic {
     }
 
     public int getNumberOfTasksToProcess() {
-        return numberToProcess;
+        return numberToProcess.get();
     }
 
     public int getNumberOfTasksRemaining() {
-        return numberToProcess - getNumberOfTasksProcessed();
+        return getNumberOfTasksToProcess() - getNumberOfTasksProcessed();
     }
 
     public void setNumberOfTasksToProcess(int numberToProcess) {
-        this.numberToProcess = numberToProcess;
+        this.numberToProcess.set(numberToProcess);
+    }
+
+    /**
+     * Counts a task read from the scan query. The total grows as the query results are paged in.
+     */
+    public void taskQueued() {
+        numberToProcess.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of tasks processed per second since the job started, up to the end of the job or up to
+     * now while it is running.
+     *
+     * @return the number of tasks processed per second
+     */
+    public double getThroughput() {
+        if (jobStartTime == 0) {
+            return 0;
+        }
+        long end = jobEndTime >= jobStartTime ? jobEndTime : System.currentTimeMillis();
+        long duration = Math.max(end - jobStartTime, 1);
+        return getNumberOfTasksProcessed() * 1000d / duration;
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.scheduler.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.filter.JsonValueFilterVisitor;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskScannerJobTest {
+
+    /** The repository objects by id */
+    private final Map<String, JsonValue> objects = new ConcurrentHashMap<>();
+
+    /** The query requests received by the repository */
+    private final List<QueryRequest> queries = new ArrayList<>();
+
+    private ConnectionFactory connectionFactory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        objects.clear();
+        queries.clear();
+        for (int i = 1; i <= 7; i++) {
+            String id = "user" + i;
+            objects.put(id, json(object(field("_id", id), field("_rev", "0"), field("expired", true))));
+        }
+
+        Connection connection = mock(Connection.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.query(any(RootContext.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+                        QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+                        queries.add(request);
+                        int count = 0;
+                        for (JsonValue object : new TreeMap<>(objects).values()) {
+                            if (request.getPageSize() > 0 && count == request.getPageSize()) {
+                                break;
+                            }
+                            if (object.get("sunset").get("completed").isNull()
+                                    && request.getQueryFilter().accept(new JsonValueFilterVisitor(), object)) {
+                                count++;
+                                if (!handler.handleResource(newResourceResponse(object.get("_id").asString(),
+                                        object.get("_rev").asString(), object.copy()))) {
+                                    break;
+                                }
+                            }
+                        }
+                        return newQueryResponse();
+                    }
+                });
+        when(connection.update(any(RootContext.class), any(UpdateRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                UpdateRequest request = (UpdateRequest) invocation.getArguments()[1];
+                JsonValue content = request.getContent().copy();
+                content.put("_rev", String.valueOf(Integer.parseInt(request.getRevision()) + 1));
+                objects.put(request.getResourcePathObject().leaf(), content);
+                return newResourceResponse(content.get("_id").asString(), content.get("_rev").asString(), content);
+            }
+        });
+        when(connection.read(any(RootContext.class), any(ReadRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ReadRequest request = (ReadRequest) invocation.getArguments()[1];
+                JsonValue content = objects.get(request.getResourcePathObject().leaf()).copy();
+                return newResourceResponse(content.get("_id").asString(), content.get("_rev").asString(), content);
+            }
+        });
+    }
+
+    private TaskScannerContext newContext(JsonValue params) throws Exception {
+        return new TaskScannerContext("test", "test", params, new RootContext(), null);
+    }
+
+    private JsonValue scan() {
+        return scan("managed/user");
+    }
+
+    private JsonValue scan(String resource) {
+        return json(object(
+                field("object", resource),
+                field("_queryFilter", "/expired eq true"),
+                field("taskState", object(
+                        field("started", "sunset/started"),
+                        field("completed", "sunset/completed")))));
+    }
+
+    @Test
+    public void testScanIsPagedAfterTheLastId() throws Exception {
+        TaskScannerContext context = newContext(json(object(
+                field("waitForCompletion", true),
+                field("numberOfThreads", 3),
+                field("pageSize", 2),
+                field("scan", scan().getObject()))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(context.isCompleted()).isTrue();
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(7);
+        // 3 full pages, then a last page of 1
+        assertThat(queries).hasSize(4);
+        assertThat(queries.get(3).getQueryFilter().toString()).contains("/_id gt \"user6\"");
+        for (JsonValue object : objects.values()) {
+            assertThat(object.get("sunset").get("started").isNull()).isFalse();
+        }
+        assertThat(context.getProgress()).containsKey("throughput");
+    }
+
+    @Test
+    public void testScanStopsAtMaxRecords() throws Exception {
+        TaskScannerContext context = newContext(json(object(
+                field("waitForCompletion", true),
+                field("numberOfThreads", 2),
+                field("pageSize", 2),
+                field("maxRecords", 3),
+                field("scan", scan().getObject()))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(context.isCompleted()).isTrue();
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(3);
+        assertThat(queries).hasSize(2);
+        int started = 0;
+        for (JsonValue object : objects.values()) {
+            if (object.get("sunset").get("started").isNotNull()) {
+                started++;
+            }
+        }
+        assertThat(started).isEqualTo(3);
+    }
+
+    @Test
+    public void testConnectorScanIsNotPaged() throws Exception {
+        TaskScannerContext context = newContext(json(object(
+                field("waitForCompletion", true),
+                field("numberOfThreads", 3),
+                field("pageSize", 2),
+                field("scan", scan("system/ldap/account").getObject()))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(context.isCompleted()).isTrue();
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(7);
+        assertThat(queries).hasSize(1);
+        assertThat(queries.get(0).getPageSize()).isEqualTo(0);
+        assertThat(queries.get(0).getSortKeys()).isEmpty();
+        assertThat(queries.get(0).getQueryFilter().toString()).doesNotContain("_id");
+    }
+}
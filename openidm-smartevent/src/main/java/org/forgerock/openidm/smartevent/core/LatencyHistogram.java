@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyrighted [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.smartevent.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed memory, lock free histogram of event durations in nanoseconds.
+ * <p>
+ * Durations are counted in log-linear buckets: each power of two is split into {@link #SUB_BUCKETS} linear buckets,
+ * so a percentile is reported within about 6% of the recorded value. Durations above {@link #MAX_TRACKABLE} are
+ * counted in the last bucket; the maximum is tracked exactly.
+ * <p>
+ * The histogram also counts the events per minute over the last {@link #RATE_MINUTES} minutes, so that the recent
+ * rate of the events can be reported next to the totals.
+ */
+public class LatencyHistogram {
+
+    /** Number of bits of the linear buckets within a power of two */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Highest power of two tracked, about 18 minutes in nanoseconds */
+    private static final int MAX_EXPONENT = 40;
+    static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Number of minutes the rate of the events is tracked for */
+    static final int RATE_MINUTES = 15;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** The minute each rate slot counts the events of */
+    private final AtomicLongArray slotMinutes = new AtomicLongArray(RATE_MINUTES);
+    private final AtomicLongArray slotCounts = new AtomicLongArray(RATE_MINUTES);
+
+    /**
+     * Records an event duration.
+     *
+     * @param nanos the duration of the event in nanoseconds
+     */
+    public void record(long nanos) {
+        record(nanos, System.currentTimeMillis());
+    }
+
+    /**
+     * Records an event duration.
+     *
+     * @param nanos the duration of the event in nanoseconds
+     * @param nowMillis the current time in milliseconds
+     */
+    void record(long nanos, long nowMillis) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+
+        long minute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+        int slot = (int) (minute % RATE_MINUTES);
+        long slotMinute = slotMinutes.get(slot);
+        if (slotMinute != minute && slotMinutes.compareAndSet(slot, slotMinute, minute)) {
+            slotCounts.set(slot, 0);
+        }
+        slotCounts.incrementAndGet(slot);
+    }
+
+    /**
+     * Resets the histogram. Events recorded while resetting may be partially counted.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < RATE_MINUTES; i++) {
+            slotMinutes.set(i, 0);
+            slotCounts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return the number of events recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the sum of the event durations, in nanoseconds
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @return the longest event duration, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration that the given fraction of the events did not exceed, as the upper bound of the bucket
+     * it falls in, capped by the maximum.
+     *
+     * @param fraction the percentile as a fraction, such as 0.99
+     * @return the duration in nanoseconds, or -1 if no event was recorded
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = new long[BUCKET_COUNT];
+        long recorded = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            recorded += counts[i];
+        }
+        if (recorded == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the average number of events per second over the last complete minutes.
+     *
+     * @param minutes the number of minutes, up to {@link #RATE_MINUTES}
+     * @return the number of events per second
+     */
+    public double getRate(int minutes) {
+        return getRate(minutes, System.currentTimeMillis());
+    }
+
+    double getRate(int minutes, long nowMillis) {
+        int window = Math.max(1, Math.min(minutes, RATE_MINUTES - 1));
+        long currentMinute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+        long events = 0;
+        for (int i = 0; i < RATE_MINUTES; i++) {
+            long slotMinute = slotMinutes.get(i);
+            if (slotMinute < currentMinute && slotMinute >= currentMinute - window) {
+                events += slotCounts.get(i);
+            }
+        }
+        return events / (window * 60d);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (value > MAX_TRACKABLE) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
@@ -12,30 +12,93 @@
  * information: "Portions Copyrighted [year] [name of copyright owner]".
  *
  * Copyright © 2012 ForgeRock AS. All rights reserved.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.smartevent.core;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Holds monitoring and statistics info
  * 
  */
 public class MonitoringInfo {
 
-    public long totalInvokes;
-    public long totalTime;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Records the duration of an event
+     *
+     * @param nanos the duration of the event in nanoseconds
+     */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return the number of events recorded
+     */
+    public long getTotalInvokes() {
+        return histogram.getCount();
+    }
+
+    /**
+     * @return the sum of the event durations in nanoseconds
+     */
+    public long getTotalTime() {
+        return histogram.getTotal();
+    }
+
+    /**
+     * @return the histogram of the event durations
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
 
     /**
      * Reset the statistics
      */
     public void reset() {
-        totalInvokes = 0;
-        totalTime = 0;
+        histogram.reset();
+    }
+
+    /**
+     * @return the latency statistics, with durations in milliseconds and rates in events per second
+     */
+    public Map<String, Object> toMap() {
+        long totalInvokes = histogram.getCount();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("invocations", totalInvokes);
+        stats.put("totalTime", nsToMs(histogram.getTotal()));
+        stats.put("mean", nsToMs(totalInvokes > 0 ? histogram.getTotal() / totalInvokes : -1));
+        stats.put("p50", nsToMs(histogram.getPercentile(0.5)));
+        stats.put("p95", nsToMs(histogram.getPercentile(0.95)));
+        stats.put("p99", nsToMs(histogram.getPercentile(0.99)));
+        stats.put("p999", nsToMs(histogram.getPercentile(0.999)));
+        stats.put("max", nsToMs(totalInvokes > 0 ? histogram.getMax() : -1));
+        stats.put("rate1m", histogram.getRate(1));
+        stats.put("rate5m", histogram.getRate(5));
+        stats.put("rate10m", histogram.getRate(10));
+        return stats;
+    }
+
+    private static double nsToMs(long nanoseconds) {
+        return nanoseconds >= 0 ? nanoseconds / 1000000d : -1;
     }
 
     public String toString() {
+        long totalInvokes = histogram.getCount();
+        long totalTime = histogram.getTotal();
         return "Invocations: " + totalInvokes + " total time: "
                 + StatisticsHandler.formatNsAsMs(totalTime) + " mean: "
-                + StatisticsHandler.formatNsAsMs(totalInvokes > 0 ? totalTime / totalInvokes : -1);
+                + StatisticsHandler.formatNsAsMs(totalInvokes > 0 ? totalTime / totalInvokes : -1)
+                + " p50: " + StatisticsHandler.formatNsAsMs(histogram.getPercentile(0.5))
+                + " p95: " + StatisticsHandler.formatNsAsMs(histogram.getPercentile(0.95))
+                + " p99: " + StatisticsHandler.formatNsAsMs(histogram.getPercentile(0.99))
+                + " p999: " + StatisticsHandler.formatNsAsMs(histogram.getPercentile(0.999))
+                + " max: " + StatisticsHandler.formatNsAsMs(totalInvokes > 0 ? histogram.getMax() : -1);
     }
 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyrighted [year] [name of copyright owner]".
  *
  * Copyright © 2012 ForgeRock AS. All rights reserved.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.smartevent.core;
@@ -19,9 +20,10 @@ package org.forgerock.openidm.smartevent.core;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -56,9 +58,9 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
     Disruptor<DisruptorReferringEventEntry> disruptor;
 
     /**
-     * Keep track of monitoring data per event Name
+     * Keep track of monitoring data per event Name, readable while the events are recorded
      */
-    public Map<String, MonitoringInfo> map = new HashMap<>();
+    public ConcurrentMap<String, MonitoringInfo> map = new ConcurrentHashMap<>();
 
     // Regular statistics logging option
     private ScheduledExecutorService logScheduler;
@@ -137,6 +139,17 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
         return stats;
     }
 
+    /**
+     * @inheritDoc
+     */
+    public Map<String, Map<String, Object>> getLatencies() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (Map.Entry<String, MonitoringInfo> entry : map.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return stats;
+    }
+
     /**
      * @inheritDoc
      */
@@ -255,13 +268,7 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
          * += diff; ++info.totalInvokes;
          */
 
-        MonitoringInfo entry = map.get(eventEntry.eventName.asString());
-        if (entry == null) {
-            entry = new MonitoringInfo();
-            map.put(eventEntry.eventName.asString(), entry);
-        }
-        entry.totalTime += diff;
-        entry.totalInvokes++;
+        getMonitoringInfo(eventEntry.eventName).record(diff);
     }
 
     // TODO: more research on latency of batched end time option
@@ -294,13 +301,7 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
         EventEntryImpl eventEntry = (EventEntryImpl) eventEntryParam;
         long diff = eventEntry.endTime - eventEntry.startTime;
 
-        MonitoringInfo entry = map.get(eventEntry.eventName.asString());
-        if (entry == null) {
-            entry = new MonitoringInfo();
-            map.put(eventEntry.eventName.asString(), entry);
-        }
-        entry.totalTime += diff;
-        entry.totalInvokes++;
+        getMonitoringInfo(eventEntry.eventName).record(diff);
         if (endOfBatch) {
             newBatch = true;
         } else {
@@ -308,6 +309,22 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
         }
     }
 
+    /**
+     * Returns the monitoring data of an event name, creating it on first use
+     */
+    private MonitoringInfo getMonitoringInfo(Name eventName) {
+        String key = eventName.asString();
+        MonitoringInfo entry = map.get(key);
+        if (entry == null) {
+            MonitoringInfo created = new MonitoringInfo();
+            entry = map.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry;
+    }
+
     /**
      * Helper to format nanosecond difference in human readable ms if a negative
      * value is passed, returns "N/A"
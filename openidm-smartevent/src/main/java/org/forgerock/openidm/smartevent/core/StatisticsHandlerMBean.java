@@ -12,6 +12,7 @@
  * information: "Portions Copyrighted [year] [name of copyright owner]".
  *
  * Copyright © 2012 ForgeRock AS. All rights reserved.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.smartevent.core;
@@ -32,6 +33,12 @@ public interface StatisticsHandlerMBean {
      */
     Map<String, String> getTotals();
 
+    /**
+     * @return The latency statistics per event name: invocations, mean, p50, p95, p99, p999 and max durations in
+     *         milliseconds, and rate1m, rate5m and rate10m in events per second over the last complete minutes
+     */
+    Map<String, Map<String, Object>> getLatencies();
+
     /**
      * @return the recent history of events, mapping from start time to the
      *         event detail
@@ -0,0 +1,77 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyrighted [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.smartevent.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        long previousUpperBound = -1;
+        for (int i = 0; i < LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE) + 1; i++) {
+            long upperBound = LatencyHistogram.bucketUpperBound(i);
+            assertThat(LatencyHistogram.bucketIndex(previousUpperBound + 1)).isEqualTo(i);
+            assertThat(LatencyHistogram.bucketIndex(upperBound)).isEqualTo(i);
+            previousUpperBound = upperBound;
+        }
+        assertThat(previousUpperBound).isEqualTo(LatencyHistogram.MAX_TRACKABLE);
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE))
+                .isEqualTo(LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE));
+    }
+
+    @Test
+    public void testPercentilesAreWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getPercentile(0.5)).isEqualTo(-1);
+
+        // 1ms to 1000ms
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1000000000L);
+        assertThat((double) histogram.getPercentile(0.5)).isCloseTo(500000000d, within(500000000d * 0.07));
+        assertThat((double) histogram.getPercentile(0.99)).isCloseTo(990000000d, within(990000000d * 0.07));
+        assertThat(histogram.getPercentile(1)).isEqualTo(1000000000L);
+
+        histogram.reset();
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getPercentile(0.5)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRateIsCountedOverCompleteMinutes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long minute = 60000L;
+        long start = 1000 * minute;
+        for (int i = 0; i < 120; i++) {
+            histogram.record(1000, start + i * 500);
+        }
+        // 120 events in the first minute
+        assertThat(histogram.getRate(1, start + minute)).isEqualTo(2d);
+        assertThat(histogram.getRate(5, start + minute)).isEqualTo(120 / 300d);
+        // The current minute is not counted
+        assertThat(histogram.getRate(1, start + 30000)).isEqualTo(0d);
+        // Slots are reused after the tracked minutes
+        histogram.record(1000, start + LatencyHistogram.RATE_MINUTES * minute);
+        assertThat(histogram.getRate(1, start + (LatencyHistogram.RATE_MINUTES + 1) * minute)).isEqualTo(1 / 60d);
+    }
+}
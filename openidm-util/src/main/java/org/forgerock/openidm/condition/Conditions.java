@@ -15,6 +15,9 @@
  */
 package org.forgerock.openidm.condition;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.QueryFilters;
 import org.forgerock.openidm.util.Scripts;
@@ -27,9 +30,19 @@ public class Conditions {
 
     private static final TrueCondition TRUE_CONDITION = new TrueCondition();
 
+    /** The maximum number of filter conditions kept in the cache */
+    static final int MAX_CACHED_FILTER_CONDITIONS = 1024;
+
+    /**
+     * The compiled filter conditions, by filter string. Conditions are evaluated against many objects, and some
+     * callers, like the conditional role scripts, create the same conditions over and over again.
+     */
+    private static final ConcurrentMap<String, Condition> filterConditions = new ConcurrentHashMap<>();
+
     /**
      * Creates a new {@link Condition} object based on the supplied configuration.  Currently a condition configuration
-     * can represent a filter string or a script configuration.
+     * can represent a filter string or a script configuration.  The conditions created from a filter string are
+     * compiled once, and shared by the callers creating a condition from the same filter string.
      *
      * @param config An Object representing a condition configuration.
      * @return a Condition object
@@ -39,10 +52,25 @@ public class Conditions {
         if (jsonConfig.isNull()) {
             return TRUE_CONDITION;
         } else if (jsonConfig.isString()) {
-            return new QueryFilterCondition(QueryFilters.parse(jsonConfig.asString()));
+            return newFilterCondition(jsonConfig.asString());
         } else {
             return new ScriptedCondition(Scripts.newScript(jsonConfig));
         }
     }
 
+    private static Condition newFilterCondition(String filter) {
+        Condition condition = filterConditions.get(filter);
+        if (condition == null) {
+            condition = new QueryFilterCondition(QueryFilters.parse(filter));
+            // stop caching rather than evicting, conditions built from request data should not fill the cache
+            if (filterConditions.size() < MAX_CACHED_FILTER_CONDITIONS) {
+                final Condition existing = filterConditions.putIfAbsent(filter, condition);
+                if (existing != null) {
+                    condition = existing;
+                }
+            }
+        }
+        return condition;
+    }
+
 }
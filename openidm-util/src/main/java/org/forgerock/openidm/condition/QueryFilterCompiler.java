@@ -0,0 +1,417 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Portions Copyrighted 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.filter.JsonValueFilterVisitor;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * Compiles a {@link QueryFilter} into a tree of {@link CompiledFilter}s, which match JsonValue objects with the
+ * semantics of the {@link JsonValueFilterVisitor} without visiting the query filter again.
+ * <p>
+ * The value assertions are typed when the filter is compiled, the string assertions of the {@code co} and
+ * {@code sw} operators are lower-cased once, literal operands of {@code and} and {@code or} are folded, and the
+ * remaining operands are ordered so that the cheaper ones are evaluated, and may short-circuit, first. The
+ * compiled filters are immutable and may be shared between threads.
+ */
+final class QueryFilterCompiler implements QueryFilterVisitor<QueryFilterCompiler.CompiledFilter, Void, JsonPointer> {
+
+    /**
+     * A compiled query filter.
+     */
+    interface CompiledFilter {
+
+        /**
+         * Matches an object against the filter.
+         *
+         * @param object the object to match
+         * @return true if the object matches the filter
+         */
+        boolean matches(JsonValue object);
+
+        /**
+         * Returns the relative cost of evaluating the filter, used to order the operands of composite filters.
+         *
+         * @return the relative cost of evaluating the filter
+         */
+        int cost();
+    }
+
+    private static final QueryFilterCompiler INSTANCE = new QueryFilterCompiler();
+
+    private static final CompiledFilter TRUE = new Literal(true);
+    private static final CompiledFilter FALSE = new Literal(false);
+
+    private static final Comparator<CompiledFilter> BY_COST = new Comparator<CompiledFilter>() {
+        @Override
+        public int compare(CompiledFilter left, CompiledFilter right) {
+            return Integer.compare(left.cost(), right.cost());
+        }
+    };
+
+    /** The operators comparing field values with a value assertion */
+    private enum Operator {
+        EQ, GT, GE, LT, LE, CO, SW
+    }
+
+    private QueryFilterCompiler() {
+        // use compile
+    }
+
+    /**
+     * Compiles a query filter.
+     *
+     * @param queryFilter the query filter
+     * @return the compiled filter
+     */
+    static CompiledFilter compile(QueryFilter<JsonPointer> queryFilter) {
+        return queryFilter == null ? FALSE : queryFilter.accept(INSTANCE, null);
+    }
+
+    @Override
+    public CompiledFilter visitAndFilter(Void p, List<QueryFilter<JsonPointer>> subFilters) {
+        final List<CompiledFilter> operands = new ArrayList<>(subFilters.size());
+        for (QueryFilter<JsonPointer> subFilter : subFilters) {
+            final CompiledFilter operand = subFilter.accept(this, p);
+            if (operand == FALSE) {
+                return FALSE;
+            } else if (operand != TRUE) {
+                operands.add(operand);
+            }
+        }
+        return operands.isEmpty() ? TRUE : composite(operands, true);
+    }
+
+    @Override
+    public CompiledFilter visitOrFilter(Void p, List<QueryFilter<JsonPointer>> subFilters) {
+        final List<CompiledFilter> operands = new ArrayList<>(subFilters.size());
+        for (QueryFilter<JsonPointer> subFilter : subFilters) {
+            final CompiledFilter operand = subFilter.accept(this, p);
+            if (operand == TRUE) {
+                return TRUE;
+            } else if (operand != FALSE) {
+                operands.add(operand);
+            }
+        }
+        return operands.isEmpty() ? FALSE : composite(operands, false);
+    }
+
+    private static CompiledFilter composite(List<CompiledFilter> operands, boolean and) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        // the operands have no side effects, so the order of their evaluation does not change the result
+        Collections.sort(operands, BY_COST);
+        return new Composite(operands.toArray(new CompiledFilter[operands.size()]), and);
+    }
+
+    @Override
+    public CompiledFilter visitNotFilter(Void p, QueryFilter<JsonPointer> subFilter) {
+        final CompiledFilter operand = subFilter.accept(this, p);
+        if (operand == TRUE) {
+            return FALSE;
+        } else if (operand == FALSE) {
+            return TRUE;
+        } else if (operand instanceof Not) {
+            return ((Not) operand).operand;
+        }
+        return new Not(operand);
+    }
+
+    @Override
+    public CompiledFilter visitBooleanLiteralFilter(Void p, boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    @Override
+    public CompiledFilter visitPresentFilter(Void p, JsonPointer field) {
+        return new Present(field);
+    }
+
+    @Override
+    public CompiledFilter visitExtendedMatchFilter(Void p, JsonPointer field, String matchingRuleId,
+            Object valueAssertion) {
+        // Extended filters are not supported
+        return FALSE;
+    }
+
+    @Override
+    public CompiledFilter visitEqualsFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.EQ, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitGreaterThanFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.GT, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitGreaterThanOrEqualToFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.GE, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitLessThanFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.LT, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitLessThanOrEqualToFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.LE, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitContainsFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.CO, valueAssertion);
+    }
+
+    @Override
+    public CompiledFilter visitStartsWithFilter(Void p, JsonPointer field, Object valueAssertion) {
+        return comparison(field, Operator.SW, valueAssertion);
+    }
+
+    private static CompiledFilter comparison(JsonPointer field, Operator operator, Object valueAssertion) {
+        if (valueAssertion instanceof String) {
+            return new StringComparison(field, operator, (String) valueAssertion);
+        } else if (valueAssertion instanceof Number) {
+            return new NumberComparison(field, operator, ((Number) valueAssertion).doubleValue());
+        } else if (valueAssertion instanceof Boolean) {
+            return new BooleanComparison(field, operator, (Boolean) valueAssertion);
+        }
+        // no field value is comparable with the assertion
+        return FALSE;
+    }
+
+    /**
+     * Returns whether the result of comparing a field value with the assertion satisfies the operator. The
+     * {@code co} and {@code sw} operators use equality matching for numbers and booleans.
+     */
+    private static boolean satisfies(Operator operator, int comparison) {
+        switch (operator) {
+        case GT:
+            return comparison > 0;
+        case GE:
+            return comparison >= 0;
+        case LT:
+            return comparison < 0;
+        case LE:
+            return comparison <= 0;
+        default:
+            return comparison == 0;
+        }
+    }
+
+    private static final class Literal implements CompiledFilter {
+        private final boolean value;
+
+        private Literal(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(JsonValue object) {
+            return value;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    }
+
+    private static final class Composite implements CompiledFilter {
+        private final CompiledFilter[] operands;
+        private final boolean and;
+        private final int cost;
+
+        private Composite(CompiledFilter[] operands, boolean and) {
+            this.operands = operands;
+            this.and = and;
+            int sum = 0;
+            for (CompiledFilter operand : operands) {
+                sum += operand.cost();
+            }
+            this.cost = sum;
+        }
+
+        @Override
+        public boolean matches(JsonValue object) {
+            // and returns on the first false operand, or on the first true one
+            for (CompiledFilter operand : operands) {
+                if (operand.matches(object) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    private static final class Not implements CompiledFilter {
+        private final CompiledFilter operand;
+
+        private Not(CompiledFilter operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean matches(JsonValue object) {
+            return !operand.matches(object);
+        }
+
+        @Override
+        public int cost() {
+            return operand.cost();
+        }
+    }
+
+    private static final class Present implements CompiledFilter {
+        private final JsonPointer field;
+
+        private Present(JsonPointer field) {
+            this.field = field;
+        }
+
+        @Override
+        public boolean matches(JsonValue object) {
+            final JsonValue value = object.get(field);
+            return value != null && !value.isNull();
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+    }
+
+    /**
+     * A comparison of the values of a field with a typed value assertion. A field holding a list matches if one
+     * of its elements matches, and values of another type than the assertion never match.
+     */
+    private abstract static class Comparison implements CompiledFilter {
+        private final JsonPointer field;
+        final Operator operator;
+
+        private Comparison(JsonPointer field, Operator operator) {
+            this.field = field;
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean matches(JsonValue object) {
+            final JsonValue value = object.get(field);
+            if (value == null) {
+                return false;
+            } else if (value.isList()) {
+                for (Object element : value.asList()) {
+                    if (matchesValue(element)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return matchesValue(value.getObject());
+        }
+
+        /**
+         * Matches a single field value against the assertion.
+         *
+         * @param value the field value, which may be null
+         * @return true if the value matches the assertion
+         */
+        abstract boolean matchesValue(Object value);
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+    }
+
+    private static final class StringComparison extends Comparison {
+        private final String assertion;
+        private final String lowerCaseAssertion;
+
+        private StringComparison(JsonPointer field, Operator operator, String assertion) {
+            super(field, operator);
+            this.assertion = assertion;
+            this.lowerCaseAssertion = assertion.toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+            switch (operator) {
+            case CO:
+                return ((String) value).toLowerCase(Locale.ENGLISH).contains(lowerCaseAssertion);
+            case SW:
+                return ((String) value).toLowerCase(Locale.ENGLISH).startsWith(lowerCaseAssertion);
+            default:
+                return satisfies(operator, ((String) value).compareToIgnoreCase(assertion));
+            }
+        }
+
+        @Override
+        public int cost() {
+            // case-insensitive matching lower-cases the field value
+            return operator == Operator.CO || operator == Operator.SW ? 3 : 2;
+        }
+    }
+
+    private static final class NumberComparison extends Comparison {
+        private final double assertion;
+
+        private NumberComparison(JsonPointer field, Operator operator, double assertion) {
+            super(field, operator);
+            this.assertion = assertion;
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            return value instanceof Number
+                    && satisfies(operator, Double.compare(((Number) value).doubleValue(), assertion));
+        }
+    }
+
+    private static final class BooleanComparison extends Comparison {
+        private final boolean assertion;
+
+        private BooleanComparison(JsonPointer field, Operator operator, boolean assertion) {
+            super(field, operator);
+            this.assertion = assertion;
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            return value instanceof Boolean
+                    && satisfies(operator, Boolean.compare((Boolean) value, assertion));
+        }
+    }
+}
@@ -18,18 +18,20 @@ package org.forgerock.openidm.condition;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
-import org.forgerock.openidm.filter.JsonValueFilterVisitor;
+import org.forgerock.openidm.condition.QueryFilterCompiler.CompiledFilter;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.query.QueryFilter;
 
 /**
  * A Condition evaluated as a QueryFilter.
+ * <p>
+ * The query filter is compiled once, when the condition is constructed, so the condition is immutable and may be
+ * evaluated concurrently.
  */
 class QueryFilterCondition implements Condition {
-    private static final JsonValueFilterVisitor JSONVALUE_FILTER_VISITOR = new JsonValueFilterVisitor();
 
-    /** the query filter to evaluate */
-    private final QueryFilter<JsonPointer> queryFilter;
+    /** the compiled query filter to evaluate */
+    private final CompiledFilter compiledFilter;
 
     /**
      * Construct the condition from a query filter.
@@ -37,13 +39,11 @@ class QueryFilterCondition implements Condition {
      * @param queryFilter the query filter to evaluate
      */
     QueryFilterCondition(QueryFilter<JsonPointer> queryFilter) {
-        this.queryFilter = queryFilter;
+        this.compiledFilter = QueryFilterCompiler.compile(queryFilter);
     }
 
     @Override
     public boolean evaluate(Object content, Context context) throws JsonValueException {
-        return queryFilter == null
-                ? false
-                : queryFilter.accept(JSONVALUE_FILTER_VISITOR, new JsonValue(content));
+        return compiledFilter.matches(content instanceof JsonValue ? (JsonValue) content : new JsonValue(content));
     }
 }
@@ -23,10 +23,12 @@
  *
  *      Copyright 2006-2008 Sun Microsystems, Inc.
  *      Portions Copyright 2010-2015 ForgeRock AS.
+ *      Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.crypto;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -54,19 +56,34 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
     private static final int NUM_SALT_BYTES = 16;
 
     /**
-     * The message digest that will actually be used to generate the hashes.
+     * The algorithm of the message digests that will actually be used to generate the hashes.
      */
-    private MessageDigest messageDigest;
+    private final String algorithm;
 
-    /** 
-     * The lock used to provide thread safe access to the message digest. 
+    /**
+     * The message digest of each thread, so that concurrent hashes do not wait for one another.
      */
-    private Object digestLock;
+    private final ThreadLocal<MessageDigest> messageDigest = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                // Checked by the constructor
+                throw new IllegalStateException(e);
+            }
+        }
+    };
 
     /** 
-     * The secure random number generator to use to generate the salt values. 
+     * The secure random number generator of each thread to use to generate the salt values. 
      */
-    private SecureRandom random;
+    private final ThreadLocal<SecureRandom> random = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
 
     /** 
      * Size of the digest in bytes.
@@ -81,9 +98,9 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
      * @throws Exception
      */
     public FieldStorageSchemeImpl(int digestSize, String algorithm) throws Exception {
-        this.messageDigest = MessageDigest.getInstance(algorithm);
-        this.digestLock = new Object();
-        this.random     = new SecureRandom();
+        // Fail early if the algorithm is not available
+        MessageDigest.getInstance(algorithm);
+        this.algorithm = algorithm;
         this.digestSize = digestSize;
     }
 
@@ -96,20 +113,18 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
         System.arraycopy(plaintext.getBytes(),0, plainPlusSalt, 0, plainBytesLength);
         byte[] digestBytes;
 
-        synchronized (digestLock) {
-            try {
-                // Generate the salt and put in the plain+salt array.
-                random.nextBytes(saltBytes);
-                System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
-
-                // Create the hash from the concatenated value.
-                digestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field: " + e.getMessage(), e);
-                throw e;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            // Generate the salt and put in the plain+salt array.
+            random.get().nextBytes(saltBytes);
+            System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
+
+            // Create the hash from the concatenated value.
+            digestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field: " + e.getMessage(), e);
+            throw e;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         // Append the salt to the hashed value and base64-the whole thing.
@@ -154,15 +169,13 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
         byte[] userDigestBytes;
 
-        synchronized (digestLock) {
-            try {
-                userDigestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field", storedField, e);
-                return false;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            userDigestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field", storedField, e);
+            return false;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         return Arrays.equals(digestBytes, userDigestBytes);
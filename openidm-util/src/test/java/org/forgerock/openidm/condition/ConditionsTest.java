@@ -16,12 +16,15 @@
 package org.forgerock.openidm.condition;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.openidm.filter.JsonValueFilterVisitor;
 import org.forgerock.services.context.RootContext;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -42,7 +45,8 @@ public class ConditionsTest {
                 field("age", 1234L),
                 field("balance", 3.14159),
                 field("isAdmin", false),
-                field("nullVal", null))
+                field("nullVal", null),
+                field("roles", array("Admin", "user", 7L)))
             ),
             field("linkQualifier", "test")));
 
@@ -75,7 +79,26 @@ public class ConditionsTest {
                 { "/object/age gt 1000 and /object/age lt 1300", true },
                 { "/object/age ne 1234", false },
                 { "/linkQualifier eq \"test\"", true },
-                { "/linkQualifier eq \"fail\"", false }
+                { "/linkQualifier eq \"fail\"", false },
+                { "/object/name eq \"ALICE\"", true },
+                { "/object/name sw \"AL\"", true },
+                { "/object/name co \"LIC\"", true },
+                { "/object/name eq 1234", false },
+                { "/object/age eq \"1234\"", false },
+                { "/object/age eq 1234.0", true },
+                { "/object/isAdmin lt true", true },
+                { "/object/roles eq \"admin\"", true },
+                { "/object/roles eq 7", true },
+                { "/object/roles sw \"us\"", true },
+                { "/object/roles eq \"guest\"", false },
+                { "/object/nullVal eq \"alice\"", false },
+                { "!(/object/name eq \"alice\")", false },
+                { "!(!(/object/name eq \"alice\"))", true },
+                { "true", true },
+                { "false", false },
+                { "/object/name eq \"alice\" and true", true },
+                { "/object/name eq \"bob\" or true", true },
+                { "(/object/name co \"z\" or /object/age pr) and !(/object/missing pr)", true }
                 // @formatter:on
         };
     }
@@ -84,4 +107,18 @@ public class ConditionsTest {
     public void testEvaluateCondition(String filter, Boolean state) throws JsonValueException {
         assertThat(Conditions.newCondition(json(filter)).evaluate(testObject, new RootContext())).isEqualTo(state);
     }
+
+    @Test(dataProvider = "filterData")
+    public void testCompiledFilterMatchesVisitor(String filter, Boolean state) throws JsonValueException {
+        assertThat(QueryFilters.parse(filter).accept(new JsonValueFilterVisitor(), testObject)).isEqualTo(state);
+        assertThat(new QueryFilterCondition(QueryFilters.parse(filter)).evaluate(testObject.getObject(), null))
+                .isEqualTo(state);
+    }
+
+    @Test
+    public void testFilterConditionsAreCached() {
+        final Condition condition = Conditions.newCondition("/object/name eq \"carol\"");
+        assertThat(Conditions.newCondition(json("/object/name eq \"carol\""))).isSameAs(condition);
+        assertThat(Conditions.newCondition("/object/name eq \"dave\"")).isNotSameAs(condition);
+    }
 }
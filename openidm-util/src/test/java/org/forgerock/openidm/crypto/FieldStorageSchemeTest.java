@@ -18,6 +18,13 @@ package org.forgerock.openidm.crypto;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -50,4 +57,49 @@ public class FieldStorageSchemeTest {
         assertThat(fieldStorageScheme.fieldMatches(testField, hashedField)).isTrue();
         assertThat(fieldStorageScheme.fieldMatches(testField + " ", hashedField)).isFalse();
     }
+
+    @DataProvider
+    public Object[][] shaSchemes() throws Exception {
+        return new Object[][] {
+                { "SHA-256", new SaltedSHA256FieldStorageScheme() },
+                { "SHA-384", new SaltedSHA384FieldStorageScheme() },
+                { "SHA-512", new SaltedSHA512FieldStorageScheme() }
+        };
+    }
+
+    /**
+     * Hashes and matches from 1 to 64 threads sharing one scheme, checking that every hash matches its own field
+     * and no other.
+     */
+    @Test(dataProvider = "shaSchemes")
+    public void testConcurrentHashing(String name, final FieldStorageScheme fieldStorageScheme) throws Exception {
+        final int operationsPerThread = 500;
+        for (int threads = 1; threads <= 64; threads *= 4) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<Boolean>> tasks = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    final String testField = "valueToHash" + t;
+                    tasks.add(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            for (int i = 0; i < operationsPerThread; i++) {
+                                String hashedField = fieldStorageScheme.hashField(testField);
+                                if (!fieldStorageScheme.fieldMatches(testField, hashedField)
+                                        || fieldStorageScheme.fieldMatches(testField + " ", hashedField)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        }
+                    });
+                }
+                for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                    assertThat(result.get()).as(name + " with " + threads + " threads").isTrue();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
 }
@@ -12,13 +12,15 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 
 /**
  * Module which updates conditional role grants for created/updated users/roles. Note that existing grants should
- * be preserved across any changes - change logic should only add-to/remove existing grants. And this logic works
- * by modifying the members array of the role, or the roles array of the user - it does not invoke openidm to mutate roles.
+ * be preserved across any changes - change logic should only add-to/remove existing grants. The conditions are evaluated
+ * by the conditional role service: user grants are updated by modifying the roles array of the user, and the grants
+ * resulting from a role condition change are updated by a background job of the service.
  */
 (function () {
     var _ = require('lib/lodash');
@@ -26,17 +28,23 @@
 
     /**
      * This function will be called for the onCreate and onUpdate triggers for managed users. It must determine which
-     * conditional role grants will be preserved/applied-to/removed-from the given user.
+     * conditional role grants will be preserved/applied-to/removed-from the given user. The conditions are evaluated
+     * by the conditional role service, which only evaluates the roles whose conditions reference an attribute
+     * changed by an update.
      * @param user the newly-created, or updated, user
      * @param rolesPropName the name of the array in the user referencing the user's roles
+     * @param oldUser the user before the update, or undefined for a newly-created user
      */
-    exports.updateConditionalGrantsForUser = function(user, rolesPropName) {
-        var userRoleGrants,
-            existingConditionalRoles;
-
-        userRoleGrants = relationshipHelper.getConditionalAndDirectGrants(user, rolesPropName, 'user');
-        existingConditionalRoles = relationshipHelper.getConditionalRoles();
-        this.evaluateConditionalRoles(user, rolesPropName, existingConditionalRoles, userRoleGrants);
+    exports.updateConditionalGrantsForUser = function(user, rolesPropName, oldUser) {
+        var userRoleGrants = relationshipHelper.getConditionalAndDirectGrants(user, rolesPropName, 'user');
+
+        user[rolesPropName] = openidm.action('conditionalroles', 'evaluateUser', {
+            'user' : user,
+            'oldUser' : isNil(oldUser) ? null : oldUser,
+            'rolesProperty' : rolesPropName,
+            'directGrants' : userRoleGrants.directGrants,
+            'conditionalGrants' : userRoleGrants.conditionalGrants
+        }).grants;
     };
 
     /**
@@ -93,8 +101,8 @@
     }
 
     /**
-     * This function will be called on onUpdate for roles. The logic below will update any conditional role
-     * grant changes resulting from the conditional role change.
+     * This function will be called on onUpdate for roles. The conditional role grant changes resulting from a change
+     * of the role condition are processed by the conditional role service once the role is updated.
      * @param oldRole the previous role
      * @param newRole the updated role
      */
@@ -106,21 +114,11 @@
         if (isTemporalConstraintsMultiValue(newRole)) {
             throw {code : 400, message: "Only 1 temporal constraint is supported per role."}
         }
-        /*
-         Only iterate through all of the users if we are dealing with a conditional role, and if the
-         role condition has changed. And if the role's condition has been removed, the new role grantees will be only
-         those members who previously enjoyed a direct grant.
-         */
-        if (relationshipHelper.isRoleConditional(newRole) && hasRoleConditionChanged(oldRole, newRole)) {
-            newRole.members = processUpdatedConditionalRole(oldRole, newRole);
-        } else if (relationshipHelper.isRoleConditional(oldRole) && !relationshipHelper.isRoleConditional(newRole)) {
-            newRole.members = processRoleConditionRemoval(oldRole);
-        }
     }
 
     /**
-     * Invoked when a role is created. This function will update the members array with user references which enjoy the
-     * role.
+     * Invoked when a role is created. The members which enjoy a conditional role are granted the role by the
+     * conditional role service once the role is created.
      * @param newRole the newly-created role
      */
     exports.roleCreate = function(newRole) {
@@ -131,89 +129,22 @@
         if (isTemporalConstraintsMultiValue(newRole)) {
             throw {code : 400, message: "Only 1 temporal constraint is supported per role."}
         }
-        if (relationshipHelper.isRoleConditional(newRole)) {
-            newRole.members = processCreatedConditionalRole(newRole);
-        }
-    }
-
-    /**
-     * This function will be called when a role's condition is removed. It will return only those
-     * @param newRole
-     */
-    function processRoleConditionRemoval(oldRole) {
-        return relationshipHelper.getConditionalAndDirectGrants(oldRole, 'members', 'role').directGrants;
-    }
-
-    /**
-     * This method will constitute the set of users which satisfy the role condition.
-     * @param role the newly-created conditional role
-     * @returns {Array} user references which satisfy the role condition
-     */
-    function processCreatedConditionalRole(role) {
-        var existingGrants = relationshipHelper.getConditionalAndDirectGrants(role, 'members', 'role'),
-            currentConditionalGrants,
-            roleMembers = [];
-
-        currentConditionalGrants = existingGrants.conditionalGrants;
-        roleMembers = roleMembers.concat(existingGrants.directGrants);
-
-        currentConditionalGrants = processUserSet(role.condition, currentConditionalGrants, appendConditionalGrants);
-        roleMembers = roleMembers.concat(currentConditionalGrants);
-        return roleMembers;
-    }
-
-    /**
-     * This function handles an update to a conditional role's condition (which includes the addition of a condition to
-     * a non-conditional role).
-     * This function will return the updated role member set. This set will be constituted as follows:
-     * 1. it will include the existing, direct role members
-     * 2. the existing, conditional role members will be mutated as follows:
-     *      a. the users who satisfied the old condition, but do not satisfy the new condition, will be removed.
-     *      b. the users who did not satisfy the old condition, but do satisfy the new condition, will be added.
-     * @param oldRole the old role
-     * @param newRole the updated role
-     * @returns {Array} the current set of role members
-     */
-    function processUpdatedConditionalRole(oldRole, newRole) {
-        var existingMembers = relationshipHelper.getConditionalAndDirectGrants(newRole, 'members', 'role'),
-            currentConditionalGrants,
-            roleGainersQuery,
-            roleLosersQuery,
-            roleMembers = [];
-
-        currentConditionalGrants = existingMembers.conditionalGrants;
-        roleMembers = roleMembers.concat(existingMembers.directGrants);
-
-        roleGainersQuery = combineAndNotFirstCondition(oldRole.condition, newRole.condition);
-        roleLosersQuery  = combineAndNotFirstCondition(newRole.condition, oldRole.condition);
-
-        currentConditionalGrants = processUserSet(roleLosersQuery, currentConditionalGrants, filterConditionalGrants);
-        currentConditionalGrants = processUserSet(roleGainersQuery, currentConditionalGrants, appendConditionalGrants);
-
-        return roleMembers.concat(currentConditionalGrants);
     }
 
     /**
-     * A method to combine conditions so that role updates can generate the query to determine the users which have
-     * gained, or lost, a given role grant in an updated conditional role.
-     * @param firstCondition a condition which will be negated and 'anded' with the second condition. Can be null
-     * @param secondCondition a condition which will be 'anded with the negated first condition. Can be null.
-     * @returns {*} a string which is the combination of the negated first condition, 'anded' with the second condition.
+     * This function will be called after a role is created, updated, or deleted. It updates the conditional roles of
+     * the conditional role service and, if the role condition has changed, starts the background job which grants
+     * the role to the users who gained it and revokes it from the users who lost it. The members of the role are
+     * updated once the job is complete.
+     * @param oldRole the previous role, or undefined for a newly-created role
+     * @param newRole the created, or updated, role, or undefined for a deleted role
+     * @returns {*} the summary of the job, or an empty object if the role condition has not changed
      */
-    function combineAndNotFirstCondition(firstCondition, secondCondition) {
-        if (!isNil(firstCondition)) {
-            if (!isNil(secondCondition)) {
-                return '! (' + firstCondition + ') and ' + secondCondition;
-            } else {
-                return '! (' + firstCondition + ')';
-            }
-        } else {
-            if (!isNil(secondCondition)) {
-                return secondCondition;
-            } else {
-                throw {'error: ' : 'IllegalState: both conditions passed to combineAndNotSecondCondition nil!'};
-            }
-        }
+    exports.roleChanged = function(oldRole, newRole) {
+        return openidm.action('conditionalroles', 'roleChanged', {
+            'oldRole' : isNil(oldRole) ? null : oldRole,
+            'newRole' : isNil(newRole) ? null : newRole
+        });
     }
 
     // _.isNil is not defined in our version of lodash
@@ -221,62 +152,6 @@
         return object === undefined || object === null;
     }
 
-    /**
-     * This method will iterate through a user-set satisfying a condition, and apply a function to mutate the list of
-     * conditional role members.
-     * @param query the query which will generate the list of users who satisfy a new role condition, or have gained
-     * or lost an updated role condition
-     * @param currentConditionalMembers the current set of conditional role members
-     * @param callbackFunction a function which takes a list of users, and the list of current conditional grants
-     * @returns {*} the currentConditionalMembers array, as updated by the callbackFunction
-     */
-    function processUserSet(query, currentConditionalMembers, callbackFunction) {
-        var pageSize = 500,
-            queryResult,
-            pagedResultsCookie;
-
-        pagedResultsCookie = "";
-        do {
-            queryResult = getUserSet(query, pageSize, pagedResultsCookie);
-            pagedResultsCookie = queryResult._pagedResultsCookie;
-            currentConditionalMembers = callbackFunction(queryResult.result, currentConditionalMembers);
-
-        } while (pagedResultsCookie);
-        return currentConditionalMembers;
-    }
-
-    /**
-     * Removes those elements from a set of role grants which correspond to user entries in the roleLosers array.
-     * @param roleLosers the array of user objects which have lost the role grant
-     * @param currentConditionalGrants the set of grant objects currently associated with the role
-     * @returns {*} the currentConditionalGrants array with the roleLosers removed.
-     */
-    function filterConditionalGrants(roleLosers, currentConditionalGrants) {
-        return _(currentConditionalGrants)
-            .reject(function (currentGrant) {
-                return _.find(roleLosers, function (roleLoser) {return 'managed/user/' + roleLoser._id === currentGrant._ref;}) !== undefined;
-            })
-            .value();
-    }
-
-    /**
-     * Adds role grant entries to the currentConditionalGrants array corresponding to users which have gained the role grant.
-     * @param roleGainers An array of users which have gained the role grant
-     * @param currentConditionalGrants the current set of conditional role grants associated with the role
-     * @returns {Array.<T>|string|*} the currentConditionalGrants array with the added role grants
-     */
-    function appendConditionalGrants(roleGainers, currentConditionalGrants) {
-        return currentConditionalGrants.concat(
-            _(roleGainers)
-                .map(function(roleGainer) {
-                    return {
-                        '_ref': 'managed/user/' + roleGainer._id, '_refProperties': {'_grantType' : 'conditional'}
-                    };
-                })
-                .value()
-        );
-    }
-
     exports.isTemporalConstraintsMultiValue = isTemporalConstraintsMultiValue
     /**
      * Determines if a role has more than one temporal constraint.
@@ -289,26 +164,4 @@
             return role.temporalConstraints.length > 1;
         }
     }
-
-    /**
-     * Determines if a role's condition has changed
-     * @param oldRole the old role
-     * @param newRole the new role
-     * @returns {boolean} true if the role condition has changed
-     */
-    function hasRoleConditionChanged(oldRole, newRole) {
-        return !_.isEqual(oldRole.condition, newRole.condition);
-    }
-
-    /**
-     * Queries for the set of users satisfying a condition parameter
-     * @param condition the queryFilter condition
-     * @param pageSize the size of the result set
-     * @param pagedResultsCookie used to track paging through a large result-set
-     * @returns {*|{type, title, properties}|{queryFilter, fields, sortKeys}} the queryResults
-     */
-    function getUserSet(condition, pageSize, pagedResultsCookie)  {
-        return openidm.query('managed/user', {'_queryFilter' : condition, '_pageSize' : pageSize,
-                                                '_pagedResultsCookie' : pagedResultsCookie})
-    }
 }());
\ No newline at end of file
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 /**
@@ -41,21 +42,9 @@
 
         roleGrants = relationshipHelper.getGrants(object, "roles", "user");
 
-        // Filter roles by temporal constraints defined on the grant
-        roleGrants = roleGrants.filter(function(grant) {
-            var properties = grant._refProperties;
-            return properties !== undefined
-                    ? processConstraints(grant._refProperties)
-                    : true;
-        });
-
-        effectiveRoles = roleGrants.map(function(role) { return { "_ref" : role._ref }; });
-
-        // Filter roles by temporal constraints defined on the role
-        effectiveRoles = effectiveRoles.filter(function(roleRelationship) {
-            var role = openidm.read(roleRelationship._ref);
-            return processConstraints(role);
-         });
+        // The temporal constraints of the grants and of the roles are evaluated by the effective roles service,
+        // which keeps the roles in memory instead of reading each of them
+        effectiveRoles = openidm.action("effectiveroles", "effectiveRoles", { "grants" : roleGrants }).effectiveRoles;
 
         // This is the location to expand to dynamic roles,
         // project role script return values can then be added via
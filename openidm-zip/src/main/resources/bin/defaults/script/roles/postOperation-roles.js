@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyrighted 2026 3A Systems LLC.
  */
 
 /**
@@ -360,6 +361,8 @@ if (resourceName.startsWith('managed/role/')) {
     manageTemporalConstraintJobsForRoles();
     // manage the temporal constraints defined in the grants
     manageTemporalConstraintJobsForGrants("members");
+    // update the conditional grants of the role if its condition has changed
+    require('roles/conditionalRoles').roleChanged(oldObject, newObject);
 } else if (resourceName.startsWith('managed/user/')) {
     // manage the temporal constraints defined in the grants
     manageTemporalConstraintJobsForGrants("roles");
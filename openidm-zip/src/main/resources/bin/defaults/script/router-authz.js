@@ -444,6 +444,17 @@ function passesAccessConfig(id, roles, method, action) {
     return false;
 }
 
+function passesCustomAuthz(expressions) {
+    var i;
+
+    for (i = 0; i < expressions.length; i++) {
+        if (eval(String(expressions[i]))) {
+            return true;
+        }
+    }
+    return false;
+}
+
 function isSelfServiceRequest() {
     return (context.current.name === "selfservice");
 }
@@ -476,6 +487,12 @@ function allow() {
     var roles,
         action;
 
+    // the authorization filter has already matched the access rules, leaving the customAuthz expressions it could
+    // not evaluate
+    if (typeof customAuthzExpressions !== 'undefined' && customAuthzExpressions !== null) {
+        return passesCustomAuthz(customAuthzExpressions);
+    }
+
     roles = context.security.authorization.roles;
     action = "";
     if (request.action) {